@@ -4,31 +4,68 @@ import com.sun.org.apache.xpath.internal.operations.String;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * See the specification for information about what the different visit
  * methods should do.
+ *
+ * Expressions are analyzed by {@link #analyze(Ast.Expr)} with an explicit
+ * stack, so the nesting depth of an expression is limited by the heap rather
+ * than the Java stack.
  */
 public final class Analyzer implements Ast.Visitor<Void> {
 
+    private static final int RETURN_VALUE = Symbols.intern("RETURNVALUE");
+
     public Scope scope;
     private Ast.Method method;
+    private TypeRegistry types;
+    private Parallel parallel = null;
+    private final Set<Environment.Function> methods = Collections.newSetFromMap(new IdentityHashMap<>());
 
     public Analyzer(Scope parent) {
+        this(parent, Environment.getRegistry());
+    }
+
+    /**
+     * Creates an analyzer resolving type names in an overlay of the given
+     * registry, so types registered with {@link #registerType} are only
+     * visible to this analyzer.
+     */
+    public Analyzer(Scope parent, TypeRegistry registry) {
         scope = new Scope(parent);
+        types = registry.overlay();
         scope.defineFunction("print", "System.out.println", Arrays.asList(Environment.Type.ANY), Environment.Type.NIL, args -> Environment.NIL);
+        scope.defineFunction("range", "range", Arrays.asList(Environment.Type.INTEGER, Environment.Type.INTEGER), Environment.Type.INTEGER_ITERABLE, args -> Environment.create(Range.of(args.toArray(new Environment.PlcObject[0]))));
+        scope.defineFunction("range", "range", Arrays.asList(Environment.Type.INTEGER, Environment.Type.INTEGER, Environment.Type.INTEGER), Environment.Type.INTEGER_ITERABLE, args -> Environment.create(Range.of(args.toArray(new Environment.PlcObject[0]))));
+        PrimitiveList.define(scope);
+        HashTable.define(scope);
+        Buffer.define(scope);
     }
 
     public Scope getScope() {
         return scope;
     }
 
+    public TypeRegistry getTypes() {
+        return types;
+    }
+
+    public void registerType(Environment.Type type) {
+        types = types.with(type);
+    }
+
     @Override
     public Void visit(Ast.Source ast) {
         List<Ast.Method> methods = ast.getMethods();
@@ -38,7 +75,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
             visit(field);
         }
         for(Ast.Method method : methods) {
-            if(method.getName() == "main" &&
+            if(method.getName().equals("main") &&
                method.getParameters().isEmpty()) {
                 foundMain = true;
             }
@@ -55,11 +92,11 @@ public final class Analyzer implements Ast.Visitor<Void> {
         if(ast.getValue().isPresent()) {
             Ast.Expr value = ast.getValue().get();
             visit(value);
-            requireAssignable(value.getType(), Environment.getType(ast.getTypeName()));
+            requireAssignable(types.getType(ast.getTypeName()), value.getType());
         }
         java.lang.String name = ast.getName();
         java.lang.String typeName = ast.getTypeName();
-        scope.defineVariable(name, name, Environment.getType(typeName),Environment.NIL);
+        ast.setVariable(scope.defineVariable(name, name, types.getType(typeName),Environment.NIL));
         return null;
     }
 
@@ -70,25 +107,25 @@ public final class Analyzer implements Ast.Visitor<Void> {
         List<java.lang.String> paraNames = ast.getParameters();
         List<Environment.Type> parameters = new ArrayList<>();
         for(java.lang.String parTypeName : parTypeNames) {
-            parameters.add(Environment.getType(parTypeName));
+            parameters.add(types.getType(parTypeName));
         }
         Environment.Type returns;
         if(ast.getReturnTypeName().isPresent()) {
-            returns = Environment.getType(ast.getReturnTypeName().get());
+            returns = types.getType(ast.getReturnTypeName().get());
         }else{
-            returns = Environment.getType("Nil");
+            returns = types.getType("Nil");
         }
         Function<List<Environment.PlcObject>, Environment.PlcObject> function = (arguments) -> {
             return Environment.NIL;
         };
-        scope.defineFunction(name, name, parameters, returns, function);
+        methods.add(scope.defineFunction(name, name, parameters, returns, function));
         ast.setFunction(scope.lookupFunction(name, parameters.size()));
         try {
             scope = new Scope(scope);
             for (int i = 0; i <= parTypeNames.size() - 1; i ++) {
                 java.lang.String paraName = paraNames.get(i);
                 Environment.Type type = parameters.get(i);
-                scope.defineVariable(paraName, type.getJvmName(), type, Environment.NIL);
+                scope.defineVariable(paraName, paraName, type, Environment.NIL);
             }
             scope.defineVariable("RETURNVALUE", returns.getJvmName(), returns, Environment.NIL);
             List<Ast.Stmt> statements = ast.getStatements();
@@ -116,17 +153,21 @@ public final class Analyzer implements Ast.Visitor<Void> {
         java.lang.String name = ast.getName();
         Environment.Type type;
         if(ast.getTypeName().isPresent()) {
-            type = Environment.getType(ast.getTypeName().get());
+            type = types.getType(ast.getTypeName().get());
+            if(ast.getValue().isPresent()) {
+                Ast.Expr value = ast.getValue().get();
+                visit(value);
+                requireAssignable(type, value.getType());
+            }
         }else if(ast.getValue().isPresent()) {
             Ast.Expr value = ast.getValue().get();
             visit(value);
             type = value.getType();
-            requireAssignable(value.getType(), type);
         }else {
             throw new RuntimeException("Unidentified type");
         }
         scope.defineVariable(name, name, type, Environment.NIL);
-        ast.setVariable(scope.lookupVariable(name));
+        ast.setVariable(scope.lookupVariable(ast.getSymbol()));
         return null;
     }
 
@@ -136,6 +177,9 @@ public final class Analyzer implements Ast.Visitor<Void> {
         if(!(expr instanceof Ast.Expr.Access)) {
             throw new RuntimeException("Not an access expr for assignment");
         }
+        if(parallel != null) {
+            bindReduction((Ast.Expr.Access) expr, ast.getValue());
+        }
         visit(expr);
         Ast.Expr value = ast.getValue();
         visit(value);
@@ -177,21 +221,52 @@ public final class Analyzer implements Ast.Visitor<Void> {
     @Override
     public Void visit(Ast.Stmt.For ast) {
         Ast.Expr value = ast.getValue();
-        requireAssignable(Environment.Type.INTEGER_ITERABLE, value.getType());
+        visit(value);
+        Environment.Type element = getElementType(value.getType());
         java.lang.String variableName = ast.getName();
+        Parallel enclosing = parallel;
         try {
             scope = new Scope(scope);
-            scope.defineVariable(variableName, variableName,Environment.Type.INTEGER_ITERABLE, Environment.NIL);
+            scope.defineVariable(variableName, variableName, element, Environment.NIL);
+            if(ast.isParallel()) {
+                ast.clearBindings();
+                parallel = new Parallel(ast, scope);
+            }
             for(Ast.Stmt stmt : ast.getStatements()) {
                 visit(stmt);
             }
         }finally {
             scope  = scope.getParent();
+            parallel = enclosing;
         }
         return null;
 
     }
 
+    /**
+     * Returns the type of the elements a loop over a value of the given type
+     * visits, which are the keys of a map.
+     */
+    static Environment.Type getElementType(Environment.Type type) {
+        if(type == Environment.Type.INT_LIST) {
+            return Environment.Type.INTEGER;
+        }else if(type == Environment.Type.DECIMAL_LIST) {
+            return Environment.Type.DECIMAL;
+        }else if(type == Environment.Type.BOOLEAN_LIST) {
+            return Environment.Type.BOOLEAN;
+        }else if(type == Environment.Type.STRING_MAP) {
+            return Environment.Type.STRING;
+        }else if(type == Environment.Type.INT_MAP) {
+            return Environment.Type.INTEGER;
+        }else if(type == Environment.Type.INT_BUFFER) {
+            return Environment.Type.INTEGER;
+        }else if(type == Environment.Type.DECIMAL_BUFFER) {
+            return Environment.Type.DECIMAL;
+        }
+        requireAssignable(Environment.Type.INTEGER_ITERABLE, type);
+        return Environment.Type.INTEGER;
+    }
+
     @Override
     public Void visit(Ast.Stmt.While ast) {
         visit(ast.getCondition());
@@ -209,17 +284,84 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Stmt.Return ast) {
-        Environment.Variable expectedReturn = scope.lookupVariable("RETURNVALUE");
+        if(parallel != null) {
+            throw new RuntimeException("RETURN is not allowed in a PARALLEL FOR");
+        }
+        Environment.Variable expectedReturn = scope.lookupVariable(RETURN_VALUE);
         Ast.Expr expr = ast.getValue();
         visit(expr);
-        requireAssignable(expr.getType(), expectedReturn.getType());
+        requireAssignable(expectedReturn.getType(), expr.getType());
         return null;
     }
 
     @Override
     public Void visit(Ast.Expr.Literal ast) {
+        return analyze(ast);
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Group ast) {
+        return analyze(ast);
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Binary ast) {
+        return analyze(ast);
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Access ast) {
+        return analyze(ast);
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Function ast) {
+        return analyze(ast);
+    }
+
+    /**
+     * Analyzes an expression and all of its subexpressions. The tree is
+     * first flattened with an explicit stack so that every expression is
+     * checked after its operands, in source order.
+     */
+    private Void analyze(Ast.Expr root) {
+        Deque<Ast.Expr> pending = new ArrayDeque<>();
+        Deque<Ast.Expr> ordered = new ArrayDeque<>();
+        pending.push(root);
+        while(!pending.isEmpty()) {
+            Ast.Expr expr = pending.pop();
+            ordered.push(expr);
+            if(expr instanceof Ast.Expr.Group) {
+                pending.push(((Ast.Expr.Group) expr).getExpression());
+            }else if(expr instanceof Ast.Expr.Binary) {
+                pending.push(((Ast.Expr.Binary) expr).getLeft());
+                pending.push(((Ast.Expr.Binary) expr).getRight());
+            }else if(expr instanceof Ast.Expr.Access) {
+                ((Ast.Expr.Access) expr).getReceiver().ifPresent(pending::push);
+            }else if(expr instanceof Ast.Expr.Function) {
+                ((Ast.Expr.Function) expr).getReceiver().ifPresent(pending::push);
+                ((Ast.Expr.Function) expr).getArguments().forEach(pending::push);
+            }
+        }
+        while(!ordered.isEmpty()) {
+            Ast.Expr expr = ordered.pop();
+            if(expr instanceof Ast.Expr.Literal) {
+                check((Ast.Expr.Literal) expr);
+            }else if(expr instanceof Ast.Expr.Group) {
+                check((Ast.Expr.Group) expr);
+            }else if(expr instanceof Ast.Expr.Binary) {
+                check((Ast.Expr.Binary) expr);
+            }else if(expr instanceof Ast.Expr.Access) {
+                check((Ast.Expr.Access) expr);
+            }else {
+                check((Ast.Expr.Function) expr);
+            }
+        }
+        return null;
+    }
+
+    private void check(Ast.Expr.Literal ast) {
         Object literal = ast.getLiteral();
-        System.out.println(literal.toString());
         if (literal == null) {
             ast.setType(Environment.Type.NIL);
         } else if (literal instanceof Character) {
@@ -245,36 +387,30 @@ public final class Analyzer implements Ast.Visitor<Void> {
         } else {
             throw new RuntimeException("Provided literal is of unmatched type");
         }
-        return null;
     }
 
-    @Override
-    public Void visit(Ast.Expr.Group ast) {
+    private void check(Ast.Expr.Group ast) {
         Ast.Expr expr = ast.getExpression();
         if(!(expr instanceof Ast.Expr.Binary)) {
             throw new RuntimeException("group expression does not contain binary expr");
         }
-        visit((Ast.Expr.Binary) expr);
-        return null;
+        ast.setType(expr.getType());
     }
 
-    @Override
-    public Void visit(Ast.Expr.Binary ast) {
+    private void check(Ast.Expr.Binary ast) {
         java.lang.String operator = ast.getOperator();
         Ast.Expr left = ast.getLeft();
         Ast.Expr right = ast.getRight();
-        visit(left);
-        visit(right);
         if(operator.matches("AND|OR")) {
-            requireAssignable(left.getType(), Environment.Type.BOOLEAN);
-            requireAssignable(right.getType(), Environment.Type.BOOLEAN);
+            requireAssignable(Environment.Type.BOOLEAN, left.getType());
+            requireAssignable(Environment.Type.BOOLEAN, right.getType());
             ast.setType(Environment.Type.BOOLEAN);
         }else if(operator.matches("[<>=!]=?")) {
-            requireAssignable(left.getType(), Environment.Type.COMPARABLE);
-            requireAssignable(right.getType(), Environment.Type.COMPARABLE);
+            requireAssignable(Environment.Type.COMPARABLE, left.getType());
+            requireAssignable(Environment.Type.COMPARABLE, right.getType());
             requireAssignable(left.getType(), right.getType());
             ast.setType(Environment.Type.BOOLEAN);
-        }else if (operator == "+") {
+        }else if (operator.equals("+")) {
             Environment.Type leftType = left.getType();
             Environment.Type rightType = right.getType();
             if(leftType == Environment.Type.STRING || rightType == Environment.Type.STRING) {
@@ -299,50 +435,97 @@ public final class Analyzer implements Ast.Visitor<Void> {
         }else {
             throw new RuntimeException("Unmatched operator");
         }
-        return null;
     }
 
-    @Override
-    public Void visit(Ast.Expr.Access ast) {
+    private void check(Ast.Expr.Access ast) {
         java.lang.String variableName = ast.getName();
         Environment.Variable value;
         if(ast.getReceiver().isPresent()) {
-            Ast.Expr reciever = ast.getReceiver().get();
-            visit(reciever);
-            Ast.Expr.Access objAst = (Ast.Expr.Access)reciever;
-            java.lang.String objName = objAst.getName();
-            Environment.Variable object = scope.lookupVariable(objName);
-            value = object.getType().getField(variableName);
+            value = ast.getReceiver().get().getType().getField(variableName);
         }else {
-            value = scope.lookupVariable(variableName);
+            value = scope.lookupVariable(ast.getSymbol());
+            if(parallel != null) {
+                value = bindCopy(ast, value);
+            }
         }
         ast.setVariable(value);
-        return null;
     }
 
-    @Override
-    public Void visit(Ast.Expr.Function ast) {
+    /**
+     * Checks that an assignment in the body of a parallel loop only writes
+     * a variable of the enclosing scopes with a reduction
+     * {@code name = name op operand}, where the operator is one of
+     * {@code + * AND OR}, and binds the variable to a partial result of its
+     * own in the loop.
+     */
+    private void bindReduction(Ast.Expr.Access target, Ast.Expr value) {
+        java.lang.String name = target.getName();
+        if(target.getReceiver().isPresent()) {
+            throw new RuntimeException("A PARALLEL FOR cannot assign the field " + name);
+        }
+        Environment.Variable variable = scope.lookupVariable(target.getSymbol());
+        Ast.Stmt.For.Binding binding = parallel.find(variable);
+        if(binding == null && !parallel.isOuter(target.getSymbol(), variable)) {
+            return;
+        }else if(binding != null && !binding.isReduction()) {
+            throw new RuntimeException("The variable " + name + " is read in a PARALLEL FOR, so it cannot be assigned");
+        }
+        if(!(value instanceof Ast.Expr.Binary)
+                || !((Ast.Expr.Binary) value).getOperator().matches("[+*]|AND|OR")
+                || !(((Ast.Expr.Binary) value).getLeft() instanceof Ast.Expr.Access)
+                || ((Ast.Expr.Access) ((Ast.Expr.Binary) value).getLeft()).getReceiver().isPresent()
+                || ((Ast.Expr.Access) ((Ast.Expr.Binary) value).getLeft()).getSymbol() != target.getSymbol()) {
+            throw new RuntimeException("A PARALLEL FOR can only assign the variable " + name + " with a reduction " + name + " = " + name + " op value");
+        }
+        java.lang.String operator = ((Ast.Expr.Binary) value).getOperator();
+        if(binding == null) {
+            Environment.Variable partial = parallel.scope.defineVariable(name, variable.getJvmName() + "$", variable.getType(), Environment.NIL);
+            parallel.ast.addBinding(new Ast.Stmt.For.Binding(variable, partial, operator));
+        }else if(!binding.getOperator().equals(operator)) {
+            throw new RuntimeException("The variable " + name + " is reduced with both " + binding.getOperator() + " and " + operator);
+        }
+        parallel.reductions.add(target);
+        parallel.reductions.add((Ast.Expr.Access) ((Ast.Expr.Binary) value).getLeft());
+    }
+
+    /**
+     * Binds a variable of the enclosing scopes read in the body of a
+     * parallel loop to a copy of its own in the loop, returning the variable
+     * the access should use.
+     */
+    private Environment.Variable bindCopy(Ast.Expr.Access ast, Environment.Variable variable) {
+        if(parallel.reductions.remove(ast)) {
+            return variable;
+        }
+        Ast.Stmt.For.Binding binding = parallel.find(variable);
+        if(binding != null && binding.isReduction()) {
+            throw new RuntimeException("The variable " + ast.getName() + " is reduced in a PARALLEL FOR, so it cannot be read");
+        }else if(binding == null && parallel.isOuter(ast.getSymbol(), variable)) {
+            Environment.Variable copy = parallel.scope.defineVariable(ast.getName(), variable.getJvmName() + "$", variable.getType(), Environment.NIL);
+            parallel.ast.addBinding(new Ast.Stmt.For.Binding(variable, copy, null));
+            return copy;
+        }
+        return variable;
+    }
+
+    private void check(Ast.Expr.Function ast) {
         java.lang.String functionName = ast.getName();
         int arity = ast.getArguments().size();
         Environment.Function function;
         if(ast.getReceiver().isPresent()) {
-            Ast.Expr reciever = ast.getReceiver().get();
-            visit(reciever);
-            Ast.Expr.Access objAst = (Ast.Expr.Access) reciever;
-            java.lang.String objName = objAst.getName();
-            Environment.Variable object = scope.lookupVariable(objName);
-            function = object.getType().getMethod(functionName, arity);
+            function = ast.getReceiver().get().getType().getMethod(functionName, arity);
         }else {
-            function = scope.lookupFunction(functionName, arity);
+            function = scope.lookupFunction(ast.getSymbol(), arity);
         }
         if(function == null) {
             throw new RuntimeException("function " + functionName + " is not defined");
+        }else if(parallel != null && methods.contains(function)) {
+            throw new RuntimeException("A PARALLEL FOR cannot call the method " + functionName + ", which may assign fields");
         }
         List<Ast.Expr> arguments = ast.getArguments();
         List<Environment.Type> parameterTypes = function.getParameterTypes();
         for(int i = 0; i <= arity - 1; i ++) {
             Ast.Expr argument = arguments.get(i);
-            visit(argument);
             Environment.Type argType = argument.getType();
             Environment.Type paraType;
             if(ast.getReceiver().isPresent()) {
@@ -353,7 +536,6 @@ public final class Analyzer implements Ast.Visitor<Void> {
             requireAssignable(paraType, argType);
         }
         ast.setFunction(function);
-        return null;
     }
 
     public static void requireAssignable(Environment.Type target, Environment.Type type) {
@@ -376,4 +558,37 @@ public final class Analyzer implements Ast.Visitor<Void> {
         throw new RuntimeException(targetName + " is not assignable to " + typeName);
     }
 
+    /**
+     * The innermost parallel loop being analyzed, with the accesses of its
+     * reductions yet to be checked.
+     */
+    private static final class Parallel {
+
+        private final Ast.Stmt.For ast;
+        private final Scope scope;
+        private final Set<Ast.Expr.Access> reductions = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private Parallel(Ast.Stmt.For ast, Scope scope) {
+            this.ast = ast;
+            this.scope = scope;
+        }
+
+        private Ast.Stmt.For.Binding find(Environment.Variable variable) {
+            for(Ast.Stmt.For.Binding binding : ast.getBindings()) {
+                if(binding.getInner() == variable) {
+                    return binding;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns whether the variable is defined outside of the loop.
+         */
+        private boolean isOuter(int symbol, Environment.Variable variable) {
+            return scope.getParent().findVariable(symbol) == variable;
+        }
+
+    }
+
 }
@@ -219,6 +219,7 @@ public abstract class Ast {
         public static final class Declaration extends Stmt {
 
             private final String name;
+            private final int symbol;
             private final Optional<String> typeName;
             private final Optional<Expr> value;
             private Environment.Variable variable;
@@ -229,6 +230,7 @@ public abstract class Ast {
 
             public Declaration(String name, Optional<String> typeName, Optional<Expr> value) {
                 this.name = name;
+                this.symbol = Symbols.intern(name);
                 this.typeName = typeName;
                 this.value = value;
             }
@@ -237,6 +239,13 @@ public abstract class Ast {
                 return name;
             }
 
+            /**
+             * Returns the interned {@link Symbols symbol} of the name.
+             */
+            public int getSymbol() {
+                return symbol;
+            }
+
             public Optional<String> getTypeName() {
                 return typeName;
             }
@@ -356,22 +365,45 @@ public abstract class Ast {
 
         }
 
+        /**
+         * A {@code FOR} loop, or a {@code PARALLEL FOR} loop whose iterations
+         * may run concurrently. The body of a parallel loop only writes
+         * variables of the enclosing scopes through reductions
+         * ({@code name = name op operand}); an engine without parallel
+         * support runs it serially, with the same result.
+         */
         public static final class For extends Stmt {
 
             private final String name;
+            private final int symbol;
             private final Expr value;
             private final List<Stmt> statements;
+            private final boolean parallel;
+            private final List<Binding> bindings = new ArrayList<>();
 
             public For(String name, Expr value, List<Stmt> statements) {
+                this(name, value, statements, false);
+            }
+
+            public For(String name, Expr value, List<Stmt> statements, boolean parallel) {
                 this.name = name;
+                this.symbol = Symbols.intern(name);
                 this.value = value;
                 this.statements = statements;
+                this.parallel = parallel;
             }
 
             public String getName() {
                 return name;
             }
 
+            /**
+             * Returns the interned {@link Symbols symbol} of the name.
+             */
+            public int getSymbol() {
+                return symbol;
+            }
+
             public Expr getValue() {
                 return value;
             }
@@ -380,12 +412,33 @@ public abstract class Ast {
                 return statements;
             }
 
+            public boolean isParallel() {
+                return parallel;
+            }
+
+            /**
+             * Returns the variables of the enclosing scopes used by the body
+             * of a parallel loop, as found by the Analyzer.
+             */
+            public List<Binding> getBindings() {
+                return bindings;
+            }
+
+            public void addBinding(Binding binding) {
+                bindings.add(binding);
+            }
+
+            public void clearBindings() {
+                bindings.clear();
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof For &&
                         name.equals(((For) obj).name) &&
                         value.equals(((For) obj).value) &&
-                        statements.equals(((For) obj).statements);
+                        statements.equals(((For) obj).statements) &&
+                        parallel == ((For) obj).parallel;
             }
 
             @Override
@@ -394,9 +447,49 @@ public abstract class Ast {
                         "name='" + name + '\'' +
                         ", value=" + value +
                         ", statements=" + statements +
+                        ", parallel=" + parallel +
                         '}';
             }
 
+            /**
+             * A variable of an enclosing scope used by the body of a parallel
+             * loop through a variable of its own: a copy of the value for a
+             * variable which is read, or a partial result combined with the
+             * operator for a variable which is reduced.
+             */
+            public static final class Binding {
+
+                private final Environment.Variable outer;
+                private final Environment.Variable inner;
+                private final String operator;
+
+                public Binding(Environment.Variable outer, Environment.Variable inner, String operator) {
+                    this.outer = outer;
+                    this.inner = inner;
+                    this.operator = operator;
+                }
+
+                public Environment.Variable getOuter() {
+                    return outer;
+                }
+
+                public Environment.Variable getInner() {
+                    return inner;
+                }
+
+                /**
+                 * Returns the operator of a reduction, or null for a copy.
+                 */
+                public String getOperator() {
+                    return operator;
+                }
+
+                public boolean isReduction() {
+                    return operator != null;
+                }
+
+            }
+
         }
 
         public static final class While extends Stmt {
@@ -612,11 +705,14 @@ public abstract class Ast {
 
             private final Optional<Expr> receiver;
             private final String name;
+            private final int symbol;
             private Environment.Variable variable = null;
+            private final ShapeCache cache = new ShapeCache();
 
             public Access(Optional<Expr> receiver, String name) {
                 this.receiver = receiver;
                 this.name = name;
+                this.symbol = Symbols.intern(name);
             }
 
             public Optional<Expr> getReceiver() {
@@ -627,6 +723,13 @@ public abstract class Ast {
                 return name;
             }
 
+            /**
+             * Returns the interned {@link Symbols symbol} of the name.
+             */
+            public int getSymbol() {
+                return symbol;
+            }
+
             public Environment.Variable getVariable() {
                 if (variable == null) {
                     throw new IllegalStateException("variable is uninitialized");
@@ -638,6 +741,13 @@ public abstract class Ast {
                 this.variable = variable;
             }
 
+            /**
+             * Returns the cache of receiver shapes for this field access.
+             */
+            public ShapeCache getCache() {
+                return cache;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getVariable().getType();
@@ -666,12 +776,16 @@ public abstract class Ast {
 
             private final Optional<Expr> receiver;
             private final String name;
+            private final int symbol;
             private final List<Expr> arguments;
+            private int method = -1;
             private Environment.Function function = null;
+            private final InlineCache<Environment.Function> cache = new InlineCache<>();
 
             public Function(Optional<Expr> receiver, String name, List<Expr> arguments) {
                 this.receiver = receiver;
                 this.name = name;
+                this.symbol = Symbols.intern(name);
                 this.arguments = arguments;
             }
 
@@ -683,10 +797,28 @@ public abstract class Ast {
                 return name;
             }
 
+            /**
+             * Returns the interned {@link Symbols symbol} of the name.
+             */
+            public int getSymbol() {
+                return symbol;
+            }
+
             public List<Expr> getArguments() {
                 return arguments;
             }
 
+            /**
+             * Returns the {@link Environment#getMethodId(String, int) id} of
+             * the method called, resolved on first use.
+             */
+            public int getMethodId() {
+                if (method < 0) {
+                    method = Environment.getMethodId(name, arguments.size());
+                }
+                return method;
+            }
+
             public Environment.Function getFunction() {
                 if (function == null) {
                     throw new IllegalStateException("function is uninitialized");
@@ -698,6 +830,14 @@ public abstract class Ast {
                 this.function = function;
             }
 
+            /**
+             * Returns the cache of the function this call site resolved to
+             * at runtime, which is independent of the analyzed function.
+             */
+            public InlineCache<Environment.Function> getCache() {
+                return cache;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getFunction().getReturnType();
@@ -0,0 +1,82 @@
+package plc.project;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code boolean}s, the {@code BooleanList} type of the
+ * language.
+ */
+public final class BooleanList extends PrimitiveList {
+
+    private boolean[] values;
+
+    public BooleanList() {
+        this(new boolean[8], 0);
+    }
+
+    BooleanList(boolean[] values, int length) {
+        this.values = values;
+        this.length = length;
+    }
+
+    public static BooleanList of(boolean... values) {
+        return new BooleanList(values.clone(), values.length);
+    }
+
+    public boolean get(int index) {
+        check(index);
+        return values[index];
+    }
+
+    public void set(int index, boolean value) {
+        check(index);
+        values[index] = value;
+    }
+
+    public void append(boolean value) {
+        if (length == values.length) {
+            values = Arrays.copyOf(values, grow(values.length));
+        }
+        values[length++] = value;
+    }
+
+    @Override
+    public BooleanList slice(int from, int to) {
+        check(from, to);
+        return new BooleanList(Arrays.copyOfRange(values, from, to), to - from);
+    }
+
+    public boolean[] toArray() {
+        return Arrays.copyOf(values, length);
+    }
+
+    @Override
+    public Environment.Type getType() {
+        return Environment.Type.BOOLEAN_LIST;
+    }
+
+    @Override
+    public Environment.PlcObject element(int index) {
+        return Environment.create(get(index));
+    }
+
+    @Override
+    void setElement(int index, Environment.PlcObject value) {
+        set(index, value(value));
+    }
+
+    @Override
+    void appendElement(Environment.PlcObject value) {
+        append(value(value));
+    }
+
+    private static boolean value(Environment.PlcObject value) {
+        return Interpreter.requireType(Boolean.class, value);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+}
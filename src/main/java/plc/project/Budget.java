@@ -0,0 +1,298 @@
+package plc.project;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The limits of a single execution in the {@link Interpreter}, enforced
+ * cooperatively at safepoints.
+ *
+ * Interpreted code polls at every loop back-edge and method entry, and a
+ * poll only decrements a counter in its context. Once every
+ * {@code quantum} polls the context calls {@link #slice()}, which charges
+ * the quantum to the budget and checks whether the execution was
+ * cancelled, interrupted, or exceeded its steps or deadline; the clock is
+ * only read there. A time-slicing budget also yields the thread at every
+ * slice, so long executions take turns with others. Each poll counts as a
+ * step.
+ *
+ * A budget may also limit the bytes allocated by its execution, as counted
+ * by the JVM for the executing thread and the workers running its parallel
+ * loops (see {@link #isMemoryAccountingSupported()}). The count is sampled
+ * once per slice, so an execution may overshoot a limit by what it
+ * allocates in one slice. Past the soft limit the execution is throttled,
+ * yielding at every slice; past the hard limit it is aborted. An execution
+ * on a thread whose allocations the JVM does not count, such as a virtual
+ * thread on some JVMs, is aborted at its first slice rather than left
+ * unlimited. Without memory limits the counter is never read.
+ *
+ * A budget belongs to one execution at a time; only {@link #cancel()} may
+ * be called from other threads, besides the {@link Fork}s of the execution.
+ */
+public class Budget {
+
+    public static final int DEFAULT_QUANTUM = 1024;
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private final int quantum;
+    private final long steps;
+    private final long deadline;
+    private final boolean yielding;
+    private final AtomicLong used = new AtomicLong();
+    private long softBytes = Long.MAX_VALUE;
+    private long hardBytes = Long.MAX_VALUE;
+    private long baseline = -1;
+    private long allocated = 0;
+    private final LongAdder forked = new LongAdder();
+    private volatile boolean throttled = false;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Creates a budget of the given steps (if positive) and timeout (if
+     * positive), measured from its creation.
+     */
+    public Budget(long steps, long timeout, TimeUnit unit) {
+        this(DEFAULT_QUANTUM, steps, timeout, unit, false);
+    }
+
+    public Budget(int quantum, long steps, long timeout, TimeUnit unit, boolean yielding) {
+        if (quantum < 1) {
+            throw new IllegalArgumentException("Invalid quantum " + quantum + ".");
+        }
+        this.quantum = quantum;
+        this.steps = steps > 0 ? steps : Long.MAX_VALUE;
+        this.deadline = timeout > 0 ? System.nanoTime() + unit.toNanos(timeout) : 0;
+        this.yielding = yielding;
+    }
+
+    /**
+     * Limits the bytes the execution may allocate; a limit which is not
+     * positive is ignored. Must be called before the execution starts.
+     */
+    public void setMemoryLimits(long softBytes, long hardBytes) {
+        if (THREADS == null) {
+            throw new UnsupportedOperationException("Allocated memory is not counted by this JVM.");
+        }
+        this.softBytes = softBytes > 0 ? softBytes : Long.MAX_VALUE;
+        this.hardBytes = hardBytes > 0 ? hardBytes : Long.MAX_VALUE;
+    }
+
+    public static boolean isMemoryAccountingSupported() {
+        return THREADS != null;
+    }
+
+    /**
+     * Returns the bytes allocated by the execution as of its last slice or
+     * its end, or 0 if memory is not limited.
+     */
+    public long getAllocated() {
+        return allocated + forked.sum();
+    }
+
+    /**
+     * Returns whether the execution allocated past its soft limit.
+     */
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    /**
+     * Stops the execution at its next slice.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns the steps granted to the execution so far, which is at most a
+     * quantum more than the steps it took.
+     */
+    public long getUsed() {
+        return used.get();
+    }
+
+    /**
+     * Called by the interpreter when its current slice is spent, returning
+     * the number of steps granted for the next one. Throws an
+     * {@link ExhaustedException} to abort the execution instead; subclasses
+     * may override this to schedule executions differently.
+     */
+    protected int slice() {
+        check(Thread.currentThread());
+        account();
+        int granted = grant();
+        if (yielding || throttled) {
+            Thread.yield();
+        }
+        return granted;
+    }
+
+    /**
+     * Checks the memory limit, steps and deadline of the execution and
+     * charges the steps of the next slice, which the execution and its
+     * forks may do concurrently.
+     */
+    private int grant() {
+        if (getAllocated() >= hardBytes) {
+            throw new ExhaustedException("The execution exceeded its memory limit of " + hardBytes + " bytes.");
+        } else if (deadline != 0 && System.nanoTime() - deadline >= 0) {
+            throw new ExhaustedException("The execution exceeded its deadline.");
+        }
+        while (true) {
+            long current = used.get();
+            if (current >= steps) {
+                throw new ExhaustedException("The execution exceeded its budget of " + steps + " steps.");
+            }
+            int granted = (int) Math.min(quantum, steps - current);
+            if (used.compareAndSet(current, current + granted)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Updates the bytes allocated since the first slice, if memory is
+     * limited. Called on the executing thread, at every slice and when the
+     * execution ends.
+     */
+    void account() {
+        if (!isMemoryLimited()) {
+            return;
+        }
+        long current = allocatedBytes();
+        if (baseline < 0) {
+            baseline = current;
+        }
+        allocated = current - baseline;
+        throttle();
+    }
+
+    /**
+     * Returns an accounting for a fork of the execution, created on the
+     * worker thread running it, where {@code owner} is the thread of the
+     * execution.
+     */
+    Fork fork(Thread owner) {
+        return new Fork(owner);
+    }
+
+    private boolean isMemoryLimited() {
+        return softBytes != Long.MAX_VALUE || hardBytes != Long.MAX_VALUE;
+    }
+
+    private void throttle() {
+        if (!throttled && getAllocated() >= softBytes) {
+            throttled = true;
+        }
+    }
+
+    private static long allocatedBytes() {
+        long current = THREADS.getCurrentThreadAllocatedBytes();
+        if (current < 0) {
+            throw new ExhaustedException("The memory allocated by the execution is not counted for its thread.");
+        }
+        return current;
+    }
+
+    /**
+     * Aborts an execution which was cancelled or whose thread was
+     * interrupted.
+     */
+    private void check(Thread thread) {
+        if (cancelled) {
+            throw new ExhaustedException("The execution was cancelled.");
+        }
+        interrupted(thread);
+    }
+
+    /**
+     * Aborts an execution whose thread was interrupted. This is the only
+     * check made for executions without a budget.
+     */
+    static void interrupted(Thread thread) {
+        if (thread.isInterrupted()) {
+            throw new ExhaustedException("The execution was interrupted.");
+        }
+    }
+
+    /**
+     * The accounting of a fork of the execution running part of a parallel
+     * loop on a worker thread. Its steps are charged to the budget and the
+     * bytes allocated by the worker are added to those of the execution,
+     * while interruption is checked on the thread of the execution, which
+     * waits for the loop. A fork is used by its worker only.
+     */
+    final class Fork {
+
+        private final Thread owner;
+        private long mark;
+
+        private Fork(Thread owner) {
+            this.owner = owner;
+            mark = isMemoryLimited() ? allocatedBytes() : 0;
+        }
+
+        /**
+         * Called by the fork when its current slice is spent, like
+         * {@link Budget#slice()}.
+         */
+        int slice() {
+            check(owner);
+            account();
+            int granted = grant();
+            if (throttled) {
+                Thread.yield();
+            }
+            return granted;
+        }
+
+        /**
+         * Adds the bytes allocated by the worker since the last call, if
+         * memory is limited. Called at every slice and when the fork ends.
+         */
+        void account() {
+            if (!isMemoryLimited()) {
+                return;
+            }
+            long current = allocatedBytes();
+            forked.add(current - mark);
+            mark = current;
+            throttle();
+        }
+
+    }
+
+    /**
+     * Thrown at a safepoint to abort an execution. Interpreted code cannot
+     * observe or recover from it.
+     */
+    public static final class ExhaustedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public ExhaustedException(String message) {
+            super(message);
+        }
+
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        }
+        return null;
+    }
+
+}
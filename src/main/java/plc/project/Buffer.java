@@ -0,0 +1,310 @@
+package plc.project;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A fixed-length array of primitive values stored outside the heap: an
+ * {@link IntBuffer} or {@link DecimalBuffer}. A buffer is either allocated
+ * in native memory or mapped from a file, so it may hold more data than the
+ * heap, and the garbage collector never scans its elements. Memory is
+ * released (and a mapped file unmapped) when the buffer is closed, which
+ * PLC code does with {@code free()}; any later access fails. A buffer which
+ * is never closed is released once it is collected.
+ *
+ * The memory is addressed through direct {@link ByteBuffer}s of up to
+ * {@code 2^30} bytes each, in native byte order, so a buffer is not limited
+ * to the 2 GB of a single {@link ByteBuffer}; an element never spans two of
+ * them. (Java 17 has no {@code MemorySegment}.)
+ *
+ * Each buffer type is registered with the methods {@code get(index)},
+ * {@code set(index, value)}, {@code fill(value)},
+ * {@code fill(from, to, value)}, {@code copy(from, to, target, at)},
+ * {@code length()} and {@code free()}, and is constructed by the builtin function of the same
+ * name, given a length or the path of the file to map and a length (see
+ * {@link #define(Scope)}). Generated code calls the buffer classes directly.
+ */
+public abstract class Buffer implements Iterable<Environment.PlcObject>, Indexed, AutoCloseable {
+
+    private static final int SHIFT = 30;
+    private static final int CHUNK = 1 << SHIFT;
+    private static final int MASK = CHUNK - 1;
+    private static final MethodHandle CLEANER = cleaner();
+
+    private ByteBuffer[] chunks;
+    private final int length;
+    private final int width;
+
+    /**
+     * Allocates a buffer of the given number of elements of the given width
+     * in bytes, initially zero.
+     */
+    Buffer(int length, int width) {
+        this.length = check(length);
+        this.width = width;
+        long bytes = (long) length * width;
+        chunks = new ByteBuffer[(int) ((bytes + MASK) >>> SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(size(bytes, i)).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Maps a buffer of the given number of elements from the file at the
+     * given path, which is created or extended as needed. Writes to the
+     * buffer are written to the file.
+     */
+    Buffer(Path path, int length, int width) {
+        this.length = check(length);
+        this.width = width;
+        long bytes = (long) length * width;
+        chunks = new ByteBuffer[(int) ((bytes + MASK) >>> SHIFT)];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << SHIFT, size(bytes, i)).order(ByteOrder.nativeOrder());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to map " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns {@code Unsafe.invokeCleaner}, which frees the memory of a
+     * direct or mapped {@link ByteBuffer} at once, or null where it is not
+     * accessible, in which case the memory is left to the collector.
+     */
+    private static MethodHandle cleaner() {
+        try {
+            Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+            Field instance = unsafe.getDeclaredField("theUnsafe");
+            instance.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafe, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(instance.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static int check(int length) {
+        if (length < 0) {
+            throw new RuntimeException("Invalid buffer length " + length + ".");
+        }
+        return length;
+    }
+
+    private static int size(long bytes, int chunk) {
+        return (int) Math.min(CHUNK, bytes - ((long) chunk << SHIFT));
+    }
+
+    @Override
+    public final int length() {
+        return length;
+    }
+
+    public abstract Environment.Type getType();
+
+    /**
+     * Returns the element at the given index, wrapped for the interpreter.
+     */
+    @Override
+    public abstract Environment.PlcObject element(int index);
+
+    abstract void setElement(int index, Environment.PlcObject value);
+
+    abstract void fillElements(int from, int to, Environment.PlcObject value);
+
+    /**
+     * Returns the byte offset of the element at the given index.
+     */
+    final long offset(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for a buffer of " + length + ".");
+        }
+        return (long) index * width;
+    }
+
+    final ByteBuffer chunk(long offset) {
+        ByteBuffer[] chunks = this.chunks;
+        if (chunks == null) {
+            throw new RuntimeException("The buffer has been freed.");
+        }
+        return chunks[(int) (offset >>> SHIFT)];
+    }
+
+    /**
+     * Frees the memory of the buffer, unmapping a mapped file, after which
+     * every access fails. Closing a buffer twice does nothing. A buffer must
+     * not be closed while another thread accesses it.
+     */
+    @Override
+    public final synchronized void close() {
+        ByteBuffer[] released = chunks;
+        chunks = null;
+        if (released == null || CLEANER == null) {
+            return;
+        }
+        for (ByteBuffer chunk : released) {
+            try {
+                CLEANER.invokeExact(chunk);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    static int position(long offset) {
+        return (int) (offset & MASK);
+    }
+
+    /**
+     * Returns how many of the {@code count} elements from the given index lie
+     * in the same chunk, for bulk reads and writes.
+     */
+    final int run(int index, int count) {
+        long offset = (long) index * width;
+        return Math.min(count, (CHUNK - position(offset)) / width);
+    }
+
+    final void check(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Range " + from + " to " + to + " is out of bounds for a buffer of " + length + ".");
+        }
+    }
+
+    /**
+     * Copies the elements from {@code from} (inclusive) to {@code to}
+     * (exclusive) into the given buffer of the same type, starting at index
+     * {@code at}. The ranges may overlap. Elements are copied in bulk, a
+     * chunk at a time.
+     */
+    final void copyElements(int from, int to, Buffer target, int at) {
+        check(from, to);
+        target.check(at, at + (to - from));
+        long source = (long) from * width;
+        long destination = (long) at * width;
+        long bytes = (long) (to - from) * width;
+        if (target == this && destination > source && destination < source + bytes) {
+            for (long end = bytes; end > 0; ) {
+                long last = source + end - 1;
+                long lastTarget = destination + end - 1;
+                int count = (int) Math.min(end, Math.min(position(last), position(lastTarget)) + 1L);
+                move(chunk(last), position(last) - count + 1, target.chunk(lastTarget), position(lastTarget) - count + 1, count);
+                end -= count;
+            }
+        } else {
+            for (long start = 0; start < bytes; ) {
+                long next = source + start;
+                long nextTarget = destination + start;
+                int count = (int) Math.min(bytes - start, CHUNK - (long) Math.max(position(next), position(nextTarget)));
+                move(chunk(next), position(next), target.chunk(nextTarget), position(nextTarget), count);
+                start += count;
+            }
+        }
+    }
+
+    /**
+     * Copies {@code count} bytes between chunks, through duplicates so the
+     * positions and limits of the chunks are left alone. A copy within a
+     * chunk may overlap.
+     */
+    private static void move(ByteBuffer source, int from, ByteBuffer target, int at, int count) {
+        ByteBuffer bytes = source.duplicate();
+        bytes.limit(from + count);
+        bytes.position(from);
+        ByteBuffer destination = target.duplicate();
+        destination.position(at);
+        destination.put(bytes);
+    }
+
+    /**
+     * Returns a view of the elements as wrapped by {@link #element(int)}.
+     */
+    public final List<Environment.PlcObject> asList() {
+        return Indexed.view(this);
+    }
+
+    @Override
+    public final Iterator<Environment.PlcObject> iterator() {
+        return asList().iterator();
+    }
+
+    /**
+     * Defines the builtin constructors {@code IntBuffer(length)},
+     * {@code IntBuffer(path, length)}, {@code DecimalBuffer(length)} and
+     * {@code DecimalBuffer(path, length)}.
+     */
+    static void define(Scope scope) {
+        Environment.Type integer = Environment.Type.INTEGER;
+        Environment.Type string = Environment.Type.STRING;
+        scope.defineFunction("IntBuffer", "new plc.project.IntBuffer", Arrays.asList(integer), Environment.Type.INT_BUFFER, args -> Environment.create(new IntBuffer(Indexed.index(args.get(0)))));
+        scope.defineFunction("IntBuffer", "new plc.project.IntBuffer", Arrays.asList(string, integer), Environment.Type.INT_BUFFER, args -> Environment.create(new IntBuffer(path(args.get(0)), Indexed.index(args.get(1)))));
+        scope.defineFunction("DecimalBuffer", "new plc.project.DecimalBuffer", Arrays.asList(integer), Environment.Type.DECIMAL_BUFFER, args -> Environment.create(new DecimalBuffer(Indexed.index(args.get(0)))));
+        scope.defineFunction("DecimalBuffer", "new plc.project.DecimalBuffer", Arrays.asList(string, integer), Environment.Type.DECIMAL_BUFFER, args -> Environment.create(new DecimalBuffer(path(args.get(0)), Indexed.index(args.get(1)))));
+    }
+
+    /**
+     * Defines the methods of a buffer type whose elements have the given
+     * type.
+     */
+    static void defineMethods(Environment.Type type, Environment.Type element) {
+        Environment.Type any = Environment.Type.ANY;
+        Environment.Type integer = Environment.Type.INTEGER;
+        type.defineMethod("get", "get", Arrays.asList(any, integer), element, (receiver, args) -> {
+            return buffer(receiver).element(Indexed.index(args.get(0)));
+        });
+        type.defineMethod("set", "set", Arrays.asList(any, integer, element), Environment.Type.NIL, (receiver, args) -> {
+            buffer(receiver).setElement(Indexed.index(args.get(0)), args.get(1));
+            return Environment.NIL;
+        });
+        type.defineMethod("fill", "fill", Arrays.asList(any, element), Environment.Type.NIL, (receiver, args) -> {
+            Buffer buffer = buffer(receiver);
+            buffer.fillElements(0, buffer.length(), args.get(0));
+            return Environment.NIL;
+        });
+        type.defineMethod("fill", "fill", Arrays.asList(any, integer, integer, element), Environment.Type.NIL, (receiver, args) -> {
+            buffer(receiver).fillElements(Indexed.index(args.get(0)), Indexed.index(args.get(1)), args.get(2));
+            return Environment.NIL;
+        });
+        type.defineMethod("copy", "copy", Arrays.asList(any, integer, integer, type, integer), Environment.Type.NIL, (receiver, args) -> {
+            Buffer buffer = buffer(receiver);
+            Buffer target = buffer(args.get(2));
+            if (target.getClass() != buffer.getClass()) {
+                throw new RuntimeException("Cannot copy a " + buffer.getType().getName() + " into a " + target.getType().getName() + ".");
+            }
+            buffer.copyElements(Indexed.index(args.get(0)), Indexed.index(args.get(1)), target, Indexed.index(args.get(3)));
+            return Environment.NIL;
+        });
+        type.defineMethod("length", "length", Arrays.asList(any), integer, (receiver, args) -> {
+            return Environment.create(BigInteger.valueOf(buffer(receiver).length()));
+        });
+        type.defineMethod("free", "close", Arrays.asList(any), Environment.Type.NIL, (receiver, args) -> {
+            buffer(receiver).close();
+            return Environment.NIL;
+        });
+    }
+
+    private static Buffer buffer(Environment.PlcObject receiver) {
+        return Interpreter.requireType(Buffer.class, receiver);
+    }
+
+    private static Path path(Environment.PlcObject path) {
+        return Paths.get(Interpreter.requireType(String.class, path));
+    }
+
+}
@@ -0,0 +1,188 @@
+package plc.project;
+
+import java.util.List;
+
+/**
+ * The compact register bytecode executed by the {@link VirtualMachine} and
+ * produced by the {@link BytecodeCompiler}.
+ *
+ * Each function owns an {@code int[]} code array of instructions, where an
+ * instruction is an opcode followed by its operands. Operands are register
+ * numbers within the current frame, indices into the program's constant pool
+ * or globals, function indices or absolute jump targets, as listed next to
+ * each opcode below ({@code a}, {@code b}, {@code c} are registers).
+ */
+public final class Bytecode {
+
+    /** a = constants[k] */
+    public static final int CONST = 0;
+    /** a = b */
+    public static final int MOVE = 1;
+    /** a = globals[g] */
+    public static final int LOAD_GLOBAL = 2;
+    /** globals[g] = a */
+    public static final int STORE_GLOBAL = 3;
+    /** a = ((Variable) constants[k]).getValue() */
+    public static final int LOAD_VARIABLE = 4;
+    /** ((Variable) constants[k]).setValue(a) */
+    public static final int STORE_VARIABLE = 5;
+    /** a = b.getField(constants[k]) */
+    public static final int LOAD_FIELD = 6;
+    /** a.setField(constants[k], b) */
+    public static final int STORE_FIELD = 7;
+    /** a = b + c, likewise for the following binary operators */
+    public static final int ADD = 8;
+    public static final int SUB = 9;
+    public static final int MUL = 10;
+    public static final int DIV = 11;
+    public static final int LT = 12;
+    public static final int GT = 13;
+    public static final int LE = 14;
+    public static final int GE = 15;
+    public static final int EQ = 16;
+    public static final int NE = 17;
+    public static final int AND = 18;
+    public static final int OR = 19;
+    /** pc = t */
+    public static final int JUMP = 20;
+    /** if (!a) pc = t */
+    public static final int JUMP_FALSE = 21;
+    /** a = b.iterator() */
+    public static final int ITERATOR = 22;
+    /** if (b.hasNext()) a = b.next() else pc = t */
+    public static final int NEXT = 23;
+    /** a = functions[f](registers[base], ..., registers[base + argc - 1]) */
+    public static final int CALL = 24;
+    /** a = ((Function) constants[k]).invoke(registers[base], ...) */
+    public static final int INVOKE = 25;
+    /** a = b.callMethod(constants[k], registers[base], ...) */
+    public static final int INVOKE_METHOD = 26;
+    /** return a */
+    public static final int RETURN = 27;
+    /** return functions[f](registers[base], ...), replacing the current frame */
+    public static final int TAIL_CALL = 28;
+
+    private static final String[] NAMES = {
+            "CONST", "MOVE", "LOAD_GLOBAL", "STORE_GLOBAL", "LOAD_VARIABLE", "STORE_VARIABLE", "LOAD_FIELD", "STORE_FIELD",
+            "ADD", "SUB", "MUL", "DIV", "LT", "GT", "LE", "GE", "EQ", "NE", "AND", "OR",
+            "JUMP", "JUMP_FALSE", "ITERATOR", "NEXT", "CALL", "INVOKE", "INVOKE_METHOD", "RETURN",
+            "TAIL_CALL"
+    };
+
+    private static final int[] OPERANDS = {
+            2, 2, 2, 2, 2, 2, 3, 3,
+            3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3,
+            1, 2, 2, 3, 4, 4, 5, 1,
+            3
+    };
+
+    private Bytecode() {}
+
+    /**
+     * Returns the number of operands following the given opcode.
+     */
+    public static int operands(int opcode) {
+        return OPERANDS[opcode];
+    }
+
+    public static final class Function {
+
+        private final String name;
+        private final int arity;
+        private final int registers;
+        private final int[] code;
+
+        public Function(String name, int arity, int registers, int[] code) {
+            this.name = name;
+            this.arity = arity;
+            this.registers = registers;
+            this.code = code;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getArity() {
+            return arity;
+        }
+
+        public int getRegisters() {
+            return registers;
+        }
+
+        public int[] getCode() {
+            return code;
+        }
+
+        /**
+         * Returns a human readable listing of the instructions.
+         */
+        public String disassemble() {
+            StringBuilder builder = new StringBuilder(name + "/" + arity + " (" + registers + " registers)");
+            for (int pc = 0; pc < code.length; pc += 1 + OPERANDS[code[pc]]) {
+                builder.append(System.lineSeparator()).append(String.format("%4d %-14s", pc, NAMES[code[pc]]));
+                for (int i = 1; i <= OPERANDS[code[pc]]; i++) {
+                    builder.append(' ').append(code[pc + i]);
+                }
+            }
+            return builder.toString();
+        }
+
+        @Override
+        public String toString() {
+            return "Function{" +
+                    "name='" + name + '\'' +
+                    ", arity=" + arity +
+                    ", registers=" + registers +
+                    ", code=" + code.length +
+                    '}';
+        }
+
+    }
+
+    public static final class Program {
+
+        private final List<Function> functions;
+        private final Object[] constants;
+        private final int globals;
+        private final Function entry;
+
+        public Program(List<Function> functions, Object[] constants, int globals, Function entry) {
+            this.functions = functions;
+            this.constants = constants;
+            this.globals = globals;
+            this.entry = entry;
+        }
+
+        public List<Function> getFunctions() {
+            return functions;
+        }
+
+        public Object[] getConstants() {
+            return constants;
+        }
+
+        public int getGlobals() {
+            return globals;
+        }
+
+        /**
+         * The function initializing the globals and calling {@code main}.
+         */
+        public Function getEntry() {
+            return entry;
+        }
+
+        @Override
+        public String toString() {
+            return "Program{" +
+                    "functions=" + functions +
+                    ", constants=" + constants.length +
+                    ", globals=" + globals +
+                    '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,451 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an {@link Ast.Source} into a {@link Bytecode.Program} for the
+ * {@link VirtualMachine}. Expressions return the register holding their
+ * result: locals live in fixed registers at the bottom of the frame and
+ * temporaries are allocated above them, stack-like, for the duration of the
+ * enclosing statement. Statements return {@code null}.
+ */
+public final class BytecodeCompiler implements Ast.Visitor<Integer> {
+
+    private final Scope scope;
+    private final Map<String, Integer> fields = new HashMap<>();
+    private final Map<String, Integer> functions = new HashMap<>();
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndices = new HashMap<>();
+    private final Map<Object, Integer> referenceIndices = new IdentityHashMap<>();
+    private Map<String, Integer> layout;
+    private final List<Map<String, Integer>> layouts = new ArrayList<>();
+    private int[] code;
+    private int length;
+    private int top;
+    private int max;
+    private Bytecode.Program program;
+
+    public BytecodeCompiler(Scope parent) {
+        scope = new Scope(parent);
+        scope.defineFunction("print", (Environment.PlcObject value) -> {
+            System.out.println(value.getValue());
+            return Environment.NIL;
+        });
+        scope.defineFunction("range", (Environment.PlcObject start, Environment.PlcObject end) -> Environment.create(Range.of(start, end)));
+        scope.defineFunction("range", (Environment.PlcObject start, Environment.PlcObject end, Environment.PlcObject step) -> Environment.create(Range.of(start, end, step)));
+        PrimitiveList.define(scope);
+        HashTable.define(scope);
+        Buffer.define(scope);
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Compiles the given source into an executable {@link Bytecode.Program}.
+     */
+    public Bytecode.Program compile(Ast.Source ast) {
+        visit(ast);
+        return program;
+    }
+
+    /**
+     * Compiles the given source into the program returned by
+     * {@link #compile(Ast.Source)}.
+     */
+    @Override
+    public Integer visit(Ast.Source ast) {
+        fields.clear();
+        functions.clear();
+        constants.clear();
+        constantIndices.clear();
+        referenceIndices.clear();
+        for (Ast.Method method : ast.getMethods()) {
+            String key = method.getName() + "/" + method.getParameters().size();
+            if (functions.containsKey(key)) {
+                throw new RuntimeException("The function " + key + " is already defined in this scope.");
+            }
+            functions.put(key, functions.size());
+        }
+        if (!functions.containsKey("main/0")) {
+            throw new RuntimeException("No main function defined");
+        }
+        begin();
+        for (Ast.Field field : ast.getFields()) {
+            visit(field);
+        }
+        int result = allocate();
+        emit(Bytecode.CALL, result, functions.get("main/0"), top, 0);
+        emit(Bytecode.RETURN, result);
+        Bytecode.Function entry = end("<entry>", 0);
+        List<Bytecode.Function> compiled = new ArrayList<>();
+        for (Ast.Method method : ast.getMethods()) {
+            begin();
+            for (String parameter : method.getParameters()) {
+                define(parameter);
+            }
+            visit(method);
+            compiled.add(end(method.getName(), method.getParameters().size()));
+        }
+        program = new Bytecode.Program(compiled, constants.toArray(), fields.size(), entry);
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Field ast) {
+        if (fields.containsKey(ast.getName())) {
+            throw new RuntimeException("The variable " + ast.getName() + " is already defined in this scope.");
+        }
+        int mark = top;
+        int value = ast.getValue().isPresent() ? visit(ast.getValue().get()) : nil();
+        fields.put(ast.getName(), fields.size());
+        emit(Bytecode.STORE_GLOBAL, fields.get(ast.getName()), value);
+        top = mark;
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Method ast) {
+        block(ast.getStatements());
+        emit(Bytecode.RETURN, nil());
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Stmt.Expression ast) {
+        int mark = top;
+        visit(ast.getExpression());
+        top = mark;
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Stmt.Declaration ast) {
+        int mark = top;
+        int value = ast.getValue().isPresent() ? visit(ast.getValue().get()) : nil();
+        top = mark;
+        int slot = define(ast.getName());
+        move(slot, value);
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Stmt.Assignment ast) {
+        if (!(ast.getReceiver() instanceof Ast.Expr.Access)) {
+            throw new RuntimeException("Assignment target not a assignable.");
+        }
+        Ast.Expr.Access target = (Ast.Expr.Access) ast.getReceiver();
+        String name = target.getName();
+        int mark = top;
+        int value = visit(ast.getValue());
+        if (target.getReceiver().isPresent()) {
+            int receiver = visit(target.getReceiver().get());
+            emit(Bytecode.STORE_FIELD, receiver, name(name), value);
+        } else if (resolve(name) != null) {
+            move(resolve(name), value);
+        } else if (fields.containsKey(name)) {
+            emit(Bytecode.STORE_GLOBAL, fields.get(name), value);
+        } else {
+            emit(Bytecode.STORE_VARIABLE, reference(scope.lookupVariable(name)), value);
+        }
+        top = mark;
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Stmt.If ast) {
+        int mark = top;
+        int condition = visit(ast.getCondition());
+        top = mark;
+        int otherwise = jump(Bytecode.JUMP_FALSE, condition);
+        scoped(ast.getThenStatements());
+        int end = jump(Bytecode.JUMP);
+        patch(otherwise);
+        scoped(ast.getElseStatements());
+        patch(end);
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Stmt.For ast) {
+        int mark = top;
+        int value = visit(ast.getValue());
+        top = mark;
+        int iterator = allocate();
+        emit(Bytecode.ITERATOR, iterator, value);
+        enter();
+        int variable = define(ast.getName());
+        int start = length;
+        int exit = jump(Bytecode.NEXT, variable, iterator);
+        block(ast.getStatements());
+        emit(Bytecode.JUMP, start);
+        patch(exit);
+        exit(mark);
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Stmt.While ast) {
+        int mark = top;
+        int start = length;
+        int condition = visit(ast.getCondition());
+        top = mark;
+        int exit = jump(Bytecode.JUMP_FALSE, condition);
+        scoped(ast.getStatements());
+        emit(Bytecode.JUMP, start);
+        patch(exit);
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Stmt.Return ast) {
+        int mark = top;
+        Ast.Expr value = ast.getValue();
+        if (value instanceof Ast.Expr.Function && !((Ast.Expr.Function) value).getReceiver().isPresent()
+                && functions.containsKey(((Ast.Expr.Function) value).getName() + "/" + ((Ast.Expr.Function) value).getArguments().size())) {
+            Ast.Expr.Function call = (Ast.Expr.Function) value;
+            int base = arguments(call.getArguments());
+            emit(Bytecode.TAIL_CALL, functions.get(call.getName() + "/" + call.getArguments().size()), base, call.getArguments().size());
+        } else {
+            emit(Bytecode.RETURN, visit(value));
+        }
+        top = mark;
+        return null;
+    }
+
+    @Override
+    public Integer visit(Ast.Expr.Literal ast) {
+        int register = allocate();
+        emit(Bytecode.CONST, register, literal(ast.getLiteral()));
+        return register;
+    }
+
+    @Override
+    public Integer visit(Ast.Expr.Group ast) {
+        return visit(ast.getExpression());
+    }
+
+    @Override
+    public Integer visit(Ast.Expr.Binary ast) {
+        int opcode;
+        switch (ast.getOperator()) {
+            case "AND": opcode = Bytecode.AND; break;
+            case "OR": opcode = Bytecode.OR; break;
+            case "<": opcode = Bytecode.LT; break;
+            case ">": opcode = Bytecode.GT; break;
+            case "<=": opcode = Bytecode.LE; break;
+            case ">=": opcode = Bytecode.GE; break;
+            case "==": opcode = Bytecode.EQ; break;
+            case "!=": opcode = Bytecode.NE; break;
+            case "+": opcode = Bytecode.ADD; break;
+            case "-": opcode = Bytecode.SUB; break;
+            case "*": opcode = Bytecode.MUL; break;
+            case "/": opcode = Bytecode.DIV; break;
+            default: throw new RuntimeException("Unsupported operator for Binary expression passed");
+        }
+        int mark = top;
+        int left = visit(ast.getLeft());
+        int right = visit(ast.getRight());
+        top = mark;
+        int register = allocate();
+        emit(opcode, register, left, right);
+        return register;
+    }
+
+    @Override
+    public Integer visit(Ast.Expr.Access ast) {
+        String name = ast.getName();
+        if (ast.getReceiver().isPresent()) {
+            int mark = top;
+            int receiver = visit(ast.getReceiver().get());
+            top = mark;
+            int register = allocate();
+            emit(Bytecode.LOAD_FIELD, register, receiver, name(name));
+            return register;
+        } else if (resolve(name) != null) {
+            return resolve(name);
+        }
+        int register = allocate();
+        if (fields.containsKey(name)) {
+            emit(Bytecode.LOAD_GLOBAL, register, fields.get(name));
+        } else {
+            emit(Bytecode.LOAD_VARIABLE, register, reference(scope.lookupVariable(name)));
+        }
+        return register;
+    }
+
+    @Override
+    public Integer visit(Ast.Expr.Function ast) {
+        String name = ast.getName();
+        int arity = ast.getArguments().size();
+        int base = arguments(ast.getArguments());
+        if (ast.getReceiver().isPresent()) {
+            int receiver = visit(ast.getReceiver().get());
+            top = base;
+            int register = allocate();
+            emit(Bytecode.INVOKE_METHOD, register, receiver, name(name), base, arity);
+            return register;
+        }
+        top = base;
+        int register = allocate();
+        Integer function = functions.get(name + "/" + arity);
+        if (function != null) {
+            emit(Bytecode.CALL, register, function, base, arity);
+        } else {
+            emit(Bytecode.INVOKE, register, reference(scope.lookupFunction(name, arity)), base, arity);
+        }
+        return register;
+    }
+
+    /**
+     * Evaluates the arguments of a call into consecutive registers starting
+     * at the returned base.
+     */
+    private int arguments(List<Ast.Expr> arguments) {
+        int base = top;
+        for (Ast.Expr argument : arguments) {
+            int slot = allocate();
+            move(slot, visit(argument));
+            top = slot + 1;
+        }
+        return base;
+    }
+
+    private void begin() {
+        code = new int[64];
+        length = 0;
+        top = 0;
+        max = 0;
+        layouts.clear();
+        layout = null;
+        enter();
+    }
+
+    private Bytecode.Function end(String name, int arity) {
+        return new Bytecode.Function(name, arity, max, Arrays.copyOf(code, length));
+    }
+
+    private void scoped(List<Ast.Stmt> statements) {
+        int mark = top;
+        enter();
+        block(statements);
+        exit(mark);
+    }
+
+    private void block(List<Ast.Stmt> statements) {
+        for (Ast.Stmt stmt : statements) {
+            visit(stmt);
+        }
+    }
+
+    private void enter() {
+        layout = new HashMap<>();
+        layouts.add(layout);
+    }
+
+    private void exit(int mark) {
+        layouts.remove(layouts.size() - 1);
+        layout = layouts.get(layouts.size() - 1);
+        top = mark;
+    }
+
+    private int define(String name) {
+        if (layout.containsKey(name)) {
+            throw new RuntimeException("The variable " + name + " is already defined in this scope.");
+        }
+        int register = allocate();
+        layout.put(name, register);
+        return register;
+    }
+
+    private Integer resolve(String name) {
+        for (int i = layouts.size() - 1; i >= 0; i--) {
+            Integer register = layouts.get(i).get(name);
+            if (register != null) {
+                return register;
+            }
+        }
+        return null;
+    }
+
+    private int allocate() {
+        max = Math.max(max, top + 1);
+        return top++;
+    }
+
+    private int nil() {
+        int register = allocate();
+        emit(Bytecode.CONST, register, reference(Environment.NIL));
+        return register;
+    }
+
+    private void move(int target, int source) {
+        if (target != source) {
+            emit(Bytecode.MOVE, target, source);
+        }
+    }
+
+    /**
+     * Emits a jump whose target is the last operand, returning the position of
+     * that operand for {@link #patch(int)}.
+     */
+    private int jump(int opcode, int... operands) {
+        int[] instruction = Arrays.copyOf(operands, operands.length + 1);
+        emit(opcode, instruction);
+        return length - 1;
+    }
+
+    private void patch(int operand) {
+        code[operand] = length;
+    }
+
+    private void emit(int opcode, int... operands) {
+        if (length + operands.length + 1 > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, length + operands.length + 1));
+        }
+        code[length++] = opcode;
+        for (int operand : operands) {
+            code[length++] = operand;
+        }
+    }
+
+    /**
+     * Returns the pool index of a literal's value, shared between equal
+     * literals of the same class.
+     */
+    private int literal(Object value) {
+        List<Object> key = Arrays.asList(value == null ? null : value.getClass(), value);
+        return pool(constantIndices, key, Environment.create(value));
+    }
+
+    /**
+     * Returns the pool index of a field or method name.
+     */
+    private int name(String name) {
+        return pool(constantIndices, name, name);
+    }
+
+    /**
+     * Returns the pool index of an object, shared only with itself.
+     */
+    private int reference(Object value) {
+        return pool(referenceIndices, value, value);
+    }
+
+    private int pool(Map<Object, Integer> indices, Object key, Object value) {
+        Integer index = indices.get(key);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            indices.put(key, index);
+        }
+        return index;
+    }
+
+}
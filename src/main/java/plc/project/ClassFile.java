@@ -0,0 +1,387 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal writer for JVM class files, used by the {@link JvmCompiler}.
+ *
+ * Classes are written with version 49 (Java 5), which is verified by type
+ * inference and therefore needs no {@code StackMapTable} attributes. The
+ * maximum stack depth of each method is tracked by {@link Code} from the
+ * stack effect passed with every instruction.
+ */
+public final class ClassFile {
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    private static final int VERSION = 49;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String, Integer> entries = new HashMap<>();
+    private int count = 1;
+    private final int thisClass;
+    private final int superClass;
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+
+    public ClassFile(String name, String superName) {
+        this.thisClass = classRef(name);
+        this.superClass = classRef(superName);
+    }
+
+    public int utf8(String value) {
+        return entry("Utf8:" + value, out -> {
+            out.writeByte(1);
+            out.writeUTF(value);
+        }, 1);
+    }
+
+    public int classRef(String name) {
+        int utf8 = utf8(name);
+        return entry("Class:" + name, out -> {
+            out.writeByte(7);
+            out.writeShort(utf8);
+        }, 1);
+    }
+
+    public int string(String value) {
+        int utf8 = utf8(value);
+        return entry("String:" + value, out -> {
+            out.writeByte(8);
+            out.writeShort(utf8);
+        }, 1);
+    }
+
+    public int integer(int value) {
+        return entry("Integer:" + value, out -> {
+            out.writeByte(3);
+            out.writeInt(value);
+        }, 1);
+    }
+
+    public int decimal(double value) {
+        return entry("Double:" + Double.doubleToRawLongBits(value), out -> {
+            out.writeByte(6);
+            out.writeDouble(value);
+        }, 2);
+    }
+
+    public int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    public int methodRef(String owner, String name, String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    public int interfaceMethodRef(String owner, String name, String descriptor) {
+        return memberRef(11, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = entry("NameAndType:" + name + ":" + descriptor, out -> {
+            out.writeByte(12);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        }, 1);
+        return entry(tag + ":" + owner + "." + name + ":" + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        }, 1);
+    }
+
+    private int entry(String key, Writer writer, int size) {
+        Integer index = entries.get(key);
+        if (index == null) {
+            index = count;
+            try {
+                writer.write(poolOut);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            count += size;
+            entries.put(key, index);
+        }
+        return index;
+    }
+
+    public void field(int access, String name, String descriptor) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        fields.add(bytes.toByteArray());
+    }
+
+    /**
+     * Starts a method whose body is written to the returned {@link Code},
+     * which adds the method to this class when {@link Code#end()} is called.
+     */
+    public Code method(int access, String name, String descriptor, int parameterSlots) {
+        return new Code(access, name, descriptor, parameterSlots);
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(count);
+            out.write(pool.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(fields.size());
+            for (byte[] field : fields) {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the number of stack (and local variable) slots taken by a value
+     * of the given field descriptor, 0 for {@code V}.
+     */
+    public static int size(String descriptor) {
+        switch (descriptor.charAt(0)) {
+            case 'V':
+                return 0;
+            case 'D':
+            case 'J':
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Returns the net stack effect of invoking a method with the given
+     * descriptor, excluding the receiver.
+     */
+    public static int effect(String descriptor) {
+        int effect = 0;
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            int start = i;
+            while (descriptor.charAt(i) == '[') {
+                i++;
+            }
+            if (descriptor.charAt(i) == 'L') {
+                i = descriptor.indexOf(';', i);
+            }
+            effect -= i == start ? size(descriptor.substring(start)) : 1;
+            i++;
+        }
+        return effect + size(descriptor.substring(i + 1));
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+
+        void write(DataOutputStream out) throws IOException;
+
+    }
+
+    public static final class Label {
+
+        private int position = -1;
+        private int stack = -1;
+        private final List<Integer> references = new ArrayList<>();
+
+    }
+
+    public final class Code {
+
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private final List<Label> labels = new ArrayList<>();
+        private byte[] code = new byte[64];
+        private int length = 0;
+        private int stack = 0;
+        private int maxStack = 0;
+        private int locals;
+        private int maxLocals;
+
+        private Code(int access, String name, String descriptor, int parameterSlots) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.locals = parameterSlots;
+            this.maxLocals = parameterSlots;
+        }
+
+        /**
+         * Emits an instruction without operands and applies its stack effect.
+         */
+        public Code op(int opcode, int effect) {
+            write(opcode);
+            return stack(effect);
+        }
+
+        /**
+         * Emits an instruction with a one byte operand.
+         */
+        public Code op1(int opcode, int operand, int effect) {
+            write(opcode);
+            write(operand);
+            return stack(effect);
+        }
+
+        /**
+         * Emits an instruction with a two byte operand.
+         */
+        public Code op2(int opcode, int operand, int effect) {
+            write(opcode);
+            write(operand >> 8);
+            write(operand);
+            return stack(effect);
+        }
+
+        public Code invoke(int opcode, String owner, String name, String descriptor) {
+            int effect = effect(descriptor) - (opcode == 0xB8 ? 0 : 1);
+            if (opcode == 0xB9) {
+                op2(opcode, interfaceMethodRef(owner, name, descriptor), effect);
+                write(1 - effect(descriptor.substring(0, descriptor.indexOf(')') + 1) + "V"));
+                write(0);
+                return this;
+            }
+            return op2(opcode, methodRef(owner, name, descriptor), effect);
+        }
+
+        public Code field(int opcode, String owner, String name, String descriptor) {
+            int size = size(descriptor);
+            int effect = opcode == 0xB2 ? size : opcode == 0xB3 ? -size : opcode == 0xB4 ? size - 1 : -size - 1;
+            return op2(opcode, fieldRef(owner, name, descriptor), effect);
+        }
+
+        /**
+         * Emits a branch to the given label, which may be marked later.
+         */
+        public Code jump(int opcode, Label label, int effect) {
+            int position = length;
+            write(opcode);
+            if (!labels.contains(label)) {
+                labels.add(label);
+            }
+            label.references.add(position);
+            write(0);
+            write(0);
+            stack(effect);
+            label.stack = stack;
+            return this;
+        }
+
+        /**
+         * Marks the current position as the target of the given label. The
+         * tracked stack depth is reset to that of the branches to the label.
+         */
+        public Code mark(Label label) {
+            label.position = length;
+            if (label.stack >= 0) {
+                stack = label.stack;
+            }
+            return this;
+        }
+
+        /**
+         * Allocates local variable slots for a value of the given descriptor.
+         */
+        public int allocate(String descriptor) {
+            int slot = locals;
+            locals += Math.max(1, size(descriptor));
+            maxLocals = Math.max(maxLocals, locals);
+            return slot;
+        }
+
+        public int getLocals() {
+            return locals;
+        }
+
+        /**
+         * Frees all local variable slots allocated after the given mark.
+         */
+        public void release(int mark) {
+            locals = mark;
+        }
+
+        private Code stack(int effect) {
+            stack += effect;
+            maxStack = Math.max(maxStack, stack);
+            return this;
+        }
+
+        private void write(int value) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, code.length * 2);
+            }
+            code[length++] = (byte) value;
+        }
+
+        /**
+         * Resolves the branches and adds the method to the class.
+         */
+        public void end() {
+            for (Label label : labels) {
+                for (int position : label.references) {
+                    int offset = label.position - position;
+                    code[position + 1] = (byte) (offset >> 8);
+                    code[position + 2] = (byte) offset;
+                }
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            try {
+                out.writeShort(access);
+                out.writeShort(utf8(name));
+                out.writeShort(utf8(descriptor));
+                out.writeShort(1);
+                out.writeShort(utf8("Code"));
+                out.writeInt(12 + length);
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(length);
+                out.write(code, 0, length);
+                out.writeShort(0);
+                out.writeShort(0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            methods.add(bytes.toByteArray());
+        }
+
+    }
+
+}
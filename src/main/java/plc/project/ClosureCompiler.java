@@ -0,0 +1,528 @@
+package plc.project;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Translates an {@link Ast.Source} once into a tree of pre-bound lambdas
+ * ("closure compilation"). Every variable is resolved to a slot in either the
+ * global or the current activation's frame, every function call is bound to
+ * its target and every operator is bound to its implementation at compile
+ * time, so executing the result performs no visitor dispatch, no name lookups
+ * and no operator string checks.
+ *
+ * The semantics are those of the {@link Interpreter}; statement closures
+ * signal a {@code RETURN} by producing the returned value instead of
+ * {@code null}, so no exceptions are used for control flow.
+ */
+public final class ClosureCompiler implements Ast.Visitor<ClosureCompiler.Closure> {
+
+    private final Scope scope;
+    private final Map<String, Integer> fields = new HashMap<>();
+    private final Map<String, Callable> methods = new HashMap<>();
+    private Layout layout = null;
+    private int locals = 0;
+    private int size = 0;
+
+    public ClosureCompiler(Scope parent) {
+        scope = new Scope(parent);
+        scope.defineFunction("print", (Environment.PlcObject value) -> {
+            System.out.println(value.getValue());
+            return Environment.NIL;
+        });
+        scope.defineFunction("range", (Environment.PlcObject start, Environment.PlcObject end) -> Environment.create(Range.of(start, end)));
+        scope.defineFunction("range", (Environment.PlcObject start, Environment.PlcObject end, Environment.PlcObject step) -> Environment.create(Range.of(start, end, step)));
+        PrimitiveList.define(scope);
+        HashTable.define(scope);
+        Buffer.define(scope);
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Compiles the given source into an executable {@link Program}.
+     */
+    public Program compile(Ast.Source ast) {
+        fields.clear();
+        methods.clear();
+        Closure[] initializers = new Closure[ast.getFields().size()];
+        for (int i = 0; i < initializers.length; i++) {
+            initializers[i] = visit(ast.getFields().get(i));
+        }
+        for (Ast.Method method : ast.getMethods()) {
+            String key = method.getName() + "/" + method.getParameters().size();
+            if (methods.containsKey(key)) {
+                throw new RuntimeException("The function " + key + " is already defined in this scope.");
+            }
+            methods.put(key, new Callable());
+        }
+        for (Ast.Method method : ast.getMethods()) {
+            visit(method);
+        }
+        Callable main = methods.get("main/0");
+        if (main == null) {
+            throw new RuntimeException("No main function defined");
+        }
+        return new Program(initializers, main);
+    }
+
+    /**
+     * Compiles a single method, resolving its free variables and the
+     * functions it calls in this compiler's scope. Recursive calls are bound
+     * directly to the compiled method. The result can be used as the
+     * implementation of a function defined in another engine's scope.
+     */
+    public java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> compile(Ast.Method ast) {
+        fields.clear();
+        methods.clear();
+        Callable callable = new Callable();
+        int arity = ast.getParameters().size();
+        methods.put(ast.getName() + "/" + arity, callable);
+        visit(ast);
+        return arguments -> {
+            Environment.PlcObject[] locals = new Environment.PlcObject[callable.size];
+            for (int i = 0; i < arity; i++) {
+                locals[i] = arguments.get(i);
+            }
+            return callable.invoke(new Frame(new Environment.PlcObject[0], locals));
+        };
+    }
+
+    @Override
+    public Closure visit(Ast.Source ast) {
+        Program program = compile(ast);
+        return frame -> program.execute();
+    }
+
+    @Override
+    public Closure visit(Ast.Field ast) {
+        if (fields.containsKey(ast.getName())) {
+            throw new RuntimeException("The variable " + ast.getName() + " is already defined in this scope.");
+        }
+        Closure value = ast.getValue().isPresent() ? visit(ast.getValue().get()) : frame -> Environment.NIL;
+        int slot = fields.size();
+        fields.put(ast.getName(), slot);
+        return frame -> {
+            frame.globals[slot] = value.execute(frame);
+            return null;
+        };
+    }
+
+    @Override
+    public Closure visit(Ast.Method ast) {
+        Callable callable = methods.get(ast.getName() + "/" + ast.getParameters().size());
+        layout = new Layout(null);
+        locals = 0;
+        size = 0;
+        try {
+            for (String parameter : ast.getParameters()) {
+                define(parameter);
+            }
+            callable.body = block(ast.getStatements());
+            callable.size = size;
+        } finally {
+            layout = null;
+        }
+        return frame -> null;
+    }
+
+    @Override
+    public Closure visit(Ast.Stmt.Expression ast) {
+        Closure expression = visit(ast.getExpression());
+        return frame -> {
+            expression.execute(frame);
+            return null;
+        };
+    }
+
+    @Override
+    public Closure visit(Ast.Stmt.Declaration ast) {
+        Closure value = ast.getValue().isPresent() ? visit(ast.getValue().get()) : frame -> Environment.NIL;
+        int slot = define(ast.getName());
+        return frame -> {
+            frame.locals[slot] = value.execute(frame);
+            return null;
+        };
+    }
+
+    @Override
+    public Closure visit(Ast.Stmt.Assignment ast) {
+        if (!(ast.getReceiver() instanceof Ast.Expr.Access)) {
+            throw new RuntimeException("Assignment target not a assignable.");
+        }
+        Ast.Expr.Access target = (Ast.Expr.Access) ast.getReceiver();
+        String name = target.getName();
+        Closure value = visit(ast.getValue());
+        if (target.getReceiver().isPresent()) {
+            Closure receiver = visit(target.getReceiver().get());
+            ShapeCache cache = target.getCache();
+            return frame -> {
+                Environment.PlcObject result = value.execute(frame);
+                receiver.execute(frame).setField(name, cache, result);
+                return null;
+            };
+        }
+        Integer local = resolve(name);
+        if (local != null) {
+            int slot = local;
+            return frame -> {
+                frame.locals[slot] = value.execute(frame);
+                return null;
+            };
+        } else if (fields.containsKey(name)) {
+            int slot = fields.get(name);
+            return frame -> {
+                frame.globals[slot] = value.execute(frame);
+                return null;
+            };
+        }
+        Environment.Variable variable = scope.lookupVariable(name);
+        return frame -> {
+            variable.setValue(value.execute(frame));
+            return null;
+        };
+    }
+
+    @Override
+    public Closure visit(Ast.Stmt.If ast) {
+        Closure condition = visit(ast.getCondition());
+        Closure thenStatements = scoped(ast.getThenStatements());
+        Closure elseStatements = scoped(ast.getElseStatements());
+        return frame -> {
+            if (Interpreter.requireType(Boolean.class, condition.execute(frame))) {
+                return thenStatements.execute(frame);
+            } else {
+                return elseStatements.execute(frame);
+            }
+        };
+    }
+
+    @Override
+    public Closure visit(Ast.Stmt.For ast) {
+        Closure value = visit(ast.getValue());
+        Layout outer = enter();
+        int start = locals;
+        try {
+            int slot = define(ast.getName());
+            Closure statements = block(ast.getStatements());
+            return frame -> {
+                Iterator<?> iterator = Interpreter.requireType(Iterable.class, value.execute(frame)).iterator();
+                while (iterator.hasNext()) {
+                    frame.locals[slot] = (Environment.PlcObject) iterator.next();
+                    Environment.PlcObject result = statements.execute(frame);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+                return null;
+            };
+        } finally {
+            exit(outer, start);
+        }
+    }
+
+    @Override
+    public Closure visit(Ast.Stmt.While ast) {
+        Closure condition = visit(ast.getCondition());
+        Closure statements = scoped(ast.getStatements());
+        return frame -> {
+            while (Interpreter.requireType(Boolean.class, condition.execute(frame))) {
+                Environment.PlcObject result = statements.execute(frame);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public Closure visit(Ast.Stmt.Return ast) {
+        Closure value = visit(ast.getValue());
+        return value::execute;
+    }
+
+    @Override
+    public Closure visit(Ast.Expr.Literal ast) {
+        Object literal = ast.getLiteral();
+        return frame -> Environment.create(literal);
+    }
+
+    @Override
+    public Closure visit(Ast.Expr.Group ast) {
+        return visit(ast.getExpression());
+    }
+
+    @Override
+    public Closure visit(Ast.Expr.Binary ast) {
+        Closure left = visit(ast.getLeft());
+        Closure right = visit(ast.getRight());
+        switch (ast.getOperator()) {
+            case "AND":
+                return frame -> {
+                    Boolean l = Interpreter.requireType(Boolean.class, left.execute(frame));
+                    Boolean r = Interpreter.requireType(Boolean.class, right.execute(frame));
+                    return Environment.create(l && r);
+                };
+            case "OR":
+                return frame -> {
+                    Boolean l = Interpreter.requireType(Boolean.class, left.execute(frame));
+                    Boolean r = Interpreter.requireType(Boolean.class, right.execute(frame));
+                    return Environment.create(l || r);
+                };
+            case "<":
+                return frame -> Environment.create(Interpreter.compare(left.execute(frame), right.execute(frame)) < 0);
+            case ">":
+                return frame -> Environment.create(Interpreter.compare(left.execute(frame), right.execute(frame)) > 0);
+            case "<=":
+                return frame -> Environment.create(Interpreter.compare(left.execute(frame), right.execute(frame)) <= 0);
+            case ">=":
+                return frame -> Environment.create(Interpreter.compare(left.execute(frame), right.execute(frame)) >= 0);
+            case "==":
+                return frame -> Environment.create(Objects.equals(left.execute(frame).getValue(), right.execute(frame).getValue()));
+            case "!=":
+                return frame -> Environment.create(!Objects.equals(left.execute(frame).getValue(), right.execute(frame).getValue()));
+            case "+":
+                return frame -> Interpreter.visitPlus(left.execute(frame), right.execute(frame));
+            case "-":
+                return frame -> Interpreter.visitMinus(left.execute(frame), right.execute(frame));
+            case "*":
+                return frame -> Interpreter.visitMulti(left.execute(frame), right.execute(frame));
+            case "/":
+                return frame -> Interpreter.visitDivide(left.execute(frame), right.execute(frame));
+            default:
+                throw new RuntimeException("Unsupported operator for Binary expression passed");
+        }
+    }
+
+    @Override
+    public Closure visit(Ast.Expr.Access ast) {
+        String name = ast.getName();
+        if (ast.getReceiver().isPresent()) {
+            Closure receiver = visit(ast.getReceiver().get());
+            ShapeCache cache = ast.getCache();
+            return frame -> receiver.execute(frame).getField(name, cache);
+        }
+        Integer local = resolve(name);
+        if (local != null) {
+            int slot = local;
+            return frame -> frame.locals[slot];
+        } else if (fields.containsKey(name)) {
+            int slot = fields.get(name);
+            return frame -> frame.globals[slot];
+        }
+        Environment.Variable variable = scope.lookupVariable(name);
+        return frame -> variable.getValue();
+    }
+
+    @Override
+    public Closure visit(Ast.Expr.Function ast) {
+        String name = ast.getName();
+        Closure[] arguments = new Closure[ast.getArguments().size()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = visit(ast.getArguments().get(i));
+        }
+        if (ast.getReceiver().isPresent()) {
+            Closure receiver = visit(ast.getReceiver().get());
+            int id = Environment.getMethodId(name, arguments.length);
+            return frame -> {
+                List<Environment.PlcObject> values = Arrays.asList(evaluate(arguments, frame));
+                return receiver.execute(frame).callMethod(id, values);
+            };
+        }
+        Callable callable = methods.get(name + "/" + arguments.length);
+        if (callable != null) {
+            return frame -> {
+                Environment.PlcObject[] locals = new Environment.PlcObject[callable.size];
+                for (int i = 0; i < arguments.length; i++) {
+                    locals[i] = arguments[i].execute(frame);
+                }
+                return callable.invoke(new Frame(frame.globals, locals));
+            };
+        }
+        Environment.Function function = scope.lookupFunction(name, arguments.length);
+        switch (arguments.length) {
+            case 0:
+                return frame -> function.invoke0();
+            case 1: {
+                Closure a = arguments[0];
+                return frame -> function.invoke1(a.execute(frame));
+            }
+            case 2: {
+                Closure a = arguments[0];
+                Closure b = arguments[1];
+                return frame -> function.invoke2(a.execute(frame), b.execute(frame));
+            }
+            case 3: {
+                Closure a = arguments[0];
+                Closure b = arguments[1];
+                Closure c = arguments[2];
+                return frame -> function.invoke3(a.execute(frame), b.execute(frame), c.execute(frame));
+            }
+            default:
+                return frame -> function.invoke(evaluate(arguments, frame));
+        }
+    }
+
+    private static Environment.PlcObject[] evaluate(Closure[] arguments, Frame frame) {
+        Environment.PlcObject[] values = new Environment.PlcObject[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            values[i] = arguments[i].execute(frame);
+        }
+        return values;
+    }
+
+    /**
+     * Compiles a list of statements in a new lexical scope.
+     */
+    private Closure scoped(List<Ast.Stmt> statements) {
+        Layout outer = enter();
+        int start = locals;
+        try {
+            return block(statements);
+        } finally {
+            exit(outer, start);
+        }
+    }
+
+    /**
+     * Compiles a list of statements in the current lexical scope. The result
+     * is the returned value if a {@code RETURN} was executed, else null.
+     */
+    private Closure block(List<Ast.Stmt> statements) {
+        Closure[] closures = new Closure[statements.size()];
+        for (int i = 0; i < closures.length; i++) {
+            closures[i] = visit(statements.get(i));
+        }
+        if (closures.length == 1) {
+            return closures[0];
+        }
+        return frame -> {
+            for (Closure closure : closures) {
+                Environment.PlcObject result = closure.execute(frame);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return null;
+        };
+    }
+
+    private Layout enter() {
+        Layout outer = layout;
+        layout = new Layout(outer);
+        return outer;
+    }
+
+    private void exit(Layout outer, int start) {
+        layout = outer;
+        locals = start;
+    }
+
+    private int define(String name) {
+        if (layout.slots.containsKey(name)) {
+            throw new RuntimeException("The variable " + name + " is already defined in this scope.");
+        }
+        int slot = locals++;
+        size = Math.max(size, locals);
+        layout.slots.put(name, slot);
+        return slot;
+    }
+
+    private Integer resolve(String name) {
+        for (Layout current = layout; current != null; current = current.parent) {
+            if (current.slots.containsKey(name)) {
+                return current.slots.get(name);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A pre-bound piece of code. Expression closures produce their value;
+     * statement closures produce {@code null} on normal completion and the
+     * returned value after a {@code RETURN}.
+     */
+    @FunctionalInterface
+    public interface Closure {
+
+        Environment.PlcObject execute(Frame frame);
+
+    }
+
+    /**
+     * The storage of a single activation: the program's globals and the
+     * method's local slots.
+     */
+    public static final class Frame {
+
+        private final Environment.PlcObject[] globals;
+        private final Environment.PlcObject[] locals;
+
+        private Frame(Environment.PlcObject[] globals, Environment.PlcObject[] locals) {
+            this.globals = globals;
+            this.locals = locals;
+        }
+
+    }
+
+    /**
+     * A compiled {@link Ast.Method}, bound before its body is compiled so that
+     * recursive and forward calls can refer to it.
+     */
+    private static final class Callable {
+
+        private Closure body;
+        private int size;
+
+        private Environment.PlcObject invoke(Frame frame) {
+            Environment.PlcObject result = body.execute(frame);
+            return result != null ? result : Environment.NIL;
+        }
+
+    }
+
+    /**
+     * Compile-time mapping of the variables in one lexical scope to slots.
+     */
+    private static final class Layout {
+
+        private final Layout parent;
+        private final Map<String, Integer> slots = new HashMap<>();
+
+        private Layout(Layout parent) {
+            this.parent = parent;
+        }
+
+    }
+
+    public static final class Program {
+
+        private final Closure[] initializers;
+        private final Callable main;
+
+        private Program(Closure[] initializers, Callable main) {
+            this.initializers = initializers;
+            this.main = main;
+        }
+
+        /**
+         * Initializes a fresh set of globals and invokes {@code main}.
+         */
+        public Environment.PlcObject execute() {
+            Frame frame = new Frame(new Environment.PlcObject[initializers.length], new Environment.PlcObject[0]);
+            for (Closure initializer : initializers) {
+                initializer.execute(frame);
+            }
+            return main.invoke(new Frame(frame.globals, new Environment.PlcObject[main.size]));
+        }
+
+    }
+
+}
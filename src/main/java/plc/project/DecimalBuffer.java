@@ -0,0 +1,206 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * A buffer of {@code double}s, the {@code DecimalBuffer} type of the language.
+ */
+public final class DecimalBuffer extends Buffer {
+
+    public DecimalBuffer(int length) {
+        super(length, Double.BYTES);
+    }
+
+    public DecimalBuffer(String path, int length) {
+        this(Paths.get(path), length);
+    }
+
+    DecimalBuffer(Path path, int length) {
+        super(path, length, Double.BYTES);
+    }
+
+    public double get(int index) {
+        long offset = offset(index);
+        return chunk(offset).getDouble(position(offset));
+    }
+
+    public void set(int index, double value) {
+        long offset = offset(index);
+        chunk(offset).putDouble(position(offset), value);
+    }
+
+    public void fill(double value) {
+        fill(0, length(), value);
+    }
+
+    public void fill(int from, int to, double value) {
+        check(from, to);
+        for (int i = from; i < to; i++) {
+            long offset = (long) i * Double.BYTES;
+            chunk(offset).putDouble(position(offset), value);
+        }
+    }
+
+    public void copy(int from, int to, DecimalBuffer target, int at) {
+        copyElements(from, to, target, at);
+    }
+
+    public DecimalBuffer add(DecimalBuffer other) {
+        return combine(other, Vectors::add);
+    }
+
+    public DecimalBuffer mul(DecimalBuffer other) {
+        return combine(other, Vectors::mul);
+    }
+
+    private DecimalBuffer combine(DecimalBuffer other, Kernel kernel) {
+        int n = Vectors.length(length(), other.length());
+        DecimalBuffer result = new DecimalBuffer(n);
+        double[] left = new double[Math.min(n, Vectors.BLOCK)];
+        double[] right = new double[left.length];
+        for (int from = 0; from < n; from += Vectors.BLOCK) {
+            int count = Math.min(Vectors.BLOCK, n - from);
+            read(from, left, count);
+            other.read(from, right, count);
+            kernel.apply(left, right, left, count);
+            result.write(from, left, count);
+        }
+        return result;
+    }
+
+    public double sum() {
+        double[] block = new double[Math.min(length(), Vectors.BLOCK)];
+        double sum = 0;
+        for (int from = 0; from < length(); from += Vectors.BLOCK) {
+            int count = Math.min(Vectors.BLOCK, length() - from);
+            read(from, block, count);
+            sum += Vectors.sum(block, count);
+        }
+        return sum;
+    }
+
+    public double min() {
+        Vectors.require(length(), "min");
+        double[] block = new double[Math.min(length(), Vectors.BLOCK)];
+        double min = get(0);
+        for (int from = 0; from < length(); from += Vectors.BLOCK) {
+            int count = Math.min(Vectors.BLOCK, length() - from);
+            read(from, block, count);
+            min = Vectors.min(block, count, min);
+        }
+        return min;
+    }
+
+    public double max() {
+        Vectors.require(length(), "max");
+        double[] block = new double[Math.min(length(), Vectors.BLOCK)];
+        double max = get(0);
+        for (int from = 0; from < length(); from += Vectors.BLOCK) {
+            int count = Math.min(Vectors.BLOCK, length() - from);
+            read(from, block, count);
+            max = Vectors.max(block, count, max);
+        }
+        return max;
+    }
+
+    public double dot(DecimalBuffer other) {
+        int n = Vectors.length(length(), other.length());
+        double[] left = new double[Math.min(n, Vectors.BLOCK)];
+        double[] right = new double[left.length];
+        double dot = 0;
+        for (int from = 0; from < n; from += Vectors.BLOCK) {
+            int count = Math.min(Vectors.BLOCK, n - from);
+            read(from, left, count);
+            other.read(from, right, count);
+            dot += Vectors.dot(left, right, count);
+        }
+        return dot;
+    }
+
+    /**
+     * Returns whether each element is less than the element of the other
+     * buffer at the same index, as a list.
+     */
+    public BooleanList less(DecimalBuffer other) {
+        int n = Vectors.length(length(), other.length());
+        double[] left = new double[Math.min(n, Vectors.BLOCK)];
+        double[] right = new double[left.length];
+        boolean[] result = new boolean[n];
+        for (int from = 0; from < n; from += Vectors.BLOCK) {
+            int count = Math.min(Vectors.BLOCK, n - from);
+            read(from, left, count);
+            other.read(from, right, count);
+            Vectors.less(left, right, result, from, count);
+        }
+        return new BooleanList(result, n);
+    }
+
+    /**
+     * Copies {@code count} elements from the given index into the start of
+     * the block.
+     */
+    private void read(int from, double[] block, int count) {
+        for (int i = 0; i < count; ) {
+            long offset = (long) (from + i) * Double.BYTES;
+            int run = run(from + i, count - i);
+            java.nio.DoubleBuffer elements = chunk(offset).asDoubleBuffer();
+            elements.position(position(offset) / Double.BYTES);
+            elements.get(block, i, run);
+            i += run;
+        }
+    }
+
+    private void write(int from, double[] block, int count) {
+        for (int i = 0; i < count; ) {
+            long offset = (long) (from + i) * Double.BYTES;
+            int run = run(from + i, count - i);
+            java.nio.DoubleBuffer elements = chunk(offset).asDoubleBuffer();
+            elements.position(position(offset) / Double.BYTES);
+            elements.put(block, i, run);
+            i += run;
+        }
+    }
+
+    /**
+     * Returns the elements as a sequential stream, which may be made
+     * parallel.
+     */
+    public DoubleStream stream() {
+        return IntStream.range(0, length()).mapToDouble(this::get);
+    }
+
+    @Override
+    public Environment.Type getType() {
+        return Environment.Type.DECIMAL_BUFFER;
+    }
+
+    @Override
+    public Environment.PlcObject element(int index) {
+        return Environment.create(BigDecimal.valueOf(get(index)));
+    }
+
+    @Override
+    void setElement(int index, Environment.PlcObject value) {
+        set(index, value(value));
+    }
+
+    @Override
+    void fillElements(int from, int to, Environment.PlcObject value) {
+        fill(from, to, value(value));
+    }
+
+    private static double value(Environment.PlcObject value) {
+        return Interpreter.requireType(BigDecimal.class, value).doubleValue();
+    }
+
+    private interface Kernel {
+
+        void apply(double[] left, double[] right, double[] result, int count);
+
+    }
+
+}
@@ -0,0 +1,128 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code double}s, the {@code DecimalList} type of the
+ * language. Decimals are rounded to the nearest {@code double} when stored,
+ * as in generated code.
+ */
+public final class DecimalList extends PrimitiveList {
+
+    private double[] values;
+
+    public DecimalList() {
+        this(new double[8], 0);
+    }
+
+    private DecimalList(double[] values, int length) {
+        this.values = values;
+        this.length = length;
+    }
+
+    public static DecimalList of(double... values) {
+        return new DecimalList(values.clone(), values.length);
+    }
+
+    public double get(int index) {
+        check(index);
+        return values[index];
+    }
+
+    public void set(int index, double value) {
+        check(index);
+        values[index] = value;
+    }
+
+    public void append(double value) {
+        if (length == values.length) {
+            values = Arrays.copyOf(values, grow(values.length));
+        }
+        values[length++] = value;
+    }
+
+    @Override
+    public DecimalList slice(int from, int to) {
+        check(from, to);
+        return new DecimalList(Arrays.copyOfRange(values, from, to), to - from);
+    }
+
+    public double[] toArray() {
+        return Arrays.copyOf(values, length);
+    }
+
+    public DecimalList add(DecimalList other) {
+        int n = Vectors.length(length, other.length);
+        double[] result = new double[n];
+        Vectors.add(values, other.values, result, n);
+        return new DecimalList(result, n);
+    }
+
+    public DecimalList mul(DecimalList other) {
+        int n = Vectors.length(length, other.length);
+        double[] result = new double[n];
+        Vectors.mul(values, other.values, result, n);
+        return new DecimalList(result, n);
+    }
+
+    public double sum() {
+        return Vectors.sum(values, length);
+    }
+
+    public double min() {
+        Vectors.require(length, "min");
+        return Vectors.min(values, length, values[0]);
+    }
+
+    public double max() {
+        Vectors.require(length, "max");
+        return Vectors.max(values, length, values[0]);
+    }
+
+    public double dot(DecimalList other) {
+        int n = Vectors.length(length, other.length);
+        return Vectors.dot(values, other.values, n);
+    }
+
+    /**
+     * Returns whether each element is less than the element of the other
+     * list at the same index.
+     */
+    public BooleanList less(DecimalList other) {
+        int n = Vectors.length(length, other.length);
+        boolean[] result = new boolean[n];
+        Vectors.less(values, other.values, result, 0, n);
+        return new BooleanList(result, n);
+    }
+
+    @Override
+    public Environment.Type getType() {
+        return Environment.Type.DECIMAL_LIST;
+    }
+
+    @Override
+    public Environment.PlcObject element(int index) {
+        return Environment.create(BigDecimal.valueOf(get(index)));
+    }
+
+    @Override
+    void setElement(int index, Environment.PlcObject value) {
+        set(index, value(value));
+    }
+
+    @Override
+    void appendElement(Environment.PlcObject value) {
+        append(value(value));
+    }
+
+    private static double value(Environment.PlcObject value) {
+        return Interpreter.requireType(BigDecimal.class, value).doubleValue();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+}
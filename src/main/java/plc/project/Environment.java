@@ -1,10 +1,17 @@
 package plc.project;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
 
 public final class Environment {
 
@@ -17,23 +24,75 @@ public final class Environment {
 
     });
 
-    private static final Map<String, Type> TYPES = new HashMap<>();
+    private static final AtomicReference<TypeRegistry> REGISTRY = new AtomicReference<>(TypeRegistry.EMPTY);
+    private static final Map<String, int[]> METHOD_IDS = new ConcurrentHashMap<>();
+    private static final List<String> METHOD_NAMES = new ArrayList<>();
 
     public static Type getType(String name) {
-        if (!TYPES.containsKey(name)) {
-            throw new RuntimeException("Unknown type " + name + ".");
-        }
-        return TYPES.get(name);
+        return REGISTRY.get().getType(name);
     }
 
+    /**
+     * Registers a type globally by atomically replacing the registry, so
+     * readers never lock and never see a partially updated registry.
+     */
     public static void registerType(Type type) {
-        if (TYPES.containsKey(type.getName())) {
-            throw new IllegalArgumentException("Duplicate registration of type " + type.getName() + ".");
+        REGISTRY.updateAndGet(registry -> registry.with(type));
+    }
+
+    /**
+     * Returns a snapshot of the global type registry.
+     */
+    public static TypeRegistry getRegistry() {
+        return REGISTRY.get();
+    }
+
+    private static String getMethodName(int id) {
+        synchronized (METHOD_NAMES) {
+            return METHOD_NAMES.get(id);
+        }
+    }
+
+    /**
+     * Returns the numeric id of the method signature with the given name and
+     * arity (excluding the receiver), allocating one on first use. Ids index
+     * the flattened method table of every {@link Type}.
+     */
+    public static int getMethodId(String name, int arity) {
+        int[] ids = METHOD_IDS.get(name);
+        if (ids != null && arity < ids.length && ids[arity] >= 0) {
+            return ids[arity];
+        }
+        synchronized (METHOD_NAMES) {
+            ids = METHOD_IDS.getOrDefault(name, new int[0]);
+            if (arity >= ids.length) {
+                int length = ids.length;
+                ids = Arrays.copyOf(ids, arity + 1);
+                Arrays.fill(ids, length, ids.length, -1);
+            } else if (ids[arity] >= 0) {
+                return ids[arity];
+            } else {
+                ids = ids.clone();
+            }
+            ids[arity] = METHOD_NAMES.size();
+            METHOD_NAMES.add(name);
+            METHOD_IDS.put(name, ids);
+            return ids[arity];
         }
-        TYPES.put(type.getName(), type);
     }
 
+    /**
+     * Wraps the given value. Primitive lists, maps and buffers are given their type,
+     * so their methods can be called.
+     */
     public static PlcObject create(Object value) {
+        if (value instanceof PrimitiveList) {
+            return new PlcObject(((PrimitiveList) value).getType(), new Scope(null), value);
+        } else if (value instanceof HashTable) {
+            return new PlcObject(((HashTable) value).getType(), new Scope(null), value);
+        } else if (value instanceof Buffer) {
+            return new PlcObject(((Buffer) value).getType(), new Scope(null), value);
+        }
         return new PlcObject(new Scope(null), value);
     }
 
@@ -48,15 +107,26 @@ public final class Environment {
         public static final Type DECIMAL = new Type("Decimal", "double", new Scope(COMPARABLE.scope));
         public static final Type CHARACTER = new Type("Character", "char", new Scope(COMPARABLE.scope));
         public static final Type STRING = new Type("String", "String", new Scope(COMPARABLE.scope));
+        public static final Type INT_LIST = new Type("IntList", "plc.project.IntList", new Scope(ANY.scope));
+        public static final Type DECIMAL_LIST = new Type("DecimalList", "plc.project.DecimalList", new Scope(ANY.scope));
+        public static final Type BOOLEAN_LIST = new Type("BooleanList", "plc.project.BooleanList", new Scope(ANY.scope));
+        public static final Type INT_MAP = new Type("IntMap", "plc.project.IntMap", new Scope(ANY.scope));
+        public static final Type STRING_MAP = new Type("StringMap", "plc.project.StringMap", new Scope(ANY.scope));
+        public static final Type INT_BUFFER = new Type("IntBuffer", "plc.project.IntBuffer", new Scope(ANY.scope));
+        public static final Type DECIMAL_BUFFER = new Type("DecimalBuffer", "plc.project.DecimalBuffer", new Scope(ANY.scope));
 
         private final String name;
         private final String jvmName;
         private final Scope scope;
+        private volatile Function[] methods = null;
 
         public Type(String name, String jvmName, Scope scope) {
             this.name = name;
             this.jvmName = jvmName;
             this.scope = scope;
+            for (Scope current = scope; current != null; current = current.getParent()) {
+                current.addDependent(this);
+            }
         }
 
         public String getName() {
@@ -75,8 +145,89 @@ public final class Environment {
             return scope.lookupVariable(name);
         }
 
+        /**
+         * Returns the method with the given name and arity (excluding the
+         * receiver). Every method of the chain has an id once the table is
+         * built, so a name without one is not allocated an id.
+         */
         public Function getMethod(String name, int arity) {
-            return scope.lookupFunction(name, arity + 1);
+            Function[] table = table();
+            int[] ids = METHOD_IDS.get(name);
+            int id = ids != null && arity < ids.length ? ids[arity] : -1;
+            Function method = id >= 0 && id < table.length ? table[id] : null;
+            if (method == null) {
+                throw new RuntimeException("The function " + name + "/" + (arity + 1) + " is not defined in this scope.");
+            }
+            return method;
+        }
+
+        /**
+         * Returns the method with the given id, including inherited methods,
+         * or null if there is none.
+         *
+         * Methods are resolved through a table indexed by method id,
+         * flattened from the methods defined in this type's scope chain. The
+         * table is filled when a method is registered on this type. Defining
+         * a function in any scope of the chain some other way, such as on a
+         * supertype, drops the table (see {@link Scope#addDependent}), and the
+         * next dispatch rebuilds it, so dispatch itself checks no versions.
+         */
+        public Function getMethod(int id) {
+            Function[] table = table();
+            return id < table.length ? table[id] : null;
+        }
+
+        private Function[] table() {
+            Function[] table = methods;
+            return table != null ? table : flatten();
+        }
+
+        /**
+         * Drops the method table after a function is defined in the scope
+         * chain.
+         */
+        synchronized void invalidate() {
+            methods = null;
+        }
+
+        /**
+         * Defines a builtin method on this type whose implementation receives
+         * the receiver separately from the arguments. The parameter types
+         * start with the receiver's, as for any method.
+         */
+        public Function defineMethod(String name, String jvmName, List<Type> parameterTypes, Type returnType, BiFunction<PlcObject, List<PlcObject>, PlcObject> method) {
+            Function function = scope.defineFunction(new Function(name, jvmName, parameterTypes, returnType, method));
+            flatten();
+            return function;
+        }
+
+        /**
+         * Builds the method table from the methods of the scope chain,
+         * outermost first so that nearer ones override. Holding the lock
+         * orders it with {@link #invalidate()}, so a definition made while
+         * the table is built drops it afterwards.
+         */
+        private synchronized Function[] flatten() {
+            List<Scope> chain = new ArrayList<>();
+            for (Scope current = scope; current != null; current = current.getParent()) {
+                chain.add(current);
+            }
+            Function[] functions = new Function[0];
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                for (Function function : chain.get(i).getFunctions()) {
+                    int arity = function.getParameterTypes().size() - 1;
+                    if (arity < 0) {
+                        continue;
+                    }
+                    int id = getMethodId(function.getName(), arity);
+                    if (id >= functions.length) {
+                        functions = Arrays.copyOf(functions, id + 1);
+                    }
+                    functions[id] = function;
+                }
+            }
+            methods = functions;
+            return functions;
         }
 
         @Override
@@ -92,12 +243,27 @@ public final class Environment {
 
     public static final class PlcObject {
 
-        private final Type type;
+        private static final VarHandle LAYOUT;
+
+        static {
+            try {
+                LAYOUT = MethodHandles.lookup().findVarHandle(PlcObject.class, "layout", Layout.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private Type type;
         private final Scope scope;
         private final Object value;
+        private volatile Layout layout = null;
 
+        /**
+         * Creates an object whose type is its scope, which is only created
+         * once a method is called or the type is asked for.
+         */
         public PlcObject(Scope scope, Object value) {
-            this(new Type("Unknown", "Unknown", scope), scope, value);
+            this(null, scope, value);
         }
 
         public PlcObject(Type type, Scope scope, Object value) {
@@ -107,22 +273,76 @@ public final class Environment {
         }
 
         public Type getType() {
+            Type type = this.type;
+            if (type == null) {
+                type = new Type("Unknown", "Unknown", scope);
+                this.type = type;
+            }
             return type;
         }
 
-        public Variable getField(String name) {
-            return scope.lookupVariable(name);
+        /**
+         * Returns the layout of the fields, built from the object's scope on
+         * the first access. The fields are the variables of the scope chain,
+         * outermost first and each scope's in definition order, so objects
+         * whose fields were defined alike share a {@link Shape} whatever
+         * order they are accessed in. The values are then kept in the
+         * layout's slots rather than the scope's variables.
+         */
+        private Layout layout() {
+            Layout current = layout;
+            if (current == null) {
+                current = Layout.of(scope);
+                if (!LAYOUT.compareAndSet(this, null, current)) {
+                    current = layout;
+                }
+            }
+            return current;
+        }
+
+        public PlcObject getField(String name) {
+            Layout current = layout();
+            return current.values[current.getSlot(name)];
+        }
+
+        /**
+         * Returns the value of the field with the given name, using the cache
+         * of the accessing site to skip the shape's lookup.
+         */
+        public PlcObject getField(String name, ShapeCache cache) {
+            Layout current = layout();
+            return current.values[current.getSlot(name, cache)];
         }
 
         public void setField(String name, PlcObject value) {
-            scope.lookupVariable(name).setValue(value);
+            Layout current = layout();
+            current.values[current.getSlot(name)] = value;
+        }
+
+        public void setField(String name, ShapeCache cache, PlcObject value) {
+            Layout current = layout();
+            current.values[current.getSlot(name, cache)] = value;
+        }
+
+        public Shape getShape() {
+            return layout().shape;
         }
 
         public PlcObject callMethod(String name, List<PlcObject> arguments) {
-            Function function = type.getMethod(name, arguments.size());
-            arguments = new ArrayList<>(arguments);
-            arguments.add(0, this);
-            return function.invoke(arguments);
+            return getType().getMethod(name, arguments.size()).invoke(this, arguments);
+        }
+
+        /**
+         * Calls the method with the given id (see
+         * {@link Environment#getMethodId(String, int)}), passing this object
+         * as the receiver.
+         */
+        public PlcObject callMethod(int id, List<PlcObject> arguments) {
+            Function function = getType().getMethod(id);
+            if (function == null) {
+                throw new RuntimeException("The function " + getMethodName(id) + "/" + (arguments.size() + 1) + " is not defined in this scope.");
+            }
+            return function.invoke(this, arguments);
         }
 
         public Object getValue() {
@@ -132,7 +352,7 @@ public final class Environment {
         @Override
         public String toString() {
             return "Object{" +
-                    "type=" + type +
+                    "type=" + getType() +
                     ", value=" + value +
                     ", scope=" + scope +
                     '}';
@@ -140,11 +360,85 @@ public final class Environment {
 
     }
 
+    /**
+     * The shape of an object together with the fields in its slots, which
+     * are always replaced as a whole.
+     */
+    private static final class Layout {
+
+        private static final Layout EMPTY = new Layout(Shape.EMPTY, new PlcObject[0]);
+
+        private final Shape shape;
+        private final PlcObject[] values;
+
+        private Layout(Shape shape, PlcObject[] values) {
+            this.shape = shape;
+            this.values = values;
+        }
+
+        private static Layout of(Scope scope) {
+            List<Scope> chain = new ArrayList<>();
+            for (Scope current = scope; current != null; current = current.getParent()) {
+                chain.add(current);
+            }
+            Shape shape = Shape.EMPTY;
+            List<PlcObject> values = new ArrayList<>();
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                for (Variable variable : chain.get(i).getVariables()) {
+                    int slot = shape.getSlot(variable.getName());
+                    if (slot >= 0) {
+                        values.set(slot, variable.getValue());
+                    } else {
+                        shape = shape.with(variable.getName());
+                        values.add(variable.getValue());
+                    }
+                }
+            }
+            return values.isEmpty() ? EMPTY : new Layout(shape, values.toArray(new PlcObject[0]));
+        }
+
+        private int getSlot(String name) {
+            int slot = shape.getSlot(name);
+            if (slot < 0) {
+                throw new RuntimeException("The variable " + name + " is not defined in this scope.");
+            }
+            return slot;
+        }
+
+        private int getSlot(String name, ShapeCache cache) {
+            int slot = cache.get(shape);
+            if (slot < 0) {
+                slot = getSlot(name);
+                cache.set(shape, slot);
+            }
+            return slot;
+        }
+
+    }
+
+    /**
+     * A variable's value is a plain field, unless the variable is shared by
+     * concurrent executions: reads and writes of a shared variable are
+     * volatile, so they are atomic, sequentially consistent with each other
+     * and publish the values written, and {@link #compareAndSet} updates
+     * one atomically.
+     */
     public static final class Variable {
 
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(Variable.class, "value", PlcObject.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
         private final String name;
         private final String jvmName;
         private final Type type;
+        private final boolean shared;
         private PlcObject value;
 
         public Variable(String name, PlcObject value) {
@@ -152,9 +446,14 @@ public final class Environment {
         }
 
         public Variable(String name, String jvmName, Type type, PlcObject value) {
+            this(name, jvmName, type, value, false);
+        }
+
+        public Variable(String name, String jvmName, Type type, PlcObject value, boolean shared) {
             this.name = name;
             this.jvmName = jvmName;
             this.type = type;
+            this.shared = shared;
             this.value = value;
         }
 
@@ -170,12 +469,27 @@ public final class Environment {
             return jvmName;
         }
 
+        public boolean isShared() {
+            return shared;
+        }
+
         public PlcObject getValue() {
-            return value;
+            return shared ? (PlcObject) VALUE.getVolatile(this) : value;
         }
 
         public void setValue(PlcObject value) {
-            this.value = value;
+            if (shared) {
+                VALUE.setVolatile(this, value);
+            } else {
+                this.value = value;
+            }
+        }
+
+        /**
+         * Sets the value if it is still the expected one (by identity).
+         */
+        public boolean compareAndSet(PlcObject expected, PlcObject value) {
+            return VALUE.compareAndSet(this, expected, value);
         }
 
         @Override
@@ -204,7 +518,8 @@ public final class Environment {
         private final String jvmName;
         private final List<Type> parameterTypes;
         private final Type returnType;
-        private final java.util.function.Function<List<PlcObject>, PlcObject> function;
+        private final Invoker invoker;
+        private final BiFunction<PlcObject, List<PlcObject>, PlcObject> method;
 
         public Function(String name, int arity, java.util.function.Function<List<PlcObject>, PlcObject> function) {
             this(name, name, new ArrayList<>(), Type.ANY, function);
@@ -214,11 +529,29 @@ public final class Environment {
         }
 
         public Function(String name, String jvmName, List<Type> parameterTypes, Type returnType, java.util.function.Function<List<PlcObject>, PlcObject> function) {
+            this(name, jvmName, parameterTypes, returnType, Invoker.ofList(function));
+        }
+
+        public Function(String name, String jvmName, List<Type> parameterTypes, Type returnType, Invoker invoker) {
+            this.name = name;
+            this.jvmName = jvmName;
+            this.parameterTypes = parameterTypes;
+            this.returnType = returnType;
+            this.invoker = invoker;
+            this.method = null;
+        }
+
+        /**
+         * Creates a method whose implementation receives the receiver
+         * separately from the remaining arguments.
+         */
+        public Function(String name, String jvmName, List<Type> parameterTypes, Type returnType, BiFunction<PlcObject, List<PlcObject>, PlcObject> method) {
             this.name = name;
             this.jvmName = jvmName;
             this.parameterTypes = parameterTypes;
             this.returnType = returnType;
-            this.function = function;
+            this.invoker = Invoker.ofList(arguments -> method.apply(arguments.get(0), arguments.subList(1, arguments.size())));
+            this.method = method;
         }
 
         public String getName() {
@@ -238,7 +571,40 @@ public final class Environment {
         }
 
         public PlcObject invoke(List<PlcObject> arguments) {
-            return function.apply(arguments);
+            return invoker.invoke(arguments);
+        }
+
+        public PlcObject invoke(PlcObject... arguments) {
+            return invoker.invoke(arguments);
+        }
+
+        public PlcObject invoke0() {
+            return invoker.invoke0();
+        }
+
+        public PlcObject invoke1(PlcObject a) {
+            return invoker.invoke1(a);
+        }
+
+        public PlcObject invoke2(PlcObject a, PlcObject b) {
+            return invoker.invoke2(a, b);
+        }
+
+        public PlcObject invoke3(PlcObject a, PlcObject b, PlcObject c) {
+            return invoker.invoke3(a, b, c);
+        }
+
+        /**
+         * Invokes this function as a method of the given receiver. Functions
+         * defined with a receiver-aware implementation are called directly;
+         * others see the receiver prepended to a view of the arguments,
+         * without copying them.
+         */
+        public PlcObject invoke(PlcObject receiver, List<PlcObject> arguments) {
+            if (method != null) {
+                return method.apply(receiver, arguments);
+            }
+            return invoker.invoke(new ReceiverList(receiver, arguments));
         }
 
         @Override
@@ -258,12 +624,188 @@ public final class Environment {
                     ", arity=" + parameterTypes.size() +
                     ", parameterTypes=" + parameterTypes +
                     ", returnType=" + returnType +
-                    ", function=" + function +
+                    ", invoker=" + invoker +
                     '}';
         }
 
     }
 
+    /**
+     * The calling convention of a function. Calls with up to three arguments
+     * have dedicated entry points, so callers and implementations that
+     * override them pass arguments without allocating a list or array;
+     * every entry point defaults to the array-based {@link #invoke(PlcObject...)}.
+     */
+    public static abstract class Invoker {
+
+        private static final PlcObject[] EMPTY = new PlcObject[0];
+
+        public PlcObject invoke0() {
+            return invoke(EMPTY);
+        }
+
+        public PlcObject invoke1(PlcObject a) {
+            return invoke(new PlcObject[] {a});
+        }
+
+        public PlcObject invoke2(PlcObject a, PlcObject b) {
+            return invoke(new PlcObject[] {a, b});
+        }
+
+        public PlcObject invoke3(PlcObject a, PlcObject b, PlcObject c) {
+            return invoke(new PlcObject[] {a, b, c});
+        }
+
+        public abstract PlcObject invoke(PlcObject... arguments);
+
+        public PlcObject invoke(List<PlcObject> arguments) {
+            switch (arguments.size()) {
+                case 0: return invoke0();
+                case 1: return invoke1(arguments.get(0));
+                case 2: return invoke2(arguments.get(0), arguments.get(1));
+                case 3: return invoke3(arguments.get(0), arguments.get(1), arguments.get(2));
+                default: return invoke(arguments.toArray(EMPTY));
+            }
+        }
+
+        public static Invoker of(Arity0 function) {
+            return new Invoker() {
+                @Override
+                public PlcObject invoke0() {
+                    return function.apply();
+                }
+                @Override
+                public PlcObject invoke(PlcObject... arguments) {
+                    require(arguments, 0);
+                    return function.apply();
+                }
+            };
+        }
+
+        public static Invoker of(Arity1 function) {
+            return new Invoker() {
+                @Override
+                public PlcObject invoke1(PlcObject a) {
+                    return function.apply(a);
+                }
+                @Override
+                public PlcObject invoke(PlcObject... arguments) {
+                    require(arguments, 1);
+                    return function.apply(arguments[0]);
+                }
+            };
+        }
+
+        public static Invoker of(Arity2 function) {
+            return new Invoker() {
+                @Override
+                public PlcObject invoke2(PlcObject a, PlcObject b) {
+                    return function.apply(a, b);
+                }
+                @Override
+                public PlcObject invoke(PlcObject... arguments) {
+                    require(arguments, 2);
+                    return function.apply(arguments[0], arguments[1]);
+                }
+            };
+        }
+
+        public static Invoker of(Arity3 function) {
+            return new Invoker() {
+                @Override
+                public PlcObject invoke3(PlcObject a, PlcObject b, PlcObject c) {
+                    return function.apply(a, b, c);
+                }
+                @Override
+                public PlcObject invoke(PlcObject... arguments) {
+                    require(arguments, 3);
+                    return function.apply(arguments[0], arguments[1], arguments[2]);
+                }
+            };
+        }
+
+        /**
+         * Adapts a list-based implementation; the fixed-arity entry points
+         * wrap their arguments in a fixed-size list without copying.
+         */
+        public static Invoker ofList(java.util.function.Function<List<PlcObject>, PlcObject> function) {
+            return new Invoker() {
+                @Override
+                public PlcObject invoke0() {
+                    return function.apply(Collections.emptyList());
+                }
+                @Override
+                public PlcObject invoke1(PlcObject a) {
+                    return function.apply(Collections.singletonList(a));
+                }
+                @Override
+                public PlcObject invoke(PlcObject... arguments) {
+                    return function.apply(Arrays.asList(arguments));
+                }
+                @Override
+                public PlcObject invoke(List<PlcObject> arguments) {
+                    return function.apply(arguments);
+                }
+                @Override
+                public String toString() {
+                    return function.toString();
+                }
+            };
+        }
+
+        private static void require(PlcObject[] arguments, int arity) {
+            if (arguments.length != arity) {
+                throw new RuntimeException("Expected " + arity + " arguments, received " + arguments.length + ".");
+            }
+        }
+
+    }
+
+    @FunctionalInterface
+    public interface Arity0 {
+        PlcObject apply();
+    }
+
+    @FunctionalInterface
+    public interface Arity1 {
+        PlcObject apply(PlcObject a);
+    }
+
+    @FunctionalInterface
+    public interface Arity2 {
+        PlcObject apply(PlcObject a, PlcObject b);
+    }
+
+    @FunctionalInterface
+    public interface Arity3 {
+        PlcObject apply(PlcObject a, PlcObject b, PlcObject c);
+    }
+
+    /**
+     * A read-only view of a receiver followed by the call's arguments.
+     */
+    private static final class ReceiverList extends AbstractList<PlcObject> implements RandomAccess {
+
+        private final PlcObject receiver;
+        private final List<PlcObject> arguments;
+
+        private ReceiverList(PlcObject receiver, List<PlcObject> arguments) {
+            this.receiver = receiver;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public PlcObject get(int index) {
+            return index == 0 ? receiver : arguments.get(index - 1);
+        }
+
+        @Override
+        public int size() {
+            return arguments.size() + 1;
+        }
+
+    }
+
     static {
         registerType(Type.ANY);
         registerType(Type.NIL);
@@ -274,14 +816,29 @@ public final class Environment {
         registerType(Type.DECIMAL);
         registerType(Type.CHARACTER);
         registerType(Type.STRING);
-        Type.ANY.scope.defineFunction("stringify", "toString", Arrays.asList(), Type.STRING, args -> Environment.NIL);
-        Type.COMPARABLE.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.COMPARABLE), Type.COMPARABLE, args -> Environment.NIL);
-        Type.INTEGER.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.INTEGER), Type.INTEGER, args -> Environment.NIL);
-        Type.DECIMAL.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.DECIMAL), Type.DECIMAL, args -> Environment.NIL);
-        Type.CHARACTER.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.CHARACTER), Type.CHARACTER, args -> Environment.NIL);
+        registerType(Type.INT_LIST);
+        registerType(Type.DECIMAL_LIST);
+        registerType(Type.BOOLEAN_LIST);
+        registerType(Type.INT_MAP);
+        registerType(Type.STRING_MAP);
+        registerType(Type.INT_BUFFER);
+        registerType(Type.DECIMAL_BUFFER);
+        Type.ANY.defineMethod("stringify", "toString", Arrays.asList(), Type.STRING, (receiver, args) -> Environment.NIL);
+        Type.COMPARABLE.defineMethod("compare", "compareTo", Arrays.asList(Type.ANY, Type.COMPARABLE), Type.COMPARABLE, (receiver, args) -> Environment.NIL);
+        Type.INTEGER.defineMethod("compare", "compareTo", Arrays.asList(Type.ANY, Type.INTEGER), Type.INTEGER, (receiver, args) -> Environment.NIL);
+        Type.DECIMAL.defineMethod("compare", "compareTo", Arrays.asList(Type.ANY, Type.DECIMAL), Type.DECIMAL, (receiver, args) -> Environment.NIL);
+        Type.CHARACTER.defineMethod("compare", "compareTo", Arrays.asList(Type.ANY, Type.CHARACTER), Type.CHARACTER, (receiver, args) -> Environment.NIL);
         Type.STRING.scope.defineVariable("length", "length()", Type.INTEGER, Environment.NIL);
-        Type.STRING.scope.defineFunction("slice", "substring", Arrays.asList(Type.ANY, Type.INTEGER, Type.INTEGER), Type.STRING, args -> Environment.NIL);
-        Type.STRING.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.STRING), Type.STRING, args -> Environment.NIL);
+        Type.STRING.defineMethod("slice", "substring", Arrays.asList(Type.ANY, Type.INTEGER, Type.INTEGER), Type.STRING, (receiver, args) -> Environment.NIL);
+        Type.STRING.defineMethod("compare", "compareTo", Arrays.asList(Type.ANY, Type.STRING), Type.STRING, (receiver, args) -> Environment.NIL);
+        PrimitiveList.defineMethods(Type.INT_LIST, Type.INTEGER);
+        PrimitiveList.defineMethods(Type.DECIMAL_LIST, Type.DECIMAL);
+        PrimitiveList.defineMethods(Type.BOOLEAN_LIST, Type.BOOLEAN);
+        HashTable.defineMethods(Type.INT_MAP, Type.INTEGER);
+        HashTable.defineMethods(Type.STRING_MAP, Type.STRING);
+        Buffer.defineMethods(Type.INT_BUFFER, Type.INTEGER);
+        Buffer.defineMethods(Type.DECIMAL_BUFFER, Type.DECIMAL);
+        Vectors.defineMethods();
     }
 
 }
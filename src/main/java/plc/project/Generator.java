@@ -3,6 +3,9 @@ package plc.project;
 import java.io.PrintWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 
 public final class Generator implements Ast.Visitor<Void> {
@@ -37,9 +40,13 @@ public final class Generator implements Ast.Visitor<Void> {
         newline(0);
         newline(++indent);
         if(!ast.getFields().isEmpty()) {
-            for(Ast.Field field : ast.getFields()) {
-                print(field);
+            for(int i = 0; i <= ast.getFields().size() - 1; i ++) {
+                if(i != 0) {
+                    newline(indent);
+                }
+                print(ast.getFields().get(i));
             }
+            newline(0);
             newline(indent);
         }
         print("public static void main(String[] args) {");
@@ -49,8 +56,12 @@ public final class Generator implements Ast.Visitor<Void> {
         print("}");
         newline(0);
         newline(indent);
-        for(Ast.Method method : ast.getMethods()) {
-            print(method);
+        for(int i = 0; i <= ast.getMethods().size() - 1; i ++) {
+            if(i != 0) {
+                newline(0);
+                newline(indent);
+            }
+            print(ast.getMethods().get(i));
         }
         newline(0);
         newline(--indent);
@@ -61,10 +72,11 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Field ast) {
-        print(ast.getVariable().getType().getJvmName(), "  ", ast.getVariable().getJvmName());
+        print(ast.getVariable().getType().getJvmName(), " ", ast.getVariable().getJvmName());
         if(ast.getValue().isPresent()) {
-            print(" = ", ast.getValue());
+            print(" = ", ast.getValue().get());
         }
+        print(";");
         return null;
     }
 
@@ -111,7 +123,7 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Stmt.Assignment ast) {
-        print(ast.getReceiver(), " = ", ast.getValue());
+        print(ast.getReceiver(), " = ", ast.getValue(), ";");
         return null;
     }
 
@@ -146,7 +158,17 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Stmt.For ast) {
-        print("for (", ast.getName(), " : ", ast.getValue(), ") {");
+        if(ast.isParallel()) {
+            return parallel(ast);
+        }else if(isList(ast.getValue().getType()) || isBuffer(ast.getValue().getType())) {
+            return list(ast);
+        }else if(isMap(ast.getValue().getType())) {
+            print("for (", Analyzer.getElementType(ast.getValue().getType()).getJvmName(), " ", ast.getName(), " : ", ast.getValue(), ".keys()) {");
+        }else if(isRange(ast.getValue())) {
+            range(ast.getName(), ((Ast.Expr.Function) ast.getValue()).getArguments());
+        }else {
+            print("for (", ast.getName(), " : ", ast.getValue(), ") {");
+        }
         if(!ast.getStatements().isEmpty()) {
             newline(++indent);
             for(int i = 0; i <= ast.getStatements().size() - 1; i ++) {
@@ -161,6 +183,203 @@ public final class Generator implements Ast.Visitor<Void> {
         return null;
     }
 
+    private static boolean isList(Environment.Type type) {
+        return type == Environment.Type.INT_LIST || type == Environment.Type.DECIMAL_LIST || type == Environment.Type.BOOLEAN_LIST;
+    }
+
+    private static boolean isBuffer(Environment.Type type) {
+        return type == Environment.Type.INT_BUFFER || type == Environment.Type.DECIMAL_BUFFER;
+    }
+
+    private static boolean isMap(Environment.Type type) {
+        return type == Environment.Type.INT_MAP || type == Environment.Type.STRING_MAP;
+    }
+
+    /**
+     * Prints a loop over a primitive list or buffer as a loop over the
+     * indices it has when the loop starts, so elements are never boxed. A
+     * value other than a variable is first evaluated into a local.
+     */
+    private Void list(Ast.Stmt.For ast) {
+        Environment.Type type = ast.getValue().getType();
+        boolean local = ast.getValue() instanceof Ast.Expr.Access && !((Ast.Expr.Access) ast.getValue()).getReceiver().isPresent();
+        Object list = ast.getValue();
+        if(!local) {
+            list = ast.getName() + "$list";
+            print("{");
+            newline(++indent);
+            print("final ", type.getJvmName(), " ", list, " = ", ast.getValue(), ";");
+            newline(indent);
+        }
+        String index = ast.getName() + "$i";
+        print("for (int ", index, " = 0, ", ast.getName(), "$n = ", list, ".length(); ", index, " < ", ast.getName(), "$n; ", index, "++) {");
+        newline(++indent);
+        print(Analyzer.getElementType(type).getJvmName(), " ", ast.getName(), " = ", list, ".get(", index, ");");
+        for(Ast.Stmt statement : ast.getStatements()) {
+            newline(indent);
+            print(statement);
+        }
+        newline(--indent);
+        print("}");
+        if(!local) {
+            newline(--indent);
+            print("}");
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether the given expression calls the builtin {@code range},
+     * which is only generated as the value of a loop.
+     */
+    private static boolean isRange(Ast.Expr ast) {
+        if(!(ast instanceof Ast.Expr.Function)) {
+            return false;
+        }
+        Ast.Expr.Function function = (Ast.Expr.Function) ast;
+        return !function.getReceiver().isPresent() && function.getFunction().getJvmName().equals("range")
+                && (function.getArguments().size() == 2 || function.getArguments().size() == 3);
+    }
+
+    /**
+     * Prints the header of a counted loop over a range. Bounds other than
+     * literals are evaluated once, into locals named after the variable; a
+     * step other than a literal picks the comparison at each iteration.
+     */
+    private void range(String name, List<Ast.Expr> arguments) {
+        Ast.Expr end = arguments.get(1);
+        Ast.Expr step = arguments.size() == 3 ? arguments.get(2) : null;
+        print("for (int ", name, " = ", arguments.get(0));
+        String bound = name + "$end";
+        if(end instanceof Ast.Expr.Literal) {
+            bound = null;
+        }else {
+            print(", ", bound, " = ", end);
+        }
+        if(step == null || step instanceof Ast.Expr.Literal) {
+            int stride = step == null ? 1 : ((BigInteger) ((Ast.Expr.Literal) step).getLiteral()).intValueExact();
+            if(stride == 0) {
+                throw new RuntimeException("The step of a range cannot be zero.");
+            }
+            print("; ", name, stride > 0 ? " < " : " > ", bound == null ? end : bound, "; ", name);
+            if(stride == 1 || stride == -1) {
+                print(stride > 0 ? "++" : "--");
+            }else {
+                print(stride > 0 ? " += " : " -= ", Math.abs(stride));
+            }
+        }else {
+            print(", ", name, "$step = ", step, "; ", name, "$step > 0 ? ", name, " < ", bound == null ? end : bound, " : ", name, " > ", bound == null ? end : bound, "; ", name, " += ", name, "$step");
+        }
+        print(") {");
+    }
+
+    /**
+     * Prints a parallel loop as a parallel {@code IntStream}. The variables
+     * the body reads are first copied into effectively final locals, which
+     * the lambda can capture. A reduced variable is accumulated in the
+     * lambda from the identity of its operator, and the partial results are
+     * combined in encounter order; booleans are combined without
+     * short-circuiting, so every iteration runs. At most one reduction is
+     * supported. A loop over a range, a list of integers or decimals or the
+     * keys of a map streams its values without boxing them.
+     */
+    private Void parallel(Ast.Stmt.For ast) {
+        List<Ast.Stmt.For.Binding> copies = new ArrayList<>();
+        Ast.Stmt.For.Binding reduction = null;
+        for(Ast.Stmt.For.Binding binding : ast.getBindings()) {
+            if(!binding.isReduction()) {
+                copies.add(binding);
+            }else if(reduction == null) {
+                reduction = binding;
+            }else {
+                throw new RuntimeException("Only one reduction per PARALLEL FOR can be generated");
+            }
+        }
+        List<Ast.Expr> range = isRange(ast.getValue()) ? ((Ast.Expr.Function) ast.getValue()).getArguments() : null;
+        boolean stepped = range != null && range.size() == 3;
+        boolean block = !copies.isEmpty() || stepped;
+        if(block) {
+            print("{");
+            newline(++indent);
+            for(Ast.Stmt.For.Binding copy : copies) {
+                print("final ", copy.getInner().getType().getJvmName(), " ", copy.getInner().getJvmName(), " = ", copy.getOuter().getJvmName(), ";");
+                newline(indent);
+            }
+            if(stepped) {
+                print("final int ", ast.getName(), "$start = ", range.get(0), ";");
+                newline(indent);
+                print("final int ", ast.getName(), "$step = ", range.get(2), ";");
+                newline(indent);
+            }
+        }
+        String operator = null;
+        String identity = null;
+        if(reduction != null) {
+            operator = reduction.getOperator().equals("AND") ? "&" : reduction.getOperator().equals("OR") ? "|" : reduction.getOperator();
+            identity = identity(reduction.getInner().getType(), reduction.getOperator());
+            String outer = reduction.getOuter().getJvmName();
+            print(outer, " = ", outer, " ", operator, " ");
+        }
+        if(ast.getValue().getType() == Environment.Type.BOOLEAN_LIST) {
+            throw new RuntimeException("A PARALLEL FOR over a BooleanList cannot be generated");
+        }else if(isList(ast.getValue().getType())) {
+            print("java.util.Arrays.stream(", ast.getValue(), ".toArray()).parallel().");
+        }else if(isBuffer(ast.getValue().getType())) {
+            print(ast.getValue(), ".stream().parallel().");
+        }else if(isMap(ast.getValue().getType())) {
+            print("java.util.Arrays.stream(", ast.getValue(), ".keys()).parallel().");
+        }else if(range == null) {
+            print("java.util.stream.StreamSupport.stream(", ast.getValue(), ".spliterator(), true).mapToInt(Integer::intValue).");
+        }else if(!stepped) {
+            print("java.util.stream.IntStream.range(", range.get(0), ", ", range.get(1), ").parallel().");
+        }else {
+            String start = ast.getName() + "$start";
+            String step = ast.getName() + "$step";
+            print("java.util.stream.IntStream.range(0, (int) Math.max(0, ((long) ", range.get(1), " - ", start, " + ", step, " - Integer.signum(", step, ")) / ", step, "))");
+            print(".parallel().map(", ast.getName(), "$ -> ", start, " + ", ast.getName(), "$ * ", step, ").");
+        }
+        String transform = ast.getValue().getType() == Environment.Type.STRING_MAP ? "map(" : "mapToObj(";
+        print(reduction == null ? "forEach(" : transform, ast.getName(), " -> {");
+        newline(++indent);
+        if(reduction != null) {
+            print(reduction.getInner().getType().getJvmName(), " ", reduction.getInner().getJvmName(), " = ", identity, ";");
+        }
+        for(int i = 0; i <= ast.getStatements().size() - 1; i ++) {
+            if(i != 0 || reduction != null) {
+                newline(indent);
+            }
+            print(ast.getStatements().get(i));
+        }
+        if(reduction != null) {
+            newline(indent);
+            print("return ", reduction.getInner().getJvmName(), ";");
+        }
+        newline(--indent);
+        print("})");
+        if(reduction != null) {
+            print(".reduce(", identity, ", (left$, right$) -> left$ ", operator, " right$)");
+        }
+        print(";");
+        if(block) {
+            newline(--indent);
+            print("}");
+        }
+        return null;
+    }
+
+    private static String identity(Environment.Type type, String operator) {
+        if(operator.equals("AND")) {
+            return "true";
+        }else if(operator.equals("OR")) {
+            return "false";
+        }else if(operator.equals("*")) {
+            return type == Environment.Type.DECIMAL ? "1.0" : "1";
+        }else if(type == Environment.Type.STRING) {
+            return "\"\"";
+        }
+        return type == Environment.Type.DECIMAL ? "0.0" : "0";
+    }
+
     @Override
     public Void visit(Ast.Stmt.While ast) {
         print("while (", ast.getCondition(), ") {");
@@ -207,50 +426,82 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Expr.Group ast) {
-        print("(", ast.getExpression(), ")");
-        return null;
+        return generate(ast);
     }
 
     @Override
     public Void visit(Ast.Expr.Binary ast) {
-        Ast.Expr left = ast.getLeft();
-        Ast.Expr right = ast.getRight();
-        String operator = " ";
-        if(ast.getOperator() == "AND") {
-            operator = " && ";
-        }else if(ast.getOperator() == "OR") {
-            operator = " || ";
-        }else{
-            operator = " " + ast.getOperator() + " ";
-        }
-        print(left, operator, right);
-        return null;
+        return generate(ast);
     }
 
     @Override
     public Void visit(Ast.Expr.Access ast) {
-        if(ast.getReceiver().isPresent()) {
-            Ast.Expr receiver = ast.getReceiver().get();
-            print(receiver, ".");
-        }
-        print(ast.getVariable().getJvmName());
-        return null;
+        return generate(ast);
     }
 
     @Override
     public Void visit(Ast.Expr.Function ast) {
-        if(ast.getReceiver().isPresent()) {
-            Ast.Expr receiver = ast.getReceiver().get();
-            print(receiver, ".");
-        }
-        print(ast.getFunction().getJvmName(), "(");
-        for(int i = 0; i <= ast.getArguments().size() - 1; i ++) {
-            print(ast.getArguments().get(i));
-            if(i != ast.getArguments().size() - 1) {
-                print(", ");
+        return generate(ast);
+    }
+
+    /**
+     * Prints an expression using an explicit stack of pending expressions and
+     * text, so the nesting depth of an expression is limited by the heap
+     * rather than the Java stack. Each expression is replaced on the stack by
+     * its parts, pushed in reverse order.
+     */
+    private Void generate(Ast.Expr root) {
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+        while(!pending.isEmpty()) {
+            Object next = pending.pop();
+            if(next instanceof String) {
+                writer.write((String) next);
+            }else if(next instanceof Ast.Expr.Literal) {
+                visit((Ast.Expr.Literal) next);
+            }else if(next instanceof Ast.Expr.Group) {
+                pending.push(")");
+                pending.push(((Ast.Expr.Group) next).getExpression());
+                pending.push("(");
+            }else if(next instanceof Ast.Expr.Binary) {
+                Ast.Expr.Binary ast = (Ast.Expr.Binary) next;
+                String operator;
+                if(ast.getOperator().equals("AND")) {
+                    operator = " && ";
+                }else if(ast.getOperator().equals("OR")) {
+                    operator = " || ";
+                }else{
+                    operator = " " + ast.getOperator() + " ";
+                }
+                pending.push(ast.getRight());
+                pending.push(operator);
+                pending.push(ast.getLeft());
+            }else if(next instanceof Ast.Expr.Access) {
+                Ast.Expr.Access ast = (Ast.Expr.Access) next;
+                pending.push(ast.getVariable().getJvmName());
+                if(ast.getReceiver().isPresent()) {
+                    pending.push(".");
+                    pending.push(ast.getReceiver().get());
+                }
+            }else {
+                Ast.Expr.Function ast = (Ast.Expr.Function) next;
+                if(isRange(ast)) {
+                    throw new RuntimeException("A range can only be generated as the value of a FOR");
+                }
+                pending.push(")");
+                for(int i = ast.getArguments().size() - 1; i >= 0; i --) {
+                    pending.push(ast.getArguments().get(i));
+                    if(i != 0) {
+                        pending.push(", ");
+                    }
+                }
+                pending.push(ast.getFunction().getJvmName() + "(");
+                if(ast.getReceiver().isPresent()) {
+                    pending.push(".");
+                    pending.push(ast.getReceiver().get());
+                }
             }
         }
-        print(")");
         return null;
     }
 
@@ -0,0 +1,287 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.RandomAccess;
+
+/**
+ * An open-addressing hash table from keys to values of any type, the common
+ * part of {@link IntMap} and {@link StringMap}.
+ *
+ * Entries live in parallel arrays indexed by slot and are found by linear
+ * probing from a slot given by the mixed hash of the key; the table doubles
+ * before it is three quarters full. Removal shifts later entries of the
+ * probe sequence back instead of leaving tombstones, so lookups never slow
+ * down after removals.
+ *
+ * An unordered table iterates in slot order, which depends on the hashes of
+ * its keys and its capacity. An ordered table also links its slots in
+ * insertion order (putting an existing key keeps its place) and iterates in
+ * that order, at the cost of two {@code int}s per slot. A map is iterable
+ * over its keys, so every engine loops over it as over a list; loops visit
+ * the keys present when they start.
+ *
+ * Each map type is registered with the methods {@code get(key)} (which
+ * returns NIL for a missing key), {@code put(key, value)},
+ * {@code contains(key)}, {@code remove(key)} and {@code size()}, and is
+ * constructed by the builtin function of the same name, with an optional
+ * argument which is whether the map is ordered (see {@link #define(Scope)}).
+ * Generated code calls the map classes directly.
+ */
+public abstract class HashTable implements Iterable<Environment.PlcObject> {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final boolean ordered;
+    Object[] values;
+    boolean[] full;
+    int mask;
+    private int size;
+    private int[] before;
+    private int[] after;
+    private int head;
+    private int tail;
+
+    HashTable(boolean ordered) {
+        this.ordered = ordered;
+        allocate(8);
+    }
+
+    public final int size() {
+        return size;
+    }
+
+    public final boolean isOrdered() {
+        return ordered;
+    }
+
+    public abstract Environment.Type getType();
+
+    /**
+     * Returns the slot the probe for a key of the given hash starts at.
+     */
+    final int start(int hash) {
+        int mixed = hash * 0x9E3779B9;
+        return (mixed ^ (mixed >>> 16)) & mask;
+    }
+
+    /**
+     * Replaces the arrays of the table with empty ones of the given capacity.
+     * Subclasses reinsert the previous entries afterwards.
+     */
+    void allocate(int capacity) {
+        values = new Object[capacity];
+        full = new boolean[capacity];
+        mask = capacity - 1;
+        size = 0;
+        head = -1;
+        tail = -1;
+        if (ordered) {
+            before = new int[capacity];
+            after = new int[capacity];
+        }
+    }
+
+    /**
+     * Returns the capacity to grow to before adding an entry, or 0 if the
+     * table has room.
+     */
+    final int growth() {
+        int capacity = mask + 1;
+        if ((size + 1) * 4L <= capacity * 3L) {
+            return 0;
+        } else if (capacity == MAX_CAPACITY) {
+            throw new RuntimeException("A map cannot hold more than " + capacity * 3L / 4 + " entries.");
+        }
+        return capacity * 2;
+    }
+
+    /**
+     * Fills the given empty slot, linking it last in insertion order.
+     */
+    final void occupy(int slot, Object value) {
+        full[slot] = true;
+        values[slot] = value;
+        size++;
+        if (ordered) {
+            before[slot] = tail;
+            after[slot] = -1;
+            if (tail >= 0) {
+                after[tail] = slot;
+            } else {
+                head = slot;
+            }
+            tail = slot;
+        }
+    }
+
+    /**
+     * Empties the given slot. The caller shifts the rest of the probe
+     * sequence back with {@link #move(int, int)}.
+     */
+    final void vacate(int slot) {
+        if (ordered) {
+            link(before[slot], after[slot]);
+        }
+        full[slot] = false;
+        values[slot] = null;
+        size--;
+    }
+
+    /**
+     * Moves the entry of a slot to an empty one, keeping its place in
+     * insertion order. The caller moves the key.
+     */
+    final void move(int from, int to) {
+        full[to] = true;
+        values[to] = values[from];
+        full[from] = false;
+        values[from] = null;
+        if (ordered) {
+            int previous = before[from];
+            int next = after[from];
+            before[to] = previous;
+            after[to] = next;
+            link(previous, to);
+            link(to, next);
+        }
+    }
+
+    private void link(int previous, int next) {
+        if (previous >= 0) {
+            after[previous] = next;
+        } else {
+            head = next;
+        }
+        if (next >= 0) {
+            before[next] = previous;
+        } else {
+            tail = previous;
+        }
+    }
+
+    /**
+     * Returns whether an entry in slot {@code next}, whose probe started at
+     * {@code home}, may move back to the empty slot {@code hole}.
+     */
+    final boolean isShiftable(int home, int hole, int next) {
+        return ((next - home) & mask) >= ((next - hole) & mask);
+    }
+
+    /**
+     * Returns the full slots in iteration order.
+     */
+    final int[] slots() {
+        int[] slots = new int[size];
+        int count = 0;
+        if (ordered) {
+            for (int slot = head; slot >= 0; slot = after[slot]) {
+                slots[count++] = slot;
+            }
+        } else {
+            for (int slot = 0; slot < full.length; slot++) {
+                if (full[slot]) {
+                    slots[count++] = slot;
+                }
+            }
+        }
+        return slots;
+    }
+
+    abstract Object lookup(Environment.PlcObject key);
+
+    abstract void store(Environment.PlcObject key, Environment.PlcObject value);
+
+    abstract boolean has(Environment.PlcObject key);
+
+    abstract boolean delete(Environment.PlcObject key);
+
+    /**
+     * Returns the keys present now in iteration order, wrapped for the
+     * interpreter.
+     */
+    abstract Keys keyList();
+
+    @Override
+    public final Iterator<Environment.PlcObject> iterator() {
+        return keyList().iterator();
+    }
+
+    /**
+     * Defines the builtin constructors {@code IntMap()},
+     * {@code IntMap(ordered)}, {@code StringMap()} and
+     * {@code StringMap(ordered)}.
+     */
+    static void define(Scope scope) {
+        Environment.Type ordered = Environment.Type.BOOLEAN;
+        scope.defineFunction("IntMap", "new plc.project.IntMap", Arrays.asList(), Environment.Type.INT_MAP, args -> Environment.create(new IntMap()));
+        scope.defineFunction("IntMap", "new plc.project.IntMap", Arrays.asList(ordered), Environment.Type.INT_MAP, args -> Environment.create(new IntMap(isOrdered(args.get(0)))));
+        scope.defineFunction("StringMap", "new plc.project.StringMap", Arrays.asList(), Environment.Type.STRING_MAP, args -> Environment.create(new StringMap()));
+        scope.defineFunction("StringMap", "new plc.project.StringMap", Arrays.asList(ordered), Environment.Type.STRING_MAP, args -> Environment.create(new StringMap(isOrdered(args.get(0)))));
+    }
+
+    private static boolean isOrdered(Environment.PlcObject ordered) {
+        return Interpreter.requireType(Boolean.class, ordered);
+    }
+
+    /**
+     * Defines the methods of a map type whose keys have the given type.
+     */
+    static void defineMethods(Environment.Type type, Environment.Type key) {
+        Environment.Type any = Environment.Type.ANY;
+        type.defineMethod("get", "get", Arrays.asList(any, key), any, (receiver, args) -> {
+            Object value = table(receiver).lookup(args.get(0));
+            return value != null ? (Environment.PlcObject) value : Environment.NIL;
+        });
+        type.defineMethod("put", "put", Arrays.asList(any, key, any), Environment.Type.NIL, (receiver, args) -> {
+            table(receiver).store(args.get(0), args.get(1));
+            return Environment.NIL;
+        });
+        type.defineMethod("contains", "contains", Arrays.asList(any, key), Environment.Type.BOOLEAN, (receiver, args) -> {
+            return Environment.create(table(receiver).has(args.get(0)));
+        });
+        type.defineMethod("remove", "remove", Arrays.asList(any, key), Environment.Type.BOOLEAN, (receiver, args) -> {
+            return Environment.create(table(receiver).delete(args.get(0)));
+        });
+        type.defineMethod("size", "size", Arrays.asList(any), Environment.Type.INTEGER, (receiver, args) -> {
+            return Environment.create(BigInteger.valueOf(table(receiver).size()));
+        });
+    }
+
+    private static HashTable table(Environment.PlcObject receiver) {
+        return Interpreter.requireType(HashTable.class, receiver);
+    }
+
+    /**
+     * A snapshot of the keys of a map, which are wrapped as they are read.
+     */
+    static final class Keys extends AbstractList<Environment.PlcObject> implements RandomAccess {
+
+        private final int[] ints;
+        private final String[] strings;
+
+        Keys(int[] keys) {
+            this.ints = keys;
+            this.strings = null;
+        }
+
+        Keys(String[] keys) {
+            this.ints = null;
+            this.strings = keys;
+        }
+
+        @Override
+        public Environment.PlcObject get(int index) {
+            return Environment.create(ints != null ? BigInteger.valueOf(ints[index]) : strings[index]);
+        }
+
+        @Override
+        public int size() {
+            return ints != null ? ints.length : strings.length;
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A collection of primitive values addressed by an {@code int} index, such
+ * as a {@link PrimitiveList} or a {@link Buffer}, with the helpers the
+ * collections share for their builtin methods.
+ */
+interface Indexed {
+
+    int length();
+
+    /**
+     * Returns the element at the given index, wrapped for the interpreter.
+     */
+    Environment.PlcObject element(int index);
+
+    /**
+     * Returns a view of the elements of the collection as wrapped by
+     * {@link #element(int)}, which follows its length.
+     */
+    static List<Environment.PlcObject> view(Indexed indexed) {
+        return new View(indexed);
+    }
+
+    /**
+     * Returns the value of an {@code Integer} argument used as an index or a
+     * length.
+     */
+    static int index(Environment.PlcObject index) {
+        BigInteger value = Interpreter.requireType(BigInteger.class, index);
+        if (!isIndex(value)) {
+            throw new IndexOutOfBoundsException("Index " + value + " is out of bounds.");
+        }
+        return value.intValue();
+    }
+
+    /**
+     * Returns whether the value is an {@code Integer} which fits in an
+     * {@code int}.
+     */
+    static boolean isIndex(Object value) {
+        return value instanceof BigInteger && ((BigInteger) value).bitLength() <= 31;
+    }
+
+    final class View extends AbstractList<Environment.PlcObject> implements RandomAccess {
+
+        private final Indexed indexed;
+
+        private View(Indexed indexed) {
+            this.indexed = indexed;
+        }
+
+        @Override
+        public Environment.PlcObject get(int index) {
+            return indexed.element(index);
+        }
+
+        @Override
+        public int size() {
+            return indexed.length();
+        }
+
+    }
+
+}
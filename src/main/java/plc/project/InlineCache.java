@@ -0,0 +1,59 @@
+package plc.project;
+
+/**
+ * A monomorphic cache attached to a single AST node, remembering the target
+ * its last lookup resolved to.
+ *
+ * An entry is valid for the owner that stored it (e.g. an
+ * {@link Interpreter}) as long as the version it was stored with is current.
+ * Entries are immutable and replaced as a whole, so a cache shared between
+ * threads never pairs one owner's version with another's target. The hit and
+ * miss counters are not synchronized and may undercount under contention.
+ */
+public final class InlineCache<T> {
+
+    private Entry<T> entry = null;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Returns the cached target if it was stored by the given owner with the
+     * given version, else null. Either outcome is counted.
+     */
+    public T get(Object owner, int version) {
+        Entry<T> current = entry;
+        if (current != null && current.owner == owner && current.version == version) {
+            hits++;
+            return current.target;
+        }
+        misses++;
+        return null;
+    }
+
+    public void set(Object owner, int version, T target) {
+        entry = new Entry<>(owner, version, target);
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    private static final class Entry<T> {
+
+        private final Object owner;
+        private final int version;
+        private final T target;
+
+        private Entry(Object owner, int version, T target) {
+            this.owner = owner;
+            this.version = version;
+            this.target = target;
+        }
+
+    }
+
+}
@@ -0,0 +1,205 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.IntStream;
+
+/**
+ * A buffer of {@code int}s, the {@code IntBuffer} type of the language.
+ */
+public final class IntBuffer extends Buffer {
+
+    public IntBuffer(int length) {
+        super(length, Integer.BYTES);
+    }
+
+    public IntBuffer(String path, int length) {
+        this(Paths.get(path), length);
+    }
+
+    IntBuffer(Path path, int length) {
+        super(path, length, Integer.BYTES);
+    }
+
+    public int get(int index) {
+        long offset = offset(index);
+        return chunk(offset).getInt(position(offset));
+    }
+
+    public void set(int index, int value) {
+        long offset = offset(index);
+        chunk(offset).putInt(position(offset), value);
+    }
+
+    public void fill(int value) {
+        fill(0, length(), value);
+    }
+
+    public void fill(int from, int to, int value) {
+        check(from, to);
+        for (int i = from; i < to; i++) {
+            long offset = (long) i * Integer.BYTES;
+            chunk(offset).putInt(position(offset), value);
+        }
+    }
+
+    public void copy(int from, int to, IntBuffer target, int at) {
+        copyElements(from, to, target, at);
+    }
+
+    public IntBuffer add(IntBuffer other) {
+        return combine(other, Vectors::add);
+    }
+
+    public IntBuffer mul(IntBuffer other) {
+        return combine(other, Vectors::mul);
+    }
+
+    private IntBuffer combine(IntBuffer other, Kernel kernel) {
+        int n = Vectors.length(length(), other.length());
+        IntBuffer result = new IntBuffer(n);
+        int[] left = new int[Math.min(n, Vectors.BLOCK)];
+        int[] right = new int[left.length];
+        for (int from = 0; from < n; from += Vectors.BLOCK) {
+            int count = Math.min(Vectors.BLOCK, n - from);
+            read(from, left, count);
+            other.read(from, right, count);
+            kernel.apply(left, right, left, count);
+            result.write(from, left, count);
+        }
+        return result;
+    }
+
+    public int sum() {
+        int[] block = new int[Math.min(length(), Vectors.BLOCK)];
+        int sum = 0;
+        for (int from = 0; from < length(); from += Vectors.BLOCK) {
+            int count = Math.min(Vectors.BLOCK, length() - from);
+            read(from, block, count);
+            sum += Vectors.sum(block, count);
+        }
+        return sum;
+    }
+
+    public int min() {
+        Vectors.require(length(), "min");
+        int[] block = new int[Math.min(length(), Vectors.BLOCK)];
+        int min = get(0);
+        for (int from = 0; from < length(); from += Vectors.BLOCK) {
+            int count = Math.min(Vectors.BLOCK, length() - from);
+            read(from, block, count);
+            min = Vectors.min(block, count, min);
+        }
+        return min;
+    }
+
+    public int max() {
+        Vectors.require(length(), "max");
+        int[] block = new int[Math.min(length(), Vectors.BLOCK)];
+        int max = get(0);
+        for (int from = 0; from < length(); from += Vectors.BLOCK) {
+            int count = Math.min(Vectors.BLOCK, length() - from);
+            read(from, block, count);
+            max = Vectors.max(block, count, max);
+        }
+        return max;
+    }
+
+    public int dot(IntBuffer other) {
+        int n = Vectors.length(length(), other.length());
+        int[] left = new int[Math.min(n, Vectors.BLOCK)];
+        int[] right = new int[left.length];
+        int dot = 0;
+        for (int from = 0; from < n; from += Vectors.BLOCK) {
+            int count = Math.min(Vectors.BLOCK, n - from);
+            read(from, left, count);
+            other.read(from, right, count);
+            dot += Vectors.dot(left, right, count);
+        }
+        return dot;
+    }
+
+    /**
+     * Returns whether each element is less than the element of the other
+     * buffer at the same index, as a list.
+     */
+    public BooleanList less(IntBuffer other) {
+        int n = Vectors.length(length(), other.length());
+        int[] left = new int[Math.min(n, Vectors.BLOCK)];
+        int[] right = new int[left.length];
+        boolean[] result = new boolean[n];
+        for (int from = 0; from < n; from += Vectors.BLOCK) {
+            int count = Math.min(Vectors.BLOCK, n - from);
+            read(from, left, count);
+            other.read(from, right, count);
+            Vectors.less(left, right, result, from, count);
+        }
+        return new BooleanList(result, n);
+    }
+
+    /**
+     * Copies {@code count} elements from the given index into the start of
+     * the block.
+     */
+    private void read(int from, int[] block, int count) {
+        for (int i = 0; i < count; ) {
+            long offset = (long) (from + i) * Integer.BYTES;
+            int run = run(from + i, count - i);
+            java.nio.IntBuffer elements = chunk(offset).asIntBuffer();
+            elements.position(position(offset) / Integer.BYTES);
+            elements.get(block, i, run);
+            i += run;
+        }
+    }
+
+    private void write(int from, int[] block, int count) {
+        for (int i = 0; i < count; ) {
+            long offset = (long) (from + i) * Integer.BYTES;
+            int run = run(from + i, count - i);
+            java.nio.IntBuffer elements = chunk(offset).asIntBuffer();
+            elements.position(position(offset) / Integer.BYTES);
+            elements.put(block, i, run);
+            i += run;
+        }
+    }
+
+    /**
+     * Returns the elements as a sequential stream, which may be made
+     * parallel.
+     */
+    public IntStream stream() {
+        return IntStream.range(0, length()).map(this::get);
+    }
+
+    @Override
+    public Environment.Type getType() {
+        return Environment.Type.INT_BUFFER;
+    }
+
+    @Override
+    public Environment.PlcObject element(int index) {
+        return Environment.create(BigInteger.valueOf(get(index)));
+    }
+
+    @Override
+    void setElement(int index, Environment.PlcObject value) {
+        set(index, value(value));
+    }
+
+    @Override
+    void fillElements(int from, int to, Environment.PlcObject value) {
+        fill(from, to, value(value));
+    }
+
+    private static int value(Environment.PlcObject value) {
+        return Interpreter.requireType(BigInteger.class, value).intValueExact();
+    }
+
+    private interface Kernel {
+
+        void apply(int[] left, int[] right, int[] result, int count);
+
+    }
+
+}
@@ -0,0 +1,127 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code int}s, the {@code IntList} type of the
+ * language.
+ */
+public final class IntList extends PrimitiveList {
+
+    private int[] values;
+
+    public IntList() {
+        this(new int[8], 0);
+    }
+
+    private IntList(int[] values, int length) {
+        this.values = values;
+        this.length = length;
+    }
+
+    public static IntList of(int... values) {
+        return new IntList(values.clone(), values.length);
+    }
+
+    public int get(int index) {
+        check(index);
+        return values[index];
+    }
+
+    public void set(int index, int value) {
+        check(index);
+        values[index] = value;
+    }
+
+    public void append(int value) {
+        if (length == values.length) {
+            values = Arrays.copyOf(values, grow(values.length));
+        }
+        values[length++] = value;
+    }
+
+    @Override
+    public IntList slice(int from, int to) {
+        check(from, to);
+        return new IntList(Arrays.copyOfRange(values, from, to), to - from);
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, length);
+    }
+
+    public IntList add(IntList other) {
+        int n = Vectors.length(length, other.length);
+        int[] result = new int[n];
+        Vectors.add(values, other.values, result, n);
+        return new IntList(result, n);
+    }
+
+    public IntList mul(IntList other) {
+        int n = Vectors.length(length, other.length);
+        int[] result = new int[n];
+        Vectors.mul(values, other.values, result, n);
+        return new IntList(result, n);
+    }
+
+    public int sum() {
+        return Vectors.sum(values, length);
+    }
+
+    public int min() {
+        Vectors.require(length, "min");
+        return Vectors.min(values, length, values[0]);
+    }
+
+    public int max() {
+        Vectors.require(length, "max");
+        return Vectors.max(values, length, values[0]);
+    }
+
+    public int dot(IntList other) {
+        int n = Vectors.length(length, other.length);
+        return Vectors.dot(values, other.values, n);
+    }
+
+    /**
+     * Returns whether each element is less than the element of the other
+     * list at the same index.
+     */
+    public BooleanList less(IntList other) {
+        int n = Vectors.length(length, other.length);
+        boolean[] result = new boolean[n];
+        Vectors.less(values, other.values, result, 0, n);
+        return new BooleanList(result, n);
+    }
+
+    @Override
+    public Environment.Type getType() {
+        return Environment.Type.INT_LIST;
+    }
+
+    @Override
+    public Environment.PlcObject element(int index) {
+        return Environment.create(BigInteger.valueOf(get(index)));
+    }
+
+    @Override
+    void setElement(int index, Environment.PlcObject value) {
+        set(index, value(value));
+    }
+
+    @Override
+    void appendElement(Environment.PlcObject value) {
+        append(value(value));
+    }
+
+    private static int value(Environment.PlcObject value) {
+        return Interpreter.requireType(BigInteger.class, value).intValueExact();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+}
@@ -0,0 +1,137 @@
+package plc.project;
+
+import java.math.BigInteger;
+
+/**
+ * A map from {@code int} keys, the {@code IntMap} type of the language. Keys
+ * are stored unboxed.
+ */
+public final class IntMap extends HashTable {
+
+    private int[] keys;
+
+    public IntMap() {
+        this(false);
+    }
+
+    public IntMap(boolean ordered) {
+        super(ordered);
+    }
+
+    @Override
+    void allocate(int capacity) {
+        super.allocate(capacity);
+        keys = new int[capacity];
+    }
+
+    /**
+     * Returns the value of the given key, or null if it has none.
+     */
+    public Object get(int key) {
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : null;
+    }
+
+    public void put(int key, Object value) {
+        int slot = find(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        int capacity = growth();
+        if (capacity != 0) {
+            int[] slots = slots();
+            int[] keys = this.keys;
+            Object[] values = this.values;
+            allocate(capacity);
+            for (int previous : slots) {
+                insert(keys[previous], values[previous]);
+            }
+        }
+        insert(key, value);
+    }
+
+    public boolean contains(int key) {
+        return find(key) >= 0;
+    }
+
+    public boolean remove(int key) {
+        int hole = find(key);
+        if (hole < 0) {
+            return false;
+        }
+        vacate(hole);
+        for (int next = (hole + 1) & mask; full[next]; next = (next + 1) & mask) {
+            if (isShiftable(start(keys[next]), hole, next)) {
+                keys[hole] = keys[next];
+                move(next, hole);
+                hole = next;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the keys in iteration order.
+     */
+    public int[] keys() {
+        int[] slots = slots();
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = keys[slots[i]];
+        }
+        return slots;
+    }
+
+    private int find(int key) {
+        for (int slot = start(key); full[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int key, Object value) {
+        int slot = start(key);
+        while (full[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        occupy(slot, value);
+    }
+
+    @Override
+    public Environment.Type getType() {
+        return Environment.Type.INT_MAP;
+    }
+
+    @Override
+    Object lookup(Environment.PlcObject key) {
+        return get(key(key));
+    }
+
+    @Override
+    void store(Environment.PlcObject key, Environment.PlcObject value) {
+        put(key(key), value);
+    }
+
+    @Override
+    boolean has(Environment.PlcObject key) {
+        return contains(key(key));
+    }
+
+    @Override
+    boolean delete(Environment.PlcObject key) {
+        return remove(key(key));
+    }
+
+    @Override
+    Keys keyList() {
+        return new Keys(keys());
+    }
+
+    private static int key(Environment.PlcObject key) {
+        return Interpreter.requireType(BigInteger.class, key).intValueExact();
+    }
+
+}
@@ -3,26 +3,121 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.function.Function;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+/**
+ * Statement visits return {@code null} on normal completion and the returned
+ * value after a {@code RETURN}, which the enclosing blocks propagate to the
+ * method's activation without throwing.
+ */
 public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
+    private static final ThreadLocal<Interpreter> CURRENT = new ThreadLocal<>();
+
     private Scope scope = new Scope(null);
+    private final Scope functions;
+    private TieredRuntime.Profile profile = null;
+    private final Program program;
+    private final Interpreter origin;
+    private final boolean forked;
+    private Scope globals = null;
+    private Budget budget = null;
+    private Budget.Fork share = null;
+    private Thread owner = null;
+    private int fuel = Budget.DEFAULT_QUANTUM;
+    private int forks = 0;
 
     public Interpreter(Scope parent) {
         scope = new Scope(parent);
-        scope.defineFunction("print", 1, args -> {
-            System.out.println(args.get(0).getValue());
+        defineBuiltins(scope);
+        functions = scope;
+        program = null;
+        origin = this;
+        forked = false;
+    }
+
+    /**
+     * Creates the context of a single execution of the given program.
+     */
+    private Interpreter(Program program) {
+        this.program = program;
+        this.functions = program.functions;
+        origin = this;
+        forked = false;
+    }
+
+    /**
+     * Creates a context running part of a parallel loop of the given one, on
+     * another thread, in the given scope.
+     */
+    private Interpreter(Interpreter parent, Scope scope) {
+        this.program = parent.program;
+        this.functions = parent.functions;
+        this.origin = parent.origin;
+        this.forked = true;
+        this.scope = scope;
+        this.globals = parent.globals;
+        this.budget = parent.budget;
+        this.owner = parent.owner;
+        this.share = budget != null ? budget.fork(owner) : null;
+    }
+
+    private static void defineBuiltins(Scope scope) {
+        scope.defineFunction("print", (Environment.PlcObject value) -> {
+            System.out.println(value.getValue());
             return Environment.NIL;
         });
+        scope.defineFunction("range", (Environment.PlcObject start, Environment.PlcObject end) -> Environment.create(Range.of(start, end)));
+        scope.defineFunction("range", (Environment.PlcObject start, Environment.PlcObject end, Environment.PlcObject step) -> Environment.create(Range.of(start, end, step)));
+        PrimitiveList.define(scope);
+        HashTable.define(scope);
+        Buffer.define(scope);
     }
 
     public Scope getScope() {
         return scope;
     }
 
+    /**
+     * Limits the following executions in this context to the given budget,
+     * or only to interruption of their thread if null.
+     */
+    public void setBudget(Budget budget) {
+        this.budget = budget;
+        fuel = 0;
+    }
+
+    /**
+     * A safepoint, taken at loop back-edges and method entry. The slow path
+     * runs once per slice.
+     */
+    private void poll() {
+        if(--fuel < 0) {
+            safepoint();
+        }
+    }
+
+    private void safepoint() {
+        if(share != null) {
+            fuel = share.slice() - 1;
+        }else if(budget != null) {
+            fuel = budget.slice() - 1;
+        }else {
+            Budget.interrupted(forked ? owner : Thread.currentThread());
+            fuel = Budget.DEFAULT_QUANTUM - 1;
+        }
+    }
+
     @Override
     public Environment.PlcObject visit(Ast.Source ast) {
         for(Ast.Field field: ast.getFields()) {
@@ -31,20 +126,20 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         Ast.Method main = null;
         for(Ast.Method method: ast.getMethods()) {
             visit(method);
-            if(method.getName() == "main" && method.getParameters().size() == 0) {
+            if(method.getName().equals("main") && method.getParameters().size() == 0) {
                 main = method;
             }
         }
         if(main == null) {
             throw new RuntimeException("No main function defined");
         }
-        return scope.lookupFunction("main", 0).invoke(null);
+        return scope.lookupFunction("main", 0).invoke0();
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Field ast) {
         String name = ast.getName();
-        if(ast.getValue() == null) {
+        if(ast.getValue().isPresent()) {
             scope.defineVariable(name, visit(ast.getValue().get()));
         }else {
             scope.defineVariable(name, Environment.NIL);
@@ -54,44 +149,65 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Method ast) {
-        String name = ast.getName();
-        List<String> parameters = ast.getParameters();
-        int arity = parameters.size();
-        List<Ast.Stmt> statements = ast.getStatements();
-        Function<List<Environment.PlcObject>, Environment.PlcObject> function = (arguments) -> {
-            scope = new Scope(scope);
-            for(int i = 0; i <= arity - 1; i ++) {
-                scope.defineVariable(parameters.get(i), arguments.get(i));
-            }
-            try {
-                for (Ast.Stmt stmt : statements) {
-                    visit(stmt);
-                }
-            }catch (Return re) {
-                scope = scope.getParent();
-                return re.value;
-            }
-            scope = scope.getParent();
-            return Environment.NIL;
-        };
-        scope.defineFunction(name, arity, function);
+        scope.defineFunction(ast.getName(), ast.getParameters().size(), method(ast, null));
         return Environment.NIL;
     }
 
+    /**
+     * Returns a function interpreting the given method in the current scope.
+     * Loop back-edges taken by its activations are counted in the given
+     * profile, if any. Calls matching the method's arity bind their
+     * arguments directly, without an argument list or array.
+     */
+    Environment.Invoker method(Ast.Method ast, TieredRuntime.Profile counters) {
+        return new Method(this, scope, ast, counters);
+    }
+
+    /**
+     * Prepares the given source for execution: its methods are bound once in
+     * a scope shared by every execution of the returned {@link Program}.
+     */
+    public static Program load(Scope parent, Ast.Source ast) {
+        return new Program(parent, ast, false);
+    }
+
+    /**
+     * Prepares the given source for execution like {@link #load}, except
+     * that its fields are initialized once and shared by every execution.
+     */
+    public static Program loadShared(Scope parent, Ast.Source ast) {
+        return new Program(parent, ast, true);
+    }
+
+    private Environment.PlcObject activate(Scope activation, List<Ast.Stmt> statements, TieredRuntime.Profile counters) {
+        Scope caller = scope;
+        TieredRuntime.Profile callerProfile = profile;
+        scope = activation;
+        profile = counters;
+        try {
+            poll();
+            Environment.PlcObject result = execute(statements);
+            return result != null ? result : Environment.NIL;
+        }finally {
+            scope = caller;
+            profile = callerProfile;
+        }
+    }
+
     @Override
     public Environment.PlcObject visit(Ast.Stmt.Expression ast) {
         visit(ast.getExpression());
-        return Environment.NIL;
+        return null;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.Declaration ast) {
         if(ast.getValue().isPresent()) {
-            scope.defineVariable(ast.getName(), visit(ast.getValue().get()));
+            scope.defineVariable(ast.getSymbol(), visit(ast.getValue().get()));
         }else{
-            scope.defineVariable(ast.getName(),Environment.NIL);
+            scope.defineVariable(ast.getSymbol(),Environment.NIL);
         }
-        return Environment.NIL;
+        return null;
     }
 
     @Override
@@ -104,53 +220,397 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         }
         Ast.Expr.Access target = (Ast.Expr.Access)ast.getReceiver();
         String name = target.getName();
+        if(program != null && program.shared && !target.getReceiver().isPresent() && isUpdate(target, ast.getValue())) {
+            Environment.Variable variable = scope.lookupVariable(target.getSymbol());
+            if(variable.isShared()) {
+                update(variable, (Ast.Expr.Binary) ast.getValue());
+                return null;
+            }
+        }
         Environment.PlcObject value = visit(ast.getValue());
-        if(target.getReceiver() != null) {
+        if(target.getReceiver().isPresent()) {
             Environment.PlcObject receiver = visit(target.getReceiver().get());
-            receiver.setField(name, value);
+            receiver.setField(name, target.getCache(), value);
         }else {
-            scope.lookupVariable(name).setValue(value);
+            scope.lookupVariable(target.getSymbol()).setValue(value);
         }
-        return Environment.NIL;
+        return null;
+    }
 
+    /**
+     * Returns whether the value is {@code target op operand}, which updates a
+     * shared variable atomically.
+     */
+    private static boolean isUpdate(Ast.Expr.Access target, Ast.Expr value) {
+        if(!(value instanceof Ast.Expr.Binary)) {
+            return false;
+        }
+        Ast.Expr left = ((Ast.Expr.Binary) value).getLeft();
+        return left instanceof Ast.Expr.Access
+                && !((Ast.Expr.Access) left).getReceiver().isPresent()
+                && ((Ast.Expr.Access) left).getSymbol() == target.getSymbol();
+    }
 
+    /**
+     * Evaluates the operand once, then applies the operator to the current
+     * value until no other execution has changed it in between.
+     */
+    private void update(Environment.Variable variable, Ast.Expr.Binary value) {
+        Environment.PlcObject operand = visit(value.getRight());
+        Environment.PlcObject current;
+        Environment.PlcObject updated;
+        do {
+            current = variable.getValue();
+            updated = apply(value.getOperator(), current, operand);
+        } while(!variable.compareAndSet(current, updated));
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.If ast) {
-        if(requireType(Boolean.class, visit(ast.getCondition()))) {
+        boolean condition = requireType(Boolean.class, visit(ast.getCondition()));
+        try {
             scope = new Scope(scope);
-            for(Ast.Stmt stmt: ast.getThenStatements()) {
-                visit(stmt);
-            }
-        }else {
-            for(Ast.Stmt stmt: ast.getElseStatements()) {
-                visit(stmt);
-            }
+            return execute(condition ? ast.getThenStatements() : ast.getElseStatements());
+        }finally {
+            scope = scope.getParent();
         }
-        return Environment.NIL;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.For ast) {
-        String name = ast.getName();
         Environment.PlcObject boundObj = visit(ast.getValue());
         Iterable bound = requireType(Iterable.class, boundObj);
-        Iterator iterator = bound.iterator();
-        while(iterator.hasNext()) {
+        List<Environment.PlcObject> elements = elements(bound);
+        if(ast.isParallel()) {
+            parallel(ast, bound);
+            return null;
+        }else if(elements != null) {
+            return indexed(ast, elements);
+        }else if(bound instanceof PrimitiveList) {
+            return indexed(ast, ((PrimitiveList) bound).asList());
+        }else if(bound instanceof Buffer) {
+            return indexed(ast, ((Buffer) bound).asList());
+        }
+        Scope parent = scope;
+        Environment.Variable variable = enter(ast);
+        boolean declares = declares(ast);
+        try {
+            Iterator iterator = bound.iterator();
+            while(iterator.hasNext()) {
+                variable.setValue((Environment.PlcObject) iterator.next());
+                Environment.PlcObject result = iterate(ast, declares);
+                if(result != null) {
+                    return result;
+                }
+            }
+            return null;
+        }finally {
+            scope = parent;
+        }
+    }
+
+    /**
+     * Enters the scope of a sequential loop, which is created once per loop
+     * and holds the loop variable, and returns the variable. Each iteration
+     * sets the variable rather than defining it in a scope of its own.
+     */
+    private Environment.Variable enter(Ast.Stmt.For ast) {
+        scope = new Scope(scope);
+        scope.defineVariable(ast.getSymbol(), Environment.NIL);
+        return scope.lookupVariable(ast.getSymbol());
+    }
+
+    /**
+     * Returns whether the body of a loop declares variables of its own.
+     */
+    private static boolean declares(Ast.Stmt.For ast) {
+        for(Ast.Stmt stmt : ast.getStatements()) {
+            if(stmt instanceof Ast.Stmt.Declaration) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the body of a loop once in the loop's scope. A body which
+     * declares variables is given a scope per iteration, so the next
+     * iteration may declare them again.
+     */
+    private Environment.PlcObject iterate(Ast.Stmt.For ast, boolean declares) {
+        Environment.PlcObject result;
+        if(declares) {
+            Scope loop = scope;
             try {
-                scope = new Scope(scope);
-                Environment.PlcObject element = visit((Ast.Expr)iterator.next());
-                scope.defineVariable(name, element);
-                for(Ast.Stmt stmt: ast.getStatements()) {
-                    visit(stmt);
+                scope = new Scope(loop);
+                result = execute(ast.getStatements());
+            }finally {
+                scope = loop;
+            }
+        }else {
+            result = execute(ast.getStatements());
+        }
+        if(result == null) {
+            if(profile != null) {
+                profile.backEdge();
+            }
+            poll();
+        }
+        return result;
+    }
+
+    /**
+     * Returns a range as such or a snapshot of the keys of a map, which are
+     * lists of their elements, or null for any other bound.
+     */
+    private static List<Environment.PlcObject> elements(Iterable<?> bound) {
+        if(bound instanceof Range) {
+            return (Range) bound;
+        }else if(bound instanceof HashTable) {
+            return ((HashTable) bound).keyList();
+        }
+        return null;
+    }
+
+    /**
+     * Runs a loop over a range, a primitive list or the keys of a map by
+     * index, without an iterator, wrapping only the value of the loop
+     * variable. A range is counted with an {@code int} rather than read
+     * through {@link Range#get(int)}. The loop visits the elements present
+     * when it starts.
+     */
+    private Environment.PlcObject indexed(Ast.Stmt.For ast, List<Environment.PlcObject> elements) {
+        Range range = elements instanceof Range ? (Range) elements : null;
+        int value = range != null ? range.getStart() : 0;
+        int step = range != null ? range.getStep() : 0;
+        int size = elements.size();
+        Scope parent = scope;
+        Environment.Variable variable = enter(ast);
+        boolean declares = declares(ast);
+        try {
+            for(int i = 0; i < size; i++, value += step) {
+                variable.setValue(range != null ? Environment.create(BigInteger.valueOf(value)) : elements.get(i));
+                Environment.PlcObject result = iterate(ast, declares);
+                if(result != null) {
+                    return result;
                 }
+            }
+            return null;
+        }finally {
+            scope = parent;
+        }
+    }
+
+    /**
+     * Runs the iterations of a parallel loop in the common fork-join pool,
+     * split into chunks which each run in a fork of this context. An
+     * assignment {@code name = name op operand} (with one of
+     * {@code + * AND OR}) to a variable of the enclosing scopes which is
+     * only ever assigned so is a reduction: each chunk accumulates its own
+     * partial result from the identity of the operator (for the type of the
+     * variable's value), and the partial results are combined in iteration
+     * order, so the result matches a serial loop for associative operators.
+     * Other writes to variables of the enclosing scopes or to fields race,
+     * so they are rejected, as are calls to methods, which may assign
+     * fields.
+     */
+    private void parallel(Ast.Stmt.For ast, Iterable<?> bound) {
+        List<Environment.PlcObject> elements = elements(bound);
+        if(elements == null && bound instanceof PrimitiveList) {
+            elements = ((PrimitiveList) bound).slice(0, ((PrimitiveList) bound).length()).asList();
+        }else if(elements == null && bound instanceof Buffer) {
+            elements = ((Buffer) bound).asList();
+        }else if(elements == null) {
+            elements = new ArrayList<>();
+            for(Object element : bound) {
+                elements.add((Environment.PlcObject) element);
+            }
+        }
+        Map<Integer, String> reductions = reductions(ast);
+        int[] symbols = reductions.keySet().stream().mapToInt(Integer::intValue).toArray();
+        String[] operators = reductions.values().toArray(new String[0]);
+        Environment.PlcObject[] identities = new Environment.PlcObject[symbols.length];
+        for(int i = 0; i < symbols.length; i++) {
+            identities[i] = identity(operators[i], scope.lookupVariable(symbols[i]).getValue().getValue());
+        }
+        int grain = Math.max(1, elements.size() / (4 * ForkJoinPool.getCommonPoolParallelism()));
+        if(!forked) {
+            origin.forks++;
+            owner = Thread.currentThread();
+        }
+        Environment.PlcObject[] partials;
+        try {
+            partials = ForkJoinPool.commonPool().invoke(new Chunk(ast, elements, 0, elements.size(), grain, symbols, operators, identities, scope));
+        }finally {
+            if(!forked) {
+                origin.forks--;
+            }
+        }
+        for(int i = 0; i < symbols.length; i++) {
+            Environment.Variable variable = scope.lookupVariable(symbols[i]);
+            Environment.PlcObject current;
+            Environment.PlcObject updated;
+            do {
+                current = variable.getValue();
+                updated = apply(operators[i], current, partials[i]);
+            } while(!variable.compareAndSet(current, updated));
+        }
+    }
+
+    /**
+     * Returns the variables of the enclosing scopes the body of a parallel
+     * loop reduces, with their operators: those bound by the
+     * {@link Analyzer}, or else those found in the body, which must not
+     * assign any other variable of the enclosing scopes.
+     */
+    private static Map<Integer, String> reductions(Ast.Stmt.For ast) {
+        Map<Integer, String> reductions = new LinkedHashMap<>();
+        if(!ast.getBindings().isEmpty()) {
+            for(Ast.Stmt.For.Binding binding : ast.getBindings()) {
+                if(binding.isReduction()) {
+                    reductions.put(Symbols.intern(binding.getOuter().getName()), binding.getOperator());
+                }
+            }
+            return reductions;
+        }
+        Set<Integer> declared = new HashSet<>();
+        declared.add(ast.getSymbol());
+        findAssignments(ast.getStatements(), reductions, declared);
+        reductions.keySet().removeAll(declared);
+        for(Map.Entry<Integer, String> reduction : reductions.entrySet()) {
+            if(!reduction.getValue().matches("[+*]|AND|OR")) {
+                String name = Symbols.getName(reduction.getKey());
+                throw new RuntimeException("A PARALLEL FOR can only assign the variable " + name + " with a reduction " + name + " = " + name + " op value");
+            }
+        }
+        return reductions;
+    }
 
+    /**
+     * Finds the variables the statements assign, with the operator of the
+     * reduction assigning them (or an empty string if they are assigned
+     * otherwise), and the variables they declare.
+     */
+    private static void findAssignments(List<Ast.Stmt> statements, Map<Integer, String> assigned, Set<Integer> declared) {
+        for(Ast.Stmt statement : statements) {
+            if(statement instanceof Ast.Stmt.Assignment && ((Ast.Stmt.Assignment) statement).getReceiver() instanceof Ast.Expr.Access) {
+                Ast.Expr.Access target = (Ast.Expr.Access) ((Ast.Stmt.Assignment) statement).getReceiver();
+                Ast.Expr value = ((Ast.Stmt.Assignment) statement).getValue();
+                if(target.getReceiver().isPresent()) {
+                    throw new RuntimeException("A PARALLEL FOR cannot assign the field " + target.getName());
+                }
+                String operator = isUpdate(target, value) ? ((Ast.Expr.Binary) value).getOperator() : "";
+                String previous = assigned.putIfAbsent(target.getSymbol(), operator);
+                if(previous != null && !previous.equals(operator)) {
+                    assigned.put(target.getSymbol(), "");
+                }
+            }else if(statement instanceof Ast.Stmt.Declaration) {
+                declared.add(((Ast.Stmt.Declaration) statement).getSymbol());
+            }else if(statement instanceof Ast.Stmt.If) {
+                findAssignments(((Ast.Stmt.If) statement).getThenStatements(), assigned, declared);
+                findAssignments(((Ast.Stmt.If) statement).getElseStatements(), assigned, declared);
+            }else if(statement instanceof Ast.Stmt.For) {
+                declared.add(((Ast.Stmt.For) statement).getSymbol());
+                findAssignments(((Ast.Stmt.For) statement).getStatements(), assigned, declared);
+            }else if(statement instanceof Ast.Stmt.While) {
+                findAssignments(((Ast.Stmt.While) statement).getStatements(), assigned, declared);
+            }
+        }
+    }
+
+    private static Environment.PlcObject identity(String operator, Object value) {
+        if(value instanceof Boolean) {
+            return Environment.create(operator.equals("AND"));
+        }else if(value instanceof String) {
+            return Environment.create("");
+        }else if(value instanceof BigInteger) {
+            return Environment.create(operator.equals("*") ? BigInteger.ONE : BigInteger.ZERO);
+        }else if(value instanceof BigDecimal) {
+            return Environment.create(operator.equals("*") ? BigDecimal.ONE : BigDecimal.ZERO);
+        }
+        throw new RuntimeException("Cannot reduce a value of type " + (value == null ? "Nil" : value.getClass().getName()) + ".");
+    }
+
+    /**
+     * A range of the iterations of a parallel loop, returning the partial
+     * results of its reductions.
+     */
+    private final class Chunk extends RecursiveTask<Environment.PlcObject[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Ast.Stmt.For ast;
+        private final List<Environment.PlcObject> elements;
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final int[] symbols;
+        private final String[] operators;
+        private final Environment.PlcObject[] identities;
+        private final Scope enclosing;
+
+        private Chunk(Ast.Stmt.For ast, List<Environment.PlcObject> elements, int from, int to, int grain, int[] symbols, String[] operators, Environment.PlcObject[] identities, Scope enclosing) {
+            this.ast = ast;
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.symbols = symbols;
+            this.operators = operators;
+            this.identities = identities;
+            this.enclosing = enclosing;
+        }
+
+        @Override
+        protected Environment.PlcObject[] compute() {
+            if(to - from <= grain) {
+                return run();
+            }
+            int middle = (from + to) >>> 1;
+            Chunk left = new Chunk(ast, elements, from, middle, grain, symbols, operators, identities, enclosing);
+            left.fork();
+            Environment.PlcObject[] right = new Chunk(ast, elements, middle, to, grain, symbols, operators, identities, enclosing).compute();
+            Environment.PlcObject[] partials = left.join();
+            for(int i = 0; i < partials.length; i++) {
+                partials[i] = apply(operators[i], partials[i], right[i]);
+            }
+            return partials;
+        }
+
+        private Environment.PlcObject[] run() {
+            Scope partials = new Scope(enclosing);
+            for(int i = 0; i < symbols.length; i++) {
+                partials.defineVariable(symbols[i], identities[i]);
+            }
+            Interpreter worker = new Interpreter(Interpreter.this, partials);
+            Interpreter caller = CURRENT.get();
+            CURRENT.set(worker);
+            try {
+                for(int i = from; i < to; i++) {
+                    worker.scope = new Scope(partials);
+                    worker.scope.defineVariable(ast.getSymbol(), elements.get(i));
+                    if(worker.execute(ast.getStatements()) != null) {
+                        throw new RuntimeException("RETURN is not allowed in a PARALLEL FOR");
+                    }
+                    worker.poll();
+                }
             }finally {
-                scope = scope.getParent();
+                if(worker.share != null) {
+                    worker.share.account();
+                }
+                if(caller != null) {
+                    CURRENT.set(caller);
+                }else {
+                    CURRENT.remove();
+                }
             }
+            Environment.PlcObject[] results = new Environment.PlcObject[symbols.length];
+            for(int i = 0; i < symbols.length; i++) {
+                results[i] = partials.lookupVariable(symbols[i]).getValue();
+            }
+            return results;
         }
-        return Environment.NIL;
+
     }
 
     @Override
@@ -158,19 +618,37 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         while(requireType(Boolean.class, visit(ast.getCondition()))) {
             try {
                 scope = new Scope(scope);
-                for(Ast.Stmt stmt: ast.getStatements()) {
-                    visit(stmt);
+                Environment.PlcObject result = execute(ast.getStatements());
+                if(result != null) {
+                    return result;
                 }
             }finally {
                 scope = scope.getParent();
             }
+            if(profile != null) {
+                profile.backEdge();
+            }
+            poll();
         }
-        return Environment.NIL;
+        return null;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.Return ast) {
-        throw new Return(visit(ast.getValue()));
+        return visit(ast.getValue());
+    }
+
+    /**
+     * Executes statements in the current scope until one returns.
+     */
+    private Environment.PlcObject execute(List<Ast.Stmt> statements) {
+        for(Ast.Stmt stmt : statements) {
+            Environment.PlcObject result = visit(stmt);
+            if(result != null) {
+                return result;
+            }
+        }
+        return null;
     }
 
     @Override
@@ -187,8 +665,11 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     public Environment.PlcObject visit(Ast.Expr.Binary ast) {
         Environment.PlcObject leftObject = visit(ast.getLeft());
         Environment.PlcObject rightObject = visit(ast.getRight());
-        String operator = ast.getOperator();
-        if(operator == "AND" || operator == "OR") {
+        return apply(ast.getOperator(), leftObject, rightObject);
+    }
+
+    private Environment.PlcObject apply(String operator, Environment.PlcObject leftObject, Environment.PlcObject rightObject) {
+        if(operator.equals("AND") || operator.equals("OR")) {
             return visitBoolean(leftObject, rightObject, operator);
         }
         if(operator.matches("[<>]=?")) {
@@ -197,16 +678,16 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         if(operator.matches("[=!]=")) {
             return visitEqual(leftObject, rightObject, operator);
         }
-        if(operator == "+") {
+        if(operator.equals("+")) {
             return visitPlus(leftObject, rightObject);
         }
-        if(operator == "-") {
+        if(operator.equals("-")) {
             return  visitMinus(leftObject, rightObject);
         }
-        if(operator == "*") {
+        if(operator.equals("*")) {
             return visitMulti(leftObject, rightObject);
         }
-        if(operator == "/") {
+        if(operator.equals("/")) {
             return visitDivide(leftObject, rightObject);
         }
         throw new RuntimeException("Unsupported operator for Binary expression passed");
@@ -215,37 +696,78 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Expr.Access ast) {
         String name = ast.getName();
-        if(ast.getReceiver() != null) {
+        if(ast.getReceiver().isPresent()) {
             Environment.PlcObject receiver = visit(ast.getReceiver().get());
-            return receiver.getField(name).getValue();
+            return receiver.getField(name, ast.getCache());
         }else {
-            return scope.lookupVariable(name).getValue();
+            return scope.lookupVariable(ast.getSymbol()).getValue();
         }
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Expr.Function ast) {
-        String name = ast.getName();
-        List<Environment.PlcObject> arguments = new ArrayList<>();
-        for(Ast.Expr argument : ast.getArguments()) {
-            arguments.add(visit(argument));
-        }
-        Environment.PlcObject product;
-        if(ast.getReceiver() != null) {
+        List<Ast.Expr> expressions = ast.getArguments();
+        if(ast.getReceiver().isPresent()) {
+            List<Environment.PlcObject> arguments = Arrays.asList(evaluate(expressions));
             Environment.PlcObject receiver = visit(ast.getReceiver().get());
-            product = receiver.callMethod(name, arguments);
-        }else {
-            Environment.Function function = scope.lookupFunction(name, ast.getArguments().size());
-            product = function.invoke(arguments);
+            return receiver.callMethod(ast.getMethodId(), arguments);
         }
-        return product;
+        switch(expressions.size()) {
+            case 0:
+                return function(ast).invoke0();
+            case 1: {
+                Environment.PlcObject a = visit(expressions.get(0));
+                return function(ast).invoke1(a);
+            }
+            case 2: {
+                Environment.PlcObject a = visit(expressions.get(0));
+                Environment.PlcObject b = visit(expressions.get(1));
+                return function(ast).invoke2(a, b);
+            }
+            case 3: {
+                Environment.PlcObject a = visit(expressions.get(0));
+                Environment.PlcObject b = visit(expressions.get(1));
+                Environment.PlcObject c = visit(expressions.get(2));
+                return function(ast).invoke3(a, b, c);
+            }
+            default: {
+                Environment.PlcObject[] arguments = evaluate(expressions);
+                return function(ast).invoke(arguments);
+            }
+        }
+    }
+
+    private Environment.PlcObject[] evaluate(List<Ast.Expr> expressions) {
+        Environment.PlcObject[] values = new Environment.PlcObject[expressions.size()];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = visit(expressions.get(i));
+        }
+        return values;
+    }
+
+    /**
+     * Resolves the function called at the given site. Executions of a
+     * {@link Program} share its function bindings, so they share cache
+     * entries too; otherwise entries belong to this interpreter. Entries
+     * are invalidated by definitions under the root of the scope functions
+     * are defined in only.
+     */
+    private Environment.Function function(Ast.Expr.Function ast) {
+        Object owner = program != null ? program : this;
+        int version = functions.getFunctionVersion();
+        Environment.Function function = ast.getCache().get(owner, version);
+        if(function == null) {
+            function = scope.lookupFunction(ast.getSymbol(), ast.getArguments().size());
+            ast.getCache().set(owner, version, function);
+        }
+        return function;
     }
 
     private Environment.PlcObject visitBoolean(Environment.PlcObject leftObj,
                                                Environment.PlcObject rightObj, String operator) {
         Boolean left = requireType(Boolean.class, leftObj);
         Boolean right = requireType(Boolean.class, rightObj);
-        if(operator == "AND") {
+        if(operator.equals("AND")) {
             return Environment.create(left && right);
         }else {
             return Environment.create(left || right);
@@ -254,44 +776,49 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     private Environment.PlcObject visitCompare(Environment.PlcObject leftObj,
                                                Environment.PlcObject rightObj, String operator) {
-        Comparable left = requireType(Comparable.class, leftObj);
-        Comparable right = requireType(Comparable.class, rightObj);
-        if(left.getClass() != right.getClass()) {
-            throw new RuntimeException("Comparison object type not compatible, left expects"
-                    + left.getClass().toString() + " and right expects " + right.getClass().toString());
-        }
+        int comparison = compare(leftObj, rightObj);
         Boolean product = false;
         switch(operator) {
             case "<":
-                product = left.compareTo(right) < 0;
+                product = comparison < 0;
                 break;
             case ">":
-                product = left.compareTo(right) > 0;
+                product = comparison > 0;
                 break;
             case "<=":
-                product = left.compareTo(right) <= 0;
+                product = comparison <= 0;
                 break;
             case ">=":
-                product = left.compareTo(right) >= 0;
+                product = comparison >= 0;
         }
         return Environment.create(product);
     }
 
+    static int compare(Environment.PlcObject leftObj, Environment.PlcObject rightObj) {
+        Comparable left = requireType(Comparable.class, leftObj);
+        Comparable right = requireType(Comparable.class, rightObj);
+        if(left.getClass() != right.getClass()) {
+            throw new RuntimeException("Comparison object type not compatible, left expects"
+                    + left.getClass().toString() + " and right expects " + right.getClass().toString());
+        }
+        return left.compareTo(right);
+    }
+
     private Environment.PlcObject visitEqual(Environment.PlcObject leftObj,
                                                 Environment.PlcObject rightObj, String operator) {
-        boolean product = leftObj.equals(rightObj);
-        if(operator == "==") {
+        boolean product = Objects.equals(leftObj.getValue(), rightObj.getValue());
+        if(operator.equals("==")) {
             return Environment.create(product);
         }else {
             return Environment.create(!product);
         }
     }
 
-    private Environment.PlcObject visitPlus(Environment.PlcObject leftObj, Environment.PlcObject rightObj) {
-        if(String.class.isInstance(leftObj) || String.class.isInstance(rightObj)) {
+    static Environment.PlcObject visitPlus(Environment.PlcObject leftObj, Environment.PlcObject rightObj) {
+        if(String.class.isInstance(leftObj.getValue()) || String.class.isInstance(rightObj.getValue())) {
             String left;
             String right;
-            if(String.class.isInstance(leftObj)) {
+            if(String.class.isInstance(leftObj.getValue())) {
                 left = requireType(String.class, leftObj);
                 right = rightObj.getValue().toString();
             }else {
@@ -299,11 +826,11 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
                 right = requireType(String.class, rightObj);
             }
             return Environment.create(left + right);
-        }else if(BigInteger.class.isInstance(leftObj)) {
+        }else if(BigInteger.class.isInstance(leftObj.getValue())) {
             int left = requireType(BigInteger.class, leftObj).intValue();
             int right = requireType(BigInteger.class, rightObj).intValue();
             return Environment.create(BigInteger.valueOf(left + right));
-        }else if(BigDecimal.class.isInstance(leftObj)) {
+        }else if(BigDecimal.class.isInstance(leftObj.getValue())) {
             double left = requireType(BigDecimal.class, leftObj).doubleValue();
             double right = requireType(BigDecimal.class, rightObj).doubleValue();
             return Environment.create(new BigDecimal(left + right));
@@ -311,13 +838,13 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         throw new RuntimeException("left expected integer or decimal but get " + leftObj.getClass().toString() + ".");
     }
 
-    private Environment.PlcObject visitMinus(Environment.PlcObject leftObj,
-                                             Environment.PlcObject rightObj) {
-        if(BigInteger.class.isInstance(leftObj)) {
+    static Environment.PlcObject visitMinus(Environment.PlcObject leftObj,
+                                            Environment.PlcObject rightObj) {
+        if(BigInteger.class.isInstance(leftObj.getValue())) {
             int left = requireType(BigInteger.class, leftObj).intValue();
             int right = requireType(BigInteger.class, rightObj).intValue();
             return Environment.create(BigInteger.valueOf(left - right));
-        }else if(BigDecimal.class.isInstance(leftObj)) {
+        }else if(BigDecimal.class.isInstance(leftObj.getValue())) {
             double left = requireType(BigDecimal.class, leftObj).doubleValue();
             double right = requireType(BigDecimal.class, rightObj).doubleValue();
             return Environment.create(new BigDecimal(left - right));
@@ -325,13 +852,13 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         throw new RuntimeException("left expected integer or decimal but get " + leftObj.getClass().toString() + ".");
     }
 
-    private Environment.PlcObject visitMulti(Environment.PlcObject leftObj,
-                                             Environment.PlcObject rightObj) {
-        if(BigInteger.class.isInstance(leftObj)) {
+    static Environment.PlcObject visitMulti(Environment.PlcObject leftObj,
+                                            Environment.PlcObject rightObj) {
+        if(BigInteger.class.isInstance(leftObj.getValue())) {
             int left = requireType(BigInteger.class, leftObj).intValue();
             int right = requireType(BigInteger.class, rightObj).intValue();
             return Environment.create((BigInteger.valueOf(left * right)));
-        }else if(BigDecimal.class.isInstance(leftObj)) {
+        }else if(BigDecimal.class.isInstance(leftObj.getValue())) {
             double left = requireType(BigDecimal.class, leftObj).doubleValue();
             double right = requireType(BigDecimal.class, rightObj).doubleValue();
             return Environment.create(new BigDecimal(left * right));
@@ -339,16 +866,16 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         throw new RuntimeException("left expected integer or decimal but get " + leftObj.getClass().toString() + ".");
     }
 
-    private Environment.PlcObject visitDivide(Environment.PlcObject leftObj,
+    static Environment.PlcObject visitDivide(Environment.PlcObject leftObj,
                                              Environment.PlcObject rightObj) {
-        if(BigInteger.class.isInstance(leftObj)) {
+        if(BigInteger.class.isInstance(leftObj.getValue())) {
             int left = requireType(BigInteger.class, leftObj).intValue();
             int right = requireType(BigInteger.class, rightObj).intValue();
             if(right == 0) {
                 throw new RuntimeException("cannot divide by 0");
             }
             return Environment.create(BigInteger.valueOf(left / right));
-        }else if(BigDecimal.class.isInstance(leftObj)) {
+        }else if(BigDecimal.class.isInstance(leftObj.getValue())) {
             double left = requireType(BigDecimal.class,leftObj).doubleValue();
             double right = requireType(BigDecimal.class, rightObj).doubleValue();
             if(right == 0.0) {
@@ -361,7 +888,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     /**
      * Helper function to ensure an object is of the appropriate type.
      */
-    private static <T> T requireType(Class<T> type, Environment.PlcObject object) {
+    static <T> T requireType(Class<T> type, Environment.PlcObject object) {
         if(type.isInstance(object.getValue())) {
             return type.cast(object.getValue());
         } else {
@@ -370,14 +897,231 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     }
 
     /**
-     * Exception class for returning values.
+     * An interpreted source shared by any number of concurrent executions.
+     *
+     * The program binds its methods and {@code print} once, in a scope that
+     * is never modified afterwards. Each execution runs in an
+     * {@link Interpreter} context holding its own fields (initialized
+     * afresh) and frames, so executions on different threads are
+     * independent. Bound methods find the context running on the calling
+     * thread. A context can be reused by successive executions, which then
+     * reset its fields in place, but not by concurrent ones.
+     *
+     * A program loaded with {@link #loadShared} instead initializes its
+     * fields once, on its first execution, and every execution reads and
+     * writes the same fields. Its memory model is as follows:
+     * <ul>
+     *     <li>Each read or write of a field is atomic and volatile: all
+     *     executions observe the writes to fields in a single order, and a
+     *     value read from a field is fully initialized.</li>
+     *     <li>An assignment {@code field = field op operand}, with one of
+     *     the binary operators, is an atomic update: the operand is
+     *     evaluated once, before the field is read, and the update is
+     *     retried if another execution writes the field in between. Any
+     *     other assignment is a plain write, so a read-modify-write spread
+     *     over several statements may lose concurrent updates.</li>
+     *     <li>Field initializers run once, before any execution reads a
+     *     field, and executions started afterwards see their values.</li>
+     *     <li>Local variables are private to their execution.</li>
+     * </ul>
      */
-    private static class Return extends RuntimeException {
+    public static final class Program {
+
+        private final Scope functions;
+        private final List<Ast.Field> fields;
+        private final int[] symbols;
+        private final Method main;
+        private final boolean shared;
+        private volatile Scope globals = null;
 
-        private final Environment.PlcObject value;
+        private Program(Scope parent, Ast.Source ast, boolean shared) {
+            this.shared = shared;
+            functions = new Scope(parent);
+            defineBuiltins(functions);
+            fields = ast.getFields();
+            symbols = fields.stream().map(Ast.Field::getName).mapToInt(Symbols::intern).toArray();
+            Method main = null;
+            for(Ast.Method method : ast.getMethods()) {
+                Method function = new Method(null, null, method, null);
+                functions.defineFunction(method.getName(), method.getParameters().size(), function);
+                if(method.getName().equals("main") && method.getParameters().isEmpty()) {
+                    main = function;
+                }
+            }
+            if(main == null) {
+                throw new RuntimeException("No main function defined");
+            }
+            this.main = main;
+        }
 
-        private Return(Environment.PlcObject value) {
-            this.value = value;
+        /**
+         * Initializes a fresh set of fields and invokes {@code main} in a new
+         * context on the calling thread.
+         */
+        public Environment.PlcObject execute() {
+            return execute(newContext());
+        }
+
+        /**
+         * Returns a new, unused execution context for this program.
+         */
+        public Interpreter newContext() {
+            return new Interpreter(this);
+        }
+
+        /**
+         * Initializes the fields of the given context and invokes
+         * {@code main} in it on the calling thread.
+         */
+        public Environment.PlcObject execute(Interpreter context) {
+            if(context.program != this) {
+                throw new IllegalArgumentException("The context belongs to a different program.");
+            }
+            Interpreter caller = CURRENT.get();
+            CURRENT.set(context);
+            try {
+                if(shared) {
+                    context.scope = context.globals = globals != null ? globals : initialize(context);
+                }else if(context.globals == null) {
+                    context.scope = context.globals = new Scope(functions);
+                    for(Ast.Field field : fields) {
+                        context.visit(field);
+                    }
+                }else {
+                    context.scope = context.globals;
+                    for(int i = 0; i < symbols.length; i++) {
+                        Optional<Ast.Expr> value = fields.get(i).getValue();
+                        context.globals.lookupVariable(symbols[i]).setValue(value.isPresent() ? context.visit(value.get()) : Environment.NIL);
+                    }
+                }
+                return main.invoke0();
+            }finally {
+                if(context.budget != null) {
+                    context.budget.account();
+                }
+                if(caller != null) {
+                    CURRENT.set(caller);
+                }else {
+                    CURRENT.remove();
+                }
+            }
+        }
+
+        /**
+         * Initializes the shared fields in the given context, unless another
+         * execution already has.
+         */
+        private synchronized Scope initialize(Interpreter context) {
+            if(globals == null) {
+                Scope scope = new Scope(functions);
+                context.scope = context.globals = scope;
+                for(int i = 0; i < symbols.length; i++) {
+                    Optional<Ast.Expr> value = fields.get(i).getValue();
+                    scope.defineSharedVariable(symbols[i], value.isPresent() ? context.visit(value.get()) : Environment.NIL);
+                }
+                globals = scope;
+            }
+            return globals;
+        }
+
+    }
+
+    /**
+     * An interpreted method. A method bound by an interpreter runs in that
+     * interpreter, in the scope it was defined in; a method shared by a
+     * {@link Program} runs in the context executing on the calling thread,
+     * in that execution's fields. Neither may be called by the body of a
+     * parallel loop, since it may assign fields.
+     */
+    private static final class Method extends Environment.Invoker {
+
+        private final Interpreter interpreter;
+        private final Scope definition;
+        private final int[] parameters;
+        private final List<Ast.Stmt> statements;
+        private final TieredRuntime.Profile counters;
+
+        private Method(Interpreter interpreter, Scope definition, Ast.Method ast, TieredRuntime.Profile counters) {
+            this.interpreter = interpreter;
+            this.definition = definition;
+            this.parameters = ast.getParameters().stream().mapToInt(Symbols::intern).toArray();
+            this.statements = ast.getStatements();
+            this.counters = counters;
+        }
+
+        private Interpreter context() {
+            if(interpreter != null && interpreter.forks == 0) {
+                return interpreter;
+            }
+            Interpreter current = CURRENT.get();
+            if(current != null && current.forked) {
+                throw new RuntimeException("A PARALLEL FOR cannot call a method, which may assign fields.");
+            }else if(interpreter != null) {
+                return interpreter;
+            }
+            if(current == null) {
+                throw new RuntimeException("Methods of a shared program can only be called while it executes.");
+            }
+            return current;
+        }
+
+        private Scope activation(Interpreter context) {
+            return new Scope(definition != null ? definition : context.globals);
+        }
+
+        @Override
+        public Environment.PlcObject invoke0() {
+            if(parameters.length != 0) {
+                return super.invoke0();
+            }
+            Interpreter context = context();
+            return context.activate(activation(context), statements, counters);
+        }
+
+        @Override
+        public Environment.PlcObject invoke1(Environment.PlcObject a) {
+            if(parameters.length != 1) {
+                return super.invoke1(a);
+            }
+            Interpreter context = context();
+            Scope activation = activation(context);
+            activation.defineVariable(parameters[0], a);
+            return context.activate(activation, statements, counters);
+        }
+
+        @Override
+        public Environment.PlcObject invoke2(Environment.PlcObject a, Environment.PlcObject b) {
+            if(parameters.length != 2) {
+                return super.invoke2(a, b);
+            }
+            Interpreter context = context();
+            Scope activation = activation(context);
+            activation.defineVariable(parameters[0], a);
+            activation.defineVariable(parameters[1], b);
+            return context.activate(activation, statements, counters);
+        }
+
+        @Override
+        public Environment.PlcObject invoke3(Environment.PlcObject a, Environment.PlcObject b, Environment.PlcObject c) {
+            if(parameters.length != 3) {
+                return super.invoke3(a, b, c);
+            }
+            Interpreter context = context();
+            Scope activation = activation(context);
+            activation.defineVariable(parameters[0], a);
+            activation.defineVariable(parameters[1], b);
+            activation.defineVariable(parameters[2], c);
+            return context.activate(activation, statements, counters);
+        }
+
+        @Override
+        public Environment.PlcObject invoke(Environment.PlcObject... arguments) {
+            Interpreter context = context();
+            Scope activation = activation(context);
+            for(int i = 0; i < parameters.length; i++) {
+                activation.defineVariable(parameters[i], arguments[i]);
+            }
+            return context.activate(activation, statements, counters);
         }
 
     }
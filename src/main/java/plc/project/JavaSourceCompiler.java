@@ -0,0 +1,225 @@
+package plc.project;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the Java emitted by the {@link Generator} without leaving the JVM.
+ * The {@code Main} class is compiled with the system
+ * {@link javax.tools.JavaCompiler} into memory and loaded by a throwaway
+ * class loader, whose classes are collected once no program uses them.
+ *
+ * Loaded classes are cached by the SHA-256 hash of the generated source, so
+ * compiling an unchanged source again skips javac. The cache is shared by
+ * all instances and only holds its classes softly: a class no program uses
+ * is collected (with its loader) when memory runs low, and its entry is
+ * dropped. {@link #clearCache()} drops every entry at once.
+ */
+public final class JavaSourceCompiler {
+
+    private static final String NAME = "Main";
+    private static final Map<String, Entry> CACHE = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Class<?>> COLLECTED = new ReferenceQueue<>();
+
+    /**
+     * Generates, compiles and loads the given analyzed source.
+     */
+    public Program compile(Ast.Source ast) {
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(ast);
+        String source = writer.toString();
+        expunge();
+        Class<?>[] loaded = new Class<?>[1];
+        CACHE.compute(hash(source), (hash, entry) -> {
+            loaded[0] = entry != null ? entry.get() : null;
+            if (loaded[0] == null) {
+                loaded[0] = load(source);
+                return new Entry(hash, loaded[0]);
+            }
+            return entry;
+        });
+        Class<?> type = loaded[0];
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            Method main = type.getDeclaredMethod("main");
+            constructor.setAccessible(true);
+            main.setAccessible(true);
+            return new Program(type, constructor, main);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException("No main function defined", e);
+        }
+    }
+
+    /**
+     * Returns the number of sources with a cached class.
+     */
+    public static int getCacheSize() {
+        expunge();
+        return CACHE.size();
+    }
+
+    /**
+     * Drops every cached class, so later compilations run javac again.
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * Removes the entries whose classes have been collected.
+     */
+    private static void expunge() {
+        for (Reference<? extends Class<?>> reference = COLLECTED.poll(); reference != null; reference = COLLECTED.poll()) {
+            Entry entry = (Entry) reference;
+            CACHE.remove(entry.hash, entry);
+        }
+    }
+
+    private static Class<?> load(String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler is available; a JDK is required.");
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+        StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        JavaFileManager manager = new ForwardingJavaFileManager<JavaFileManager>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        classes.put(className, bytes);
+                        return bytes;
+                    }
+                };
+            }
+        };
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("mem:///" + NAME + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        boolean success = compiler.getTask(null, manager, diagnostics, Arrays.asList("-proc:none", "-g:none"), null, Collections.singletonList(file)).call();
+        try {
+            manager.close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        if (!success) {
+            StringBuilder message = new StringBuilder("Generated source failed to compile:");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                message.append(System.lineSeparator()).append(diagnostic.getLineNumber()).append(": ").append(diagnostic.getMessage(null));
+            }
+            throw new RuntimeException(message.toString());
+        }
+        try {
+            return new ClassLoader(JavaSourceCompiler.class.getClassLoader()) {
+                @Override
+                protected Class<?> findClass(String name) throws ClassNotFoundException {
+                    ByteArrayOutputStream bytes = classes.get(name);
+                    if (bytes == null) {
+                        throw new ClassNotFoundException(name);
+                    }
+                    return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+                }
+            }.loadClass(NAME);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hash(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder();
+            for (byte b : digest) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A compiled and loaded {@code Main} class.
+     */
+    public static final class Program {
+
+        private final Class<?> type;
+        private final Constructor<?> constructor;
+        private final Method main;
+
+        private Program(Class<?> type, Constructor<?> constructor, Method main) {
+            this.type = type;
+            this.constructor = constructor;
+            this.main = main;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * Invokes {@code main()} on a new instance, so each execution starts
+         * with freshly initialized fields.
+         */
+        public Environment.PlcObject execute() {
+            try {
+                Object result = main.invoke(constructor.newInstance());
+                return main.getReturnType() == void.class ? Environment.NIL : JvmCompiler.Intrinsics.wrap(result);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+    }
+
+    private static final class Entry extends SoftReference<Class<?>> {
+
+        private final String hash;
+
+        private Entry(String hash, Class<?> type) {
+            super(type, COLLECTED);
+            this.hash = hash;
+        }
+
+    }
+
+}
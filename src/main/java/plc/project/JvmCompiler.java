@@ -0,0 +1,832 @@
+package plc.project;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.HashSet;
+
+/**
+ * Compiles an analyzed {@link Ast.Source} directly to a JVM class file and
+ * defines it in-process, so PLC methods become ordinary JIT-compiled static
+ * methods without a javac step.
+ *
+ * Values are represented by the JVM types the {@link Analyzer} assigns
+ * through {@link Environment.Type#getJvmName()}: {@code int}, {@code double},
+ * {@code boolean}, {@code char} and {@code String} locals and parameters are
+ * unboxed, everything else is an {@code Object}. As in the Java emitted by
+ * the {@link Generator}, arithmetic follows Java semantics and {@code AND} /
+ * {@code OR} short-circuit. Fields become static fields, so a loaded class
+ * runs one execution at a time. Methods on a receiver other than the
+ * {@code String} ones are dispatched through the receiver's type at
+ * runtime, as in the {@link Interpreter}. Fields of a receiver other than
+ * {@code String.length} are not supported and fail to compile.
+ *
+ * The class is defined as a hidden class with
+ * {@code MethodHandles.Lookup#defineHiddenClass} where the JVM supports it
+ * (Java 15 and later), and by a throwaway class loader otherwise.
+ */
+public final class JvmCompiler implements Ast.Visitor<Void> {
+
+    private static final String NAME = "plc/project/PlcProgram";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String INTRINSICS = "plc/project/JvmCompiler$Intrinsics";
+    private static final String CONSTANTS = "$constants";
+
+    private static final int ACONST_NULL = 0x01, ICONST_0 = 0x03, BIPUSH = 0x10, SIPUSH = 0x11, LDC_W = 0x13, LDC2_W = 0x14;
+    private static final int ILOAD = 0x15, DLOAD = 0x18, ALOAD = 0x19, ISTORE = 0x36, DSTORE = 0x39, ASTORE = 0x3A;
+    private static final int AALOAD = 0x32, AASTORE = 0x53, POP = 0x57, POP2 = 0x58, DUP = 0x59;
+    private static final int IADD = 0x60, DADD = 0x63, ISUB = 0x64, DSUB = 0x67, IMUL = 0x68, DMUL = 0x6B, IDIV = 0x6C, DDIV = 0x6F;
+    private static final int DCMPL = 0x97, IFEQ = 0x99, IFNE = 0x9A, IFLT = 0x9B, IFGE = 0x9C, IFGT = 0x9D, IFLE = 0x9E;
+    private static final int IF_ICMPEQ = 0x9F, GOTO = 0xA7, IRETURN = 0xAC, DRETURN = 0xAF, ARETURN = 0xB0, RETURN = 0xB1;
+    private static final int GETSTATIC = 0xB2, PUTSTATIC = 0xB3, INVOKEVIRTUAL = 0xB6, INVOKESPECIAL = 0xB7;
+    private static final int INVOKESTATIC = 0xB8, INVOKEINTERFACE = 0xB9, NEW = 0xBB, ANEWARRAY = 0xBD, CHECKCAST = 0xC0;
+
+    private final Set<String> methods = new HashSet<>();
+    private final Map<String, Environment.Type> fields = new HashMap<>();
+    private final List<Object> constants = new ArrayList<>();
+    private final List<Map<String, Local>> layouts = new ArrayList<>();
+    private ClassFile file;
+    private ClassFile.Code code;
+    private Environment.Function function;
+
+    /**
+     * Compiles and defines the given source, which must have been analyzed
+     * by an {@link Analyzer}. Builtin variables and functions are bound to
+     * the objects resolved during analysis.
+     */
+    public Program compile(Ast.Source ast) {
+        methods.clear();
+        fields.clear();
+        constants.clear();
+        file = new ClassFile(NAME, OBJECT);
+        file.field(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, CONSTANTS, "[Ljava/lang/Object;");
+        for (Ast.Method method : ast.getMethods()) {
+            methods.add(method.getName() + "/" + method.getParameters().size());
+        }
+        if (!methods.contains("main/0")) {
+            throw new RuntimeException("No main function defined");
+        }
+        visit(ast);
+        try {
+            Class<?> type = define(file.toByteArray());
+            type.getField(CONSTANTS).set(null, constants.toArray());
+            Method init = type.getMethod("$init");
+            Method main = type.getMethod("main");
+            return new Program(type, init, main, ast.getMethods().stream()
+                    .filter(m -> m.getName().equals("main") && m.getParameters().isEmpty())
+                    .findFirst().get().getFunction().getReturnType());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to define the compiled class.", e);
+        }
+    }
+
+    @Override
+    public Void visit(Ast.Source ast) {
+        code = file.method(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, "$init", "()V", 0);
+        begin();
+        for (Ast.Field field : ast.getFields()) {
+            visit(field);
+        }
+        code.op(RETURN, 0);
+        code.end();
+        for (Ast.Method method : ast.getMethods()) {
+            visit(method);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Field ast) {
+        Environment.Type type = ast.getVariable().getType();
+        String descriptor = descriptor(type);
+        file.field(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, ast.getName(), descriptor);
+        if (ast.getValue().isPresent()) {
+            expression(ast.getValue().get(), type);
+        } else {
+            defaultValue(descriptor);
+        }
+        code.field(PUTSTATIC, NAME, ast.getName(), descriptor);
+        fields.put(ast.getName(), type);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Method ast) {
+        function = ast.getFunction();
+        StringBuilder descriptor = new StringBuilder("(");
+        int slots = 0;
+        for (Environment.Type type : function.getParameterTypes()) {
+            descriptor.append(descriptor(type));
+            slots += ClassFile.size(descriptor(type));
+        }
+        descriptor.append(')').append(returnDescriptor(function.getReturnType()));
+        code = file.method(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, ast.getName(), descriptor.toString(), slots);
+        begin();
+        int slot = 0;
+        for (int i = 0; i < ast.getParameters().size(); i++) {
+            Environment.Type type = function.getParameterTypes().get(i);
+            layouts.get(0).put(ast.getParameters().get(i), new Local(slot, type));
+            slot += ClassFile.size(descriptor(type));
+        }
+        for (Ast.Stmt stmt : ast.getStatements()) {
+            visit(stmt);
+        }
+        String returns = returnDescriptor(function.getReturnType());
+        if (!returns.equals("V")) {
+            defaultValue(returns);
+        }
+        code.op(returnOpcode(returns), -ClassFile.size(returns));
+        code.end();
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Expression ast) {
+        Ast.Expr expression = ast.getExpression();
+        visit(expression);
+        pop(descriptor(expression.getType()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Declaration ast) {
+        Environment.Type type = ast.getVariable().getType();
+        String descriptor = descriptor(type);
+        if (ast.getValue().isPresent()) {
+            expression(ast.getValue().get(), type);
+        } else {
+            defaultValue(descriptor);
+        }
+        Local local = new Local(code.allocate(descriptor), type);
+        layouts.get(layouts.size() - 1).put(ast.getName(), local);
+        store(local);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Assignment ast) {
+        Ast.Expr.Access target = (Ast.Expr.Access) ast.getReceiver();
+        if (target.getReceiver().isPresent()) {
+            throw new RuntimeException("Field assignment is not supported by the JVM backend.");
+        }
+        Local local = resolve(target.getName());
+        if (local != null) {
+            expression(ast.getValue(), local.type);
+            store(local);
+        } else if (fields.containsKey(target.getName())) {
+            Environment.Type type = fields.get(target.getName());
+            expression(ast.getValue(), type);
+            code.field(PUTSTATIC, NAME, target.getName(), descriptor(type));
+        } else {
+            constant(target.getVariable(), "plc/project/Environment$Variable");
+            expression(ast.getValue(), Environment.Type.ANY);
+            code.invoke(INVOKESTATIC, INTRINSICS, "set", "(Lplc/project/Environment$Variable;Ljava/lang/Object;)V");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.If ast) {
+        ClassFile.Label otherwise = new ClassFile.Label();
+        ClassFile.Label end = new ClassFile.Label();
+        expression(ast.getCondition(), Environment.Type.BOOLEAN);
+        code.jump(IFEQ, otherwise, -1);
+        block(ast.getThenStatements());
+        code.jump(GOTO, end, 0);
+        code.mark(otherwise);
+        block(ast.getElseStatements());
+        code.mark(end);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.For ast) {
+        ClassFile.Label start = new ClassFile.Label();
+        ClassFile.Label end = new ClassFile.Label();
+        int mark = code.getLocals();
+        expression(ast.getValue(), Environment.Type.INTEGER_ITERABLE);
+        code.invoke(INVOKEINTERFACE, "java/lang/Iterable", "iterator", "()Ljava/util/Iterator;");
+        int iterator = code.allocate("Ljava/util/Iterator;");
+        code.op1(ASTORE, iterator, -1);
+        layouts.add(new HashMap<>());
+        Environment.Type type = Analyzer.getElementType(ast.getValue().getType());
+        String descriptor = descriptor(type);
+        Local variable = new Local(code.allocate(descriptor), type);
+        layouts.get(layouts.size() - 1).put(ast.getName(), variable);
+        code.mark(start);
+        code.op1(ALOAD, iterator, 1);
+        code.invoke(INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z");
+        code.jump(IFEQ, end, -1);
+        code.op1(ALOAD, iterator, 1);
+        code.invoke(INVOKEINTERFACE, "java/util/Iterator", "next", "()Ljava/lang/Object;");
+        if (descriptor.equals("I")) {
+            code.invoke(INVOKESTATIC, INTRINSICS, "toInteger", "(Ljava/lang/Object;)I");
+        } else {
+            code.invoke(INVOKESTATIC, INTRINSICS, "toElement", "(Ljava/lang/Object;)Ljava/lang/Object;");
+            unbox(descriptor);
+        }
+        store(variable);
+        for (Ast.Stmt stmt : ast.getStatements()) {
+            visit(stmt);
+        }
+        code.jump(GOTO, start, 0);
+        code.mark(end);
+        layouts.remove(layouts.size() - 1);
+        code.release(mark);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.While ast) {
+        ClassFile.Label start = new ClassFile.Label();
+        ClassFile.Label end = new ClassFile.Label();
+        code.mark(start);
+        expression(ast.getCondition(), Environment.Type.BOOLEAN);
+        code.jump(IFEQ, end, -1);
+        block(ast.getStatements());
+        code.jump(GOTO, start, 0);
+        code.mark(end);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Return ast) {
+        Environment.Type type = function.getReturnType();
+        String descriptor = returnDescriptor(type);
+        if (descriptor.equals("V")) {
+            visit(ast.getValue());
+            pop(descriptor(ast.getValue().getType()));
+        } else {
+            expression(ast.getValue(), type);
+        }
+        code.op(returnOpcode(descriptor), -ClassFile.size(descriptor));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Literal ast) {
+        Object literal = ast.getLiteral();
+        if (literal == null) {
+            code.op(ACONST_NULL, 1);
+        } else if (literal instanceof Boolean) {
+            integer((Boolean) literal ? 1 : 0);
+        } else if (literal instanceof Character) {
+            integer((Character) literal);
+        } else if (literal instanceof BigInteger) {
+            integer(((BigInteger) literal).intValue());
+        } else if (literal instanceof BigDecimal) {
+            code.op2(LDC2_W, file.decimal(((BigDecimal) literal).doubleValue()), 2);
+        } else {
+            code.op2(LDC_W, file.string((String) literal), 1);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Group ast) {
+        return visit(ast.getExpression());
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Binary ast) {
+        Ast.Expr left = ast.getLeft();
+        Ast.Expr right = ast.getRight();
+        switch (ast.getOperator()) {
+            case "AND":
+            case "OR": {
+                boolean and = ast.getOperator().equals("AND");
+                ClassFile.Label shortCircuit = new ClassFile.Label();
+                ClassFile.Label end = new ClassFile.Label();
+                expression(left, Environment.Type.BOOLEAN);
+                code.jump(and ? IFEQ : IFNE, shortCircuit, -1);
+                expression(right, Environment.Type.BOOLEAN);
+                code.jump(and ? IFEQ : IFNE, shortCircuit, -1);
+                integer(and ? 1 : 0);
+                code.jump(GOTO, end, 0);
+                code.mark(shortCircuit);
+                integer(and ? 0 : 1);
+                code.mark(end);
+                return null;
+            }
+            case "<": return compare(left, right, IFLT);
+            case ">": return compare(left, right, IFGT);
+            case "<=": return compare(left, right, IFLE);
+            case ">=": return compare(left, right, IFGE);
+            case "==": return compare(left, right, IFEQ);
+            case "!=": return compare(left, right, IFNE);
+            case "+":
+                if (ast.getType() == Environment.Type.STRING) {
+                    code.op2(NEW, file.classRef("java/lang/StringBuilder"), 1);
+                    code.op(DUP, 1);
+                    code.invoke(INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "()V");
+                    append(left);
+                    append(right);
+                    code.invoke(INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;");
+                    return null;
+                }
+                return arithmetic(ast, IADD, DADD);
+            case "-": return arithmetic(ast, ISUB, DSUB);
+            case "*": return arithmetic(ast, IMUL, DMUL);
+            case "/": return arithmetic(ast, IDIV, DDIV);
+            default: throw new RuntimeException("Unsupported operator for Binary expression passed");
+        }
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Access ast) {
+        String name = ast.getName();
+        if (ast.getReceiver().isPresent()) {
+            Ast.Expr receiver = ast.getReceiver().get();
+            if (receiver.getType() == Environment.Type.STRING && name.equals("length")) {
+                visit(receiver);
+                code.invoke(INVOKEVIRTUAL, "java/lang/String", "length", "()I");
+                return null;
+            }
+            throw new RuntimeException("Field " + name + " is not supported by the JVM backend.");
+        }
+        Local local = resolve(name);
+        if (local != null) {
+            String descriptor = descriptor(local.type);
+            code.op1(loadOpcode(descriptor), local.slot, ClassFile.size(descriptor));
+        } else if (fields.containsKey(name)) {
+            code.field(GETSTATIC, NAME, name, descriptor(fields.get(name)));
+        } else {
+            constant(ast.getVariable(), "plc/project/Environment$Variable");
+            code.invoke(INVOKESTATIC, INTRINSICS, "get", "(Lplc/project/Environment$Variable;)Ljava/lang/Object;");
+            unbox(descriptor(ast.getType()));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Function ast) {
+        Environment.Function target = ast.getFunction();
+        List<Ast.Expr> arguments = ast.getArguments();
+        String returns = returnDescriptor(target.getReturnType());
+        if (ast.getReceiver().isPresent()) {
+            method(ast);
+        } else if (methods.contains(ast.getName() + "/" + arguments.size())) {
+            StringBuilder descriptor = new StringBuilder("(");
+            for (int i = 0; i < arguments.size(); i++) {
+                Environment.Type type = target.getParameterTypes().get(i);
+                expression(arguments.get(i), type);
+                descriptor.append(descriptor(type));
+            }
+            code.invoke(INVOKESTATIC, NAME, ast.getName(), descriptor.append(')').append(returns).toString());
+        } else if (target.getJvmName().equals("System.out.println") && arguments.size() == 1) {
+            code.field(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+            String descriptor = descriptor(arguments.get(0).getType());
+            if (descriptor.startsWith("L") && !descriptor.equals("Ljava/lang/String;")) {
+                descriptor = "Ljava/lang/Object;";
+            }
+            visit(arguments.get(0));
+            code.invoke(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(" + descriptor + ")V");
+            returns = "V";
+        } else {
+            constant(target, "plc/project/Environment$Function");
+            integer(arguments.size());
+            code.op2(ANEWARRAY, file.classRef(OBJECT), 0);
+            for (int i = 0; i < arguments.size(); i++) {
+                code.op(DUP, 1);
+                integer(i);
+                expression(arguments.get(i), Environment.Type.ANY);
+                code.op(AASTORE, -3);
+            }
+            code.invoke(INVOKESTATIC, INTRINSICS, "invoke", "(Lplc/project/Environment$Function;[Ljava/lang/Object;)Ljava/lang/Object;");
+            if (returns.equals("V")) {
+                code.op(POP, -1);
+            } else {
+                unbox(returns);
+            }
+        }
+        if (returns.equals("V")) {
+            code.op(ACONST_NULL, 1);
+        }
+        return null;
+    }
+
+    /**
+     * Compiles a call to one of the builtin methods on a receiver.
+     */
+    private void method(Ast.Expr.Function ast) {
+        Ast.Expr receiver = ast.getReceiver().get();
+        List<Ast.Expr> arguments = ast.getArguments();
+        if (ast.getName().equals("slice") && receiver.getType() == Environment.Type.STRING && arguments.size() == 2) {
+            visit(receiver);
+            expression(arguments.get(0), Environment.Type.INTEGER);
+            expression(arguments.get(1), Environment.Type.INTEGER);
+            code.invoke(INVOKEVIRTUAL, "java/lang/String", "substring", "(II)Ljava/lang/String;");
+        } else if (ast.getName().equals("compare") && arguments.size() == 1) {
+            expression(receiver, Environment.Type.ANY);
+            expression(arguments.get(0), Environment.Type.ANY);
+            code.invoke(INVOKESTATIC, INTRINSICS, "compare", "(Ljava/lang/Object;Ljava/lang/Object;)I");
+            box("I", descriptor(ast.getType()));
+        } else if (ast.getName().equals("stringify") && arguments.isEmpty()) {
+            expression(receiver, Environment.Type.ANY);
+            code.invoke(INVOKESTATIC, "java/lang/String", "valueOf", "(Ljava/lang/Object;)Ljava/lang/String;");
+        } else {
+            expression(receiver, Environment.Type.ANY);
+            code.op2(LDC_W, file.string(ast.getName()), 1);
+            integer(arguments.size());
+            code.op2(ANEWARRAY, file.classRef(OBJECT), 0);
+            for (int i = 0; i < arguments.size(); i++) {
+                code.op(DUP, 1);
+                integer(i);
+                expression(arguments.get(i), Environment.Type.ANY);
+                code.op(AASTORE, -3);
+            }
+            code.invoke(INVOKESTATIC, INTRINSICS, "call", "(Ljava/lang/Object;Ljava/lang/String;[Ljava/lang/Object;)Ljava/lang/Object;");
+            String returns = returnDescriptor(ast.getFunction().getReturnType());
+            if (returns.equals("V")) {
+                code.op(POP, -1);
+            } else {
+                unbox(returns);
+            }
+        }
+    }
+
+    private Void compare(Ast.Expr left, Ast.Expr right, int condition) {
+        String leftDescriptor = descriptor(left.getType());
+        String rightDescriptor = descriptor(right.getType());
+        boolean equality = condition == IFEQ || condition == IFNE;
+        if (leftDescriptor.equals(rightDescriptor) && (leftDescriptor.equals("I") || leftDescriptor.equals("C") || leftDescriptor.equals("Z"))) {
+            visit(left);
+            visit(right);
+            branch(condition + (IF_ICMPEQ - IFEQ), -2);
+        } else if (leftDescriptor.equals("D") && rightDescriptor.equals("D")) {
+            visit(left);
+            visit(right);
+            code.op(DCMPL, -3);
+            branch(condition, -1);
+        } else if (equality) {
+            expression(left, Environment.Type.ANY);
+            expression(right, Environment.Type.ANY);
+            code.invoke(INVOKESTATIC, "java/util/Objects", "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z");
+            branch(condition == IFEQ ? IFNE : IFEQ, -1);
+        } else {
+            expression(left, Environment.Type.ANY);
+            expression(right, Environment.Type.ANY);
+            code.invoke(INVOKESTATIC, INTRINSICS, "compare", "(Ljava/lang/Object;Ljava/lang/Object;)I");
+            branch(condition, -1);
+        }
+        return null;
+    }
+
+    /**
+     * Materializes the outcome of a conditional branch as a boolean.
+     */
+    private void branch(int opcode, int effect) {
+        ClassFile.Label success = new ClassFile.Label();
+        ClassFile.Label end = new ClassFile.Label();
+        code.jump(opcode, success, effect);
+        integer(0);
+        code.jump(GOTO, end, 0);
+        code.mark(success);
+        integer(1);
+        code.mark(end);
+    }
+
+    private Void arithmetic(Ast.Expr.Binary ast, int integer, int decimal) {
+        Environment.Type type = ast.getType();
+        expression(ast.getLeft(), type);
+        expression(ast.getRight(), type);
+        if (type == Environment.Type.DECIMAL) {
+            code.op(decimal, -2);
+        } else if (type == Environment.Type.INTEGER) {
+            code.op(integer, -1);
+        } else {
+            throw new RuntimeException("Arithmetic on " + type.getName() + " is not supported by the JVM backend.");
+        }
+        return null;
+    }
+
+    private void append(Ast.Expr value) {
+        String descriptor = descriptor(value.getType());
+        if (descriptor.startsWith("L") && !descriptor.equals("Ljava/lang/String;")) {
+            descriptor = "Ljava/lang/Object;";
+        }
+        visit(value);
+        code.invoke(INVOKEVIRTUAL, "java/lang/StringBuilder", "append", "(" + descriptor + ")Ljava/lang/StringBuilder;");
+    }
+
+    /**
+     * Compiles an expression and converts its value to the given type.
+     */
+    private void expression(Ast.Expr expression, Environment.Type type) {
+        visit(expression);
+        box(descriptor(expression.getType()), descriptor(type));
+    }
+
+    /**
+     * Converts the value on top of the stack between descriptors, boxing
+     * primitives for reference targets and unboxing for primitive ones.
+     */
+    private void box(String from, String to) {
+        if (from.equals(to)) {
+            return;
+        }
+        if (to.length() == 1) {
+            if (from.length() != 1) {
+                unbox(to);
+            }
+            return;
+        }
+        switch (from) {
+            case "I": code.invoke(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;"); break;
+            case "D": code.invoke(INVOKESTATIC, "java/lang/Double", "valueOf", "(D)Ljava/lang/Double;"); break;
+            case "Z": code.invoke(INVOKESTATIC, "java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;"); break;
+            case "C": code.invoke(INVOKESTATIC, "java/lang/Character", "valueOf", "(C)Ljava/lang/Character;"); break;
+            default:
+                if (!to.equals("Ljava/lang/Object;")) {
+                    code.op2(CHECKCAST, file.classRef(to.substring(1, to.length() - 1)), 0);
+                }
+        }
+    }
+
+    /**
+     * Converts the {@code Object} on top of the stack to the given descriptor.
+     */
+    private void unbox(String descriptor) {
+        switch (descriptor) {
+            case "I":
+                code.op2(CHECKCAST, file.classRef("java/lang/Integer"), 0);
+                code.invoke(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I");
+                break;
+            case "D":
+                code.op2(CHECKCAST, file.classRef("java/lang/Double"), 0);
+                code.invoke(INVOKEVIRTUAL, "java/lang/Double", "doubleValue", "()D");
+                break;
+            case "Z":
+                code.op2(CHECKCAST, file.classRef("java/lang/Boolean"), 0);
+                code.invoke(INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z");
+                break;
+            case "C":
+                code.op2(CHECKCAST, file.classRef("java/lang/Character"), 0);
+                code.invoke(INVOKEVIRTUAL, "java/lang/Character", "charValue", "()C");
+                break;
+            case "Ljava/lang/Object;":
+                break;
+            default:
+                code.op2(CHECKCAST, file.classRef(descriptor.substring(1, descriptor.length() - 1)), 0);
+        }
+    }
+
+    /**
+     * Pushes a runtime object, stored in the class's constant array.
+     */
+    private void constant(Object value, String type) {
+        code.field(GETSTATIC, NAME, CONSTANTS, "[Ljava/lang/Object;");
+        integer(constants.size());
+        code.op(AALOAD, -1);
+        code.op2(CHECKCAST, file.classRef(type), 0);
+        constants.add(value);
+    }
+
+    private void integer(int value) {
+        if (value >= -1 && value <= 5) {
+            code.op(ICONST_0 + value, 1);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.op1(BIPUSH, value, 1);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.op2(SIPUSH, value, 1);
+        } else {
+            code.op2(LDC_W, file.integer(value), 1);
+        }
+    }
+
+    private void defaultValue(String descriptor) {
+        switch (descriptor) {
+            case "D": code.op2(LDC2_W, file.decimal(0.0), 2); break;
+            case "I": case "Z": case "C": integer(0); break;
+            default: code.op(ACONST_NULL, 1);
+        }
+    }
+
+    private void store(Local local) {
+        String descriptor = descriptor(local.type);
+        code.op1(storeOpcode(descriptor), local.slot, -ClassFile.size(descriptor));
+    }
+
+    private void pop(String descriptor) {
+        code.op(ClassFile.size(descriptor) == 2 ? POP2 : POP, -ClassFile.size(descriptor));
+    }
+
+    private void block(List<Ast.Stmt> statements) {
+        int mark = code.getLocals();
+        layouts.add(new HashMap<>());
+        for (Ast.Stmt stmt : statements) {
+            visit(stmt);
+        }
+        layouts.remove(layouts.size() - 1);
+        code.release(mark);
+    }
+
+    private void begin() {
+        layouts.clear();
+        layouts.add(new HashMap<>());
+    }
+
+    private Local resolve(String name) {
+        for (int i = layouts.size() - 1; i >= 0; i--) {
+            Local local = layouts.get(i).get(name);
+            if (local != null) {
+                return local;
+            }
+        }
+        return null;
+    }
+
+    private static String descriptor(Environment.Type type) {
+        switch (type.getJvmName()) {
+            case "int": return "I";
+            case "double": return "D";
+            case "boolean": return "Z";
+            case "char": return "C";
+            case "String": return "Ljava/lang/String;";
+            case "Comparable": return "Ljava/lang/Comparable;";
+            case "Iterable<Integer>": return "Ljava/lang/Iterable;";
+            default: return "Ljava/lang/Object;";
+        }
+    }
+
+    private static String returnDescriptor(Environment.Type type) {
+        return type == Environment.Type.NIL ? "V" : descriptor(type);
+    }
+
+    private static int loadOpcode(String descriptor) {
+        return descriptor.equals("D") ? DLOAD : descriptor.length() == 1 ? ILOAD : ALOAD;
+    }
+
+    private static int storeOpcode(String descriptor) {
+        return descriptor.equals("D") ? DSTORE : descriptor.length() == 1 ? ISTORE : ASTORE;
+    }
+
+    private static int returnOpcode(String descriptor) {
+        return descriptor.equals("V") ? RETURN : descriptor.equals("D") ? DRETURN : descriptor.length() == 1 ? IRETURN : ARETURN;
+    }
+
+    /**
+     * Defines the class as a hidden class when supported, falling back to a
+     * dedicated class loader on older JVMs.
+     */
+    private static Class<?> define(byte[] bytes) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Class<?> option;
+        try {
+            option = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+        } catch (ClassNotFoundException e) {
+            return new ClassLoader(JvmCompiler.class.getClassLoader()) {
+                Class<?> define() {
+                    return defineClass(NAME.replace('/', '.'), bytes, 0, bytes.length);
+                }
+            }.define();
+        }
+        Method define = MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class, Array.newInstance(option, 0).getClass());
+        try {
+            MethodHandles.Lookup hidden = (MethodHandles.Lookup) define.invoke(lookup, bytes, true, Array.newInstance(option, 0));
+            return hidden.lookupClass();
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Unable to define the compiled class.", e.getCause());
+        }
+    }
+
+    private static final class Local {
+
+        private final int slot;
+        private final Environment.Type type;
+
+        private Local(int slot, Environment.Type type) {
+            this.slot = slot;
+            this.type = type;
+        }
+
+    }
+
+    /**
+     * A compiled and loaded source.
+     */
+    public static final class Program {
+
+        private final Class<?> type;
+        private final Method init;
+        private final Method main;
+        private final Environment.Type returnType;
+
+        private Program(Class<?> type, Method init, Method main, Environment.Type returnType) {
+            this.type = type;
+            this.init = init;
+            this.main = main;
+            this.returnType = returnType;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * Initializes the fields and invokes {@code main}, converting the
+         * result to the representation used by the {@link Interpreter}.
+         */
+        public Environment.PlcObject execute() {
+            try {
+                init.invoke(null);
+                Object result = main.invoke(null);
+                return returnType == Environment.Type.NIL ? Environment.NIL : Intrinsics.wrap(result);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+    }
+
+    /**
+     * Helpers called by compiled code, converting between JVM values and the
+     * {@link Environment.PlcObject}s used by builtins.
+     */
+    public static final class Intrinsics {
+
+        private Intrinsics() {}
+
+        public static Object get(Environment.Variable variable) {
+            return unwrap(variable.getValue());
+        }
+
+        public static void set(Environment.Variable variable, Object value) {
+            variable.setValue(wrap(value));
+        }
+
+        public static Object invoke(Environment.Function function, Object[] arguments) {
+            Environment.PlcObject[] values = new Environment.PlcObject[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                values[i] = wrap(arguments[i]);
+            }
+            return unwrap(function.invoke(values));
+        }
+
+        /**
+         * Calls the method of the given name on the receiver, dispatching
+         * through the type of the wrapped receiver.
+         */
+        public static Object call(Object receiver, String name, Object[] arguments) {
+            List<Environment.PlcObject> values = new ArrayList<>(arguments.length);
+            for (Object argument : arguments) {
+                values.add(wrap(argument));
+            }
+            return unwrap(wrap(receiver).callMethod(name, values));
+        }
+
+        public static int compare(Object left, Object right) {
+            return Interpreter.compare(Environment.create(left), Environment.create(right));
+        }
+
+        public static int toInteger(Object value) {
+            if (value instanceof Environment.PlcObject) {
+                value = ((Environment.PlcObject) value).getValue();
+            }
+            return ((Number) value).intValue();
+        }
+
+        /**
+         * Unwraps an element of a list, buffer or map visited by a loop.
+         */
+        public static Object toElement(Object value) {
+            return value instanceof Environment.PlcObject ? unwrap((Environment.PlcObject) value) : value;
+        }
+
+        public static Environment.PlcObject wrap(Object value) {
+            if (value instanceof Environment.PlcObject) {
+                return (Environment.PlcObject) value;
+            } else if (value instanceof Integer) {
+                return Environment.create(BigInteger.valueOf((Integer) value));
+            } else if (value instanceof Double) {
+                return Environment.create(new BigDecimal((Double) value));
+            }
+            return Environment.create(value);
+        }
+
+        public static Object unwrap(Environment.PlcObject object) {
+            Object value = object.getValue();
+            if (value instanceof BigInteger) {
+                return ((BigInteger) value).intValue();
+            } else if (value instanceof BigDecimal) {
+                return ((BigDecimal) value).doubleValue();
+            }
+            return object == Environment.NIL ? null : value;
+        }
+
+    }
+
+}
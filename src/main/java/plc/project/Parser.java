@@ -2,7 +2,9 @@ package plc.project;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -22,6 +24,13 @@ import java.util.Optional;
  */
 public final class Parser {
 
+    private static final int LOGICAL = 0;
+    private static final int EQUALITY = 1;
+    private static final int ADDITIVE = 2;
+    private static final int MULTIPLICATIVE = 3;
+    private static final int SECONDARY = 4;
+    private static final int PRIMARY = 5;
+
     private final TokenStream tokens;
 
     public Parser(List<Token> tokens) {
@@ -139,6 +148,9 @@ public final class Parser {
         if (match("FOR")) {
             return parseForStatement();
         }
+        if (match("PARALLEL", "FOR")) {
+            return parseForStatement(true);
+        }
         if (match("WHILE")) {
             return parseWhileStatement();
         }
@@ -223,6 +235,14 @@ public final class Parser {
      * {@code FOR}.
      */
     public Ast.Stmt.For parseForStatement() throws ParseException {
+        return parseForStatement(false);
+    }
+
+    /**
+     * Parses a for statement, which is a parallel one if it was started by
+     * {@code PARALLEL FOR}.
+     */
+    private Ast.Stmt.For parseForStatement(boolean parallel) throws ParseException {
         if (!tokens.has(0)) {
             throw new ParseException("parsing out of bound", tokens.index);
         }
@@ -246,7 +266,7 @@ public final class Parser {
             throw new ParseException("scope not ended by END", tokens.index);
         }
         tokens.advance();
-        return new Ast.Stmt.For(name, value, statements);
+        return new Ast.Stmt.For(name, value, statements, parallel);
 
     }
 
@@ -296,206 +316,219 @@ public final class Parser {
      * Parses the {@code expression} rule.
      */
     public Ast.Expr parseExpression() throws ParseException {
-        if(!tokens.has(0)) {
-            throw new ParseException("parsing out of bound", tokens.index);
-        }
-        return parseLogicalExpression();
+        return parse(LOGICAL);
     }
 
     /**
      * Parses the {@code logical-expression} rule.
      */
     public Ast.Expr parseLogicalExpression() throws ParseException {
-        if(!tokens.has(0)) {
-            throw new ParseException("parsing out of bound", tokens.index);
-        }
-        Ast.Expr equalExp = parseEqualityExpression();
-        if(peek("OR") || peek("AND")) {
-            String operator = tokens.get(0).getLiteral();
-            tokens.advance();
-            Ast.Expr operandExp = parseAdditiveExpression();
-            return new Ast.Expr.Binary(operator, equalExp, operandExp);
-        }
-        return equalExp;
+        return parse(LOGICAL);
     }
 
-
     /**
      * Parses the {@code equality-expression} rule.
      */
     public Ast.Expr parseEqualityExpression() throws ParseException {
-        if(!tokens.has(0)) {
-            throw new ParseException("parsing out of bound", tokens.index);
-        }
-        Ast.Expr additiveExp = parseAdditiveExpression();
-        if(peek(Token.Type.OPERATOR) && (peek("==") | peek("!=") | peek("<=") | peek(">="))) {
-            String operator = tokens.get(0).getLiteral();
-            tokens.advance();
-            Ast.Expr operandExp = parseAdditiveExpression();
-            return new Ast.Expr.Binary(operator, additiveExp, operandExp);
-        }
-        return additiveExp;
-
+        return parse(EQUALITY);
     }
 
     /**
      * Parses the {@code additive-expression} rule.
      */
     public Ast.Expr parseAdditiveExpression() throws ParseException {
-        if(!tokens.has(0)) {
-            throw new ParseException("parsing out of bound", tokens.index);
-        }
-        Ast.Expr multiExp = parseMultiplicativeExpression();
-        if(peek("+") || peek("-")) {
-            String operator = tokens.get(0).getLiteral();
-            tokens.advance();
-            Ast.Expr operandExp = parseMultiplicativeExpression();
-            return new Ast.Expr.Binary(operator,multiExp,operandExp);
-        }
-        return multiExp;
+        return parse(ADDITIVE);
     }
 
-
     /**
      * Parses the {@code multiplicative-expression} rule.
      */
     public Ast.Expr parseMultiplicativeExpression() throws ParseException {
-        if(!tokens.has(0)) {
-            throw new ParseException("parsing out of bound", tokens.index);
-        }
-        Ast.Expr secondaryExp = parseSecondaryExpression();
-        if(peek("*") || peek("/")) {
-            String operator = tokens.get(0).getLiteral();
-            tokens.advance();
-            Ast.Expr operandExp = parseSecondaryExpression();
-            return new Ast.Expr.Binary(operator,secondaryExp,operandExp);
-        }
-        return secondaryExp;
+        return parse(MULTIPLICATIVE);
     }
 
     /**
      * Parses the {@code secondary-expression} rule.
      */
     public Ast.Expr parseSecondaryExpression() throws ParseException {
-        if (!tokens.has(0)) {
-            throw new ParseException("parsing out of bound", tokens.index);
-        }
-        Ast.Expr primaryExp = parsePrimaryExpression();
-        if (!match(".")) {
-            return primaryExp;
-        }
-        if (!peek(Token.Type.IDENTIFIER)) {
-            throw new ParseException("unspecified field access", tokens.index);
-        }
-        String name = tokens.get(0).getLiteral();
-        tokens.advance();
-        if (!match("(")) {
-            return new Ast.Expr.Access(Optional.of(primaryExp), name);
-        }
-        List<Ast.Expr> arguments = new LinkedList<>();
-        if (!match(")")) {
-            arguments.add(parseExpression());
-            while (tokens.has(0) && !peek(")")) {
-                if (!match(",")) {
-                    throw new ParseException("arguments not seperated by comma", tokens.index);
-                }
-                if(!match(")")) {
-                    throw new ParseException("unclosed argument scope", tokens.index);
-                }
-                if (peek(")")) {
-                    throw new ParseException("comma is not followed by arguments", tokens.index);
-                }
-                arguments.add(parseExpression());
-            }
-            if (!tokens.has(0)) {
-                throw new ParseException("unclosed function call", tokens.index);
-            }
-            tokens.advance();
-        }
-
-        return new Ast.Expr.Function(Optional.of(primaryExp), name, arguments);
+        return parse(SECONDARY);
     }
 
     /**
      * Parses the {@code primary-expression} rule. This is the top-level rule
      * for expressions and includes literal values, grouping, variables, and
-     * functions. It may be helpful to break these up into other methods but is
-     * not strictly necessary.
+     * functions.
      */
     public Ast.Expr parsePrimaryExpression() throws ParseException {
-        if(tokens.has(0)) {
-            String tokenLiteral = tokens.get(0).getLiteral();
-            if (
-                    match("TRUE") |
-                            match("FALSE")
-            ) {
-                return new Ast.Expr.Literal(new Boolean(tokenLiteral));
-            }
-            if(match("NIL")) {
-                return null;
-            }
-            if (match(Token.Type.INTEGER)) {
-                return new Ast.Expr.Literal(new BigInteger(tokenLiteral));
-            }
-            if (match(Token.Type.DECIMAL)) {
-                return new Ast.Expr.Literal(new BigDecimal(tokenLiteral));
-            }
-            if (match(Token.Type.CHARACTER)) {
-                tokenLiteral = tokenLiteral.replaceAll("\'", "");
-                return new Ast.Expr.Literal(tokenLiteral.charAt(0));
-            }
-            if (match(Token.Type.STRING)) {
-                tokenLiteral = tokenLiteral.replaceAll("\"","");
-                tokenLiteral = tokenLiteral.replaceAll("\\\\b", "\b");
-                tokenLiteral = tokenLiteral.replaceAll("\\\\n", "\n");
-                tokenLiteral = tokenLiteral.replaceAll("\\\\r", "\r");
-                tokenLiteral = tokenLiteral.replaceAll("\\\\t", "\t");
-                return new Ast.Expr.Literal(tokenLiteral);
-            }
-            if (peek(Token.Type.IDENTIFIER)) {
-                String name = tokenLiteral;
-                if (match(Token.Type.IDENTIFIER, "(")) {
-                    List<Ast.Expr> arguments = new LinkedList<>();
-                    if(!match(")")) {
-                        arguments.add(parseExpression());
-                        while (tokens.has(0) && !peek(")")) {
-                            if(!match(",")){
-                                throw new ParseException("arguments not seperated by comma", tokens.index);
-                            }
-                            if(!tokens.has(0)) {
-                                throw new ParseException("unclosed argument scope", tokens.index);
-                            }
-                            if(peek(")")){
-                                throw new ParseException("comma is not followed by arguments", tokens.index);
-                            }
-                            arguments.add(parseExpression());
-                        }
-                        if(!tokens.has(0)) {
-                            throw new ParseException("not closed function call", tokens.index);
-                        }
-                        tokens.advance();
+        return parse(PRIMARY);
+    }
+
+    /**
+     * Parses an expression whose top-level operators belong to the given rule
+     * or bind more tightly; parsing stops before any other operator.
+     *
+     * Unlike the statement rules, expressions are not parsed by recursive
+     * descent. Binary operators are combined by precedence on an explicit
+     * operator stack, and each open group or argument list is pushed as a
+     * {@link Nesting} holding the operator stack depth at which it started.
+     * The nesting depth of an expression is therefore limited by the heap
+     * rather than the Java stack.
+     */
+    private Ast.Expr parse(int rule) throws ParseException {
+        Deque<Ast.Expr> operands = new ArrayDeque<>();
+        Deque<String> operators = new ArrayDeque<>();
+        Deque<Nesting> nestings = new ArrayDeque<>();
+        boolean operand = true;
+        while(true) {
+            if(operand) {
+                if(match("(")) {
+                    nestings.push(new Nesting(null, null, operators.size()));
+                    continue;
+                }
+                if(peek(Token.Type.IDENTIFIER, "(") && !peek("TRUE") && !peek("FALSE") && !peek("NIL")) {
+                    String name = tokens.get(0).getLiteral();
+                    match(Token.Type.IDENTIFIER, "(");
+                    Nesting call = new Nesting(Optional.empty(), name, operators.size());
+                    if(match(")")) {
+                        operands.push(call.function());
+                    }else {
+                        nestings.push(call);
+                        continue;
                     }
-                    return new Ast.Expr.Function(Optional.empty(), name, arguments);
                 }else {
-                    tokens.advance();
-                    return new Ast.Expr.Access(Optional.empty(), name);
+                    operands.push(parseOperand());
                 }
-            }
-            if(match("(")) {
-                Ast.Expr expression = parseExpression();
-                if (!match(")")) {
-                    throw new ParseException("unclosed ()", tokens.index);
+                operand = false;
+            }else if(peek(".") && (rule < PRIMARY || !nestings.isEmpty())) {
+                tokens.advance();
+                if(!peek(Token.Type.IDENTIFIER)) {
+                    throw new ParseException("unspecified field access", tokens.index);
+                }
+                String name = tokens.get(0).getLiteral();
+                tokens.advance();
+                Ast.Expr receiver = operands.pop();
+                if(!match("(")) {
+                    operands.push(new Ast.Expr.Access(Optional.of(receiver), name));
+                    continue;
+                }
+                Nesting call = new Nesting(Optional.of(receiver), name, operators.size());
+                if(match(")")) {
+                    operands.push(call.function());
+                }else {
+                    nestings.push(call);
+                    operand = true;
+                }
+            }else if(precedence() >= (nestings.isEmpty() ? rule : LOGICAL)) {
+                String operator = tokens.get(0).getLiteral();
+                reduce(operands, operators, nestings.isEmpty() ? 0 : nestings.peek().base, precedence());
+                operators.push(operator);
+                tokens.advance();
+                operand = true;
+            }else {
+                reduce(operands, operators, nestings.isEmpty() ? 0 : nestings.peek().base, LOGICAL);
+                if(nestings.isEmpty()) {
+                    return operands.pop();
+                }
+                Nesting nesting = nestings.peek();
+                if(nesting.name == null) {
+                    if(!match(")")) {
+                        throw new ParseException("unclosed ()", tokens.index);
+                    }
+                    nestings.pop();
+                    operands.push(new Ast.Expr.Group(operands.pop()));
+                    continue;
+                }
+                nesting.arguments.add(operands.pop());
+                if(match(",")) {
+                    if(peek(")")) {
+                        throw new ParseException("comma is not followed by arguments", tokens.index);
+                    }
+                    operand = true;
+                }else if(match(")")) {
+                    nestings.pop();
+                    operands.push(nesting.function());
+                }else if(!tokens.has(0)) {
+                    throw new ParseException("unclosed function call", tokens.index);
+                }else {
+                    throw new ParseException("arguments not seperated by comma", tokens.index);
                 }
-                return new Ast.Expr.Group(expression);
             }
+        }
+    }
 
+    /**
+     * Combines the operators above the given stack depth that bind at least
+     * as tightly as the given precedence with their operands.
+     */
+    private static void reduce(Deque<Ast.Expr> operands, Deque<String> operators, int base, int precedence) {
+        while(operators.size() > base && precedence(operators.peek()) >= precedence) {
+            Ast.Expr right = operands.pop();
+            Ast.Expr left = operands.pop();
+            operands.push(new Ast.Expr.Binary(operators.pop(), left, right));
         }
-        if(tokens.has(0)) {
-            throw new ParseException(tokens.get(0).getLiteral() + "not matching type for Prime expr", tokens.index);
+    }
+
+    /**
+     * Returns the precedence of the binary operator at the current token, or
+     * -1 if there is none.
+     */
+    private int precedence() {
+        return tokens.has(0) ? precedence(tokens.get(0).getLiteral()) : -1;
+    }
+
+    private static int precedence(String operator) {
+        switch(operator) {
+            case "AND": case "OR":
+                return LOGICAL;
+            case "<": case "<=": case ">": case ">=": case "==": case "!=":
+                return EQUALITY;
+            case "+": case "-":
+                return ADDITIVE;
+            case "*": case "/":
+                return MULTIPLICATIVE;
+            default:
+                return -1;
         }
-        throw new ParseException("parsing out of bound ", tokens.index);
     }
 
+    /**
+     * Parses a literal or variable, the primary expressions without nested
+     * expressions.
+     */
+    private Ast.Expr parseOperand() throws ParseException {
+        if(!tokens.has(0)) {
+            throw new ParseException("parsing out of bound ", tokens.index);
+        }
+        String tokenLiteral = tokens.get(0).getLiteral();
+        if(match("TRUE") || match("FALSE")) {
+            return new Ast.Expr.Literal(Boolean.valueOf(tokenLiteral));
+        }
+        if(match("NIL")) {
+            return new Ast.Expr.Literal(null);
+        }
+        if(match(Token.Type.INTEGER)) {
+            return new Ast.Expr.Literal(new BigInteger(tokenLiteral));
+        }
+        if(match(Token.Type.DECIMAL)) {
+            return new Ast.Expr.Literal(new BigDecimal(tokenLiteral));
+        }
+        if(match(Token.Type.CHARACTER)) {
+            tokenLiteral = tokenLiteral.replaceAll("\'", "");
+            return new Ast.Expr.Literal(tokenLiteral.charAt(0));
+        }
+        if(match(Token.Type.STRING)) {
+            tokenLiteral = tokenLiteral.replaceAll("\"","");
+            tokenLiteral = tokenLiteral.replaceAll("\\\\b", "\b");
+            tokenLiteral = tokenLiteral.replaceAll("\\\\n", "\n");
+            tokenLiteral = tokenLiteral.replaceAll("\\\\r", "\r");
+            tokenLiteral = tokenLiteral.replaceAll("\\\\t", "\t");
+            return new Ast.Expr.Literal(tokenLiteral);
+        }
+        if(match(Token.Type.IDENTIFIER)) {
+            return new Ast.Expr.Access(Optional.empty(), tokenLiteral);
+        }
+        throw new ParseException(tokenLiteral + "not matching type for Prime expr", tokens.index);
+    }
 
     /**
      * As in the lexer, returns {@code true} if the current sequence of tokens
@@ -541,6 +574,29 @@ public final class Parser {
     }
 
 
+    /**
+     * An open group, when {@code name} is null, or an open argument list of
+     * a function call.
+     */
+    private static final class Nesting {
+
+        private final Optional<Ast.Expr> receiver;
+        private final String name;
+        private final int base;
+        private final List<Ast.Expr> arguments = new ArrayList<>();
+
+        private Nesting(Optional<Ast.Expr> receiver, String name, int base) {
+            this.receiver = receiver;
+            this.name = name;
+            this.base = base;
+        }
+
+        private Ast.Expr.Function function() {
+            return new Ast.Expr.Function(receiver, name, arguments);
+        }
+
+    }
+
     private static final class TokenStream {
 
         private final List<Token> tokens;
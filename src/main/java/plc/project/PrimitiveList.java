@@ -0,0 +1,140 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A growable list of primitive values: an {@link IntList},
+ * {@link DecimalList} or {@link BooleanList}. Values are stored unboxed and
+ * only wrapped in a {@link Environment.PlcObject} when the interpreter reads
+ * them.
+ *
+ * Each list type is registered with the methods {@code get(index)},
+ * {@code set(index, value)}, {@code append(value)}, {@code length()} and
+ * {@code slice(from, to)}, and is constructed by the builtin function of
+ * the same name (see {@link #define(Scope)}). The methods have the same
+ * names in Java, so generated code calls the list classes directly. Loops
+ * visit the elements present when they start, by index.
+ */
+public abstract class PrimitiveList implements Iterable<Environment.PlcObject>, Indexed {
+
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    int length = 0;
+
+    PrimitiveList() {}
+
+    @Override
+    public final int length() {
+        return length;
+    }
+
+    public abstract Environment.Type getType();
+
+    /**
+     * Returns the element at the given index, wrapped for the interpreter.
+     */
+    @Override
+    public abstract Environment.PlcObject element(int index);
+
+    abstract void setElement(int index, Environment.PlcObject value);
+
+    abstract void appendElement(Environment.PlcObject value);
+
+    public abstract PrimitiveList slice(int from, int to);
+
+    /**
+     * Returns a view of the elements as wrapped by {@link #element(int)}.
+     */
+    public final List<Environment.PlcObject> asList() {
+        return Indexed.view(this);
+    }
+
+    @Override
+    public final Iterator<Environment.PlcObject> iterator() {
+        int end = length;
+        return new Iterator<Environment.PlcObject>() {
+
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < end;
+            }
+
+            @Override
+            public Environment.PlcObject next() {
+                if (index >= end) {
+                    throw new NoSuchElementException();
+                }
+                return element(index++);
+            }
+
+        };
+    }
+
+    final void check(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for a list of " + length + ".");
+        }
+    }
+
+    final void check(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Slice " + from + " to " + to + " is out of bounds for a list of " + length + ".");
+        }
+    }
+
+    /**
+     * Returns the capacity to grow a full array of the given capacity to.
+     */
+    static int grow(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new RuntimeException("A list cannot hold more than " + MAX_CAPACITY + " elements.");
+        }
+        return (int) Math.min(MAX_CAPACITY, Math.max(8, capacity * 2L));
+    }
+
+    /**
+     * Defines the builtin constructors {@code IntList()},
+     * {@code DecimalList()} and {@code BooleanList()}.
+     */
+    static void define(Scope scope) {
+        scope.defineFunction("IntList", "new plc.project.IntList", Arrays.asList(), Environment.Type.INT_LIST, args -> Environment.create(new IntList()));
+        scope.defineFunction("DecimalList", "new plc.project.DecimalList", Arrays.asList(), Environment.Type.DECIMAL_LIST, args -> Environment.create(new DecimalList()));
+        scope.defineFunction("BooleanList", "new plc.project.BooleanList", Arrays.asList(), Environment.Type.BOOLEAN_LIST, args -> Environment.create(new BooleanList()));
+    }
+
+    /**
+     * Defines the methods of a list type whose elements have the given type.
+     */
+    static void defineMethods(Environment.Type type, Environment.Type element) {
+        Environment.Type any = Environment.Type.ANY;
+        Environment.Type integer = Environment.Type.INTEGER;
+        type.defineMethod("get", "get", Arrays.asList(any, integer), element, (receiver, args) -> {
+            return list(receiver).element(Indexed.index(args.get(0)));
+        });
+        type.defineMethod("set", "set", Arrays.asList(any, integer, element), Environment.Type.NIL, (receiver, args) -> {
+            list(receiver).setElement(Indexed.index(args.get(0)), args.get(1));
+            return Environment.NIL;
+        });
+        type.defineMethod("append", "append", Arrays.asList(any, element), Environment.Type.NIL, (receiver, args) -> {
+            list(receiver).appendElement(args.get(0));
+            return Environment.NIL;
+        });
+        type.defineMethod("length", "length", Arrays.asList(any), integer, (receiver, args) -> {
+            return Environment.create(BigInteger.valueOf(list(receiver).length()));
+        });
+        type.defineMethod("slice", "slice", Arrays.asList(any, integer, integer), type, (receiver, args) -> {
+            return Environment.create(list(receiver).slice(Indexed.index(args.get(0)), Indexed.index(args.get(1))));
+        });
+    }
+
+    private static PrimitiveList list(Environment.PlcObject receiver) {
+        return Interpreter.requireType(PrimitiveList.class, receiver);
+    }
+
+}
@@ -0,0 +1,91 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * The integers from {@code start} (inclusive) to {@code end} (exclusive) in
+ * increments of {@code step}, which is negative for a reverse range. The
+ * elements are computed on demand, so a range takes constant space; the
+ * {@link Interpreter} iterates it with an {@code int} counter and the
+ * {@link Generator} lowers a loop over it to a counted {@code for} loop.
+ */
+public final class Range extends AbstractList<Environment.PlcObject> implements RandomAccess {
+
+    private final int start;
+    private final int end;
+    private final int step;
+    private final int size;
+
+    public Range(int start, int end, int step) {
+        if (step == 0) {
+            throw new RuntimeException("The step of a range cannot be zero.");
+        }
+        long span = step > 0 ? (long) end - start : (long) start - end;
+        long stride = Math.abs((long) step);
+        long size = span <= 0 ? 0 : (span + stride - 1) / stride;
+        if (size > Integer.MAX_VALUE) {
+            throw new RuntimeException("The range from " + start + " to " + end + " has too many elements.");
+        }
+        this.start = start;
+        this.end = end;
+        this.step = step;
+        this.size = (int) size;
+    }
+
+    /**
+     * Creates a range from the integer arguments of the builtin
+     * {@code range(start, end)} or {@code range(start, end, step)}.
+     */
+    public static Range of(Environment.PlcObject... arguments) {
+        int[] bounds = new int[3];
+        bounds[2] = 1;
+        for (int i = 0; i < arguments.length; i++) {
+            Object value = arguments[i].getValue();
+            if (!Indexed.isIndex(value)) {
+                throw new RuntimeException("Expected an Integer argument to range, received " + value + ".");
+            }
+            bounds[i] = ((BigInteger) value).intValue();
+        }
+        return new Range(bounds[0], bounds[1], bounds[2]);
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the element at the given index without wrapping it.
+     */
+    public int at(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for a range of " + size + ".");
+        }
+        return start + index * step;
+    }
+
+    @Override
+    public Environment.PlcObject get(int index) {
+        return Environment.create(BigInteger.valueOf(at(index)));
+    }
+
+    @Override
+    public String toString() {
+        return "range(" + start + ", " + end + ", " + step + ")";
+    }
+
+}
@@ -1,19 +1,31 @@
 package plc.project;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Variables and functions are stored in {@link SymbolTable}s keyed by their
+ * interned {@link Symbols symbol} (and arity, for functions). The methods
+ * taking a symbol look names up without hashing strings or allocating;
+ * those taking a name intern it first.
+ */
 public final class Scope {
 
     private final Scope parent;
-    private final Map<String, Environment.Variable> variables = new HashMap<>();
-    private final Map<String, Environment.Function> functions = new HashMap<>();
+    private final Scope root;
+    private final SymbolTable<Environment.Variable> variables = new SymbolTable<>();
+    private final SymbolTable<Environment.Function> functions = new SymbolTable<>();
+    private volatile int functionVersion = 0;
+    private Set<Environment.Type> dependents = null;
 
     public Scope(Scope parent) {
         this.parent = parent;
+        this.root = parent == null ? this : parent.root;
     }
 
     public Scope getParent() {
@@ -24,24 +36,57 @@ public final class Scope {
         defineVariable(name, name, Environment.Type.ANY, value);
     }
 
+    public void defineVariable(int symbol, Environment.PlcObject value) {
+        String name = Symbols.getName(symbol);
+        defineVariable(symbol, new Environment.Variable(name, name, Environment.Type.ANY, value));
+    }
+
+    /**
+     * Defines a variable shared by concurrent executions (see
+     * {@link Environment.Variable}).
+     */
+    public Environment.Variable defineSharedVariable(int symbol, Environment.PlcObject value) {
+        String name = Symbols.getName(symbol);
+        return defineVariable(symbol, new Environment.Variable(name, name, Environment.Type.ANY, value, true));
+    }
+
     public Environment.Variable defineVariable(String name, String jvmName, Environment.Type type, Environment.PlcObject value) {
-        if (variables.containsKey(name)) {
-            throw new RuntimeException("The variable " + name + " is already defined in this scope.");
+        return defineVariable(Symbols.intern(name), new Environment.Variable(name, jvmName, type, value));
+    }
+
+    private Environment.Variable defineVariable(int symbol, Environment.Variable variable) {
+        if (variables.get(symbol, 0) != null) {
+            throw new RuntimeException("The variable " + variable.getName() + " is already defined in this scope.");
         } else {
-            Environment.Variable variable = new Environment.Variable(name, jvmName, type, value);
-            variables.put(variable.getName(), variable);
-            return variables.get(name);
+            variables.put(symbol, 0, variable);
+            return variable;
         }
     }
 
     public Environment.Variable lookupVariable(String name) {
-        if (variables.containsKey(name)) {
-            return variables.get(name);
-        } else if (parent != null) {
-            return parent.lookupVariable(name);
-        } else {
-            throw new RuntimeException("The variable " + name + " is not defined in this scope.");
+        return lookupVariable(Symbols.intern(name));
+    }
+
+    public Environment.Variable lookupVariable(int symbol) {
+        Environment.Variable variable = findVariable(symbol);
+        if (variable == null) {
+            throw new RuntimeException("The variable " + Symbols.getName(symbol) + " is not defined in this scope.");
+        }
+        return variable;
+    }
+
+    /**
+     * Returns the variable with the given symbol in this scope or its
+     * parents, or null if there is none.
+     */
+    Environment.Variable findVariable(int symbol) {
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            Environment.Variable variable = scope.variables.get(symbol, 0);
+            if (variable != null) {
+                return variable;
+            }
         }
+        return null;
     }
 
     public void defineFunction(String name, int arity, Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
@@ -52,32 +97,125 @@ public final class Scope {
         defineFunction(name, name, parameterTypes, Environment.Type.ANY, function);
     }
 
+    public Environment.Function defineFunction(String name, Environment.Arity0 function) {
+        return defineFunction(name, 0, Environment.Invoker.of(function));
+    }
+
+    public Environment.Function defineFunction(String name, Environment.Arity1 function) {
+        return defineFunction(name, 1, Environment.Invoker.of(function));
+    }
+
+    public Environment.Function defineFunction(String name, Environment.Arity2 function) {
+        return defineFunction(name, 2, Environment.Invoker.of(function));
+    }
+
+    public Environment.Function defineFunction(String name, Environment.Arity3 function) {
+        return defineFunction(name, 3, Environment.Invoker.of(function));
+    }
+
+    public Environment.Function defineFunction(String name, int arity, Environment.Invoker invoker) {
+        List<Environment.Type> parameterTypes = new ArrayList<>();
+        for (int i = 0; i < arity; i++) {
+            parameterTypes.add(Environment.Type.ANY);
+        }
+        return defineFunction(new Environment.Function(name, name, parameterTypes, Environment.Type.ANY, invoker));
+    }
+
     public Environment.Function defineFunction(String name, String jvmName, List<Environment.Type> parameterTypes, Environment.Type returnType, java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
-        if (functions.containsKey(name + "/" + parameterTypes.size())) {
-            throw new RuntimeException("The function " + name + "/" + parameterTypes.size() + " is already defined in this scope.");
+        return defineFunction(new Environment.Function(name, jvmName, parameterTypes, returnType, function));
+    }
+
+    public Environment.Function defineFunction(Environment.Function function) {
+        int symbol = Symbols.intern(function.getName());
+        int arity = function.getParameterTypes().size();
+        if (functions.get(symbol, arity) != null) {
+            throw new RuntimeException("The function " + function.getName() + "/" + arity + " is already defined in this scope.");
         } else {
-            Environment.Function func = new Environment.Function(name, jvmName, parameterTypes, returnType, function);
-            functions.put(func.getName() + "/" + func.getParameterTypes().size(), func);
-            return func;
+            functions.put(symbol, arity, function);
+            synchronized (root) {
+                root.functionVersion++;
+            }
+            List<Environment.Type> types;
+            synchronized (this) {
+                types = dependents != null ? new ArrayList<>(dependents) : Collections.emptyList();
+            }
+            for (Environment.Type type : types) {
+                type.invalidate();
+            }
+            return function;
         }
     }
 
+    /**
+     * Registers a type whose methods are flattened from this scope, so that
+     * its method table is invalidated when a function is defined here. Types
+     * are held weakly.
+     */
+    synchronized void addDependent(Environment.Type type) {
+        if (dependents == null) {
+            dependents = Collections.newSetFromMap(new WeakHashMap<>());
+        }
+        dependents.add(type);
+    }
+
+    /**
+     * Returns a version number that changes whenever a function is defined in
+     * any scope under the same root as this one, invalidating the function
+     * lookups cached for it. The counter is kept by the root, so reading it
+     * does not walk the chain; definitions under other roots leave it
+     * unchanged.
+     */
+    public int getFunctionVersion() {
+        return root.functionVersion;
+    }
+
     public Environment.Function lookupFunction(String name, int arity) {
-        if (functions.containsKey(name + "/" + arity)) {
-            return functions.get(name + "/" + arity);
-        } else if (parent != null) {
-            return parent.lookupFunction(name, arity);
-        } else {
-            throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
+        return lookupFunction(Symbols.intern(name), arity);
+    }
+
+    public Environment.Function lookupFunction(int symbol, int arity) {
+        Environment.Function function = findFunction(symbol, arity);
+        if (function == null) {
+            throw new RuntimeException("The function " + Symbols.getName(symbol) + "/" + arity + " is not defined in this scope.");
+        }
+        return function;
+    }
+
+    /**
+     * Returns the function with the given symbol and arity in this scope or
+     * its parents, or null if there is none.
+     */
+    Environment.Function findFunction(int symbol, int arity) {
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            Environment.Function function = scope.functions.get(symbol, arity);
+            if (function != null) {
+                return function;
+            }
         }
+        return null;
+    }
+
+    /**
+     * Returns the variables defined in this scope itself, in definition
+     * order.
+     */
+    List<Environment.Variable> getVariables() {
+        return variables.values();
+    }
+
+    /**
+     * Returns the functions defined in this scope itself.
+     */
+    List<Environment.Function> getFunctions() {
+        return functions.values();
     }
 
     @Override
     public String toString() {
         return "Scope{" +
                 "parent=" + parent +
-                ", variables=" + variables.keySet() +
-                ", functions=" + functions.keySet() +
+                ", variables=" + variables.values().stream().map(Environment.Variable::getName).collect(Collectors.toList()) +
+                ", functions=" + functions.values().stream().map(function -> function.getName() + "/" + function.getParameterTypes().size()).collect(Collectors.toList()) +
                 '}';
     }
 
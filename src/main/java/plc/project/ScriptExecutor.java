@@ -0,0 +1,359 @@
+package plc.project;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An embeddable service executing sources with the {@link Interpreter}, for
+ * handling requests with scripts.
+ *
+ * At most {@code concurrency} executions run at once and at most
+ * {@code capacity} more wait in a queue; further submissions are rejected
+ * immediately with a {@link RejectedExecutionException}. Queued executions
+ * do not hold a thread. Each source is loaded once into a shared
+ * {@link Interpreter.Program}, and the contexts of finished executions are
+ * pooled and reused by later ones.
+ *
+ * Executions run on virtual threads when the JVM provides them (Java 21 and
+ * later) and on daemon platform threads otherwise. Each execution runs under
+ * a {@link Budget} which yields its thread at every slice, so long executions
+ * take turns with short ones. An execution may be given a timeout: if it has
+ * not finished by then its future fails with a {@link TimeoutException}, a
+ * queued execution is skipped and a running one is cancelled at its next
+ * safepoint (and interrupted, in case it is blocked in a builtin).
+ */
+public final class ScriptExecutor implements AutoCloseable {
+
+    private static final ScheduledExecutorService DEADLINES = deadlines();
+
+    private final Scope parent;
+    private final int concurrency;
+    private final int capacity;
+    private final ExecutorService threads = threads();
+    private final Map<Ast.Source, Loaded> programs = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final long start = System.nanoTime();
+
+    public ScriptExecutor(Scope parent, int concurrency, int capacity) {
+        if (concurrency < 1 || capacity < 0) {
+            throw new IllegalArgumentException("Invalid concurrency " + concurrency + " or capacity " + capacity + ".");
+        }
+        this.parent = parent;
+        this.concurrency = concurrency;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Submits the given source for execution without a timeout.
+     */
+    public CompletableFuture<Environment.PlcObject> submit(Ast.Source ast) {
+        return submit(ast, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Submits the given source for execution, failing it if it has not
+     * finished within the given timeout (if positive) of its submission.
+     */
+    public CompletableFuture<Environment.PlcObject> submit(Ast.Source ast, long timeout, TimeUnit unit) {
+        return submit(ast, new Budget(Budget.DEFAULT_QUANTUM, 0, 0, unit, true), timeout, unit);
+    }
+
+    /**
+     * Submits the given source for execution under the given budget, which
+     * the caller may cancel. An exhausted budget fails the execution with a
+     * {@link Budget.ExhaustedException}.
+     */
+    public CompletableFuture<Environment.PlcObject> submit(Ast.Source ast, Budget budget) {
+        return submit(ast, budget, 0, TimeUnit.NANOSECONDS);
+    }
+
+    private CompletableFuture<Environment.PlcObject> submit(Ast.Source ast, Budget budget, long timeout, TimeUnit unit) {
+        CompletableFuture<Environment.PlcObject> future = new CompletableFuture<>();
+        if (pending.incrementAndGet() > concurrency + capacity) {
+            pending.decrementAndGet();
+            rejected.increment();
+            future.completeExceptionally(new RejectedExecutionException("The executor is at capacity."));
+            return future;
+        }
+        Loaded program;
+        try {
+            program = programs.computeIfAbsent(ast, source -> new Loaded(Interpreter.load(parent, source)));
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            failed.increment();
+            future.completeExceptionally(e);
+            return future;
+        }
+        Task task = new Task(program, budget, future);
+        if (timeout > 0) {
+            task.deadline = DEADLINES.schedule(task::expire, timeout, unit);
+        }
+        queue.add(task);
+        drain();
+        return future;
+    }
+
+    /**
+     * Starts queued executions while fewer than {@code concurrency} run.
+     */
+    private void drain() {
+        while (!queue.isEmpty()) {
+            int current = running.get();
+            if (current >= concurrency) {
+                return;
+            } else if (running.compareAndSet(current, current + 1)) {
+                Task task = queue.poll();
+                if (task == null) {
+                    running.decrementAndGet();
+                } else {
+                    try {
+                        threads.execute(task);
+                    } catch (RejectedExecutionException e) {
+                        running.decrementAndGet();
+                        pending.decrementAndGet();
+                        task.reject(e);
+                    }
+                }
+            }
+        }
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(this);
+    }
+
+    /**
+     * Stops starting executions: running executions finish and queued ones
+     * are rejected.
+     */
+    @Override
+    public void close() {
+        threads.shutdown();
+    }
+
+    private final class Task implements Runnable {
+
+        private final Loaded program;
+        private final Budget budget;
+        private final CompletableFuture<Environment.PlcObject> future;
+        private final long submitted = System.nanoTime();
+        private ScheduledFuture<?> deadline = null;
+        private Thread thread = null;
+        private boolean done = false;
+
+        private Task(Loaded program, Budget budget, CompletableFuture<Environment.PlcObject> future) {
+            this.program = program;
+            this.budget = budget;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            try {
+                synchronized (this) {
+                    if (done) {
+                        return;
+                    }
+                    thread = Thread.currentThread();
+                }
+                Interpreter context = program.contexts.poll();
+                if (context == null) {
+                    context = program.program.newContext();
+                }
+                try {
+                    context.setBudget(budget);
+                    Environment.PlcObject result = program.program.execute(context);
+                    if (claim()) {
+                        completed.increment();
+                        latencies.record(System.nanoTime() - submitted);
+                        future.complete(result);
+                    }
+                } catch (RuntimeException e) {
+                    if (claim()) {
+                        failed.increment();
+                        future.completeExceptionally(e);
+                    }
+                } finally {
+                    context.setBudget(null);
+                    program.contexts.add(context);
+                }
+            } finally {
+                synchronized (this) {
+                    thread = null;
+                    Thread.interrupted();
+                }
+                if (deadline != null) {
+                    deadline.cancel(false);
+                }
+                running.decrementAndGet();
+                pending.decrementAndGet();
+                drain();
+            }
+        }
+
+        /**
+         * Claims the right to complete the future, which belongs to either
+         * the execution or its deadline, whichever comes first. Counters are
+         * updated before the future completes, so they include every
+         * execution a caller has observed.
+         */
+        private synchronized boolean claim() {
+            if (done) {
+                return false;
+            }
+            done = true;
+            return true;
+        }
+
+        /**
+         * Fails a queued execution which the closed executor will not run.
+         */
+        private void reject(RejectedExecutionException e) {
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            if (claim()) {
+                rejected.increment();
+                future.completeExceptionally(e);
+            }
+        }
+
+        private void expire() {
+            if (claim()) {
+                timedOut.increment();
+                future.completeExceptionally(new TimeoutException("The execution did not finish before its deadline."));
+                budget.cancel();
+                synchronized (this) {
+                    if (thread != null) {
+                        thread.interrupt();
+                    }
+                }
+            }
+        }
+
+    }
+
+    /**
+     * A loaded program and its pooled contexts, which are kept together so
+     * they are released with the source. The contexts refer to the program
+     * but neither refers to the source.
+     */
+    private static final class Loaded {
+
+        private final Interpreter.Program program;
+        private final Queue<Interpreter> contexts = new ConcurrentLinkedQueue<>();
+
+        private Loaded(Interpreter.Program program) {
+            this.program = program;
+        }
+
+    }
+
+    /**
+     * The counters of an executor since its creation, as of the snapshot,
+     * and the latencies of its completed executions, as of each call.
+     * Latencies are measured from submission to completion, so they include
+     * time spent queued.
+     */
+    public static final class Statistics {
+
+        private final long completed;
+        private final long failed;
+        private final long rejected;
+        private final long timedOut;
+        private final double seconds;
+        private final LatencyHistogram latencies;
+
+        private Statistics(ScriptExecutor executor) {
+            this.completed = executor.completed.sum();
+            this.failed = executor.failed.sum();
+            this.rejected = executor.rejected.sum();
+            this.timedOut = executor.timedOut.sum();
+            this.seconds = (System.nanoTime() - executor.start) / 1e9;
+            this.latencies = executor.latencies;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * Returns the completed executions per second.
+         */
+        public double getThroughput() {
+            return completed / seconds;
+        }
+
+        /**
+         * Returns the given percentile (between 0 and 100) of the latencies
+         * of completed executions, in nanoseconds.
+         */
+        public long getLatency(double percentile) {
+            return latencies.getPercentile(percentile);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d completed, %d failed, %d rejected, %d timed out, %.1f/s, p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms",
+                    completed, failed, rejected, timedOut, getThroughput(),
+                    getLatency(50) / 1e6, getLatency(99) / 1e6, getLatency(99.9) / 1e6);
+        }
+
+    }
+
+    private static ExecutorService threads() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "plc-script");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static ScheduledExecutorService deadlines() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "plc-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+}
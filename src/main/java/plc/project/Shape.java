@@ -0,0 +1,61 @@
+package plc.project;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The layout of an object's fields, mapping each field name to the slot
+ * holding it in {@link Environment.PlcObject}.
+ *
+ * Shapes form a tree rooted at {@link #EMPTY}: adding a field follows (or
+ * creates) a transition to the child shape with that field appended, so
+ * objects whose fields were defined in the same order share a shape and a
+ * slot can be cached per shape (see {@link ShapeCache}). Shapes are
+ * immutable apart from their transition table, which is thread-safe.
+ */
+public final class Shape {
+
+    public static final Shape EMPTY = new Shape(new HashMap<>());
+
+    private final Map<String, Integer> slots;
+    private final Map<String, Shape> transitions = new ConcurrentHashMap<>();
+
+    private Shape(Map<String, Integer> slots) {
+        this.slots = slots;
+    }
+
+    /**
+     * Returns the slot of the given field, or -1 if this shape has none.
+     */
+    public int getSlot(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Returns the shape with the given field added in the next slot.
+     */
+    public Shape with(String name) {
+        if (slots.containsKey(name)) {
+            throw new IllegalArgumentException("The field " + name + " is already part of this shape.");
+        }
+        return transitions.computeIfAbsent(name, key -> {
+            Map<String, Integer> next = new HashMap<>(slots);
+            next.put(key, slots.size());
+            return new Shape(next);
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "Shape{" +
+                "slots=" + slots +
+                '}';
+    }
+
+}
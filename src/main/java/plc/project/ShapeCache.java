@@ -0,0 +1,79 @@
+package plc.project;
+
+import java.util.Arrays;
+
+/**
+ * A polymorphic cache attached to a single field access, remembering the
+ * slot of the field for up to {@link #LIMIT} receiver {@link Shape}s.
+ *
+ * Once more shapes than that have been seen the site is megamorphic: it
+ * stops caching and every access resolves the slot through the receiver's
+ * shape. Entries are immutable and replaced as a whole, like those of
+ * {@link InlineCache}; the counters are not synchronized.
+ */
+public final class ShapeCache {
+
+    public static final int LIMIT = 4;
+
+    private Entry entry = new Entry(new Shape[0], new int[0]);
+    private boolean megamorphic = false;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Returns the cached slot for the given shape, else -1. Either outcome is
+     * counted.
+     */
+    public int get(Shape shape) {
+        Entry current = entry;
+        for (int i = 0; i < current.shapes.length; i++) {
+            if (current.shapes[i] == shape) {
+                hits++;
+                return current.slots[i];
+            }
+        }
+        misses++;
+        return -1;
+    }
+
+    public void set(Shape shape, int slot) {
+        Entry current = entry;
+        if (megamorphic || Arrays.asList(current.shapes).contains(shape)) {
+            return;
+        } else if (current.shapes.length == LIMIT) {
+            megamorphic = true;
+            entry = new Entry(new Shape[0], new int[0]);
+            return;
+        }
+        Shape[] shapes = Arrays.copyOf(current.shapes, current.shapes.length + 1);
+        int[] slots = Arrays.copyOf(current.slots, current.slots.length + 1);
+        shapes[current.shapes.length] = shape;
+        slots[current.slots.length] = slot;
+        entry = new Entry(shapes, slots);
+    }
+
+    public boolean isMegamorphic() {
+        return megamorphic;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    private static final class Entry {
+
+        private final Shape[] shapes;
+        private final int[] slots;
+
+        private Entry(Shape[] shapes, int[] slots) {
+            this.shapes = shapes;
+            this.slots = slots;
+        }
+
+    }
+
+}
@@ -0,0 +1,142 @@
+package plc.project;
+
+/**
+ * A map from {@code String} keys, the {@code StringMap} type of the
+ * language. Keys are compared by identity before their contents, so a key
+ * which is the same string as the one stored (such as a literal, or an
+ * interned string) matches without comparing characters; strings cache
+ * their hashes.
+ */
+public final class StringMap extends HashTable {
+
+    private String[] keys;
+
+    public StringMap() {
+        this(false);
+    }
+
+    public StringMap(boolean ordered) {
+        super(ordered);
+    }
+
+    @Override
+    void allocate(int capacity) {
+        super.allocate(capacity);
+        keys = new String[capacity];
+    }
+
+    /**
+     * Returns the value of the given key, or null if it has none.
+     */
+    public Object get(String key) {
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : null;
+    }
+
+    public void put(String key, Object value) {
+        int slot = find(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        int capacity = growth();
+        if (capacity != 0) {
+            int[] slots = slots();
+            String[] keys = this.keys;
+            Object[] values = this.values;
+            allocate(capacity);
+            for (int previous : slots) {
+                insert(keys[previous], values[previous]);
+            }
+        }
+        insert(key, value);
+    }
+
+    public boolean contains(String key) {
+        return find(key) >= 0;
+    }
+
+    public boolean remove(String key) {
+        int hole = find(key);
+        if (hole < 0) {
+            return false;
+        }
+        vacate(hole);
+        keys[hole] = null;
+        for (int next = (hole + 1) & mask; full[next]; next = (next + 1) & mask) {
+            if (isShiftable(start(keys[next].hashCode()), hole, next)) {
+                keys[hole] = keys[next];
+                keys[next] = null;
+                move(next, hole);
+                hole = next;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the keys in iteration order.
+     */
+    public String[] keys() {
+        int[] slots = slots();
+        String[] keys = new String[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            keys[i] = this.keys[slots[i]];
+        }
+        return keys;
+    }
+
+    private int find(String key) {
+        for (int slot = start(key.hashCode()); full[slot]; slot = (slot + 1) & mask) {
+            String candidate = keys[slot];
+            if (candidate == key || candidate.equals(key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(String key, Object value) {
+        int slot = start(key.hashCode());
+        while (full[slot]) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        occupy(slot, value);
+    }
+
+    @Override
+    public Environment.Type getType() {
+        return Environment.Type.STRING_MAP;
+    }
+
+    @Override
+    Object lookup(Environment.PlcObject key) {
+        return get(key(key));
+    }
+
+    @Override
+    void store(Environment.PlcObject key, Environment.PlcObject value) {
+        put(key(key), value);
+    }
+
+    @Override
+    boolean has(Environment.PlcObject key) {
+        return contains(key(key));
+    }
+
+    @Override
+    boolean delete(Environment.PlcObject key) {
+        return remove(key(key));
+    }
+
+    @Override
+    Keys keyList() {
+        return new Keys(keys());
+    }
+
+    private static String key(Environment.PlcObject key) {
+        return Interpreter.requireType(String.class, key);
+    }
+
+}
@@ -0,0 +1,125 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An open-addressing hash table keyed by a {@link Symbols symbol} and an
+ * arity, with linear probing. Keys are stored in primitive arrays, so
+ * lookups neither hash strings nor allocate. Entries cannot be removed,
+ * matching how scopes are used. Most scopes hold few names and many hold
+ * none, so the arrays are only allocated by the first {@link #put}.
+ */
+public final class SymbolTable<V> {
+
+    private static final int[] NO_KEYS = new int[0];
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private int[] symbols = NO_KEYS;
+    private int[] arities = NO_KEYS;
+    private Object[] values = NO_VALUES;
+    private Object[] order = NO_VALUES;
+    private int size = 0;
+
+    /**
+     * Returns the value stored for the given key, or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int symbol, int arity) {
+        if (size == 0) {
+            return null;
+        }
+        int mask = values.length - 1;
+        for (int i = hash(symbol, arity) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (symbols[i] == symbol && arities[i] == arity) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores the given value, replacing any value with the same key.
+     */
+    public void put(int symbol, int arity, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Symbol tables cannot store null.");
+        }
+        if (2 * (size + 1) > values.length) {
+            resize();
+        }
+        int mask = values.length - 1;
+        int i = hash(symbol, arity) & mask;
+        while (values[i] != null) {
+            if (symbols[i] == symbol && arities[i] == arity) {
+                for (int j = 0; j < size; j++) {
+                    if (order[j] == values[i]) {
+                        order[j] = value;
+                        break;
+                    }
+                }
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        symbols[i] = symbol;
+        arities[i] = arity;
+        values[i] = value;
+        order[size++] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the stored values in the order their keys were first put.
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add((V) order[i]);
+        }
+        return list;
+    }
+
+    private void resize() {
+        int[] oldSymbols = symbols;
+        int[] oldArities = arities;
+        Object[] oldValues = values;
+        int capacity = Math.max(4, oldValues.length * 2);
+        symbols = new int[capacity];
+        arities = new int[capacity];
+        values = new Object[capacity];
+        order = Arrays.copyOf(order, capacity / 2);
+        int mask = values.length - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] != null) {
+                int i = hash(oldSymbols[j], oldArities[j]) & mask;
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                symbols[i] = oldSymbols[j];
+                arities[i] = oldArities[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int hash(int symbol, int arity) {
+        int h = symbol * 31 + arity;
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "SymbolTable{" +
+                "values=" + Arrays.toString(values().toArray()) +
+                '}';
+    }
+
+}
@@ -0,0 +1,47 @@
+package plc.project;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The global interner of identifiers. Each distinct name is assigned a
+ * small, dense {@code int} id once, so symbol tables can compare and hash
+ * ids instead of strings. The AST interns its identifiers when it is built
+ * by the {@link Parser}.
+ *
+ * Interning a new name is synchronized; interning a known name and reading
+ * names back are lock-free.
+ */
+public final class Symbols {
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int count = 0;
+
+    private Symbols() {}
+
+    public static int intern(String name) {
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (IDS) {
+            id = IDS.get(name);
+            if (id != null) {
+                return id;
+            }
+            if (count == names.length) {
+                names = Arrays.copyOf(names, count * 2);
+            }
+            names[count] = name;
+            IDS.put(name, count);
+            return count++;
+        }
+    }
+
+    public static String getName(int symbol) {
+        return names[symbol];
+    }
+
+}
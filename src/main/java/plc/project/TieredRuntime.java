@@ -0,0 +1,201 @@
+package plc.project;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executes sources with two tiers: every method starts in the
+ * {@link Interpreter}, which starts quickly, and methods that become hot are
+ * compiled in the background by the {@link ClosureCompiler}, which runs
+ * faster.
+ *
+ * Each method is bound to an {@link Environment.Function} whose
+ * implementation is its {@link Profile}. The profile counts invocations and
+ * loop back-edges, queues the method for compilation once their sum reaches
+ * the threshold and redirects calls made after the compiled code is
+ * published. Activations already running finish in the tier they started in;
+ * both tiers share the interpreter's fields and function bindings, so they
+ * can call each other freely.
+ */
+public final class TieredRuntime {
+
+    public static final int DEFAULT_THRESHOLD = 1_000;
+
+    private static final ExecutorService COMPILER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "plc-compiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Scope parent;
+    private final int threshold;
+    private final Executor executor;
+
+    /**
+     * Creates a runtime with the default threshold, compiling on a shared
+     * background thread.
+     */
+    public TieredRuntime(Scope parent) {
+        this(parent, DEFAULT_THRESHOLD, COMPILER);
+    }
+
+    /**
+     * Creates a runtime compiling methods on the given executor once their
+     * invocation and back-edge counts reach the threshold.
+     */
+    public TieredRuntime(Scope parent, int threshold, Executor executor) {
+        this.parent = parent;
+        this.threshold = threshold;
+        this.executor = executor;
+    }
+
+    /**
+     * Initializes the fields of the given source and binds its methods,
+     * returning a {@link Program} whose state and profiles persist across
+     * executions.
+     */
+    public Program load(Ast.Source ast) {
+        Interpreter interpreter = new Interpreter(parent);
+        for (Ast.Field field : ast.getFields()) {
+            interpreter.visit(field);
+        }
+        Scope scope = interpreter.getScope();
+        Map<String, Profile> profiles = new LinkedHashMap<>();
+        for (Ast.Method method : ast.getMethods()) {
+            Profile profile = new Profile(method, scope);
+            profile.interpreted = interpreter.method(method, profile);
+            scope.defineFunction(method.getName(), method.getParameters().size(), profile);
+            profiles.put(method.getName() + "/" + method.getParameters().size(), profile);
+        }
+        if (!profiles.containsKey("main/0")) {
+            throw new RuntimeException("No main function defined");
+        }
+        return new Program(scope.lookupFunction("main", 0), profiles);
+    }
+
+    /**
+     * Loads and executes the given source once.
+     */
+    public Environment.PlcObject execute(Ast.Source ast) {
+        return load(ast).execute();
+    }
+
+    public static final class Program {
+
+        private final Environment.Function main;
+        private final Map<String, Profile> profiles;
+
+        private Program(Environment.Function main, Map<String, Profile> profiles) {
+            this.main = main;
+            this.profiles = profiles;
+        }
+
+        /**
+         * Invokes {@code main}. Fields keep their values from previous
+         * executions.
+         */
+        public Environment.PlcObject execute() {
+            return main.invoke0();
+        }
+
+        /**
+         * Returns the profile of the method with the given name and arity.
+         */
+        public Profile getProfile(String name, int arity) {
+            Profile profile = profiles.get(name + "/" + arity);
+            if (profile == null) {
+                throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
+            }
+            return profile;
+        }
+
+    }
+
+    /**
+     * The counters and current implementation of a single method.
+     *
+     * The counters are only updated by the executing thread and are read
+     * without synchronization; they are heuristics, not exact statistics.
+     */
+    public final class Profile implements java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> {
+
+        private final Ast.Method method;
+        private final Scope scope;
+        private Environment.Invoker interpreted;
+        private volatile java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> compiled;
+        private volatile boolean failed = false;
+        private boolean queued = false;
+        private int invocations = 0;
+        private int backEdges = 0;
+
+        private Profile(Ast.Method method, Scope scope) {
+            this.method = method;
+            this.scope = scope;
+        }
+
+        @Override
+        public Environment.PlcObject apply(List<Environment.PlcObject> arguments) {
+            java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> target = compiled;
+            if (target != null) {
+                return target.apply(arguments);
+            }
+            if (++invocations + backEdges >= threshold) {
+                queue();
+            }
+            return interpreted.invoke(arguments);
+        }
+
+        /**
+         * Counts a loop back-edge taken by an interpreted activation.
+         */
+        void backEdge() {
+            if (invocations + ++backEdges >= threshold) {
+                queue();
+            }
+        }
+
+        private void queue() {
+            if (queued) {
+                return;
+            }
+            queued = true;
+            executor.execute(() -> {
+                try {
+                    compiled = new ClosureCompiler(scope).compile(method);
+                } catch (RuntimeException e) {
+                    failed = true;
+                }
+            });
+        }
+
+        public int getInvocations() {
+            return invocations;
+        }
+
+        public int getBackEdges() {
+            return backEdges;
+        }
+
+        /**
+         * Returns whether calls are currently redirected to compiled code.
+         */
+        public boolean isCompiled() {
+            return compiled != null;
+        }
+
+        /**
+         * Returns whether compilation was attempted and rejected the method,
+         * which then stays interpreted (e.g. a variable that is not defined
+         * on a path the interpreter never takes).
+         */
+        public boolean isFailed() {
+            return failed;
+        }
+
+    }
+
+}
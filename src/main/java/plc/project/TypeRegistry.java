@@ -0,0 +1,72 @@
+package plc.project;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable mapping from type names to {@link Environment.Type}s.
+ *
+ * Registering a type returns a new registry and leaves the receiver
+ * unchanged, so a registry can be read from any thread without locks. The
+ * global registry (see {@link Environment#getRegistry()}) is replaced
+ * atomically on each registration; a compilation takes an
+ * {@link #overlay()} of it, which sees the global types as of that moment
+ * and keeps the types it registers to itself.
+ */
+public final class TypeRegistry {
+
+    public static final TypeRegistry EMPTY = new TypeRegistry(null, Collections.emptyMap());
+
+    private final TypeRegistry parent;
+    private final Map<String, Environment.Type> types;
+
+    private TypeRegistry(TypeRegistry parent, Map<String, Environment.Type> types) {
+        this.parent = parent;
+        this.types = types;
+    }
+
+    /**
+     * Returns the type with the given name, searching this registry before
+     * the one it overlays.
+     */
+    public Environment.Type getType(String name) {
+        for (TypeRegistry registry = this; registry != null; registry = registry.parent) {
+            Environment.Type type = registry.types.get(name);
+            if (type != null) {
+                return type;
+            }
+        }
+        throw new RuntimeException("Unknown type " + name + ".");
+    }
+
+    public boolean contains(String name) {
+        for (TypeRegistry registry = this; registry != null; registry = registry.parent) {
+            if (registry.types.containsKey(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a registry with the given type added. Types cannot shadow a
+     * type of the same name, including one in an overlaid registry.
+     */
+    public TypeRegistry with(Environment.Type type) {
+        if (contains(type.getName())) {
+            throw new IllegalArgumentException("Duplicate registration of type " + type.getName() + ".");
+        }
+        Map<String, Environment.Type> copy = new HashMap<>(types);
+        copy.put(type.getName(), type);
+        return new TypeRegistry(parent, Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * Returns an empty registry layered over this one.
+     */
+    public TypeRegistry overlay() {
+        return new TypeRegistry(this, Collections.emptyMap());
+    }
+
+}
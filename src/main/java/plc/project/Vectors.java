@@ -0,0 +1,618 @@
+package plc.project;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bulk arithmetic over the numeric lists and buffers ({@link IntList},
+ * {@link DecimalList}, {@link IntBuffer} and {@link DecimalBuffer}), so a
+ * script can process a whole array in one call instead of evaluating a
+ * binary expression per element.
+ *
+ * Each type is registered with the methods {@code add(other)} and
+ * {@code mul(other)}, which return a new value of the same type holding the
+ * element-wise result, {@code sum()}, {@code min()}, {@code max()} and
+ * {@code dot(other)}, which return an element, and {@code less(other)},
+ * which returns a {@link BooleanList} mask of whether each element is less
+ * than the other's. Operands must have the same length. The methods have
+ * the same names in Java, so generated code calls them directly.
+ *
+ * The kernels below are plain counted loops over arrays, which the JIT
+ * compiles to SIMD instructions; buffers are processed a block at a time
+ * through on-heap arrays. When the JVM runs with the incubating module
+ * {@code jdk.incubator.vector}, every kernel uses its vectors of the
+ * preferred width instead, leaving only the elements past the last whole
+ * vector to the loops (see {@link #isVectorized()}); the module is looked
+ * up reflectively, so nothing depends on it otherwise. Integer results
+ * wrap around like the {@code +} and {@code *} operators of every engine,
+ * so a bulk sum agrees with a loop adding the elements. Decimal sums and
+ * dot products are accumulated in independent lanes, so the result may
+ * differ from a sequential sum in the last bits.
+ */
+final class Vectors {
+
+    /**
+     * The number of elements of a buffer processed at a time.
+     */
+    static final int BLOCK = 4096;
+
+    private Vectors() {}
+
+    /**
+     * Returns whether the kernels use the Vector API.
+     */
+    static boolean isVectorized() {
+        return Incubator.ENABLED;
+    }
+
+    static void add(int[] left, int[] right, int[] result, int count) {
+        int i = Incubator.ENABLED ? Incubator.Ints.add(left, right, result, count) : 0;
+        for (; i < count; i++) {
+            result[i] = left[i] + right[i];
+        }
+    }
+
+    static void add(double[] left, double[] right, double[] result, int count) {
+        int i = Incubator.ENABLED ? Incubator.Doubles.add(left, right, result, count) : 0;
+        for (; i < count; i++) {
+            result[i] = left[i] + right[i];
+        }
+    }
+
+    static void mul(int[] left, int[] right, int[] result, int count) {
+        int i = Incubator.ENABLED ? Incubator.Ints.mul(left, right, result, count) : 0;
+        for (; i < count; i++) {
+            result[i] = left[i] * right[i];
+        }
+    }
+
+    static void mul(double[] left, double[] right, double[] result, int count) {
+        int i = Incubator.ENABLED ? Incubator.Doubles.mul(left, right, result, count) : 0;
+        for (; i < count; i++) {
+            result[i] = left[i] * right[i];
+        }
+    }
+
+    static int sum(int[] values, int count) {
+        if (Incubator.ENABLED) {
+            return Incubator.Ints.dot(values, null, count);
+        }
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    static double sum(double[] values, int count) {
+        if (Incubator.ENABLED) {
+            return Incubator.Doubles.dot(values, null, count);
+        }
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < count; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < count; i++) {
+            s0 += values[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static int min(int[] values, int count, int min) {
+        if (Incubator.ENABLED) {
+            return Incubator.Ints.min(values, count, min);
+        }
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    static double min(double[] values, int count, double min) {
+        if (Incubator.ENABLED) {
+            return Incubator.Doubles.min(values, count, min);
+        }
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    static int max(int[] values, int count, int max) {
+        if (Incubator.ENABLED) {
+            return Incubator.Ints.max(values, count, max);
+        }
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    static double max(double[] values, int count, double max) {
+        if (Incubator.ENABLED) {
+            return Incubator.Doubles.max(values, count, max);
+        }
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    static int dot(int[] left, int[] right, int count) {
+        if (Incubator.ENABLED) {
+            return Incubator.Ints.dot(left, right, count);
+        }
+        int dot = 0;
+        for (int i = 0; i < count; i++) {
+            dot += left[i] * right[i];
+        }
+        return dot;
+    }
+
+    static double dot(double[] left, double[] right, int count) {
+        if (Incubator.ENABLED) {
+            return Incubator.Doubles.dot(left, right, count);
+        }
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < count; i += 4) {
+            s0 += left[i] * right[i];
+            s1 += left[i + 1] * right[i + 1];
+            s2 += left[i + 2] * right[i + 2];
+            s3 += left[i + 3] * right[i + 3];
+        }
+        for (; i < count; i++) {
+            s0 += left[i] * right[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static void less(int[] left, int[] right, boolean[] result, int at, int count) {
+        int i = Incubator.ENABLED ? Incubator.Ints.less(left, right, result, at, count) : 0;
+        for (; i < count; i++) {
+            result[at + i] = left[i] < right[i];
+        }
+    }
+
+    static void less(double[] left, double[] right, boolean[] result, int at, int count) {
+        int i = Incubator.ENABLED ? Incubator.Doubles.less(left, right, result, at, count) : 0;
+        for (; i < count; i++) {
+            result[at + i] = left[i] < right[i];
+        }
+    }
+
+    /**
+     * Returns the length shared by two operands.
+     */
+    static int length(int length, int other) {
+        if (length != other) {
+            throw new RuntimeException("Expected operands of the same length, received " + length + " and " + other + ".");
+        }
+        return length;
+    }
+
+    /**
+     * Checks that a value to take the minimum or maximum of is not empty.
+     */
+    static void require(int length, String operation) {
+        if (length == 0) {
+            throw new RuntimeException("Cannot take the " + operation + " of an empty value.");
+        }
+    }
+
+    /**
+     * Defines the bulk methods of the numeric list and buffer types, each
+     * bound to the methods of its own class.
+     */
+    static void defineMethods() {
+        define(Environment.Type.INT_LIST, IntList.class, IntList::add, IntList::mul, IntList::less);
+        integers(Environment.Type.INT_LIST, IntList.class, IntList::sum, IntList::min, IntList::max, IntList::dot);
+        define(Environment.Type.DECIMAL_LIST, DecimalList.class, DecimalList::add, DecimalList::mul, DecimalList::less);
+        decimals(Environment.Type.DECIMAL_LIST, DecimalList.class, DecimalList::sum, DecimalList::min, DecimalList::max, DecimalList::dot);
+        define(Environment.Type.INT_BUFFER, IntBuffer.class, IntBuffer::add, IntBuffer::mul, IntBuffer::less);
+        integers(Environment.Type.INT_BUFFER, IntBuffer.class, IntBuffer::sum, IntBuffer::min, IntBuffer::max, IntBuffer::dot);
+        define(Environment.Type.DECIMAL_BUFFER, DecimalBuffer.class, DecimalBuffer::add, DecimalBuffer::mul, DecimalBuffer::less);
+        decimals(Environment.Type.DECIMAL_BUFFER, DecimalBuffer.class, DecimalBuffer::sum, DecimalBuffer::min, DecimalBuffer::max, DecimalBuffer::dot);
+    }
+
+    private static <T> void define(Environment.Type type, Class<T> kind, BinaryOperator<T> add, BinaryOperator<T> mul, BiFunction<T, T, BooleanList> less) {
+        Environment.Type any = Environment.Type.ANY;
+        type.defineMethod("add", "add", Arrays.asList(any, type), type, (receiver, args) -> {
+            return Environment.create(add.apply(kind.cast(receiver.getValue()), Interpreter.requireType(kind, args.get(0))));
+        });
+        type.defineMethod("mul", "mul", Arrays.asList(any, type), type, (receiver, args) -> {
+            return Environment.create(mul.apply(kind.cast(receiver.getValue()), Interpreter.requireType(kind, args.get(0))));
+        });
+        type.defineMethod("less", "less", Arrays.asList(any, type), Environment.Type.BOOLEAN_LIST, (receiver, args) -> {
+            return Environment.create(less.apply(kind.cast(receiver.getValue()), Interpreter.requireType(kind, args.get(0))));
+        });
+    }
+
+    private static <T> void integers(Environment.Type type, Class<T> kind, ToIntFunction<T> sum, ToIntFunction<T> min, ToIntFunction<T> max, ToIntBiFunction<T, T> dot) {
+        Environment.Type any = Environment.Type.ANY;
+        Environment.Type integer = Environment.Type.INTEGER;
+        type.defineMethod("sum", "sum", Arrays.asList(any), integer, (receiver, args) -> {
+            return integer(sum.applyAsInt(kind.cast(receiver.getValue())));
+        });
+        type.defineMethod("min", "min", Arrays.asList(any), integer, (receiver, args) -> {
+            return integer(min.applyAsInt(kind.cast(receiver.getValue())));
+        });
+        type.defineMethod("max", "max", Arrays.asList(any), integer, (receiver, args) -> {
+            return integer(max.applyAsInt(kind.cast(receiver.getValue())));
+        });
+        type.defineMethod("dot", "dot", Arrays.asList(any, type), integer, (receiver, args) -> {
+            return integer(dot.applyAsInt(kind.cast(receiver.getValue()), Interpreter.requireType(kind, args.get(0))));
+        });
+    }
+
+    private static <T> void decimals(Environment.Type type, Class<T> kind, ToDoubleFunction<T> sum, ToDoubleFunction<T> min, ToDoubleFunction<T> max, ToDoubleBiFunction<T, T> dot) {
+        Environment.Type any = Environment.Type.ANY;
+        Environment.Type decimal = Environment.Type.DECIMAL;
+        type.defineMethod("sum", "sum", Arrays.asList(any), decimal, (receiver, args) -> {
+            return decimal(sum.applyAsDouble(kind.cast(receiver.getValue())));
+        });
+        type.defineMethod("min", "min", Arrays.asList(any), decimal, (receiver, args) -> {
+            return decimal(min.applyAsDouble(kind.cast(receiver.getValue())));
+        });
+        type.defineMethod("max", "max", Arrays.asList(any), decimal, (receiver, args) -> {
+            return decimal(max.applyAsDouble(kind.cast(receiver.getValue())));
+        });
+        type.defineMethod("dot", "dot", Arrays.asList(any, type), decimal, (receiver, args) -> {
+            return decimal(dot.applyAsDouble(kind.cast(receiver.getValue()), Interpreter.requireType(kind, args.get(0))));
+        });
+    }
+
+    private static Environment.PlcObject integer(int value) {
+        return Environment.create(BigInteger.valueOf(value));
+    }
+
+    private static Environment.PlcObject decimal(double value) {
+        return Environment.create(BigDecimal.valueOf(value));
+    }
+
+    /**
+     * The kernels over the {@code IntVector}s and {@code DoubleVector}s of
+     * the incubating Vector API, called through method handles held in
+     * constants so the JIT inlines them. Each kernel processes the whole
+     * vectors of its operands and returns the index of the first element
+     * left to the scalar loop, or reduces all of them. Disabled when the
+     * module is not in the boot layer.
+     */
+    private static final class Incubator {
+
+        private static final Object ADDITION = operator("ADD");
+        private static final Object MINIMUM = operator("MIN");
+        private static final Object MAXIMUM = operator("MAX");
+        private static final Object LESS = operator("LT");
+        private static final MethodHandle MASK_INTO_ARRAY = maskIntoArray();
+        private static final boolean ENABLED = MASK_INTO_ARRAY != null && Ints.SPECIES != null && Doubles.SPECIES != null;
+
+        private Incubator() {}
+
+        /**
+         * Returns the operator of {@code VectorOperators} with the given
+         * name, or null.
+         */
+        private static Object operator(String name) {
+            try {
+                return Class.forName("jdk.incubator.vector.VectorOperators").getField(name).get(null);
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                return null;
+            }
+        }
+
+        private static MethodHandle maskIntoArray() {
+            try {
+                Class<?> mask = Class.forName("jdk.incubator.vector.VectorMask");
+                return MethodHandles.publicLookup().findVirtual(mask, "intoArray", MethodType.methodType(void.class, boolean[].class, int.class))
+                        .asType(MethodType.methodType(void.class, Object.class, boolean[].class, int.class));
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                return null;
+            }
+        }
+
+        /**
+         * Looks up the preferred species of the vector class with the given
+         * name followed by its methods {@code broadcast}, {@code fromArray},
+         * {@code intoArray}, {@code add}, {@code mul}, {@code min},
+         * {@code max}, {@code reduceLanes} and {@code compare}, with vectors,
+         * species and operators typed as {@code Object}, and the number of
+         * lanes of the species. Returns an array of nulls if the module is
+         * not available.
+         */
+        private static Object[] find(String name, Class<?> array, Class<?> element) {
+            Object[] found = new Object[11];
+            try {
+                Class<?> vector = Class.forName(name);
+                Class<?> any = Class.forName("jdk.incubator.vector.Vector");
+                Class<?> shape = Class.forName("jdk.incubator.vector.VectorSpecies");
+                Class<?> associative = Class.forName("jdk.incubator.vector.VectorOperators$Associative");
+                Class<?> comparison = Class.forName("jdk.incubator.vector.VectorOperators$Comparison");
+                Class<?> mask = Class.forName("jdk.incubator.vector.VectorMask");
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                MethodType binary = MethodType.methodType(Object.class, Object.class, Object.class);
+                found[1] = lookup.findStatic(vector, "broadcast", MethodType.methodType(vector, shape, element))
+                        .asType(MethodType.methodType(Object.class, Object.class, element));
+                found[2] = lookup.findStatic(vector, "fromArray", MethodType.methodType(vector, shape, array, int.class))
+                        .asType(MethodType.methodType(Object.class, Object.class, array, int.class));
+                found[3] = lookup.findVirtual(vector, "intoArray", MethodType.methodType(void.class, array, int.class))
+                        .asType(MethodType.methodType(void.class, Object.class, array, int.class));
+                found[4] = lookup.findVirtual(vector, "add", MethodType.methodType(vector, any)).asType(binary);
+                found[5] = lookup.findVirtual(vector, "mul", MethodType.methodType(vector, any)).asType(binary);
+                found[6] = lookup.findVirtual(vector, "min", MethodType.methodType(vector, any)).asType(binary);
+                found[7] = lookup.findVirtual(vector, "max", MethodType.methodType(vector, any)).asType(binary);
+                found[8] = lookup.findVirtual(vector, "reduceLanes", MethodType.methodType(element, associative))
+                        .asType(MethodType.methodType(element, Object.class, Object.class));
+                found[9] = lookup.findVirtual(vector, "compare", MethodType.methodType(mask, comparison, any))
+                        .asType(MethodType.methodType(Object.class, Object.class, Object.class, Object.class));
+                Object species = vector.getField("SPECIES_PREFERRED").get(null);
+                found[10] = shape.getMethod("length").invoke(species);
+                found[0] = species;
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                Arrays.fill(found, null);
+            }
+            return found;
+        }
+
+        private static RuntimeException failure(Throwable e) {
+            if (e instanceof RuntimeException) {
+                return (RuntimeException) e;
+            } else if (e instanceof Error) {
+                throw (Error) e;
+            }
+            return new RuntimeException(e);
+        }
+
+        private static final class Ints {
+
+            private static final Object[] FOUND = find("jdk.incubator.vector.IntVector", int[].class, int.class);
+            private static final Object SPECIES = FOUND[0];
+            private static final int LANES = SPECIES != null ? (Integer) FOUND[10] : 0;
+            private static final MethodHandle BROADCAST = (MethodHandle) FOUND[1];
+            private static final MethodHandle FROM_ARRAY = (MethodHandle) FOUND[2];
+            private static final MethodHandle INTO_ARRAY = (MethodHandle) FOUND[3];
+            private static final MethodHandle ADD = (MethodHandle) FOUND[4];
+            private static final MethodHandle MUL = (MethodHandle) FOUND[5];
+            private static final MethodHandle MIN = (MethodHandle) FOUND[6];
+            private static final MethodHandle MAX = (MethodHandle) FOUND[7];
+            private static final MethodHandle REDUCE = (MethodHandle) FOUND[8];
+            private static final MethodHandle COMPARE = (MethodHandle) FOUND[9];
+
+            private Ints() {}
+
+            static int add(int[] left, int[] right, int[] result, int count) {
+                int bound = count - count % LANES;
+                try {
+                    for (int i = 0; i < bound; i += LANES) {
+                        Object sum = (Object) ADD.invokeExact((Object) FROM_ARRAY.invokeExact(SPECIES, left, i), (Object) FROM_ARRAY.invokeExact(SPECIES, right, i));
+                        INTO_ARRAY.invokeExact(sum, result, i);
+                    }
+                } catch (Throwable e) {
+                    throw failure(e);
+                }
+                return bound;
+            }
+
+            static int mul(int[] left, int[] right, int[] result, int count) {
+                int bound = count - count % LANES;
+                try {
+                    for (int i = 0; i < bound; i += LANES) {
+                        Object product = (Object) MUL.invokeExact((Object) FROM_ARRAY.invokeExact(SPECIES, left, i), (Object) FROM_ARRAY.invokeExact(SPECIES, right, i));
+                        INTO_ARRAY.invokeExact(product, result, i);
+                    }
+                } catch (Throwable e) {
+                    throw failure(e);
+                }
+                return bound;
+            }
+
+            /**
+             * Returns the dot product of the operands, or the sum of the
+             * left operand if the right one is null, wrapping around.
+             */
+            static int dot(int[] left, int[] right, int count) {
+                int bound = count - count % LANES;
+                int result;
+                try {
+                    Object lanes = (Object) BROADCAST.invokeExact(SPECIES, 0);
+                    for (int i = 0; i < bound; i += LANES) {
+                        Object values = (Object) FROM_ARRAY.invokeExact(SPECIES, left, i);
+                        if (right != null) {
+                            values = (Object) MUL.invokeExact(values, (Object) FROM_ARRAY.invokeExact(SPECIES, right, i));
+                        }
+                        lanes = (Object) ADD.invokeExact(lanes, values);
+                    }
+                    result = (int) REDUCE.invokeExact(lanes, ADDITION);
+                } catch (Throwable e) {
+                    throw failure(e);
+                }
+                for (int i = bound; i < count; i++) {
+                    result += right != null ? left[i] * right[i] : left[i];
+                }
+                return result;
+            }
+
+            static int min(int[] values, int count, int min) {
+                int bound = count - count % LANES;
+                try {
+                    Object lanes = (Object) BROADCAST.invokeExact(SPECIES, min);
+                    for (int i = 0; i < bound; i += LANES) {
+                        lanes = (Object) MIN.invokeExact(lanes, (Object) FROM_ARRAY.invokeExact(SPECIES, values, i));
+                    }
+                    min = (int) REDUCE.invokeExact(lanes, MINIMUM);
+                } catch (Throwable e) {
+                    throw failure(e);
+                }
+                for (int i = bound; i < count; i++) {
+                    min = Math.min(min, values[i]);
+                }
+                return min;
+            }
+
+            static int max(int[] values, int count, int max) {
+                int bound = count - count % LANES;
+                try {
+                    Object lanes = (Object) BROADCAST.invokeExact(SPECIES, max);
+                    for (int i = 0; i < bound; i += LANES) {
+                        lanes = (Object) MAX.invokeExact(lanes, (Object) FROM_ARRAY.invokeExact(SPECIES, values, i));
+                    }
+                    max = (int) REDUCE.invokeExact(lanes, MAXIMUM);
+                } catch (Throwable e) {
+                    throw failure(e);
+                }
+                for (int i = bound; i < count; i++) {
+                    max = Math.max(max, values[i]);
+                }
+                return max;
+            }
+
+            static int less(int[] left, int[] right, boolean[] result, int at, int count) {
+                int bound = count - count % LANES;
+                try {
+                    for (int i = 0; i < bound; i += LANES) {
+                        Object mask = (Object) COMPARE.invokeExact((Object) FROM_ARRAY.invokeExact(SPECIES, left, i), LESS, (Object) FROM_ARRAY.invokeExact(SPECIES, right, i));
+                        MASK_INTO_ARRAY.invokeExact(mask, result, at + i);
+                    }
+                } catch (Throwable e) {
+                    throw failure(e);
+                }
+                return bound;
+            }
+
+        }
+
+        private static final class Doubles {
+
+            private static final Object[] FOUND = find("jdk.incubator.vector.DoubleVector", double[].class, double.class);
+            private static final Object SPECIES = FOUND[0];
+            private static final int LANES = SPECIES != null ? (Integer) FOUND[10] : 0;
+            private static final MethodHandle BROADCAST = (MethodHandle) FOUND[1];
+            private static final MethodHandle FROM_ARRAY = (MethodHandle) FOUND[2];
+            private static final MethodHandle INTO_ARRAY = (MethodHandle) FOUND[3];
+            private static final MethodHandle ADD = (MethodHandle) FOUND[4];
+            private static final MethodHandle MUL = (MethodHandle) FOUND[5];
+            private static final MethodHandle MIN = (MethodHandle) FOUND[6];
+            private static final MethodHandle MAX = (MethodHandle) FOUND[7];
+            private static final MethodHandle REDUCE = (MethodHandle) FOUND[8];
+            private static final MethodHandle COMPARE = (MethodHandle) FOUND[9];
+
+            private Doubles() {}
+
+            static int add(double[] left, double[] right, double[] result, int count) {
+                int bound = count - count % LANES;
+                try {
+                    for (int i = 0; i < bound; i += LANES) {
+                        Object sum = (Object) ADD.invokeExact((Object) FROM_ARRAY.invokeExact(SPECIES, left, i), (Object) FROM_ARRAY.invokeExact(SPECIES, right, i));
+                        INTO_ARRAY.invokeExact(sum, result, i);
+                    }
+                } catch (Throwable e) {
+                    throw failure(e);
+                }
+                return bound;
+            }
+
+            static int mul(double[] left, double[] right, double[] result, int count) {
+                int bound = count - count % LANES;
+                try {
+                    for (int i = 0; i < bound; i += LANES) {
+                        Object product = (Object) MUL.invokeExact((Object) FROM_ARRAY.invokeExact(SPECIES, left, i), (Object) FROM_ARRAY.invokeExact(SPECIES, right, i));
+                        INTO_ARRAY.invokeExact(product, result, i);
+                    }
+                } catch (Throwable e) {
+                    throw failure(e);
+                }
+                return bound;
+            }
+
+            /**
+             * Returns the dot product of the operands, or the sum of the
+             * left operand if the right one is null.
+             */
+            static double dot(double[] left, double[] right, int count) {
+                int bound = count - count % LANES;
+                double result;
+                try {
+                    Object lanes = (Object) BROADCAST.invokeExact(SPECIES, 0.0);
+                    for (int i = 0; i < bound; i += LANES) {
+                        Object values = (Object) FROM_ARRAY.invokeExact(SPECIES, left, i);
+                        if (right != null) {
+                            values = (Object) MUL.invokeExact(values, (Object) FROM_ARRAY.invokeExact(SPECIES, right, i));
+                        }
+                        lanes = (Object) ADD.invokeExact(lanes, values);
+                    }
+                    result = (double) REDUCE.invokeExact(lanes, ADDITION);
+                } catch (Throwable e) {
+                    throw failure(e);
+                }
+                for (int i = bound; i < count; i++) {
+                    result += right != null ? left[i] * right[i] : left[i];
+                }
+                return result;
+            }
+
+            static double min(double[] values, int count, double min) {
+                int bound = count - count % LANES;
+                try {
+                    Object lanes = (Object) BROADCAST.invokeExact(SPECIES, min);
+                    for (int i = 0; i < bound; i += LANES) {
+                        lanes = (Object) MIN.invokeExact(lanes, (Object) FROM_ARRAY.invokeExact(SPECIES, values, i));
+                    }
+                    min = (double) REDUCE.invokeExact(lanes, MINIMUM);
+                } catch (Throwable e) {
+                    throw failure(e);
+                }
+                for (int i = bound; i < count; i++) {
+                    min = Math.min(min, values[i]);
+                }
+                return min;
+            }
+
+            static double max(double[] values, int count, double max) {
+                int bound = count - count % LANES;
+                try {
+                    Object lanes = (Object) BROADCAST.invokeExact(SPECIES, max);
+                    for (int i = 0; i < bound; i += LANES) {
+                        lanes = (Object) MAX.invokeExact(lanes, (Object) FROM_ARRAY.invokeExact(SPECIES, values, i));
+                    }
+                    max = (double) REDUCE.invokeExact(lanes, MAXIMUM);
+                } catch (Throwable e) {
+                    throw failure(e);
+                }
+                for (int i = bound; i < count; i++) {
+                    max = Math.max(max, values[i]);
+                }
+                return max;
+            }
+
+            static int less(double[] left, double[] right, boolean[] result, int at, int count) {
+                int bound = count - count % LANES;
+                try {
+                    for (int i = 0; i < bound; i += LANES) {
+                        Object mask = (Object) COMPARE.invokeExact((Object) FROM_ARRAY.invokeExact(SPECIES, left, i), LESS, (Object) FROM_ARRAY.invokeExact(SPECIES, right, i));
+                        MASK_INTO_ARRAY.invokeExact(mask, result, at + i);
+                    }
+                } catch (Throwable e) {
+                    throw failure(e);
+                }
+                return bound;
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,234 @@
+package plc.project;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Executes a {@link Bytecode.Program} with a single dispatch loop. Each
+ * activation's registers live in a heap {@link Frame} linked to its caller,
+ * so calls between compiled functions and {@code RETURN} never grow the Java
+ * stack or throw. Builtin functions and methods on objects are invoked
+ * through their {@link Environment.Function}.
+ *
+ * A {@code TAIL_CALL} replaces the current frame instead of linking a new
+ * one, so tail recursion runs in constant space. The depth of the remaining
+ * calls is bounded by a configurable budget of live frames, which bounds the
+ * heap used by activations in place of the Java stack size.
+ */
+public final class VirtualMachine {
+
+    public static final int DEFAULT_MAX_DEPTH = 1_000_000;
+
+    private final int maxDepth;
+
+    public VirtualMachine() {
+        this(DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Creates a machine allowing at most the given number of live frames.
+     */
+    public VirtualMachine(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Initializes a fresh set of globals and runs the program's entry
+     * function, returning the result of {@code main}.
+     */
+    public Environment.PlcObject execute(Bytecode.Program program) {
+        Bytecode.Function[] functions = program.getFunctions().toArray(new Bytecode.Function[0]);
+        Object[] constants = program.getConstants();
+        Environment.PlcObject[] globals = new Environment.PlcObject[program.getGlobals()];
+        Frame frame = new Frame(program.getEntry(), null, 0);
+        int[] code = frame.function.getCode();
+        Environment.PlcObject[] registers = frame.registers;
+        int pc = 0;
+        while (true) {
+            switch (code[pc]) {
+                case Bytecode.CONST:
+                    registers[code[pc + 1]] = (Environment.PlcObject) constants[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Bytecode.MOVE:
+                    registers[code[pc + 1]] = registers[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Bytecode.LOAD_GLOBAL:
+                    registers[code[pc + 1]] = globals[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Bytecode.STORE_GLOBAL:
+                    globals[code[pc + 1]] = registers[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Bytecode.LOAD_VARIABLE:
+                    registers[code[pc + 1]] = ((Environment.Variable) constants[code[pc + 2]]).getValue();
+                    pc += 3;
+                    break;
+                case Bytecode.STORE_VARIABLE:
+                    ((Environment.Variable) constants[code[pc + 1]]).setValue(registers[code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case Bytecode.LOAD_FIELD:
+                    registers[code[pc + 1]] = registers[code[pc + 2]].getField((String) constants[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Bytecode.STORE_FIELD:
+                    registers[code[pc + 1]].setField((String) constants[code[pc + 2]], registers[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Bytecode.ADD:
+                    registers[code[pc + 1]] = Interpreter.visitPlus(registers[code[pc + 2]], registers[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Bytecode.SUB:
+                    registers[code[pc + 1]] = Interpreter.visitMinus(registers[code[pc + 2]], registers[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Bytecode.MUL:
+                    registers[code[pc + 1]] = Interpreter.visitMulti(registers[code[pc + 2]], registers[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Bytecode.DIV:
+                    registers[code[pc + 1]] = Interpreter.visitDivide(registers[code[pc + 2]], registers[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Bytecode.LT:
+                    registers[code[pc + 1]] = Environment.create(Interpreter.compare(registers[code[pc + 2]], registers[code[pc + 3]]) < 0);
+                    pc += 4;
+                    break;
+                case Bytecode.GT:
+                    registers[code[pc + 1]] = Environment.create(Interpreter.compare(registers[code[pc + 2]], registers[code[pc + 3]]) > 0);
+                    pc += 4;
+                    break;
+                case Bytecode.LE:
+                    registers[code[pc + 1]] = Environment.create(Interpreter.compare(registers[code[pc + 2]], registers[code[pc + 3]]) <= 0);
+                    pc += 4;
+                    break;
+                case Bytecode.GE:
+                    registers[code[pc + 1]] = Environment.create(Interpreter.compare(registers[code[pc + 2]], registers[code[pc + 3]]) >= 0);
+                    pc += 4;
+                    break;
+                case Bytecode.EQ:
+                    registers[code[pc + 1]] = Environment.create(Objects.equals(registers[code[pc + 2]].getValue(), registers[code[pc + 3]].getValue()));
+                    pc += 4;
+                    break;
+                case Bytecode.NE:
+                    registers[code[pc + 1]] = Environment.create(!Objects.equals(registers[code[pc + 2]].getValue(), registers[code[pc + 3]].getValue()));
+                    pc += 4;
+                    break;
+                case Bytecode.AND: {
+                    Boolean left = Interpreter.requireType(Boolean.class, registers[code[pc + 2]]);
+                    Boolean right = Interpreter.requireType(Boolean.class, registers[code[pc + 3]]);
+                    registers[code[pc + 1]] = Environment.create(left && right);
+                    pc += 4;
+                    break;
+                }
+                case Bytecode.OR: {
+                    Boolean left = Interpreter.requireType(Boolean.class, registers[code[pc + 2]]);
+                    Boolean right = Interpreter.requireType(Boolean.class, registers[code[pc + 3]]);
+                    registers[code[pc + 1]] = Environment.create(left || right);
+                    pc += 4;
+                    break;
+                }
+                case Bytecode.JUMP:
+                    pc = code[pc + 1];
+                    break;
+                case Bytecode.JUMP_FALSE:
+                    pc = Interpreter.requireType(Boolean.class, registers[code[pc + 1]]) ? pc + 3 : code[pc + 2];
+                    break;
+                case Bytecode.ITERATOR:
+                    registers[code[pc + 1]] = Environment.create(Interpreter.requireType(Iterable.class, registers[code[pc + 2]]).iterator());
+                    pc += 3;
+                    break;
+                case Bytecode.NEXT: {
+                    Iterator<?> iterator = (Iterator<?>) registers[code[pc + 2]].getValue();
+                    if (iterator.hasNext()) {
+                        registers[code[pc + 1]] = (Environment.PlcObject) iterator.next();
+                        pc += 4;
+                    } else {
+                        pc = code[pc + 3];
+                    }
+                    break;
+                }
+                case Bytecode.CALL: {
+                    if (frame.depth == maxDepth) {
+                        throw new RuntimeException("Maximum call depth of " + maxDepth + " exceeded.");
+                    }
+                    Frame callee = new Frame(functions[code[pc + 2]], frame, code[pc + 1]);
+                    System.arraycopy(registers, code[pc + 3], callee.registers, 0, code[pc + 4]);
+                    frame.pc = pc + 5;
+                    frame = callee;
+                    code = frame.function.getCode();
+                    registers = frame.registers;
+                    pc = 0;
+                    break;
+                }
+                case Bytecode.TAIL_CALL: {
+                    Frame callee = new Frame(functions[code[pc + 1]], frame.caller, frame.target);
+                    System.arraycopy(registers, code[pc + 2], callee.registers, 0, code[pc + 3]);
+                    frame = callee;
+                    code = frame.function.getCode();
+                    registers = frame.registers;
+                    pc = 0;
+                    break;
+                }
+                case Bytecode.INVOKE: {
+                    Environment.Function function = (Environment.Function) constants[code[pc + 2]];
+                    registers[code[pc + 1]] = function.invoke(Arrays.copyOfRange(registers, code[pc + 3], code[pc + 3] + code[pc + 4]));
+                    pc += 5;
+                    break;
+                }
+                case Bytecode.INVOKE_METHOD: {
+                    Environment.PlcObject receiver = registers[code[pc + 2]];
+                    List<Environment.PlcObject> arguments = Arrays.asList(Arrays.copyOfRange(registers, code[pc + 4], code[pc + 4] + code[pc + 5]));
+                    registers[code[pc + 1]] = receiver.callMethod((String) constants[code[pc + 3]], arguments);
+                    pc += 6;
+                    break;
+                }
+                case Bytecode.RETURN: {
+                    Environment.PlcObject value = registers[code[pc + 1]];
+                    if (frame.caller == null) {
+                        return value;
+                    }
+                    frame.caller.registers[frame.target] = value;
+                    frame = frame.caller;
+                    code = frame.function.getCode();
+                    registers = frame.registers;
+                    pc = frame.pc;
+                    break;
+                }
+                default:
+                    throw new AssertionError("Unknown opcode " + code[pc] + " at " + pc + " in " + frame.function.getName() + ".");
+            }
+        }
+    }
+
+    /**
+     * A single activation: its registers, the saved program counter while a
+     * callee runs, the caller's register receiving the result and the number
+     * of live frames including itself.
+     */
+    private static final class Frame {
+
+        private final Bytecode.Function function;
+        private final Environment.PlcObject[] registers;
+        private final Frame caller;
+        private final int target;
+        private final int depth;
+        private int pc;
+
+        private Frame(Bytecode.Function function, Frame caller, int target) {
+            this.function = function;
+            this.registers = new Environment.PlcObject[function.getRegisters()];
+            this.caller = caller;
+            this.target = target;
+            this.depth = caller == null ? 1 : caller.depth + 1;
+        }
+
+    }
+
+}
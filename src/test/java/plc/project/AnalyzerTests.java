@@ -1,6 +1,7 @@
 package plc.project;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -8,8 +9,12 @@ import org.junit.jupiter.params.provider.MethodSource;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -396,6 +401,95 @@ public final class AnalyzerTests {
         return analyzer;
     }
 
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testParallelFor(String test, Ast.Stmt.For ast, boolean success) {
+        Analyzer analyzer = new Analyzer(init(new Scope(null), scope -> {
+            scope.defineVariable("values", "values", Environment.Type.INTEGER_ITERABLE, Environment.NIL);
+            scope.defineVariable("total", "total", Environment.Type.INTEGER, Environment.NIL);
+            scope.defineVariable("scale", "scale", Environment.Type.INTEGER, Environment.NIL);
+        }));
+        if (success) {
+            analyzer.visit(ast);
+            int bindings = ast.getBindings().size();
+            analyzer.visit(ast);
+            Assertions.assertEquals(bindings, ast.getBindings().size());
+        } else {
+            Assertions.assertThrows(RuntimeException.class, () -> analyzer.visit(ast));
+        }
+    }
+
+    private static Stream<Arguments> testParallelFor() {
+        return Stream.of(
+                // PARALLEL FOR value IN values DO LET square = value * value; total = total + square * scale; END
+                Arguments.of("Reduction", new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(
+                        new Ast.Stmt.Declaration("square", Optional.of(Programs.binary("*", Programs.access("value"), Programs.access("value")))),
+                        Programs.assign("total", Programs.binary("+", Programs.access("total"), Programs.binary("*", Programs.access("square"), Programs.access("scale"))))
+                ), true), true),
+                // PARALLEL FOR value IN values DO total = value; END
+                Arguments.of("Outer Write", new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(
+                        Programs.assign("total", Programs.access("value"))
+                ), true), false),
+                // PARALLEL FOR value IN values DO total = total + 1; LET copy = total; END
+                Arguments.of("Reduced Read", new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(
+                        Programs.assign("total", Programs.binary("+", Programs.access("total"), Programs.literal(1))),
+                        new Ast.Stmt.Declaration("copy", Optional.of(Programs.access("total")))
+                ), true), false),
+                // PARALLEL FOR value IN values DO total = total - value; END
+                Arguments.of("Non-Associative", new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(
+                        Programs.assign("total", Programs.binary("-", Programs.access("total"), Programs.access("value")))
+                ), true), false),
+                // FOR value IN values DO total = value; END
+                Arguments.of("Serial", new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(
+                        Programs.assign("total", Programs.access("value"))
+                )), true)
+        );
+    }
+
+    @Test
+    void testParallelMethodCall() {
+        // DEF touch(): Integer DO RETURN 1; END
+        // DEF main(): Integer DO PARALLEL FOR value IN values DO touch(); END RETURN 0; END
+        Ast.Source ast = new Ast.Source(Arrays.asList(), Arrays.asList(
+                Programs.method("touch", Arrays.asList(), Arrays.asList(), "Integer", new Ast.Stmt.Return(Programs.literal(1))),
+                Programs.method("main", Arrays.asList(), Arrays.asList(), "Integer",
+                        new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(
+                                new Ast.Stmt.Expression(Programs.call("touch"))
+                        ), true),
+                        new Ast.Stmt.Return(Programs.literal(0)))
+        ));
+        Analyzer analyzer = new Analyzer(init(new Scope(null), scope -> {
+            scope.defineVariable("values", "values", Environment.Type.INTEGER_ITERABLE, Environment.NIL);
+        }));
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> analyzer.visit(ast));
+        Assertions.assertTrue(exception.getMessage().contains("touch"));
+    }
+
+    @Test
+    void testDeepNesting() {
+        Ast.Expr expr = Programs.nested(1_000_000);
+        new Analyzer(new Scope(null)).visit(expr);
+        Assertions.assertEquals(Environment.Type.INTEGER, expr.getType());
+    }
+
+    @Test
+    void testTypeRegistryOverlay() {
+        // LET point: Point;
+        List<Environment.Type> types = IntStream.range(0, 16).parallel().mapToObj(i -> {
+            Environment.Type point = new Environment.Type("Point", "Point" + i, new Scope(Environment.Type.ANY.getScope()));
+            Analyzer analyzer = new Analyzer(new Scope(null));
+            analyzer.registerType(point);
+            Ast.Stmt.Declaration declaration = new Ast.Stmt.Declaration("point", Optional.of("Point"), Optional.empty());
+            analyzer.visit(declaration);
+            Assertions.assertSame(point, declaration.getVariable().getType());
+            return point;
+        }).collect(Collectors.toList());
+        Assertions.assertEquals(16, new HashSet<>(types).size());
+        Assertions.assertFalse(Environment.getRegistry().contains("Point"));
+        Assertions.assertThrows(RuntimeException.class, () -> new Analyzer(new Scope(null)).visit(new Ast.Stmt.Declaration("point", Optional.of("Point"), Optional.empty())));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Analyzer(new Scope(null)).registerType(Environment.Type.INTEGER));
+    }
+
     /**
      * Runs a callback on the given value, used for inline initialization.
      */
@@ -0,0 +1,228 @@
+package plc.project;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Micro-benchmarks comparing the execution engines on the shared sample
+ * {@link Programs}. These are not unit tests; run {@link #main(String[])}
+ * directly from the test classpath. Each suite is warmed up before it is
+ * measured and reports the mean time per run.
+ */
+public final class Benchmarks {
+
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) {
+        engines();
+        jvm();
+        javac();
+        tiered();
+        recursion();
+        shared();
+        service();
+        budgets();
+        contention();
+        ranges();
+        vectors();
+    }
+
+    /**
+     * Interpreter vs. closure compilation vs. the bytecode VM. The compiled
+     * engines compile once and execute per run.
+     */
+    static void engines() {
+        Ast.Source[] sources = {Programs.fib(22), Programs.loop(200_000), Programs.mixed(2_000)};
+        String[] names = {"fib(22)", "loop(200000)", "mixed(2000)"};
+        for (int i = 0; i < sources.length; i++) {
+            Ast.Source ast = sources[i];
+            ClosureCompiler.Program program = new ClosureCompiler(new Scope(null)).compile(ast);
+            Bytecode.Program bytecode = new BytecodeCompiler(new Scope(null)).compile(ast);
+            measure(names[i] + " interpreter", () -> new Interpreter(new Scope(null)).visit(ast));
+            measure(names[i] + " closures", program::execute);
+            measure(names[i] + " vm", () -> new VirtualMachine().execute(bytecode));
+        }
+    }
+
+    /**
+     * The JVM bytecode backend on the typed versions of the samples, which
+     * it requires to be analyzed.
+     */
+    static void jvm() {
+        Ast.Source[] sources = {Programs.typedFib(22), Programs.typedMixed(2_000)};
+        String[] names = {"fib(22)", "mixed(2000)"};
+        for (int i = 0; i < sources.length; i++) {
+            JvmCompiler.Program program = new JvmCompiler().compile(Programs.analyze(sources[i], new Scope(null)));
+            measure(names[i] + " jvm", program::execute);
+        }
+    }
+
+    /**
+     * Compiling the generated Java in-process. Only the first compilation
+     * runs javac; the measured runs hit the source hash cache.
+     */
+    static void javac() {
+        Ast.Source ast = Programs.analyze(Programs.typedFib(22), new Scope(null));
+        long start = System.nanoTime();
+        new JavaSourceCompiler().compile(ast);
+        System.out.println(String.format("%-40s %10.3f ms", "fib(22) javac first compile", (System.nanoTime() - start) / 1e6));
+        measure("fib(22) javac cached compile", () -> new JavaSourceCompiler().compile(ast));
+        measure("fib(22) javac execute", new JavaSourceCompiler().compile(ast)::execute);
+    }
+
+    /**
+     * The tiered runtime from a cold start, including background
+     * compilation, against the interpreter alone.
+     */
+    static void tiered() {
+        Ast.Source ast = Programs.fib(22);
+        measure("fib(22) tiered cold", () -> new TieredRuntime(new Scope(null)).execute(ast));
+        TieredRuntime.Program program = new TieredRuntime(new Scope(null)).load(ast);
+        measure("fib(22) tiered steady", program::execute);
+    }
+
+    /**
+     * Call-heavy recursion in the interpreter, where every call pays for
+     * its RETURN.
+     */
+    static void recursion() {
+        Ast.Source ast = Programs.fib(25);
+        measure("fib(25) interpreter", () -> new Interpreter(new Scope(null)).visit(ast));
+    }
+
+    /**
+     * One loaded program executed on many threads at once, against a new
+     * interpreter per execution.
+     */
+    static void shared() {
+        Ast.Source ast = Programs.fib(18);
+        Interpreter.Program program = Interpreter.load(new Scope(null), ast);
+        measure("64 x fib(18) interpreter per execution", () -> IntStream.range(0, 64).parallel()
+                .mapToObj(i -> new Interpreter(new Scope(null)).visit(ast)).toArray());
+        measure("64 x fib(18) shared program", () -> IntStream.range(0, 64).parallel()
+                .mapToObj(i -> program.execute()).toArray());
+    }
+
+    /**
+     * A burst of requests against the script executor, reporting throughput
+     * and latency percentiles (including time queued behind the burst).
+     */
+    static void service() {
+        Ast.Source ast = Programs.fib(12);
+        int concurrency = Math.max(2, Runtime.getRuntime().availableProcessors());
+        try (ScriptExecutor executor = new ScriptExecutor(new Scope(null), concurrency, 20_000)) {
+            CompletableFuture<?>[] warmup = new CompletableFuture<?>[2_000];
+            for (int i = 0; i < warmup.length; i++) {
+                warmup[i] = executor.submit(ast);
+            }
+            CompletableFuture.allOf(warmup).join();
+        }
+        try (ScriptExecutor executor = new ScriptExecutor(new Scope(null), concurrency, 20_000)) {
+            CompletableFuture<?>[] requests = new CompletableFuture<?>[20_000];
+            for (int i = 0; i < requests.length; i++) {
+                requests[i] = executor.submit(ast);
+            }
+            CompletableFuture.allOf(requests).join();
+            System.out.println(String.format("%-40s %s", "20000 x fib(12) script executor", executor.getStatistics()));
+        }
+    }
+
+    /**
+     * The cost of safepoint polls on a tight loop: without a budget polls
+     * only check for interruption once per slice, while a budget also counts
+     * steps, reads the clock and yields once per slice, and memory limits
+     * read the thread's allocation counter once per slice.
+     */
+    static void budgets() {
+        Interpreter.Program program = Interpreter.load(new Scope(null), Programs.loop(200_000));
+        Interpreter context = program.newContext();
+        measure("loop(200000) without budget", () -> program.execute(context));
+        measure("loop(200000) with budget", () -> {
+            context.setBudget(new Budget(Budget.DEFAULT_QUANTUM, Long.MAX_VALUE, 1, TimeUnit.HOURS, true));
+            return program.execute(context);
+        });
+        if (Budget.isMemoryAccountingSupported()) {
+            measure("loop(200000) with memory limits", () -> {
+                Budget budget = new Budget(Budget.DEFAULT_QUANTUM, Long.MAX_VALUE, 1, TimeUnit.HOURS, true);
+                budget.setMemoryLimits(1L << 30, 1L << 32);
+                context.setBudget(budget);
+                return program.execute(context);
+            });
+        }
+        context.setBudget(null);
+    }
+
+    /**
+     * Concurrent executions of a shared program all incrementing the same
+     * field, so every update contends on it.
+     */
+    static void contention() {
+        Ast.Source ast = Programs.counter(10_000);
+        for (int threads : new int[] {1, 4, 16}) {
+            Interpreter.Program program = Interpreter.loadShared(new Scope(null), ast);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                measure(threads + " threads x 10000 shared updates", () -> IntStream.range(0, threads)
+                        .mapToObj(i -> CompletableFuture.supplyAsync(program::execute, executor))
+                        .map(CompletableFuture::join).toArray());
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * A loop over a range against the same loop over a list of its
+     * elements, which is built once outside the measurement.
+     */
+    static void ranges() {
+        Ast.Source ast = Programs.iterate();
+        Scope range = new Scope(null);
+        range.defineVariable("values", Environment.create(new Range(4, 200_004, 1)));
+        Scope list = Programs.values(IntStream.range(4, 200_004).toArray());
+        measure("loop over range(4, 200004)", () -> new Interpreter(range).visit(ast));
+        measure("loop over list of 200000", () -> new Interpreter(list).visit(ast));
+    }
+
+    /**
+     * A loop summing a list against the bulk {@code sum()} of the same
+     * list, and the bulk sum of a buffer.
+     */
+    static void vectors() {
+        int[] values = IntStream.range(0, 200_000).map(i -> 4 + i % 1000).toArray();
+        Scope scope = Programs.values(values);
+        // DEF main() DO RETURN values.sum(); END
+        Ast.Source bulk = Programs.source(Programs.method("main", Arrays.asList(),
+                new Ast.Stmt.Return(Programs.method(Programs.access("values"), "sum"))));
+        Scope list = new Scope(null);
+        list.defineVariable("values", Environment.create(IntList.of(values)));
+        IntBuffer buffer = new IntBuffer(values.length);
+        for (int i = 0; i < values.length; i++) {
+            buffer.set(i, values[i]);
+        }
+        Scope buffered = new Scope(null);
+        buffered.defineVariable("values", Environment.create(buffer));
+        measure("loop over list of 200000", () -> new Interpreter(scope).visit(Programs.iterate()));
+        measure("sum() of IntList of 200000", () -> new Interpreter(list).visit(bulk));
+        measure("sum() of IntBuffer of 200000", () -> new Interpreter(buffered).visit(bulk));
+    }
+
+    static void measure(String name, Supplier<?> run) {
+        for (int i = 0; i < WARMUP; i++) {
+            run.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            run.get();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / RUNS;
+        System.out.println(String.format("%-40s %10.3f ms/run", name, millis));
+    }
+
+}
@@ -0,0 +1,94 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public final class BufferTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testCopy(String test, int from, int to, int at) {
+        IntBuffer buffer = new IntBuffer(64);
+        int[] expected = new int[64];
+        for (int i = 0; i < expected.length; i++) {
+            buffer.set(i, i);
+            expected[i] = i;
+        }
+        buffer.copy(from, to, buffer, at);
+        System.arraycopy(expected, from, expected, at, to - from);
+        Assertions.assertArrayEquals(expected, buffer.stream().toArray());
+    }
+
+    private static Stream<Arguments> testCopy() {
+        return Stream.of(
+                Arguments.of("Forward", 0, 16, 32),
+                Arguments.of("Overlap Right", 0, 48, 8),
+                Arguments.of("Overlap Left", 8, 64, 0),
+                Arguments.of("Empty", 10, 10, 64)
+        );
+    }
+
+    @Test
+    void testFill() {
+        DecimalBuffer buffer = new DecimalBuffer(1000);
+        Random random = new Random(0);
+        double[] expected = new double[buffer.length()];
+        for (int i = 0; i < 100; i++) {
+            int from = random.nextInt(expected.length);
+            int to = from + random.nextInt(expected.length - from + 1);
+            double value = random.nextDouble();
+            buffer.fill(from, to, value);
+            Arrays.fill(expected, from, to, value);
+        }
+        Assertions.assertArrayEquals(expected, buffer.stream().toArray());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> buffer.get(1000));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> buffer.fill(5, 1001, 0));
+    }
+
+    @Test
+    void testMapped() throws Exception {
+        Path file = Files.createTempFile("buffer", ".bin");
+        try {
+            IntBuffer buffer = new IntBuffer(file.toString(), 1024);
+            buffer.fill(3);
+            buffer.set(1023, 42);
+            Assertions.assertEquals(1024L * Integer.BYTES, Files.size(file));
+            IntBuffer mapped = new IntBuffer(file.toString(), 1024);
+            Assertions.assertEquals(3, mapped.get(0));
+            Assertions.assertEquals(42, mapped.get(1023));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testFree() throws Exception {
+        Path file = Files.createTempFile("buffer", ".bin");
+        try {
+            IntBuffer mapped = new IntBuffer(file.toString(), 1024);
+            mapped.set(7, 42);
+            mapped.close();
+            mapped.close();
+            Assertions.assertThrows(RuntimeException.class, () -> mapped.get(7));
+            Assertions.assertEquals(42, new IntBuffer(file.toString(), 1024).get(7));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        // LET buffer = DecimalBuffer(16); buffer.free(); buffer.get(0);
+        Scope scope = new Scope(null);
+        scope.defineVariable("buffer", Environment.create(new DecimalBuffer(16)));
+        Interpreter interpreter = new Interpreter(scope);
+        interpreter.visit(Programs.method(Programs.access("buffer"), "free"));
+        Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(Programs.method(Programs.access("buffer"), "get", Programs.literal(0))));
+    }
+
+}
@@ -0,0 +1,58 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+public final class ClosureCompilerTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSource(String test, Ast.Source ast, Object expected) {
+        Environment.PlcObject interpreted = new Interpreter(new Scope(null)).visit(ast);
+        Environment.PlcObject compiled = new ClosureCompiler(new Scope(null)).compile(ast).execute();
+        Assertions.assertEquals(expected, compiled.getValue());
+        Assertions.assertEquals(interpreted.getValue(), compiled.getValue());
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Fibonacci", Programs.fib(15), BigInteger.valueOf(610)),
+                Arguments.of("Loop", Programs.loop(100), BigInteger.valueOf(8283)),
+                Arguments.of("Mixed", Programs.mixed(6), "n3n4n51.68753")
+        );
+    }
+
+    @Test
+    void testForLoop() {
+        Assertions.assertEquals(BigInteger.valueOf(10), new ClosureCompiler(Programs.values(4, 6, 3, 8)).compile(Programs.iterate()).execute().getValue());
+        Assertions.assertEquals(BigInteger.valueOf(15), new ClosureCompiler(Programs.values(4, 5, 6)).compile(Programs.iterate()).execute().getValue());
+    }
+
+    @Test
+    void testProgramReuse() {
+        ClosureCompiler.Program program = new ClosureCompiler(new Scope(null)).compile(Programs.mixed(4));
+        Assertions.assertEquals(program.execute().getValue(), program.execute().getValue());
+    }
+
+    @Test
+    void testMissingMain() {
+        Ast.Source ast = Programs.source(Programs.method("other", Arrays.asList()));
+        Assertions.assertThrows(RuntimeException.class, () -> new ClosureCompiler(new Scope(null)).compile(ast));
+    }
+
+    @Test
+    void testUndefinedVariable() {
+        Ast.Source ast = Programs.source(Programs.method("main", Arrays.asList(),
+                new Ast.Stmt.Return(Programs.access("undefined"))
+        ));
+        Assertions.assertThrows(RuntimeException.class, () -> new ClosureCompiler(new Scope(null)).compile(ast));
+    }
+
+}
@@ -1,6 +1,7 @@
 package plc.project;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -179,6 +180,205 @@ public class GeneratorTests {
         );
     }
 
+    @Test
+    void testParallelFor() {
+        // PARALLEL FOR value IN values DO total = total + value * scale; END
+        Ast.Stmt.For ast = new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(
+                Programs.assign("total", Programs.binary("+", Programs.access("total"), Programs.binary("*", Programs.access("value"), Programs.access("scale"))))
+        ), true);
+        new Analyzer(init(new Scope(null), scope -> {
+            scope.defineVariable("values", "values", Environment.Type.INTEGER_ITERABLE, Environment.NIL);
+            scope.defineVariable("total", "total", Environment.Type.INTEGER, Environment.NIL);
+            scope.defineVariable("scale", "scale", Environment.Type.INTEGER, Environment.NIL);
+        })).visit(ast);
+        test(ast, String.join(System.lineSeparator(),
+                "{",
+                "    final int scale$ = scale;",
+                "    total = total + java.util.stream.StreamSupport.stream(values.spliterator(), true).mapToInt(Integer::intValue).mapToObj(value -> {",
+                "        int total$ = 0;",
+                "        total$ = total$ + value * scale$;",
+                "        return total$;",
+                "    }).reduce(0, (left$, right$) -> left$ + right$);",
+                "}"
+        ));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testRange(String test, Ast.Stmt.For ast, String expected) {
+        new Analyzer(init(new Scope(null), scope -> {
+            scope.defineVariable("n", "n", Environment.Type.INTEGER, Environment.NIL);
+            scope.defineVariable("step", "step", Environment.Type.INTEGER, Environment.NIL);
+        })).visit(ast);
+        test(ast, expected);
+    }
+
+    private static Stream<Arguments> testRange() {
+        return Stream.of(
+                // FOR i IN range(0, 10) DO print(i); END
+                Arguments.of("Range", range(false, Programs.literal(0), Programs.literal(10)), String.join(System.lineSeparator(),
+                        "for (int i = 0; i < 10; i++) {",
+                        "    System.out.println(i);",
+                        "}"
+                )),
+                // FOR i IN range(n, 0, -2) DO print(i); END
+                Arguments.of("Reverse", range(false, Programs.access("n"), Programs.literal(0), Programs.literal(-2)), String.join(System.lineSeparator(),
+                        "for (int i = n; i > 0; i -= 2) {",
+                        "    System.out.println(i);",
+                        "}"
+                )),
+                // FOR i IN range(0, n + 1, step) DO print(i); END
+                Arguments.of("Variable Step", range(false, Programs.literal(0), Programs.binary("+", Programs.access("n"), Programs.literal(1)), Programs.access("step")), String.join(System.lineSeparator(),
+                        "for (int i = 0, i$end = n + 1, i$step = step; i$step > 0 ? i < i$end : i > i$end; i += i$step) {",
+                        "    System.out.println(i);",
+                        "}"
+                )),
+                // PARALLEL FOR i IN range(0, n) DO print(i); END
+                Arguments.of("Parallel", range(true, Programs.literal(0), Programs.access("n")), String.join(System.lineSeparator(),
+                        "java.util.stream.IntStream.range(0, n).parallel().forEach(i -> {",
+                        "    System.out.println(i);",
+                        "});"
+                )),
+                // PARALLEL FOR i IN range(n, 0, step) DO print(i); END
+                Arguments.of("Parallel Step", range(true, Programs.access("n"), Programs.literal(0), Programs.access("step")), String.join(System.lineSeparator(),
+                        "{",
+                        "    final int i$start = n;",
+                        "    final int i$step = step;",
+                        "    java.util.stream.IntStream.range(0, (int) Math.max(0, ((long) 0 - i$start + i$step - Integer.signum(i$step)) / i$step)).parallel().map(i$ -> i$start + i$ * i$step).forEach(i -> {",
+                        "        System.out.println(i);",
+                        "    });",
+                        "}"
+                ))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testPrimitiveList(String test, Ast.Stmt.For ast, String expected) {
+        new Analyzer(init(new Scope(null), scope -> {
+            scope.defineVariable("values", "values", Environment.Type.DECIMAL_LIST, Environment.NIL);
+        })).visit(ast);
+        test(ast, expected);
+    }
+
+    private static Stream<Arguments> testPrimitiveList() {
+        return Stream.of(
+                // FOR value IN values DO print(value); END
+                Arguments.of("Variable", list(false, Programs.access("values")), String.join(System.lineSeparator(),
+                        "for (int value$i = 0, value$n = values.length(); value$i < value$n; value$i++) {",
+                        "    double value = values.get(value$i);",
+                        "    System.out.println(value);",
+                        "}"
+                )),
+                // FOR value IN values.slice(1, 3) DO print(value); END
+                Arguments.of("Expression", list(false, Programs.method(Programs.access("values"), "slice", Programs.literal(1), Programs.literal(3))), String.join(System.lineSeparator(),
+                        "{",
+                        "    final plc.project.DecimalList value$list = values.slice(1, 3);",
+                        "    for (int value$i = 0, value$n = value$list.length(); value$i < value$n; value$i++) {",
+                        "        double value = value$list.get(value$i);",
+                        "        System.out.println(value);",
+                        "    }",
+                        "}"
+                )),
+                // PARALLEL FOR value IN values DO print(value); END
+                Arguments.of("Parallel", list(true, Programs.access("values")), String.join(System.lineSeparator(),
+                        "java.util.Arrays.stream(values.toArray()).parallel().forEach(value -> {",
+                        "    System.out.println(value);",
+                        "});"
+                ))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testBuffer(String test, Ast.Stmt.For ast, String expected) {
+        new Analyzer(init(new Scope(null), scope -> {
+            scope.defineVariable("values", "values", Environment.Type.INT_BUFFER, Environment.NIL);
+        })).visit(ast);
+        test(ast, expected);
+    }
+
+    private static Stream<Arguments> testBuffer() {
+        return Stream.of(
+                // FOR value IN values DO print(value); END
+                Arguments.of("Variable", list(false, Programs.access("values")), String.join(System.lineSeparator(),
+                        "for (int value$i = 0, value$n = values.length(); value$i < value$n; value$i++) {",
+                        "    int value = values.get(value$i);",
+                        "    System.out.println(value);",
+                        "}"
+                )),
+                // PARALLEL FOR value IN values DO print(value); END
+                Arguments.of("Parallel", list(true, Programs.access("values")), String.join(System.lineSeparator(),
+                        "values.stream().parallel().forEach(value -> {",
+                        "    System.out.println(value);",
+                        "});"
+                ))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testMap(String test, Ast.Stmt.For ast, String expected) {
+        new Analyzer(init(new Scope(null), scope -> {
+            scope.defineVariable("map", "map", Environment.Type.STRING_MAP, Environment.NIL);
+            scope.defineVariable("text", "text", Environment.Type.STRING, Environment.NIL);
+        })).visit(ast);
+        test(ast, expected);
+    }
+
+    private static Stream<Arguments> testMap() {
+        return Stream.of(
+                // FOR key IN map DO text = text + key; END
+                Arguments.of("Keys", new Ast.Stmt.For("key", Programs.access("map"), Arrays.asList(
+                        Programs.assign("text", Programs.binary("+", Programs.access("text"), Programs.access("key")))
+                )), String.join(System.lineSeparator(),
+                        "for (String key : map.keys()) {",
+                        "    text = text + key;",
+                        "}"
+                )),
+                // PARALLEL FOR key IN map DO text = text + key; END
+                Arguments.of("Parallel", new Ast.Stmt.For("key", Programs.access("map"), Arrays.asList(
+                        Programs.assign("text", Programs.binary("+", Programs.access("text"), Programs.access("key")))
+                ), true), String.join(System.lineSeparator(),
+                        "text = text + java.util.Arrays.stream(map.keys()).parallel().map(key -> {",
+                        "    String text$ = \"\";",
+                        "    text$ = text$ + key;",
+                        "    return text$;",
+                        "}).reduce(\"\", (left$, right$) -> left$ + right$);"
+                ))
+        );
+    }
+
+    private static Ast.Stmt.For list(boolean parallel, Ast.Expr values) {
+        return new Ast.Stmt.For("value", values, Arrays.asList(
+                new Ast.Stmt.Expression(Programs.call("print", Programs.access("value")))
+        ), parallel);
+    }
+
+    private static Ast.Stmt.For range(boolean parallel, Ast.Expr... arguments) {
+        return new Ast.Stmt.For("i", Programs.call("range", arguments), Arrays.asList(
+                new Ast.Stmt.Expression(Programs.call("print", Programs.access("i")))
+        ), parallel);
+    }
+
+    @Test
+    void testDeepNesting() {
+        int depth = 1_000_000;
+        Ast.Expr expr = Programs.nested(depth);
+        new Analyzer(new Scope(null)).visit(expr);
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(expr);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            expected.append('(');
+        }
+        expected.append('1');
+        for (int i = 0; i < depth; i++) {
+            expected.append(" + 1)");
+        }
+        Assertions.assertEquals(expected.toString(), writer.toString());
+    }
+
     /**
      * Helper function for tests, using a StringWriter as the output stream.
      */
@@ -0,0 +1,142 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public final class HashTableTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testIntMap(String test, boolean ordered, int keys) {
+        IntMap map = new IntMap(ordered);
+        Map<Integer, Object> expected = ordered ? new LinkedHashMap<>() : new HashMap<>();
+        Random random = new Random(keys);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(keys) * 1024;
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+            Assertions.assertEquals(expected.get(key), map.get(key));
+            Assertions.assertEquals(expected.containsKey(key + 1), map.contains(key + 1));
+        }
+        Assertions.assertEquals(expected.size(), map.size());
+        for (int key : map.keys()) {
+            Assertions.assertEquals(expected.get(key), map.get(key));
+        }
+        int[] order = expected.keySet().stream().mapToInt(Integer::intValue).toArray();
+        int[] keySet = map.keys();
+        if (!ordered) {
+            Arrays.sort(order);
+            Arrays.sort(keySet);
+        }
+        Assertions.assertArrayEquals(order, keySet);
+    }
+
+    private static Stream<Arguments> testIntMap() {
+        return Stream.of(
+                Arguments.of("Unordered", false, 1_000),
+                Arguments.of("Ordered", true, 1_000),
+                Arguments.of("Collisions", true, 16)
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testStringMap(String test, boolean ordered, int keys) {
+        StringMap map = new StringMap(ordered);
+        Map<String, Object> expected = ordered ? new LinkedHashMap<>() : new HashMap<>();
+        Random random = new Random(keys);
+        for (int i = 0; i < 20_000; i++) {
+            String key = new String("key" + random.nextInt(keys));
+            if (random.nextInt(3) == 0) {
+                Assertions.assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+            Assertions.assertEquals(expected.get(key), map.get(key));
+        }
+        Assertions.assertEquals(expected.size(), map.size());
+        if (ordered) {
+            Assertions.assertArrayEquals(expected.keySet().toArray(), map.keys());
+        } else {
+            Assertions.assertEquals(expected.keySet(), Arrays.stream(map.keys()).collect(Collectors.toSet()));
+        }
+    }
+
+    private static Stream<Arguments> testStringMap() {
+        return Stream.of(
+                Arguments.of("Unordered", false, 1_000),
+                Arguments.of("Ordered", true, 1_000)
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testForLoop(String test, Ast.Source ast, Object expected) {
+        Programs.analyze(ast, new Scope(null));
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(ast).getValue());
+        Assertions.assertEquals(expected, new ClosureCompiler(new Scope(null)).compile(ast).execute().getValue());
+        Assertions.assertEquals(expected, new VirtualMachine().execute(new BytecodeCompiler(new Scope(null)).compile(ast)).getValue());
+        Assertions.assertEquals(expected, new JvmCompiler().compile(ast).execute().getValue());
+        TieredRuntime.Program program = new TieredRuntime(new Scope(null), 3, Runnable::run).load(ast);
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(expected, program.execute().getValue());
+        }
+    }
+
+    private static Stream<Arguments> testForLoop() {
+        return Stream.of(
+                // DEF main(): Integer DO
+                //     LET map: IntMap = IntMap(TRUE); map.put(3, 0); map.put(1, 0); map.put(2, 0);
+                //     LET total: Integer = 0;
+                //     FOR key IN map DO total = total * 10 + key; END
+                //     RETURN total;
+                // END
+                Arguments.of("IntMap", Programs.source(Programs.method("main", Arrays.asList(), Arrays.asList(), "Integer",
+                        new Ast.Stmt.Declaration("map", Optional.of("IntMap"), Optional.of(Programs.call("IntMap", Programs.literal(true)))),
+                        new Ast.Stmt.Expression(Programs.method(Programs.access("map"), "put", Programs.literal(3), Programs.literal(0))),
+                        new Ast.Stmt.Expression(Programs.method(Programs.access("map"), "put", Programs.literal(1), Programs.literal(0))),
+                        new Ast.Stmt.Expression(Programs.method(Programs.access("map"), "put", Programs.literal(2), Programs.literal(0))),
+                        new Ast.Stmt.Declaration("total", Optional.of("Integer"), Optional.of(Programs.literal(0))),
+                        new Ast.Stmt.For("key", Programs.access("map"), Arrays.asList(
+                                Programs.assign("total", Programs.binary("+", Programs.binary("*", Programs.access("total"), Programs.literal(10)), Programs.access("key")))
+                        )),
+                        new Ast.Stmt.Return(Programs.access("total"))
+                )), BigInteger.valueOf(312)),
+                // DEF main(): String DO
+                //     LET map: StringMap = StringMap(TRUE); map.put("c", 0); map.put("a", 0); map.put("b", 0);
+                //     LET text: String = "";
+                //     FOR key IN map DO text = text + key; END
+                //     RETURN text;
+                // END
+                Arguments.of("StringMap", Programs.source(Programs.method("main", Arrays.asList(), Arrays.asList(), "String",
+                        new Ast.Stmt.Declaration("map", Optional.of("StringMap"), Optional.of(Programs.call("StringMap", Programs.literal(true)))),
+                        new Ast.Stmt.Expression(Programs.method(Programs.access("map"), "put", Programs.literal("c"), Programs.literal(0))),
+                        new Ast.Stmt.Expression(Programs.method(Programs.access("map"), "put", Programs.literal("a"), Programs.literal(0))),
+                        new Ast.Stmt.Expression(Programs.method(Programs.access("map"), "put", Programs.literal("b"), Programs.literal(0))),
+                        new Ast.Stmt.Declaration("text", Optional.of("String"), Optional.of(Programs.literal(""))),
+                        new Ast.Stmt.For("key", Programs.access("map"), Arrays.asList(
+                                Programs.assign("text", Programs.binary("+", Programs.access("text"), Programs.access("key")))
+                        )),
+                        new Ast.Stmt.Return(Programs.access("text"))
+                )), "cab")
+        );
+    }
+
+}
@@ -0,0 +1,492 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public final class InterpreterTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testReturn(String test, Ast.Source ast, Scope scope, Object expected) {
+        Assertions.assertEquals(expected, new Interpreter(scope).visit(ast).getValue());
+    }
+
+    private static Stream<Arguments> testReturn() {
+        return Stream.of(
+                Arguments.of("Recursion", Programs.fib(15), new Scope(null), BigInteger.valueOf(610)),
+                Arguments.of("For Loop", Programs.iterate(), Programs.values(4, 6, 3, 8), BigInteger.valueOf(10)),
+                Arguments.of("For Loop Completion", Programs.iterate(), Programs.values(4, 5, 6), BigInteger.valueOf(15)),
+                // DEF main() DO LET i = 0; WHILE TRUE DO IF i == 5 DO RETURN i; END i = i + 1; END END
+                Arguments.of("While Loop", Programs.source(Programs.method("main", Arrays.asList(),
+                        new Ast.Stmt.Declaration("i", Optional.of(Programs.literal(0))),
+                        new Ast.Stmt.While(Programs.literal(true), Arrays.asList(
+                                new Ast.Stmt.If(Programs.binary("==", Programs.access("i"), Programs.literal(5)), Arrays.asList(
+                                        new Ast.Stmt.Return(Programs.access("i"))
+                                ), Arrays.asList()),
+                                Programs.assign("i", Programs.binary("+", Programs.access("i"), Programs.literal(1)))
+                        ))
+                )), new Scope(null), BigInteger.valueOf(5)),
+                // DEF main() DO LET x = 1; END
+                Arguments.of("No Return", Programs.source(Programs.method("main", Arrays.asList(),
+                        new Ast.Stmt.Declaration("x", Optional.of(Programs.literal(1)))
+                )), new Scope(null), Environment.NIL.getValue())
+        );
+    }
+
+    @Test
+    void testCallSiteCache() {
+        Ast.Source ast = Programs.fib(10);
+        Ast.Stmt.Return recursion = (Ast.Stmt.Return) ast.getMethods().get(0).getStatements().get(1);
+        Ast.Expr.Function site = (Ast.Expr.Function) ((Ast.Expr.Binary) recursion.getValue()).getLeft();
+        Assertions.assertEquals(BigInteger.valueOf(55), new Interpreter(new Scope(null)).visit(ast).getValue());
+        Assertions.assertEquals(87, site.getCache().getHits());
+        Assertions.assertEquals(1, site.getCache().getMisses());
+        Assertions.assertEquals(BigInteger.valueOf(55), new Interpreter(new Scope(null)).visit(ast).getValue());
+        Assertions.assertEquals(174, site.getCache().getHits());
+        Assertions.assertEquals(2, site.getCache().getMisses());
+    }
+
+    @Test
+    void testCallSiteCacheIsolation() {
+        Ast.Source ast = Programs.fib(10);
+        Ast.Stmt.Return recursion = (Ast.Stmt.Return) ast.getMethods().get(0).getStatements().get(1);
+        Ast.Expr.Function site = (Ast.Expr.Function) ((Ast.Expr.Binary) recursion.getValue()).getLeft();
+        Interpreter.Program program = Interpreter.load(new Scope(null), ast);
+        Assertions.assertEquals(BigInteger.valueOf(55), program.execute().getValue());
+        long misses = site.getCache().getMisses();
+        new Interpreter(new Scope(null));
+        Interpreter.load(new Scope(null), Programs.fib(5));
+        Assertions.assertEquals(BigInteger.valueOf(55), program.execute().getValue());
+        Assertions.assertEquals(misses, site.getCache().getMisses());
+    }
+
+    @Test
+    void testMethodTable() {
+        Environment.Type shape = new Environment.Type("Shape", "Shape", new Scope(Environment.Type.ANY.getScope()));
+        Environment.Type square = new Environment.Type("Square", "Square", new Scope(shape.getScope()));
+        shape.defineMethod("scale", "scale", Arrays.asList(shape, Environment.Type.INTEGER), Environment.Type.INTEGER,
+                (receiver, args) -> Environment.create(((BigInteger) receiver.getValue()).multiply((BigInteger) args.get(0).getValue())));
+        Scope scope = new Scope(null);
+        scope.defineVariable("square", new Environment.PlcObject(square, new Scope(null), BigInteger.valueOf(3)));
+        // square.scale(2)
+        Ast.Expr.Function call = new Ast.Expr.Function(Optional.of(Programs.access("square")), "scale", Arrays.asList(Programs.literal(2)));
+        Assertions.assertEquals(BigInteger.valueOf(6), new Interpreter(scope).visit(call).getValue());
+        square.defineMethod("scale", "scale", Arrays.asList(square, Environment.Type.INTEGER), Environment.Type.INTEGER,
+                (receiver, args) -> Environment.create(BigInteger.ZERO));
+        Assertions.assertEquals(BigInteger.ZERO, new Interpreter(scope).visit(call).getValue());
+        Assertions.assertNull(square.getMethod(Environment.getMethodId("scale", 2)));
+        Assertions.assertThrows(RuntimeException.class, () -> square.getMethod("scale", 2));
+        // a method defined on the supertype afterwards drops the subtype's table
+        shape.defineMethod("area", "area", Arrays.asList(shape), Environment.Type.INTEGER,
+                (receiver, args) -> Environment.create(((BigInteger) receiver.getValue()).pow(2)));
+        Ast.Expr.Function area = new Ast.Expr.Function(Optional.of(Programs.access("square")), "area", Arrays.asList());
+        Assertions.assertEquals(BigInteger.valueOf(9), new Interpreter(scope).visit(area).getValue());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testInvoker(String test, Ast.Expr.Function call, Object expected) {
+        Scope scope = new Scope(null);
+        scope.defineFunction("zero", () -> Environment.create(BigInteger.ZERO));
+        scope.defineFunction("negate", a -> Environment.create(((BigInteger) a.getValue()).negate()));
+        scope.defineFunction("subtract", (a, b) -> Environment.create(((BigInteger) a.getValue()).subtract((BigInteger) b.getValue())));
+        scope.defineFunction("sum", 4, args -> Environment.create(args.stream().map(arg -> (BigInteger) arg.getValue()).reduce(BigInteger.ZERO, BigInteger::add)));
+        Assertions.assertEquals(expected, new Interpreter(scope).visit(call).getValue());
+    }
+
+    private static Stream<Arguments> testInvoker() {
+        return Stream.of(
+                Arguments.of("Zero Arguments", Programs.call("zero"), BigInteger.ZERO),
+                Arguments.of("One Argument", Programs.call("negate", Programs.literal(2)), BigInteger.valueOf(-2)),
+                Arguments.of("Two Arguments", Programs.call("subtract", Programs.literal(5), Programs.literal(3)), BigInteger.valueOf(2)),
+                Arguments.of("Varargs", Programs.call("sum", Programs.literal(1), Programs.literal(2), Programs.literal(3), Programs.literal(4)), BigInteger.valueOf(10))
+        );
+    }
+
+    @Test
+    void testShapeCache() {
+        // object.x
+        Ast.Expr.Access access = new Ast.Expr.Access(Optional.of(Programs.access("object")), "x");
+        Environment.PlcObject[] objects = new Environment.PlcObject[ShapeCache.LIMIT + 2];
+        for (int i = 0; i < objects.length; i++) {
+            Scope fields = new Scope(null);
+            for (int j = 0; j < i; j++) {
+                fields.defineVariable("y" + j, Environment.NIL);
+            }
+            fields.defineVariable("x", Environment.create(BigInteger.valueOf(i)));
+            objects[i] = new Environment.PlcObject(fields, BigInteger.ZERO);
+        }
+        Scope twinFields = new Scope(null);
+        twinFields.defineVariable("x", Environment.create(BigInteger.TEN));
+        Environment.PlcObject twin = new Environment.PlcObject(twinFields, BigInteger.ZERO);
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertEquals(BigInteger.ZERO, evaluate(access, objects[0]));
+            Assertions.assertEquals(BigInteger.TEN, evaluate(access, twin));
+        }
+        Assertions.assertSame(objects[0].getShape(), twin.getShape());
+        Assertions.assertEquals(3, access.getCache().getHits());
+        // shapes follow the order fields are defined in, not accessed in
+        Scope otherFields = new Scope(null);
+        otherFields.defineVariable("y0", Environment.NIL);
+        otherFields.defineVariable("x", Environment.NIL);
+        Environment.PlcObject other = new Environment.PlcObject(otherFields, BigInteger.ZERO);
+        other.getField("x");
+        Assertions.assertSame(objects[1].getShape(), other.getShape());
+        // object.x = 5;
+        Scope scope = new Scope(null);
+        scope.defineVariable("object", twin);
+        new Interpreter(scope).visit(new Ast.Stmt.Assignment(access, Programs.literal(5)));
+        Assertions.assertEquals(BigInteger.valueOf(5), evaluate(access, twin));
+        for (int i = 0; i < objects.length; i++) {
+            Assertions.assertEquals(BigInteger.valueOf(i), evaluate(access, objects[i]));
+        }
+        Assertions.assertTrue(access.getCache().isMegamorphic());
+    }
+
+    private static Object evaluate(Ast.Expr expression, Environment.PlcObject object) {
+        Scope scope = new Scope(null);
+        scope.defineVariable("object", object);
+        return new Interpreter(scope).visit(expression).getValue();
+    }
+
+    @Test
+    void testSharedProgram() throws Exception {
+        // VAR count = 0; DEF main() DO count = count + 1; RETURN fib(15) + count; END
+        Ast.Source fib = Programs.fib(15);
+        List<Ast.Method> methods = new ArrayList<>(fib.getMethods());
+        methods.set(methods.size() - 1, Programs.method("main", Arrays.asList(),
+                Programs.assign("count", Programs.binary("+", Programs.access("count"), Programs.literal(1))),
+                new Ast.Stmt.Return(Programs.binary("+", Programs.call("fib", Programs.literal(15)), Programs.access("count")))
+        ));
+        Interpreter.Program program = Interpreter.load(new Scope(null), new Ast.Source(
+                Arrays.asList(new Ast.Field("count", Optional.of(Programs.literal(0)))), methods));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Environment.PlcObject>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> program.execute()));
+            }
+            for (Future<Environment.PlcObject> result : results) {
+                Assertions.assertEquals(BigInteger.valueOf(611), result.get().getValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testBudget() throws Exception {
+        Interpreter.Program program = Interpreter.load(new Scope(null), Programs.loop(1_000));
+        Interpreter context = program.newContext();
+        context.setBudget(new Budget(100, 0, null));
+        Assertions.assertThrows(Budget.ExhaustedException.class, () -> program.execute(context));
+        context.setBudget(new Budget(10_000, 0, null));
+        Assertions.assertEquals(BigInteger.valueOf(832_833), program.execute(context).getValue());
+
+        Budget budget = new Budget(0, 0, null);
+        Interpreter.Program spin = Interpreter.load(new Scope(null), Programs.spin());
+        Interpreter spinning = spin.newContext();
+        spinning.setBudget(budget);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Environment.PlcObject> result = executor.submit(() -> spin.execute(spinning));
+            Thread.sleep(20);
+            budget.cancel();
+            ExecutionException exception = Assertions.assertThrows(ExecutionException.class, result::get);
+            Assertions.assertTrue(exception.getCause() instanceof Budget.ExhaustedException);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testMemoryLimits() {
+        if (!Budget.isMemoryAccountingSupported()) {
+            return;
+        }
+        Interpreter.Program program = Interpreter.load(new Scope(null), Programs.grow());
+        Interpreter context = program.newContext();
+        Budget budget = new Budget(0, 0, null);
+        budget.setMemoryLimits(1 << 20, 16 << 20);
+        context.setBudget(budget);
+        Budget.ExhaustedException exception = Assertions.assertThrows(Budget.ExhaustedException.class, () -> program.execute(context));
+        Assertions.assertTrue(exception.getMessage().contains("memory"));
+        Assertions.assertTrue(budget.isThrottled());
+        Assertions.assertTrue(budget.getAllocated() >= 16 << 20);
+
+        Interpreter.Program loop = Interpreter.load(new Scope(null), Programs.loop(1_000));
+        Interpreter counted = loop.newContext();
+        Budget generous = new Budget(0, 0, null);
+        generous.setMemoryLimits(0, 1 << 30);
+        counted.setBudget(generous);
+        Assertions.assertEquals(BigInteger.valueOf(832_833), loop.execute(counted).getValue());
+        Assertions.assertTrue(generous.getAllocated() > 0);
+        Assertions.assertTrue(!generous.isThrottled());
+
+        // DEF main() DO
+        //     PARALLEL FOR value IN values DO
+        //         LET text = ""; LET i = 0;
+        //         WHILE i < 1000 DO text = text + "x"; i = i + 1; END
+        //     END
+        // END
+        Interpreter.Program parallel = Interpreter.load(Programs.values(IntStream.rangeClosed(1, 1_000).toArray()), Programs.source(
+                Programs.method("main", Arrays.asList(), new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(
+                        new Ast.Stmt.Declaration("text", Optional.of(Programs.literal(""))),
+                        new Ast.Stmt.Declaration("i", Optional.of(Programs.literal(0))),
+                        new Ast.Stmt.While(Programs.binary("<", Programs.access("i"), Programs.literal(1_000)), Arrays.asList(
+                                Programs.assign("text", Programs.binary("+", Programs.access("text"), Programs.literal("x"))),
+                                Programs.assign("i", Programs.binary("+", Programs.access("i"), Programs.literal(1)))
+                        ))
+                ), true))
+        ));
+        Interpreter forked = parallel.newContext();
+        Budget shared = new Budget(0, 0, null);
+        shared.setMemoryLimits(0, 16 << 20);
+        forked.setBudget(shared);
+        Assertions.assertThrows(Budget.ExhaustedException.class, () -> parallel.execute(forked));
+        Assertions.assertTrue(shared.getAllocated() >= 16 << 20);
+    }
+
+    @Test
+    void testSharedGlobals() throws Exception {
+        Interpreter.Program program = Interpreter.loadShared(new Scope(null), Programs.counter(1_000));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Environment.PlcObject>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> program.execute()));
+            }
+            BigInteger max = BigInteger.ZERO;
+            for (Future<Environment.PlcObject> result : results) {
+                max = max.max((BigInteger) result.get().getValue());
+            }
+            Assertions.assertEquals(BigInteger.valueOf(16_000), max);
+        } finally {
+            executor.shutdown();
+        }
+        Interpreter.Program isolated = Interpreter.load(new Scope(null), Programs.counter(1_000));
+        Assertions.assertEquals(BigInteger.valueOf(1_000), isolated.execute().getValue());
+        Assertions.assertEquals(BigInteger.valueOf(1_000), isolated.execute().getValue());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testRange(String test, Ast.Source ast, String expected) {
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(ast).getValue());
+        Assertions.assertEquals(expected, Interpreter.load(new Scope(null), ast).execute().getValue());
+    }
+
+    private static Stream<Arguments> testRange() {
+        return Stream.of(
+                Arguments.of("Range", Programs.range(Programs.literal(0), Programs.literal(5)), "0,1,2,3,4,"),
+                Arguments.of("Empty", Programs.range(Programs.literal(5), Programs.literal(0)), ""),
+                Arguments.of("Step", Programs.range(Programs.literal(0), Programs.literal(10), Programs.literal(3)), "0,3,6,9,"),
+                Arguments.of("Reverse", Programs.range(Programs.literal(5), Programs.literal(0), Programs.literal(-1)), "5,4,3,2,1,"),
+                Arguments.of("Reverse Step", Programs.range(Programs.literal(10), Programs.literal(0), Programs.literal(-4)), "10,6,2,")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testPrimitiveList(String test, Ast.Source ast, String expected) {
+        Assertions.assertEquals(expected, new Interpreter(new Scope(null)).visit(ast).getValue());
+    }
+
+    private static Stream<Arguments> testPrimitiveList() {
+        return Stream.of(
+                Arguments.of("IntList", Programs.list("IntList", 1, 2, 3), "2,3,33"),
+                Arguments.of("DecimalList", Programs.list("DecimalList", new BigDecimal("0.5"), new BigDecimal("1.25")), "1.25,1.252"),
+                Arguments.of("BooleanList", Programs.list("BooleanList", true, true, false), "true,false,false3")
+        );
+    }
+
+    @Test
+    void testBuffer() {
+        // DEF main() DO
+        //     LET buffer = IntBuffer(6);
+        //     buffer.fill(1); buffer.fill(2, 4, 5); buffer.set(0, 7); buffer.copy(0, 4, buffer, 2);
+        //     LET sum = 0;
+        //     FOR value IN buffer DO sum = sum + value; END
+        //     RETURN sum * 10 + buffer.get(3);
+        // END
+        Ast.Source ast = Programs.source(Programs.method("main", Arrays.asList(),
+                new Ast.Stmt.Declaration("buffer", Optional.of(Programs.call("IntBuffer", Programs.literal(6)))),
+                new Ast.Stmt.Expression(Programs.method(Programs.access("buffer"), "fill", Programs.literal(1))),
+                new Ast.Stmt.Expression(Programs.method(Programs.access("buffer"), "fill", Programs.literal(2), Programs.literal(4), Programs.literal(5))),
+                new Ast.Stmt.Expression(Programs.method(Programs.access("buffer"), "set", Programs.literal(0), Programs.literal(7))),
+                new Ast.Stmt.Expression(Programs.method(Programs.access("buffer"), "copy", Programs.literal(0), Programs.literal(4), Programs.access("buffer"), Programs.literal(2))),
+                new Ast.Stmt.Declaration("sum", Optional.of(Programs.literal(0))),
+                new Ast.Stmt.For("value", Programs.access("buffer"), Arrays.asList(
+                        Programs.assign("sum", Programs.binary("+", Programs.access("sum"), Programs.access("value")))
+                )),
+                new Ast.Stmt.Return(Programs.binary("+", Programs.binary("*", Programs.access("sum"), Programs.literal(10)),
+                        Programs.method(Programs.access("buffer"), "get", Programs.literal(3))))
+        ));
+        Assertions.assertEquals(BigInteger.valueOf(261), new Interpreter(new Scope(null)).visit(ast).getValue());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testVectors(String test, Ast.Expr ast, Object expected) {
+        DecimalBuffer x = new DecimalBuffer(3);
+        DecimalBuffer y = new DecimalBuffer(3);
+        x.fill(0.5);
+        y.fill(1, 3, 2.0);
+        Scope scope = new Scope(null);
+        scope.defineVariable("a", Environment.create(IntList.of(1, 2, 3)));
+        scope.defineVariable("b", Environment.create(IntList.of(4, 0, 6)));
+        scope.defineVariable("x", Environment.create(x));
+        scope.defineVariable("y", Environment.create(y));
+        Assertions.assertEquals(expected, new Interpreter(scope).visit(ast).getValue().toString());
+    }
+
+    private static Stream<Arguments> testVectors() {
+        return Stream.of(
+                Arguments.of("Add", Programs.method(Programs.access("a"), "add", Programs.access("b")), "[5, 2, 9]"),
+                Arguments.of("Mul", Programs.method(Programs.access("a"), "mul", Programs.access("b")), "[4, 0, 18]"),
+                Arguments.of("Sum", Programs.method(Programs.access("a"), "sum"), "6"),
+                Arguments.of("Min", Programs.method(Programs.access("b"), "min"), "0"),
+                Arguments.of("Max", Programs.method(Programs.access("b"), "max"), "6"),
+                Arguments.of("Dot", Programs.method(Programs.access("a"), "dot", Programs.access("b")), "22"),
+                Arguments.of("Less", Programs.method(Programs.access("a"), "less", Programs.access("b")), "[true, false, true]"),
+                Arguments.of("Buffer", Programs.method(Programs.method(Programs.access("x"), "add", Programs.access("y")), "sum"), "5.5"),
+                Arguments.of("Buffer Dot", Programs.method(Programs.access("x"), "dot", Programs.access("y")), "2.0"),
+                Arguments.of("Buffer Less", Programs.method(Programs.access("y"), "less", Programs.access("x")), "[true, false, false]")
+        );
+    }
+
+    @Test
+    void testMap() {
+        // DEF main() DO
+        //     LET map = StringMap(TRUE);
+        //     map.put("b", 2); map.put("a", 1); map.put("c", 3); map.remove("a"); map.put("b", 4);
+        //     LET text = "";
+        //     FOR key IN map DO text = text + key + map.get(key) + ","; END
+        //     RETURN text + map.contains("a") + map.size();
+        // END
+        Ast.Source ast = Programs.source(Programs.method("main", Arrays.asList(),
+                new Ast.Stmt.Declaration("map", Optional.of(Programs.call("StringMap", Programs.literal(true)))),
+                new Ast.Stmt.Expression(Programs.method(Programs.access("map"), "put", Programs.literal("b"), Programs.literal(2))),
+                new Ast.Stmt.Expression(Programs.method(Programs.access("map"), "put", Programs.literal("a"), Programs.literal(1))),
+                new Ast.Stmt.Expression(Programs.method(Programs.access("map"), "put", Programs.literal("c"), Programs.literal(3))),
+                new Ast.Stmt.Expression(Programs.method(Programs.access("map"), "remove", Programs.literal("a"))),
+                new Ast.Stmt.Expression(Programs.method(Programs.access("map"), "put", Programs.literal("b"), Programs.literal(4))),
+                new Ast.Stmt.Declaration("text", Optional.of(Programs.literal(""))),
+                new Ast.Stmt.For("key", Programs.access("map"), Arrays.asList(
+                        Programs.assign("text", Programs.binary("+", Programs.binary("+", Programs.binary("+", Programs.access("text"), Programs.access("key")),
+                                Programs.method(Programs.access("map"), "get", Programs.access("key"))), Programs.literal(",")))
+                )),
+                new Ast.Stmt.Return(Programs.binary("+", Programs.binary("+", Programs.access("text"),
+                        Programs.method(Programs.access("map"), "contains", Programs.literal("a"))), Programs.method(Programs.access("map"), "size")))
+        ));
+        Assertions.assertEquals("b4,c3,false2", new Interpreter(new Scope(null)).visit(ast).getValue());
+    }
+
+    @Test
+    void testForDeclarations() {
+        // DEF main() DO
+        //     LET sum = 0;
+        //     FOR i IN range(0, 4) DO LET square = i * i; sum = sum + square; END
+        //     RETURN sum;
+        // END
+        Ast.Source ast = Programs.source(Programs.method("main", Arrays.asList(),
+                new Ast.Stmt.Declaration("sum", Optional.of(Programs.literal(0))),
+                new Ast.Stmt.For("i", Programs.call("range", Programs.literal(0), Programs.literal(4)), Arrays.asList(
+                        new Ast.Stmt.Declaration("square", Optional.of(Programs.binary("*", Programs.access("i"), Programs.access("i")))),
+                        Programs.assign("sum", Programs.binary("+", Programs.access("sum"), Programs.access("square")))
+                )),
+                new Ast.Stmt.Return(Programs.access("sum"))
+        ));
+        Assertions.assertEquals(BigInteger.valueOf(14), new Interpreter(new Scope(null)).visit(ast).getValue());
+    }
+
+    @Test
+    void testRangeZeroStep() {
+        Ast.Source ast = Programs.range(Programs.literal(0), Programs.literal(5), Programs.literal(0));
+        Assertions.assertThrows(RuntimeException.class, () -> new Interpreter(new Scope(null)).visit(ast));
+    }
+
+    @Test
+    void testParallelFor() {
+        int[] values = IntStream.rangeClosed(1, 1_000).toArray();
+        String text = IntStream.rangeClosed(1, 1_000).mapToObj(Integer::toString).collect(Collectors.joining());
+        Environment.PlcObject result = new Interpreter(Programs.values(values)).visit(Programs.parallel());
+        Assertions.assertEquals(text + 1_001_000, result.getValue());
+        Interpreter.Program program = Interpreter.load(Programs.values(values), Programs.parallel());
+        Assertions.assertEquals(text + 1_001_000, program.execute().getValue());
+        Scope range = new Scope(null);
+        range.defineVariable("values", Environment.create(new Range(1, 1_001, 1)));
+        Assertions.assertEquals(text + 1_001_000, new Interpreter(range).visit(Programs.parallel()).getValue());
+        Assertions.assertEquals(Environment.NIL, new Interpreter(Programs.values()).visit(Programs.source(
+                Programs.method("main", Arrays.asList(), new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(), true))
+        )));
+    }
+
+    @Test
+    void testParallelForRaces() {
+        // DEF main() DO LET total = 0; PARALLEL FOR value IN values DO total = value; END RETURN total; END
+        RuntimeException write = Assertions.assertThrows(RuntimeException.class, () -> new Interpreter(Programs.values(1, 2, 3)).visit(Programs.source(
+                Programs.method("main", Arrays.asList(),
+                        new Ast.Stmt.Declaration("total", Optional.of(Programs.literal(0))),
+                        new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(
+                                Programs.assign("total", Programs.access("value"))
+                        ), true),
+                        new Ast.Stmt.Return(Programs.access("total")))
+        )));
+        Assertions.assertTrue(write.getMessage().contains("reduction"));
+        // VAR count = 0;
+        // DEF touch() DO count = count + 1; END
+        // DEF main() DO PARALLEL FOR value IN values DO touch(); END RETURN count; END
+        Ast.Source touch = new Ast.Source(Arrays.asList(new Ast.Field("count", Optional.of(Programs.literal(0)))), Arrays.asList(
+                Programs.method("touch", Arrays.asList(), Programs.assign("count", Programs.binary("+", Programs.access("count"), Programs.literal(1)))),
+                Programs.method("main", Arrays.asList(),
+                        new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(
+                                new Ast.Stmt.Expression(Programs.call("touch"))
+                        ), true),
+                        new Ast.Stmt.Return(Programs.access("count")))
+        ));
+        RuntimeException call = Assertions.assertThrows(RuntimeException.class, () -> new Interpreter(Programs.values(1, 2, 3)).visit(touch));
+        Assertions.assertTrue(call.getMessage().contains("method"));
+        call = Assertions.assertThrows(RuntimeException.class, () -> Interpreter.load(Programs.values(1, 2, 3), touch).execute());
+        Assertions.assertTrue(call.getMessage().contains("method"));
+    }
+
+    @Test
+    void testParallelForBudget() {
+        // DEF main() DO
+        //     PARALLEL FOR value IN values DO LET i = 0; WHILE i < 1000 DO i = i + 1; END END
+        // END
+        Interpreter.Program program = Interpreter.load(Programs.values(IntStream.rangeClosed(1, 1_000).toArray()), Programs.source(
+                Programs.method("main", Arrays.asList(), new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(
+                        new Ast.Stmt.Declaration("i", Optional.of(Programs.literal(0))),
+                        new Ast.Stmt.While(Programs.binary("<", Programs.access("i"), Programs.literal(1_000)), Arrays.asList(
+                                Programs.assign("i", Programs.binary("+", Programs.access("i"), Programs.literal(1)))
+                        ))
+                ), true))
+        ));
+        Interpreter context = program.newContext();
+        Budget budget = new Budget(100_000, 0, null);
+        context.setBudget(budget);
+        Budget.ExhaustedException exception = Assertions.assertThrows(Budget.ExhaustedException.class, () -> program.execute(context));
+        Assertions.assertTrue(exception.getMessage().contains("steps"));
+        Assertions.assertTrue(budget.getUsed() >= 100_000);
+    }
+
+}
@@ -0,0 +1,68 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public final class JavaSourceCompilerTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSource(String test, Ast.Source ast, Object expected) {
+        Programs.analyze(ast, new Scope(null));
+        JavaSourceCompiler.Program program = new JavaSourceCompiler().compile(ast);
+        Assertions.assertEquals(expected, program.execute().getValue());
+        Assertions.assertEquals(expected, program.execute().getValue());
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Fibonacci", Programs.typedFib(15), BigInteger.valueOf(610)),
+                // LET count: Integer = 0;
+                // DEF bump(): Integer DO count = count + 1; RETURN count; END
+                // DEF main(): Integer DO bump(); RETURN bump() * 10; END
+                Arguments.of("Fields", new Ast.Source(
+                        Arrays.asList(new Ast.Field("count", "Integer", Optional.of(Programs.literal(0)))),
+                        Arrays.asList(
+                                Programs.method("bump", Arrays.asList(), Arrays.asList(), "Integer",
+                                        Programs.assign("count", Programs.binary("+", Programs.access("count"), Programs.literal(1))),
+                                        new Ast.Stmt.Return(Programs.access("count"))
+                                ),
+                                Programs.method("main", Arrays.asList(), Arrays.asList(), "Integer",
+                                        new Ast.Stmt.Expression(Programs.call("bump")),
+                                        new Ast.Stmt.Return(Programs.binary("*", Programs.call("bump"), Programs.literal(10)))
+                                )
+                        )
+                ), BigInteger.valueOf(20))
+        );
+    }
+
+    @Test
+    void testCache() {
+        JavaSourceCompiler.Program first = new JavaSourceCompiler().compile(Programs.analyze(Programs.typedFib(10), new Scope(null)));
+        int size = JavaSourceCompiler.getCacheSize();
+        JavaSourceCompiler.Program second = new JavaSourceCompiler().compile(Programs.analyze(Programs.typedFib(10), new Scope(null)));
+        Assertions.assertSame(first.getType(), second.getType());
+        Assertions.assertEquals(size, JavaSourceCompiler.getCacheSize());
+        JavaSourceCompiler.clearCache();
+        Assertions.assertEquals(0, JavaSourceCompiler.getCacheSize());
+        JavaSourceCompiler.Program third = new JavaSourceCompiler().compile(Programs.analyze(Programs.typedFib(10), new Scope(null)));
+        Assertions.assertNotSame(first.getType(), third.getType());
+        Assertions.assertEquals(first.execute().getValue(), third.execute().getValue());
+    }
+
+    @Test
+    void testCompileError() {
+        // Generator's entry point requires main to return an Integer.
+        Ast.Source ast = Programs.analyze(Programs.typedMixed(2), new Scope(null));
+        Assertions.assertThrows(RuntimeException.class, () -> new JavaSourceCompiler().compile(ast));
+    }
+
+}
@@ -0,0 +1,88 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public final class JvmCompilerTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSource(String test, Ast.Source ast, Object expected) {
+        Programs.analyze(ast, new Scope(null));
+        Environment.PlcObject interpreted = new Interpreter(new Scope(null)).visit(ast);
+        Environment.PlcObject compiled = new JvmCompiler().compile(ast).execute();
+        Assertions.assertEquals(expected, compiled.getValue());
+        Assertions.assertEquals(interpreted.getValue(), compiled.getValue());
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Fibonacci", Programs.typedFib(15), BigInteger.valueOf(610)),
+                Arguments.of("Mixed", Programs.typedMixed(6), "n3n4n51.68753"),
+                // DEF main(): Decimal DO RETURN 0.1 + 0.2; END
+                Arguments.of("Decimal", Programs.source(Programs.method("main", Arrays.asList(), Arrays.asList(), "Decimal",
+                        new Ast.Stmt.Return(Programs.binary("+", Programs.literal(new BigDecimal("0.1")), Programs.literal(new BigDecimal("0.2"))))
+                )), new BigDecimal(0.1 + 0.2)),
+                // DEF main(): Integer DO LET list = IntList(); list.append(2); list.append(3); RETURN list.sum() * 10 + list.length(); END
+                Arguments.of("Receiver Method", Programs.source(Programs.method("main", Arrays.asList(), Arrays.asList(), "Integer",
+                        new Ast.Stmt.Declaration("list", Optional.of(Programs.call("IntList"))),
+                        new Ast.Stmt.Expression(Programs.method(Programs.access("list"), "append", Programs.literal(2))),
+                        new Ast.Stmt.Expression(Programs.method(Programs.access("list"), "append", Programs.literal(3))),
+                        new Ast.Stmt.Return(Programs.binary("+", Programs.binary("*", Programs.method(Programs.access("list"), "sum"), Programs.literal(10)),
+                                Programs.method(Programs.access("list"), "length")))
+                )), BigInteger.valueOf(52))
+        );
+    }
+
+    @Test
+    void testForLoop() {
+        Ast.Source ast = Programs.source(Programs.method("main", Arrays.asList(), Arrays.asList(), "Integer",
+                new Ast.Stmt.Declaration("total", Optional.of("Integer"), Optional.of(Programs.literal(0))),
+                new Ast.Stmt.For("value", Programs.access("values"), Arrays.asList(
+                        new Ast.Stmt.If(Programs.binary("==", Programs.access("value"), Programs.literal(3)), Arrays.asList(
+                                new Ast.Stmt.Return(Programs.access("total"))
+                        ), Arrays.asList()),
+                        Programs.assign("total", Programs.binary("+", Programs.access("total"), Programs.access("value")))
+                )),
+                new Ast.Stmt.Return(Programs.access("total"))
+        ));
+        Scope scope = new Scope(null);
+        scope.defineVariable("values", "values", Environment.Type.INTEGER_ITERABLE, Programs.values(4, 6, 3, 8).lookupVariable("values").getValue());
+        Programs.analyze(ast, scope);
+        Assertions.assertEquals(BigInteger.valueOf(10), new JvmCompiler().compile(ast).execute().getValue());
+    }
+
+    @Test
+    void testProgramReuse() {
+        JvmCompiler.Program program = new JvmCompiler().compile(Programs.analyze(Programs.typedMixed(4), new Scope(null)));
+        Assertions.assertEquals(program.execute().getValue(), program.execute().getValue());
+    }
+
+    @Test
+    void testUnsupportedField() {
+        // DEF main() DO LET text = "abc"; text.length = 1; END
+        Ast.Source ast = Programs.source(Programs.method("main", Arrays.asList(),
+                new Ast.Stmt.Declaration("text", Optional.of(Programs.literal("abc"))),
+                new Ast.Stmt.Assignment(new Ast.Expr.Access(Optional.of(Programs.access("text")), "length"), Programs.literal(1))
+        ));
+        Programs.analyze(ast, new Scope(null));
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> new JvmCompiler().compile(ast));
+        Assertions.assertEquals("Field assignment is not supported by the JVM backend.", exception.getMessage());
+    }
+
+    @Test
+    void testMissingMain() {
+        Ast.Source ast = Programs.source(Programs.method("other", Arrays.asList()));
+        Assertions.assertThrows(RuntimeException.class, () -> new JvmCompiler().compile(ast));
+    }
+
+}
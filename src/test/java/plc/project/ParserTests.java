@@ -8,6 +8,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -216,6 +217,26 @@ final class ParserTests {
                                 new Ast.Expr.Access(Optional.empty(), "list"),
                                 Arrays.asList(new Ast.Stmt.Expression(new Ast.Expr.Access(Optional.empty(), "stmt")))
                         )
+                ),
+                Arguments.of("Parallel For",
+                        Arrays.asList(
+                                //PARALLEL FOR elem IN list DO stmt; END
+                                new Token(Token.Type.IDENTIFIER, "PARALLEL", 0),
+                                new Token(Token.Type.IDENTIFIER, "FOR", 9),
+                                new Token(Token.Type.IDENTIFIER, "elem", 13),
+                                new Token(Token.Type.IDENTIFIER, "IN", 18),
+                                new Token(Token.Type.IDENTIFIER, "list", 21),
+                                new Token(Token.Type.IDENTIFIER, "DO", 26),
+                                new Token(Token.Type.IDENTIFIER, "stmt", 29),
+                                new Token(Token.Type.OPERATOR, ";", 33),
+                                new Token(Token.Type.IDENTIFIER, "END", 35)
+                        ),
+                        new Ast.Stmt.For(
+                                "elem",
+                                new Ast.Expr.Access(Optional.empty(), "list"),
+                                Arrays.asList(new Ast.Stmt.Expression(new Ast.Expr.Access(Optional.empty(), "stmt"))),
+                                true
+                        )
                 )
         );
     }
@@ -542,6 +563,48 @@ final class ParserTests {
         test(input, expected, Parser::parseSource);
     }
 
+    @Test
+    void testDeepNesting() {
+        // ((((...(expr)...))))
+        int depth = 1_000_000;
+        List<Token> tokens = new ArrayList<>();
+        for (int i = 0; i < depth; i++) {
+            tokens.add(new Token(Token.Type.OPERATOR, "(", i));
+        }
+        tokens.add(new Token(Token.Type.IDENTIFIER, "expr", depth));
+        for (int i = 0; i < depth; i++) {
+            tokens.add(new Token(Token.Type.OPERATOR, ")", depth + 4 + i));
+        }
+        Ast.Expr expr = new Parser(tokens).parseExpression();
+        for (int i = 0; i < depth; i++) {
+            expr = ((Ast.Expr.Group) expr).getExpression();
+        }
+        Assertions.assertEquals(new Ast.Expr.Access(Optional.empty(), "expr"), expr);
+    }
+
+    @Test
+    void testLongOperatorChain() {
+        // expr + expr * expr + ... + expr * expr
+        int length = 1_000_000;
+        List<Token> tokens = new ArrayList<>();
+        tokens.add(new Token(Token.Type.IDENTIFIER, "expr", 0));
+        for (int i = 0; i < length; i++) {
+            tokens.add(new Token(Token.Type.OPERATOR, "+", 0));
+            tokens.add(new Token(Token.Type.IDENTIFIER, "expr", 0));
+            tokens.add(new Token(Token.Type.OPERATOR, "*", 0));
+            tokens.add(new Token(Token.Type.IDENTIFIER, "expr", 0));
+        }
+        Ast.Expr expr = new Parser(tokens).parseExpression();
+        Ast.Expr.Access access = new Ast.Expr.Access(Optional.empty(), "expr");
+        for (int i = 0; i < length; i++) {
+            Ast.Expr.Binary binary = (Ast.Expr.Binary) expr;
+            Assertions.assertEquals("+", binary.getOperator());
+            Assertions.assertEquals(new Ast.Expr.Binary("*", access, access), binary.getRight());
+            expr = binary.getLeft();
+        }
+        Assertions.assertEquals(access, expr);
+    }
+
     /**
      * Standard test function. If expected is null, a ParseException is expected
      * to be thrown (not used in the provided tests).
@@ -0,0 +1,386 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Sample programs shared by the execution engine tests and benchmarks. The
+ * ASTs are built directly (as in the other tests) and are not analyzed.
+ */
+final class Programs {
+
+    private Programs() {}
+
+    /**
+     * DEF fib(n) DO
+     *     IF n <= 1 DO RETURN n; END
+     *     RETURN fib(n - 1) + fib(n - 2);
+     * END
+     * DEF main() DO RETURN fib(N); END
+     */
+    static Ast.Source fib(int n) {
+        return source(
+                method("fib", Arrays.asList("n"),
+                        new Ast.Stmt.If(binary("<=", access("n"), literal(1)), Arrays.asList(
+                                new Ast.Stmt.Return(access("n"))
+                        ), Arrays.asList()),
+                        new Ast.Stmt.Return(binary("+",
+                                call("fib", binary("-", access("n"), literal(1))),
+                                call("fib", binary("-", access("n"), literal(2)))
+                        ))
+                ),
+                method("main", Arrays.asList(),
+                        new Ast.Stmt.Return(call("fib", literal(n)))
+                )
+        );
+    }
+
+    /**
+     * DEF main() DO
+     *     LET i = 0; LET sum = 0;
+     *     WHILE i < N DO sum = sum + i * 2 - i / 3; i = i + 1; END
+     *     RETURN sum;
+     * END
+     */
+    static Ast.Source loop(int n) {
+        return source(
+                method("main", Arrays.asList(),
+                        new Ast.Stmt.Declaration("i", Optional.of(literal(0))),
+                        new Ast.Stmt.Declaration("sum", Optional.of(literal(0))),
+                        new Ast.Stmt.While(binary("<", access("i"), literal(n)), Arrays.asList(
+                                assign("sum", binary("-",
+                                        binary("+", access("sum"), binary("*", access("i"), literal(2))),
+                                        binary("/", access("i"), literal(3)))),
+                                assign("i", binary("+", access("i"), literal(1)))
+                        )),
+                        new Ast.Stmt.Return(access("sum"))
+                )
+        );
+    }
+
+    /**
+     * DEF main() DO WHILE TRUE DO END RETURN NIL; END
+     */
+    static Ast.Source spin() {
+        return source(
+                method("main", Arrays.asList(),
+                        new Ast.Stmt.While(literal(true), Arrays.asList()),
+                        new Ast.Stmt.Return(literal(null))
+                )
+        );
+    }
+
+    /**
+     * DEF main() DO LET text = ""; WHILE TRUE DO text = text + "x"; END RETURN text; END
+     */
+    static Ast.Source grow() {
+        return source(
+                method("main", Arrays.asList(),
+                        new Ast.Stmt.Declaration("text", Optional.of(literal(""))),
+                        new Ast.Stmt.While(literal(true), Arrays.asList(
+                                assign("text", binary("+", access("text"), literal("x")))
+                        )),
+                        new Ast.Stmt.Return(access("text"))
+                )
+        );
+    }
+
+    /**
+     * LET count = 0;
+     * DEF main() DO
+     *     LET i = 0;
+     *     WHILE i < N DO count = count + 1; i = i + 1; END
+     *     RETURN count;
+     * END
+     */
+    static Ast.Source counter(int n) {
+        return new Ast.Source(
+                Arrays.asList(new Ast.Field("count", Optional.of(literal(0)))),
+                Arrays.asList(method("main", Arrays.asList(),
+                        new Ast.Stmt.Declaration("i", Optional.of(literal(0))),
+                        new Ast.Stmt.While(binary("<", access("i"), literal(n)), Arrays.asList(
+                                assign("count", binary("+", access("count"), literal(1))),
+                                assign("i", binary("+", access("i"), literal(1)))
+                        )),
+                        new Ast.Stmt.Return(access("count"))
+                ))
+        );
+    }
+
+    /**
+     * LET prefix = "n";
+     * LET count = 0;
+     * DEF label(value) DO count = count + 1; RETURN prefix + value; END
+     * DEF main() DO
+     *     LET text = "";
+     *     LET x = 0.5;
+     *     LET i = 0;
+     *     WHILE i != N DO
+     *         IF i >= N / 2 AND TRUE DO text = text + label(i); ELSE x = x * 1.5; END
+     *         i = i + 1;
+     *     END
+     *     RETURN text + x + count;
+     * END
+     */
+    static Ast.Source mixed(int n) {
+        return new Ast.Source(
+                Arrays.asList(
+                        new Ast.Field("prefix", Optional.of(literal("n"))),
+                        new Ast.Field("count", Optional.of(literal(0)))
+                ),
+                Arrays.asList(
+                        method("label", Arrays.asList("value"),
+                                assign("count", binary("+", access("count"), literal(1))),
+                                new Ast.Stmt.Return(binary("+", access("prefix"), access("value")))
+                        ),
+                        method("main", Arrays.asList(),
+                                new Ast.Stmt.Declaration("text", Optional.of(literal(""))),
+                                new Ast.Stmt.Declaration("x", Optional.of(literal(new BigDecimal("0.5")))),
+                                new Ast.Stmt.Declaration("i", Optional.of(literal(0))),
+                                new Ast.Stmt.While(binary("!=", access("i"), literal(n)), Arrays.asList(
+                                        new Ast.Stmt.If(binary("AND",
+                                                binary(">=", access("i"), binary("/", literal(n), literal(2))),
+                                                literal(true)
+                                        ), Arrays.asList(
+                                                assign("text", binary("+", access("text"), call("label", access("i"))))
+                                        ), Arrays.asList(
+                                                assign("x", binary("*", access("x"), literal(new BigDecimal("1.5"))))
+                                        )),
+                                        assign("i", binary("+", access("i"), literal(1)))
+                                )),
+                                new Ast.Stmt.Return(binary("+", binary("+", access("text"), access("x")), access("count")))
+                        )
+                )
+        );
+    }
+
+    /**
+     * DEF main() DO
+     *     LET total = 0;
+     *     FOR value IN values DO
+     *         IF value == 3 DO RETURN total; END
+     *         total = total + value;
+     *     END
+     *     RETURN total;
+     * END
+     *
+     * Where {@code values} is an iterable defined by {@link #values(int...)}.
+     */
+    static Ast.Source iterate() {
+        return source(
+                method("main", Arrays.asList(),
+                        new Ast.Stmt.Declaration("total", Optional.of(literal(0))),
+                        new Ast.Stmt.For("value", access("values"), Arrays.asList(
+                                new Ast.Stmt.If(binary("==", access("value"), literal(3)), Arrays.asList(
+                                        new Ast.Stmt.Return(access("total"))
+                                ), Arrays.asList()),
+                                assign("total", binary("+", access("total"), access("value")))
+                        )),
+                        new Ast.Stmt.Return(access("total"))
+                )
+        );
+    }
+
+    /**
+     * DEF main() DO
+     *     LET total = 0;
+     *     LET text = "";
+     *     LET scale = 2;
+     *     PARALLEL FOR value IN values DO
+     *         total = total + value * scale;
+     *         text = text + value;
+     *     END
+     *     RETURN text + total;
+     * END
+     *
+     * Where {@code values} is an iterable defined by {@link #values(int...)}.
+     */
+    static Ast.Source parallel() {
+        return source(
+                method("main", Arrays.asList(),
+                        new Ast.Stmt.Declaration("total", Optional.of(literal(0))),
+                        new Ast.Stmt.Declaration("text", Optional.of(literal(""))),
+                        new Ast.Stmt.Declaration("scale", Optional.of(literal(2))),
+                        new Ast.Stmt.For("value", access("values"), Arrays.asList(
+                                assign("total", binary("+", access("total"), binary("*", access("value"), access("scale")))),
+                                assign("text", binary("+", access("text"), access("value")))
+                        ), true),
+                        new Ast.Stmt.Return(binary("+", access("text"), access("total")))
+                )
+        );
+    }
+
+    /**
+     * DEF main() DO
+     *     LET text = "";
+     *     FOR i IN range(ARGUMENTS) DO text = text + i + ","; END
+     *     RETURN text;
+     * END
+     */
+    static Ast.Source range(Ast.Expr... arguments) {
+        return source(
+                method("main", Arrays.asList(),
+                        new Ast.Stmt.Declaration("text", Optional.of(literal(""))),
+                        new Ast.Stmt.For("i", call("range", arguments), Arrays.asList(
+                                assign("text", binary("+", binary("+", access("text"), access("i")), literal(",")))
+                        )),
+                        new Ast.Stmt.Return(access("text"))
+                )
+        );
+    }
+
+    /**
+     * DEF main() DO
+     *     LET list = CONSTRUCTOR();
+     *     list.append(VALUE); ...
+     *     list.set(0, LAST VALUE);
+     *     LET text = "";
+     *     FOR value IN list.slice(1, list.length()) DO text = text + value + ","; END
+     *     RETURN text + list.get(0) + list.length();
+     * END
+     */
+    static Ast.Source list(String constructor, Object... values) {
+        List<Ast.Stmt> statements = new ArrayList<>();
+        statements.add(new Ast.Stmt.Declaration("list", Optional.of(call(constructor))));
+        for (Object value : values) {
+            statements.add(new Ast.Stmt.Expression(method(access("list"), "append", literal(value))));
+        }
+        statements.add(new Ast.Stmt.Expression(method(access("list"), "set", literal(0), literal(values[values.length - 1]))));
+        statements.add(new Ast.Stmt.Declaration("text", Optional.of(literal(""))));
+        statements.add(new Ast.Stmt.For("value", method(access("list"), "slice", literal(1), method(access("list"), "length")), Arrays.asList(
+                assign("text", binary("+", binary("+", access("text"), access("value")), literal(",")))
+        )));
+        statements.add(new Ast.Stmt.Return(binary("+", binary("+", access("text"), method(access("list"), "get", literal(0))), method(access("list"), "length"))));
+        return source(new Ast.Method("main", Arrays.asList(), statements));
+    }
+
+    /**
+     * Returns a scope defining the iterable {@code values} for {@link #iterate()}.
+     */
+    static Scope values(int... values) {
+        List<Environment.PlcObject> elements = new ArrayList<>();
+        for (int value : values) {
+            elements.add(Environment.create(BigInteger.valueOf(value)));
+        }
+        Scope scope = new Scope(null);
+        scope.defineVariable("values", Environment.create(elements));
+        return scope;
+    }
+
+    /**
+     * {@link #fib(int)} with type annotations, for engines that require an
+     * analyzed source.
+     */
+    static Ast.Source typedFib(int n) {
+        return source(
+                method("fib", Arrays.asList("n"), Arrays.asList("Integer"), "Integer",
+                        new Ast.Stmt.If(binary("<=", access("n"), literal(1)), Arrays.asList(
+                                new Ast.Stmt.Return(access("n"))
+                        ), Arrays.asList()),
+                        new Ast.Stmt.Return(binary("+",
+                                call("fib", binary("-", access("n"), literal(1))),
+                                call("fib", binary("-", access("n"), literal(2)))
+                        ))
+                ),
+                method("main", Arrays.asList(), Arrays.asList(), "Integer",
+                        new Ast.Stmt.Return(call("fib", literal(n)))
+                )
+        );
+    }
+
+    /**
+     * {@link #mixed(int)} with type annotations.
+     */
+    static Ast.Source typedMixed(int n) {
+        return new Ast.Source(
+                Arrays.asList(
+                        new Ast.Field("prefix", "String", Optional.of(literal("n"))),
+                        new Ast.Field("count", "Integer", Optional.of(literal(0)))
+                ),
+                Arrays.asList(
+                        method("label", Arrays.asList("value"), Arrays.asList("Integer"), "String",
+                                assign("count", binary("+", access("count"), literal(1))),
+                                new Ast.Stmt.Return(binary("+", access("prefix"), access("value")))
+                        ),
+                        method("main", Arrays.asList(), Arrays.asList(), "String",
+                                new Ast.Stmt.Declaration("text", Optional.of("String"), Optional.of(literal(""))),
+                                new Ast.Stmt.Declaration("x", Optional.of("Decimal"), Optional.of(literal(new BigDecimal("0.5")))),
+                                new Ast.Stmt.Declaration("i", Optional.of("Integer"), Optional.of(literal(0))),
+                                new Ast.Stmt.While(binary("!=", access("i"), literal(n)), Arrays.asList(
+                                        new Ast.Stmt.If(binary("AND",
+                                                binary(">=", access("i"), binary("/", literal(n), literal(2))),
+                                                literal(true)
+                                        ), Arrays.asList(
+                                                assign("text", binary("+", access("text"), call("label", access("i"))))
+                                        ), Arrays.asList(
+                                                assign("x", binary("*", access("x"), literal(new BigDecimal("1.5"))))
+                                        )),
+                                        assign("i", binary("+", access("i"), literal(1)))
+                                )),
+                                new Ast.Stmt.Return(binary("+", binary("+", access("text"), access("x")), access("count")))
+                        )
+                )
+        );
+    }
+
+    /**
+     * Analyzes the source with the given parent scope and returns it.
+     */
+    static Ast.Source analyze(Ast.Source ast, Scope parent) {
+        new Analyzer(parent).visit(ast);
+        return ast;
+    }
+
+    /**
+     * Returns {@code (((1 + 1) + 1) + ... + 1)} with the given number of
+     * nested groups, built without recursion.
+     */
+    static Ast.Expr nested(int depth) {
+        Ast.Expr expr = literal(1);
+        for (int i = 0; i < depth; i++) {
+            expr = new Ast.Expr.Group(binary("+", expr, literal(1)));
+        }
+        return expr;
+    }
+
+    static Ast.Source source(Ast.Method... methods) {
+        return new Ast.Source(Arrays.asList(), Arrays.asList(methods));
+    }
+
+    static Ast.Method method(String name, List<String> parameters, Ast.Stmt... statements) {
+        return new Ast.Method(name, parameters, Arrays.asList(statements));
+    }
+
+    static Ast.Method method(String name, List<String> parameters, List<String> types, String returns, Ast.Stmt... statements) {
+        return new Ast.Method(name, parameters, types, Optional.of(returns), Arrays.asList(statements));
+    }
+
+    static Ast.Stmt.Assignment assign(String name, Ast.Expr value) {
+        return new Ast.Stmt.Assignment(access(name), value);
+    }
+
+    static Ast.Expr.Literal literal(Object value) {
+        return new Ast.Expr.Literal(value instanceof Integer ? BigInteger.valueOf((Integer) value) : value);
+    }
+
+    static Ast.Expr.Access access(String name) {
+        return new Ast.Expr.Access(Optional.empty(), name);
+    }
+
+    static Ast.Expr.Binary binary(String operator, Ast.Expr left, Ast.Expr right) {
+        return new Ast.Expr.Binary(operator, left, right);
+    }
+
+    static Ast.Expr.Function call(String name, Ast.Expr... arguments) {
+        return new Ast.Expr.Function(Optional.empty(), name, Arrays.asList(arguments));
+    }
+
+    static Ast.Expr.Function method(Ast.Expr receiver, String name, Ast.Expr... arguments) {
+        return new Ast.Expr.Function(Optional.of(receiver), name, Arrays.asList(arguments));
+    }
+
+}
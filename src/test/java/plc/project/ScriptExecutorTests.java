@@ -0,0 +1,102 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public final class ScriptExecutorTests {
+
+    @Test
+    void testExecute() throws Exception {
+        Ast.Source ast = Programs.fib(15);
+        try (ScriptExecutor executor = new ScriptExecutor(new Scope(null), 4, 1_000)) {
+            List<CompletableFuture<Environment.PlcObject>> results = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                results.add(executor.submit(ast));
+            }
+            for (CompletableFuture<Environment.PlcObject> result : results) {
+                Assertions.assertEquals(BigInteger.valueOf(610), result.get().getValue());
+            }
+            ScriptExecutor.Statistics statistics = executor.getStatistics();
+            Assertions.assertEquals(500, statistics.getCompleted());
+            Assertions.assertTrue(statistics.getLatency(50) > 0);
+            Assertions.assertTrue(statistics.getLatency(50) <= statistics.getLatency(99));
+        }
+    }
+
+    @Test
+    void testAdmission() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        try (ScriptExecutor executor = new ScriptExecutor(blocking(latch), 1, 1)) {
+            CompletableFuture<Environment.PlcObject> running = executor.submit(block());
+            CompletableFuture<Environment.PlcObject> queued = executor.submit(block());
+            CompletableFuture<Environment.PlcObject> rejected = executor.submit(block());
+            ExecutionException exception = Assertions.assertThrows(ExecutionException.class, rejected::get);
+            Assertions.assertTrue(exception.getCause() instanceof RejectedExecutionException);
+            latch.countDown();
+            Assertions.assertEquals(Environment.NIL, running.get());
+            Assertions.assertEquals(Environment.NIL, queued.get());
+            Assertions.assertEquals(1, executor.getStatistics().getRejected());
+        }
+    }
+
+    @Test
+    void testDeadline() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        try (ScriptExecutor executor = new ScriptExecutor(blocking(latch), 1, 1)) {
+            CompletableFuture<Environment.PlcObject> running = executor.submit(block());
+            CompletableFuture<Environment.PlcObject> queued = executor.submit(block(), 50, TimeUnit.MILLISECONDS);
+            ExecutionException exception = Assertions.assertThrows(ExecutionException.class, queued::get);
+            Assertions.assertTrue(exception.getCause() instanceof TimeoutException);
+            latch.countDown();
+            Assertions.assertEquals(Environment.NIL, running.get());
+            Assertions.assertEquals(1, executor.getStatistics().getCompleted());
+            Assertions.assertEquals(1, executor.getStatistics().getTimedOut());
+        }
+    }
+
+    @Test
+    void testPreemption() throws Exception {
+        try (ScriptExecutor executor = new ScriptExecutor(new Scope(null), 1, 1)) {
+            CompletableFuture<Environment.PlcObject> spinning = executor.submit(Programs.spin(), 50, TimeUnit.MILLISECONDS);
+            CompletableFuture<Environment.PlcObject> queued = executor.submit(Programs.fib(10));
+            ExecutionException exception = Assertions.assertThrows(ExecutionException.class, spinning::get);
+            Assertions.assertTrue(exception.getCause() instanceof TimeoutException);
+            Assertions.assertEquals(BigInteger.valueOf(55), queued.get(10, TimeUnit.SECONDS).getValue());
+            Budget budget = new Budget(1_000, 0, null);
+            exception = Assertions.assertThrows(ExecutionException.class, executor.submit(Programs.spin(), budget)::get);
+            Assertions.assertTrue(exception.getCause() instanceof Budget.ExhaustedException);
+        }
+    }
+
+    /**
+     * DEF main() DO RETURN block(); END
+     */
+    private static Ast.Source block() {
+        return Programs.source(Programs.method("main", Arrays.asList(), new Ast.Stmt.Return(Programs.call("block"))));
+    }
+
+    private static Scope blocking(CountDownLatch latch) {
+        Scope scope = new Scope(null);
+        scope.defineFunction("block", () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return Environment.NIL;
+        });
+        return scope;
+    }
+
+}
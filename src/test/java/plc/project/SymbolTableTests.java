@@ -0,0 +1,52 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+public final class SymbolTableTests {
+
+    @Test
+    void testIntern() {
+        int symbol = Symbols.intern("symbol");
+        Assertions.assertEquals(symbol, Symbols.intern(new String("symbol")));
+        Assertions.assertTrue(symbol != Symbols.intern("other"));
+        Assertions.assertEquals("symbol", Symbols.getName(symbol));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testTable(String test, int entries, int arities) {
+        SymbolTable<String> table = new SymbolTable<>();
+        for (int i = 0; i < entries; i++) {
+            for (int arity = 0; arity < arities; arity++) {
+                table.put(i, arity, i + "/" + arity);
+            }
+        }
+        table.put(0, 0, "replaced");
+        Assertions.assertEquals(entries * arities, table.size());
+        Assertions.assertEquals("replaced", table.get(0, 0));
+        for (int i = 0; i < entries; i++) {
+            for (int arity = 0; arity < arities; arity++) {
+                if (i != 0 || arity != 0) {
+                    Assertions.assertEquals(i + "/" + arity, table.get(i, arity));
+                }
+            }
+            Assertions.assertNull(table.get(i, arities));
+        }
+        Assertions.assertNull(table.get(entries, 0));
+    }
+
+    private static Stream<Arguments> testTable() {
+        return Stream.of(
+                Arguments.of("Single", 1, 1),
+                Arguments.of("Arities", 4, 8),
+                Arguments.of("Resize", 10_000, 2)
+        );
+    }
+
+}
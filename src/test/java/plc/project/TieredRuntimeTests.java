@@ -0,0 +1,81 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+public final class TieredRuntimeTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSource(String test, Ast.Source ast, Object expected) {
+        TieredRuntime runtime = new TieredRuntime(new Scope(null), 10, Runnable::run);
+        Assertions.assertEquals(expected, runtime.execute(ast).getValue());
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Fibonacci", Programs.fib(15), BigInteger.valueOf(610)),
+                Arguments.of("Loop", Programs.loop(100), BigInteger.valueOf(8283)),
+                Arguments.of("Mixed", Programs.mixed(6), "n3n4n51.68753")
+        );
+    }
+
+    @Test
+    void testInvocationThreshold() {
+        TieredRuntime.Program program = new TieredRuntime(new Scope(null), 100, Runnable::run).load(Programs.fib(15));
+        Assertions.assertEquals(BigInteger.valueOf(610), program.execute().getValue());
+        Assertions.assertTrue(program.getProfile("fib", 1).isCompiled());
+        Assertions.assertEquals(100, program.getProfile("fib", 1).getInvocations());
+        Assertions.assertFalse(program.getProfile("main", 0).isCompiled());
+    }
+
+    @Test
+    void testBackEdgeThreshold() {
+        TieredRuntime.Program program = new TieredRuntime(new Scope(null), 50, Runnable::run).load(Programs.loop(100));
+        Assertions.assertEquals(BigInteger.valueOf(8283), program.execute().getValue());
+        TieredRuntime.Profile main = program.getProfile("main", 0);
+        Assertions.assertEquals(1, main.getInvocations());
+        Assertions.assertEquals(100, main.getBackEdges());
+        Assertions.assertTrue(main.isCompiled());
+        Assertions.assertEquals(BigInteger.valueOf(8283), program.execute().getValue());
+    }
+
+    @Test
+    void testSharedFields() {
+        TieredRuntime.Program program = new TieredRuntime(new Scope(null), 2, Runnable::run).load(Programs.mixed(6));
+        Assertions.assertEquals("n3n4n51.68753", program.execute().getValue());
+        Assertions.assertTrue(program.getProfile("label", 1).isCompiled());
+        Assertions.assertEquals("n3n4n51.68756", program.execute().getValue());
+    }
+
+    @Test
+    void testCompilationFailure() {
+        // DEF main() DO IF FALSE DO RETURN undefined; END RETURN 1; END
+        Ast.Source ast = Programs.source(Programs.method("main", Arrays.asList(),
+                new Ast.Stmt.If(Programs.literal(false), Arrays.asList(
+                        new Ast.Stmt.Return(Programs.access("undefined"))
+                ), Arrays.asList()),
+                new Ast.Stmt.Return(Programs.literal(1))
+        ));
+        TieredRuntime.Program program = new TieredRuntime(new Scope(null), 1, Runnable::run).load(ast);
+        Assertions.assertEquals(BigInteger.ONE, program.execute().getValue());
+        Assertions.assertEquals(BigInteger.ONE, program.execute().getValue());
+        Assertions.assertTrue(program.getProfile("main", 0).isFailed());
+    }
+
+    @Test
+    void testBackgroundCompilation() {
+        TieredRuntime.Program program = new TieredRuntime(new Scope(null)).load(Programs.fib(20));
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(BigInteger.valueOf(6765), program.execute().getValue());
+        }
+    }
+
+}
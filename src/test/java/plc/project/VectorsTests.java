@@ -0,0 +1,119 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public final class VectorsTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testInts(String test, int length) {
+        Random random = new Random(length);
+        int[] left = random.ints(length, -1000, 1000).toArray();
+        int[] right = random.ints(length, -1000, 1000).toArray();
+        IntList leftList = IntList.of(left);
+        IntList rightList = IntList.of(right);
+        IntBuffer leftBuffer = new IntBuffer(length);
+        IntBuffer rightBuffer = new IntBuffer(length);
+        for (int i = 0; i < length; i++) {
+            leftBuffer.set(i, left[i]);
+            rightBuffer.set(i, right[i]);
+        }
+        int[] sum = IntStream.range(0, length).map(i -> left[i] + right[i]).toArray();
+        int[] product = IntStream.range(0, length).map(i -> left[i] * right[i]).toArray();
+        int dot = IntStream.range(0, length).map(i -> left[i] * right[i]).sum();
+        Assertions.assertArrayEquals(sum, leftList.add(rightList).toArray());
+        Assertions.assertArrayEquals(sum, leftBuffer.add(rightBuffer).stream().toArray());
+        Assertions.assertArrayEquals(product, leftList.mul(rightList).toArray());
+        Assertions.assertArrayEquals(product, leftBuffer.mul(rightBuffer).stream().toArray());
+        Assertions.assertEquals(IntStream.of(left).sum(), leftList.sum());
+        Assertions.assertEquals(IntStream.of(left).sum(), leftBuffer.sum());
+        Assertions.assertEquals(IntStream.of(left).min().getAsInt(), leftList.min());
+        Assertions.assertEquals(IntStream.of(left).min().getAsInt(), leftBuffer.min());
+        Assertions.assertEquals(IntStream.of(left).max().getAsInt(), leftList.max());
+        Assertions.assertEquals(IntStream.of(left).max().getAsInt(), leftBuffer.max());
+        Assertions.assertEquals(dot, leftList.dot(rightList));
+        Assertions.assertEquals(dot, leftBuffer.dot(rightBuffer));
+        boolean[] mask = new boolean[length];
+        for (int i = 0; i < length; i++) {
+            mask[i] = left[i] < right[i];
+        }
+        Assertions.assertArrayEquals(mask, leftList.less(rightList).toArray());
+        Assertions.assertArrayEquals(mask, leftBuffer.less(rightBuffer).toArray());
+    }
+
+    private static Stream<Arguments> testInts() {
+        return Stream.of(
+                Arguments.of("Short", 7),
+                Arguments.of("Blocks", 3 * Vectors.BLOCK + 5)
+        );
+    }
+
+    @Test
+    void testDecimals() {
+        double[] values = new Random(0).doubles(Vectors.BLOCK + 3).toArray();
+        DecimalList list = DecimalList.of(values);
+        DecimalBuffer buffer = new DecimalBuffer(values.length);
+        for (int i = 0; i < values.length; i++) {
+            buffer.set(i, values[i]);
+        }
+        double sum = 0;
+        double dot = 0;
+        for (double value : values) {
+            sum += value;
+            dot += value * value;
+        }
+        Assertions.assertEquals(sum, list.sum(), 1e-9);
+        Assertions.assertEquals(sum, buffer.sum(), 1e-9);
+        Assertions.assertEquals(dot, list.dot(list), 1e-9);
+        Assertions.assertEquals(dot, buffer.dot(buffer), 1e-9);
+        Assertions.assertArrayEquals(list.add(list).toArray(), buffer.add(buffer).stream().toArray());
+        Assertions.assertEquals(DoubleStream.of(values).min().getAsDouble(), list.min());
+        Assertions.assertEquals(list.min(), buffer.min());
+        Assertions.assertEquals(DoubleStream.of(values).max().getAsDouble(), list.max());
+        Assertions.assertEquals(list.max(), buffer.max());
+        DecimalList reversed = DecimalList.of(IntStream.range(0, values.length).mapToDouble(i -> values[values.length - 1 - i]).toArray());
+        boolean[] mask = new boolean[values.length];
+        for (int i = 0; i < values.length; i++) {
+            mask[i] = values[i] < values[values.length - 1 - i];
+        }
+        Assertions.assertArrayEquals(mask, list.less(reversed).toArray());
+    }
+
+    @Test
+    void testErrors() {
+        Assertions.assertThrows(RuntimeException.class, () -> IntList.of(1, 2).add(IntList.of(1)));
+        Assertions.assertThrows(RuntimeException.class, () -> new IntBuffer(0).min());
+        Assertions.assertArrayEquals(new int[] {-1, 1 << 30}, IntList.of(Integer.MAX_VALUE, 1 << 15).add(IntList.of(Integer.MIN_VALUE, (1 << 30) - (1 << 15))).toArray());
+    }
+
+    @Test
+    void testWrapping() {
+        // like 100000 * 100000 and repeated + in every engine
+        int[] values = IntStream.range(0, 100).map(i -> 100_000).toArray();
+        IntList list = IntList.of(values);
+        IntBuffer buffer = new IntBuffer(values.length);
+        buffer.fill(100_000);
+        int sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        Assertions.assertEquals(1410065408, list.mul(list).toArray()[99]);
+        Assertions.assertEquals(1410065408, buffer.mul(buffer).get(99));
+        Assertions.assertEquals(sum, list.sum());
+        Assertions.assertEquals(sum, buffer.sum());
+        Assertions.assertEquals(100 * 1410065408, list.dot(list));
+        Assertions.assertEquals(100 * 1410065408, buffer.dot(buffer));
+        Assertions.assertArrayEquals(new int[] {2, Integer.MIN_VALUE}, IntList.of(1, Integer.MAX_VALUE).add(IntList.of(1, 1)).toArray());
+        Assertions.assertArrayEquals(new int[] {1, Integer.MIN_VALUE}, IntList.of(1, 1 << 16).mul(IntList.of(1, 1 << 15)).toArray());
+    }
+
+}
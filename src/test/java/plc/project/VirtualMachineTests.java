@@ -0,0 +1,96 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+public final class VirtualMachineTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSource(String test, Ast.Source ast, Object expected) {
+        Environment.PlcObject interpreted = new Interpreter(new Scope(null)).visit(ast);
+        Bytecode.Program program = new BytecodeCompiler(new Scope(null)).compile(ast);
+        Environment.PlcObject executed = new VirtualMachine().execute(program);
+        Assertions.assertEquals(expected, executed.getValue());
+        Assertions.assertEquals(interpreted.getValue(), executed.getValue());
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Fibonacci", Programs.fib(15), BigInteger.valueOf(610)),
+                Arguments.of("Loop", Programs.loop(100), BigInteger.valueOf(8283)),
+                Arguments.of("Mixed", Programs.mixed(6), "n3n4n51.68753")
+        );
+    }
+
+    @Test
+    void testForLoop() {
+        Bytecode.Program program = new BytecodeCompiler(Programs.values(4, 6, 3, 8)).compile(Programs.iterate());
+        Assertions.assertEquals(BigInteger.valueOf(10), new VirtualMachine().execute(program).getValue());
+    }
+
+    @Test
+    void testDeepRecursion() {
+        // DEF down(n) DO IF n == 0 DO RETURN 0; END RETURN down(n - 1); END
+        Ast.Source ast = Programs.source(
+                Programs.method("down", Arrays.asList("n"),
+                        new Ast.Stmt.If(Programs.binary("==", Programs.access("n"), Programs.literal(0)), Arrays.asList(
+                                new Ast.Stmt.Return(Programs.literal(0))
+                        ), Arrays.asList()),
+                        new Ast.Stmt.Return(Programs.call("down", Programs.binary("-", Programs.access("n"), Programs.literal(1))))
+                ),
+                Programs.method("main", Arrays.asList(), new Ast.Stmt.Return(Programs.call("down", Programs.literal(100_000))))
+        );
+        Bytecode.Program program = new BytecodeCompiler(new Scope(null)).compile(ast);
+        Assertions.assertEquals(BigInteger.ZERO, new VirtualMachine().execute(program).getValue());
+    }
+
+    @Test
+    void testTailCall() {
+        // DEF down(n) DO IF n == 0 DO RETURN 0; END RETURN down(n - 1); END
+        Ast.Source ast = Programs.source(
+                Programs.method("down", Arrays.asList("n"),
+                        new Ast.Stmt.If(Programs.binary("==", Programs.access("n"), Programs.literal(0)), Arrays.asList(
+                                new Ast.Stmt.Return(Programs.literal(0))
+                        ), Arrays.asList()),
+                        new Ast.Stmt.Return(Programs.call("down", Programs.binary("-", Programs.access("n"), Programs.literal(1))))
+                ),
+                Programs.method("main", Arrays.asList(), new Ast.Stmt.Return(Programs.call("down", Programs.literal(1_000_000))))
+        );
+        Bytecode.Program program = new BytecodeCompiler(new Scope(null)).compile(ast);
+        Assertions.assertEquals(BigInteger.ZERO, new VirtualMachine(3).execute(program).getValue());
+    }
+
+    @Test
+    void testMaxDepth() {
+        // DEF count(n) DO IF n == 0 DO RETURN 0; END RETURN count(n - 1) + 1; END
+        Ast.Source ast = Programs.source(
+                Programs.method("count", Arrays.asList("n"),
+                        new Ast.Stmt.If(Programs.binary("==", Programs.access("n"), Programs.literal(0)), Arrays.asList(
+                                new Ast.Stmt.Return(Programs.literal(0))
+                        ), Arrays.asList()),
+                        new Ast.Stmt.Return(Programs.binary("+",
+                                Programs.call("count", Programs.binary("-", Programs.access("n"), Programs.literal(1))),
+                                Programs.literal(1)))
+                ),
+                Programs.method("main", Arrays.asList(), new Ast.Stmt.Return(Programs.call("count", Programs.literal(1_000))))
+        );
+        Bytecode.Program program = new BytecodeCompiler(new Scope(null)).compile(ast);
+        Assertions.assertEquals(BigInteger.valueOf(1_000), new VirtualMachine(1_002).execute(program).getValue());
+        Assertions.assertThrows(RuntimeException.class, () -> new VirtualMachine(1_001).execute(program));
+    }
+
+    @Test
+    void testRegisterReuse() {
+        Bytecode.Program program = new BytecodeCompiler(new Scope(null)).compile(Programs.loop(10));
+        Assertions.assertEquals(4, program.getFunctions().get(0).getRegisters());
+    }
+
+}